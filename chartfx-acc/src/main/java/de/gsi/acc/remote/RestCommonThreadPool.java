@@ -1,20 +1,64 @@
 package de.gsi.acc.remote;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Named, bounded executors for the REST server sub-systems (bulkheads), ie. a flood of e.g. image conversions or
+ * response writes cannot starve the other sub-systems.
+ * <p>
+ * Each executor has a bounded task queue and a rejection policy suited to its tasks, and is instrumented via
+ * {@link ExecutorServiceMetrics} (pool size, active threads, queue depth, task execution and queue latency). The
+ * metrics are registered to the {@link Metrics#globalRegistry global registry} which is also used by Javalin's
+ * {@link io.javalin.plugin.metrics.MicrometerPlugin} (see {@link RestServer}), ie. 'executor.*' metrics with the tag
+ * 'name' = executor name, plus the '{@value #METRIC_REJECTED}' counter.
+ * <p>
+ * The thread counts and queue sizes can be set via the system properties 'rest&lt;Name&gt;ThreadCount' and
+ * 'rest&lt;Name&gt;QueueSize', e.g. 'restImageThreadCount' (N.B. 'restThreadCount' for the common executor).
+ */
 @SuppressWarnings("PMD.DoNotUseThreads") // purpose of this class
 public final class RestCommonThreadPool implements ThreadFactory {
-    private static final int MAX_THREADS = getDefaultThreadCount();
-    private static final int MAX_SCHEDULED_THREADS = getDefaultScheduledThreadCount();
+    private static final Logger LOGGER = LoggerFactory.getLogger(RestCommonThreadPool.class);
+    public static final String METRIC_REJECTED = "executor.rejected";
+    /** general purpose executor, rejects tasks (throws RejectedExecutionException) if saturated */
+    public static final String EXECUTOR_COMMON = "common";
+    /** image conversion and encoding, drops the oldest (ie. most outdated) pending task if saturated */
+    public static final String EXECUTOR_IMAGE = "image";
+    /** asynchronous response writing (e.g. long-polling), executes the task in the submitting thread if saturated */
+    public static final String EXECUTOR_RESPONSE = "response";
+    /** delayed tasks (time-outs, cache recovery), N.B. unbounded queue by design of the {@link ScheduledThreadPoolExecutor} */
+    public static final String EXECUTOR_SCHEDULED = "scheduled";
     private static final ThreadFactory DEFAULT_FACTORY = Executors.defaultThreadFactory();
     private static final RestCommonThreadPool SELF = new RestCommonThreadPool();
-    private static final ExecutorService COMMON_POOL = Executors.newFixedThreadPool(MAX_THREADS, SELF);
-    private static final ScheduledExecutorService SCHEDULED_POOL = Executors.newScheduledThreadPool(MAX_SCHEDULED_THREADS, SELF);
     private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ConcurrentMap<String, ExecutorService> EXECUTORS = new ConcurrentHashMap<>();
+    private static final int MAX_THREADS = getDefaultThreadCount();
+    private static final int MAX_SCHEDULED_THREADS = getDefaultScheduledThreadCount();
+    private static final ExecutorService COMMON_POOL = newExecutor(EXECUTOR_COMMON, MAX_THREADS, getIntProperty("restQueueSize", 1024, 1), new ThreadPoolExecutor.AbortPolicy());
+    private static final ExecutorService IMAGE_POOL = newExecutor(EXECUTOR_IMAGE, getIntProperty("restImageThreadCount", Runtime.getRuntime().availableProcessors(), 1), getIntProperty("restImageQueueSize", 16, 1), new ThreadPoolExecutor.DiscardOldestPolicy());
+    private static final ExecutorService RESPONSE_POOL = newExecutor(EXECUTOR_RESPONSE, getIntProperty("restResponseThreadCount", 16, 1), getIntProperty("restResponseQueueSize", 4096, 1), new ThreadPoolExecutor.CallerRunsPolicy());
+    private static final ScheduledExecutorService SCHEDULED_POOL = newScheduledExecutor(EXECUTOR_SCHEDULED, MAX_SCHEDULED_THREADS);
 
     private RestCommonThreadPool() {
         // helper class
@@ -29,6 +73,9 @@ public final class RestCommonThreadPool implements ThreadFactory {
         return thread;
     }
 
+    /**
+     * @return general purpose executor (see {@link #EXECUTOR_COMMON})
+     */
     public static ExecutorService getCommonPool() {
         return COMMON_POOL;
     }
@@ -37,6 +84,28 @@ public final class RestCommonThreadPool implements ThreadFactory {
         return SCHEDULED_POOL;
     }
 
+    /**
+     * @param name executor name
+     * @return the named executor or {@code null} if no executor with this name exists
+     */
+    public static ExecutorService getExecutor(@NotNull final String name) {
+        return EXECUTORS.get(name);
+    }
+
+    /**
+     * @return unmodifiable map of all named executors
+     */
+    public static Map<String, ExecutorService> getExecutors() {
+        return Collections.unmodifiableMap(EXECUTORS);
+    }
+
+    /**
+     * @return image conversion executor (see {@link #EXECUTOR_IMAGE})
+     */
+    public static ExecutorService getImagePool() {
+        return IMAGE_POOL;
+    }
+
     public static RestCommonThreadPool getInstance() {
         return SELF;
     }
@@ -45,25 +114,124 @@ public final class RestCommonThreadPool implements ThreadFactory {
         return MAX_THREADS;
     }
 
-    private static int getDefaultScheduledThreadCount() {
-        int nthreads = 32;
-        try {
-            nthreads = Integer.parseInt(System.getProperty("restScheduledThreadCount", "32"));
-        } catch (final NumberFormatException e) {
-            // malformed number
+    /**
+     * @return response writing executor (see {@link #EXECUTOR_RESPONSE})
+     */
+    public static ExecutorService getResponsePool() {
+        return RESPONSE_POOL;
+    }
+
+    /**
+     * Creates a new named, bounded and instrumented executor, e.g. for an additional sub-system.
+     *
+     * @param name unique executor name (used for the thread names and the metrics 'name' tag)
+     * @param nThreads number of threads
+     * @param queueSize maximum number of pending tasks
+     * @param rejectionPolicy policy for tasks submitted while the queue is full
+     * @return the instrumented executor
+     */
+    public static ExecutorService newExecutor(@NotNull final String name, final int nThreads, final int queueSize, @NotNull final RejectedExecutionHandler rejectionPolicy) {
+        if (nThreads < 1 || queueSize < 1) {
+            throw new IllegalArgumentException("nThreads = " + nThreads + " and queueSize = " + queueSize + " must be positive");
+        }
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(nThreads, nThreads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), new NamedThreadFactory(name), new LoggingRejectionPolicy(name, rejectionPolicy));
+        executor.allowCoreThreadTimeOut(true); // N.B. idle sub-systems do not keep their threads
+        return register(name, ExecutorServiceMetrics.monitor(Metrics.globalRegistry, executor, name, Tags.empty()));
+    }
+
+    /**
+     * Shuts down a named executor created via {@link #newExecutor}, and unregisters it and its metrics, ie. the name
+     * may be re-used afterwards. N.B. the shared executors cannot be shut down.
+     *
+     * @param name executor name
+     * @return {@code true} if the executor existed
+     */
+    public static boolean shutdownExecutor(@NotNull final String name) {
+        if (EXECUTOR_COMMON.equals(name) || EXECUTOR_IMAGE.equals(name) || EXECUTOR_RESPONSE.equals(name) || EXECUTOR_SCHEDULED.equals(name)) {
+            throw new IllegalArgumentException("shared executor '" + name + "' cannot be shut down");
+        }
+        final ExecutorService executor = EXECUTORS.remove(name);
+        if (executor == null) {
+            return false;
         }
+        executor.shutdown();
+        for (final Meter meter : Metrics.globalRegistry.getMeters()) {
+            if (meter.getId().getName().startsWith("executor") && name.equals(meter.getId().getTag("name"))) {
+                Metrics.globalRegistry.remove(meter);
+            }
+        }
+        return true;
+    }
 
-        return Math.max(32, nthreads);
+    private static int getDefaultScheduledThreadCount() {
+        // N.B. time-out and recovery tasks must not be delayed by each other, ie. at least 32 threads
+        return getIntProperty("restScheduledThreadCount", 32, 32);
     }
 
     private static int getDefaultThreadCount() {
-        int nthreads = 32;
+        // N.B. general purpose tasks may block, ie. at least 32 threads
+        return getIntProperty("restThreadCount", 64, 32);
+    }
+
+    private static int getIntProperty(final String property, final int defaultValue, final int minValue) {
+        int value = defaultValue;
         try {
-            nthreads = Integer.parseInt(System.getProperty("restThreadCount", "64"));
+            value = Integer.parseInt(System.getProperty(property, Integer.toString(defaultValue)));
         } catch (final NumberFormatException e) {
-            // malformed number
+            LOGGER.atWarn().addArgument(property).addArgument(defaultValue).log("malformed number for '{}' using default {}");
         }
+        return Math.max(minValue, value);
+    }
+
+    private static ScheduledExecutorService newScheduledExecutor(final String name, final int nThreads) {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(nThreads, new NamedThreadFactory(name));
+        executor.setRemoveOnCancelPolicy(true); // N.B. cancelled time-outs are removed rather than kept until they expire
+        return register(name, ExecutorServiceMetrics.monitor(Metrics.globalRegistry, executor, name, Tags.empty()));
+    }
+
+    private static <T extends ExecutorService> T register(final String name, final T executor) {
+        if (EXECUTORS.putIfAbsent(name, executor) != null) {
+            executor.shutdown();
+            throw new IllegalArgumentException("executor '" + name + "' already exists");
+        }
+        return executor;
+    }
 
-        return Math.max(32, nthreads);
+    private static class LoggingRejectionPolicy implements RejectedExecutionHandler {
+        private final String name;
+        private final RejectedExecutionHandler policy;
+        private final AtomicInteger rejected = new AtomicInteger();
+
+        private LoggingRejectionPolicy(final String name, final RejectedExecutionHandler policy) {
+            this.name = name;
+            this.policy = policy;
+        }
+
+        @Override
+        public void rejectedExecution(final Runnable task, final ThreadPoolExecutor executor) {
+            final int count = rejected.incrementAndGet();
+            if (Integer.bitCount(count) == 1) { // N.B. log only 1st, 2nd, 4th, 8th, ... occurrence to avoid log floods
+                LOGGER.atWarn().addArgument(name).addArgument(count).addArgument(policy.getClass().getSimpleName()).log("executor '{}' saturated - {} rejected tasks so far, policy: {}");
+            }
+            Metrics.globalRegistry.counter(METRIC_REJECTED, "name", name).increment();
+            policy.rejectedExecution(task, executor);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        private NamedThreadFactory(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = DEFAULT_FACTORY.newThread(r);
+            thread.setName("RestCommonThreadPool-" + name + '#' + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
@@ -54,7 +54,9 @@ import de.gsi.acc.remote.admin.RestServerAdmin;
 import de.gsi.acc.remote.login.LoginController;
 import de.gsi.acc.remote.user.RestUserHandler;
 import de.gsi.acc.remote.user.RestUserHandlerImpl;
+import de.gsi.acc.remote.util.CombinedHandler;
 import de.gsi.acc.remote.util.MessageBundle;
+import de.gsi.acc.remote.util.SseBroadcaster;
 import de.gsi.dataset.remote.MimeType;
 
 import io.javalin.Javalin;
@@ -124,6 +126,7 @@ public final class RestServer { // NOPMD -- nomen est omen
     private static MimeType defaultProtocol = MimeType.HTML;
     private static RestUserHandler userHandler = new RestUserHandlerImpl();
     private static final ConcurrentMap<String, Queue<SseClient>> EVENT_LISTENER_SSE = new ConcurrentHashMap<>();
+    private static final SseBroadcaster EVENT_BROADCASTER = new SseBroadcaster();
 
     private static final ObservableList<HandlerMetaInfo> ENDPOINTS = FXCollections.observableArrayList();
     private static final Consumer<HandlerMetaInfo> ENDPOINT_ADDED_HANDLER = ENDPOINTS::add;
@@ -159,6 +162,19 @@ public final class RestServer { // NOPMD -- nomen est omen
         return ENDPOINTS;
     }
 
+    /**
+     * @return the broadcaster used to (non-blocking) send events to the SSE clients registered via {@link CombinedHandler}
+     */
+    public static SseBroadcaster getEventBroadcaster() {
+        return EVENT_BROADCASTER;
+    }
+
+    /**
+     * N.B. events to these clients should be sent via {@link #getEventBroadcaster()}
+     *
+     * @param endpointName end point name
+     * @return SSE clients registered for the given end point
+     */
     public static Queue<SseClient> getEventClients(@NotNull final String endpointName) {
         if (endpointName.isEmpty()) {
             throw new IllegalArgumentException("endpointNmae must not be empty");
@@ -284,7 +300,7 @@ public final class RestServer { // NOPMD -- nomen est omen
                               config.registerPlugin(new RedirectToLowercasePathPlugin());
                               // show all routes on specified path
                               config.registerPlugin(new RouteOverviewPlugin("/admin/endpoints", Collections.singleton(BasicRestRoles.ADMIN)));
-                              config.registerPlugin(new MicrometerPlugin());
+                              config.registerPlugin(new MicrometerPlugin()); // N.B. also exports the RestCommonThreadPool executor metrics
                               config.sessionHandler(getCustomSessionHandlerSupplier());
                               // add OpenAPI
                               config.registerPlugin(new OpenApiPlugin(getOpenApiOptions()));
@@ -330,6 +346,35 @@ public final class RestServer { // NOPMD -- nomen est omen
         }
     }
 
+    /**
+     * Sets the entity tag of the resource to be served and checks it against the client's 'If-None-Match' request header.
+     * N.B. replaces 'no-store' (see {@link #suppressCaching}) by 'no-cache', ie. clients may keep the payload but need to
+     * re-validate it on every request.
+     *
+     * @param ctx the request context
+     * @param eTag (quoted) entity tag of the resource, e.g. {@link de.gsi.dataset.remote.DataContainer#getETag()}
+     * @return {@code true} if the client's copy is up-to-date: status is set to '304 Not Modified' and no payload needs to be
+     *         sent
+     */
+    public static boolean isNotModified(@NotNull final Context ctx, @NotNull final String eTag) {
+        ctx.res.setHeader(Header.ETAG, eTag);
+        ctx.res.setHeader(Header.CACHE_CONTROL, "no-cache");
+
+        final String ifNoneMatch = ctx.header(Header.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (final String tag : ifNoneMatch.split(",")) {
+            final String trimmedTag = tag.trim();
+            // N.B. weak comparison as per RFC 7232 section 3.2
+            if ("*".equals(trimmedTag) || eTag.equals(trimmedTag.startsWith("W/") ? trimmedTag.substring(2) : trimmedTag)) {
+                ctx.status(304);
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Suppresses caching for this end point
      *
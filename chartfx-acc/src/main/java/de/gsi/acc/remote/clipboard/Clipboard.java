@@ -17,12 +17,11 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -34,6 +33,7 @@ import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Region;
 
@@ -45,9 +45,11 @@ import de.gsi.acc.remote.BasicRestRoles;
 import de.gsi.acc.remote.RestCommonThreadPool;
 import de.gsi.acc.remote.RestServer;
 import de.gsi.acc.remote.util.CombinedHandler;
+import de.gsi.acc.remote.util.LongPollingNotifier;
 import de.gsi.acc.remote.util.MessageBundle;
 import de.gsi.chart.utils.FXUtils;
 import de.gsi.chart.utils.PaletteQuantizer;
+import de.gsi.chart.utils.PaletteQuantizerMedianCut;
 import de.gsi.chart.utils.WritableImageCache;
 import de.gsi.chart.utils.WriteFxImage;
 import de.gsi.dataset.event.EventListener;
@@ -56,6 +58,7 @@ import de.gsi.dataset.event.EventSource;
 import de.gsi.dataset.event.UpdateEvent;
 import de.gsi.dataset.remote.DataContainer;
 import de.gsi.dataset.remote.MimeType;
+import de.gsi.dataset.utils.ArrayCache;
 import de.gsi.dataset.utils.ByteArrayCache;
 import de.gsi.dataset.utils.Cache;
 import de.gsi.dataset.utils.Cache.CacheBuilder;
@@ -97,11 +100,16 @@ public class Clipboard implements EventSource, EventListener {
     private static final int DEFAULT_PALETTE_COLOR_COUNT = 32;
     private static final int STATISTICS_INT_COUNT = 250;
     private static final boolean IMAGE_USE_ALPHA = true;
+    private static final int N_ENCODER_STRIPS = Runtime.getRuntime().availableProcessors();
     private static final String TESTIMAGE = "PM5544_test_signal.png";
     private static final String DOT_PNG = ".png";
     private static final String QUERY_UPDATE_PERIOD = "updatePeriod";
     private static final String QUERY_LONG_POLLING = "longpolling";
     private static final String QUERY_SSE = "sse";
+    private static final String QUERY_TILES = "tiles";
+    private static final String TILES_SUFFIX = ".tiles";
+    private static final String EVENT_TILES = "tiles";
+    private static final String TILE_PIXEL_ARRAY_CACHE_NAME = "Clipboard-tilePixelArray";
     private static final String QUERY_LAST_UPDATE = "lastAccess.";
     private static final String CLIPBOARD_BASE = "/clipboard/";
     private static final String CLIPBOARD_ROOT = "";
@@ -112,16 +120,18 @@ public class Clipboard implements EventSource, EventListener {
     private static final String TEMPLATE_ALL_IMAGES = "/velocity/clipboard/all.vm";
     private static final String TEMPLATE_ONE_IMAGE_LONG_POLLING = "/velocity/clipboard/one_long.vm";
     private static final String TEMPLATE_ONE_IMAGE_SSE = "/velocity/clipboard/one_sse.vm";
+    private static final String TEMPLATE_ONE_IMAGE_TILES = "/velocity/clipboard/one_tiles.vm";
     private static final String CACHE_LIMIT = "clipboardCacheLimit";
     private static final int CACHE_LIMIT_DEFAULT = 25;
     private static final String CACHE_TIME_OUT = "clipboardCacheTimeOut"; // [minutes]
     private static final int CACHE_TIME_OUT_DEFAULT = 60;
+    private static final String CACHE_MAX_BYTES = "clipboardCacheMaxBytes"; // [bytes] per category
+    private static final long CACHE_MAX_BYTES_DEFAULT = 256L * 1024 * 1024;
     // update source definitions
     private final AtomicBoolean autoNotify = new AtomicBoolean(true);
     private final List<EventListener> updateListeners = Collections.synchronizedList(new LinkedList<>());
 
-    private final Lock clipboardLock = new ReentrantLock();
-    private final Condition clipboardCondition = clipboardLock.newCondition();
+    private final LongPollingNotifier longPollingNotifier = new LongPollingNotifier();
     private final Cache<String, Cache<String, DataContainer>> clipboardCacheCategory; // Map<categoryName, Map<categoryName, DataContainer>>
     private final SnapshotParameters snapshotParameters = new SnapshotParameters();
     private final Cache<String, String> userCounterCache = Cache.<String, String>builder().withTimeout(1, TimeUnit.MINUTES).build();
@@ -136,14 +146,22 @@ public class Clipboard implements EventSource, EventListener {
     private final ByteArrayCache byteArrayCache = new ByteArrayCache();
     private final EventRateLimiter eventRateLimiter;
     private final AtomicInteger threadCount = new AtomicInteger(0);
+    private final AtomicLong framesCaptured = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    private final AtomicLong framesEncoded = new AtomicLong();
+    private volatile DataContainer lastFrame; // last encoded frame
+    private volatile long lastFrameHash; // content hash of the last encoded frame
+    private volatile Object lastFrameFormat; // encoding format (palette) of the last encoded frame
+    private final TileDeltaEncoder tileEncoder = new TileDeltaEncoder();
     private final List<Double> captureDiffs = new ArrayList<>(STATISTICS_INT_COUNT);
     private final List<Double> processingTotal = new ArrayList<>(STATISTICS_INT_COUNT);
     private final List<Double> sizeTotal = new ArrayList<>(STATISTICS_INT_COUNT);
     private boolean usePalette;
-    private PaletteQuantizer userPalette = null;
+    private PaletteQuantizer userPalette = null; // optional static palette, see updatePalette(..)
+    private final PaletteQuantizerMedianCut framePalette = new PaletteQuantizerMedianCut(DEFAULT_PALETTE_COLOR_COUNT, IMAGE_USE_ALPHA); // adapted for every frame
     private final EventListener paletteUpdateListener = evt -> {
         if (evt.getPayLoad() instanceof Image) {
-            RestCommonThreadPool.getCommonPool().execute(() -> userPalette = WriteFxImage.estimatePalette((Image) (evt.getPayLoad()), IMAGE_USE_ALPHA, DEFAULT_PALETTE_COLOR_COUNT));
+            RestCommonThreadPool.getImagePool().execute(() -> userPalette = WriteFxImage.estimatePalette((Image) (evt.getPayLoad()), IMAGE_USE_ALPHA, DEFAULT_PALETTE_COLOR_COUNT));
         }
     };
     private EventRateLimiter paletteUpdateRateLimiter = new EventRateLimiter(paletteUpdateListener, TimeUnit.SECONDS.toMillis(20));
@@ -165,7 +183,8 @@ public class Clipboard implements EventSource, EventListener {
                   ctx.render(TEMPLATE_UPLOAD, model);
               }) {};
     private final Function<? super String, ? extends Cache<String, DataContainer>> categoryMappingFunction = category -> {
-        CacheBuilder<String, DataContainer> clipboardCacheBuilder = Cache.<String, DataContainer>builder().withLimit(getCacheLimit());
+        CacheBuilder<String, DataContainer> clipboardCacheBuilder = Cache.<String, DataContainer>builder().withLimit(getCacheLimit()) //
+                                                                            .withMaxWeight(getCacheMaxBytes(), (k, v) -> v.getData().stream().mapToLong(d -> d.getDataByteArray().length).sum());
         if (getCacheTimeOut() > 0) {
             clipboardCacheBuilder.withTimeout(getCacheTimeOut(), getCacheTimeOutUnit());
         }
@@ -199,26 +218,48 @@ public class Clipboard implements EventSource, EventListener {
             threadCount.decrementAndGet();
             return;
         }
+        framesCaptured.incrementAndGet();
+
+        // skip encoding if neither the image content nor the encoding format changed and the previous frame is still being served
+        final long frameHash = WriteFxImage.contentHash(imageCopyOut);
+        final PaletteQuantizer palette = userPalette == null ? framePalette : userPalette;
+        final Object frameFormat = usePalette ? palette : Boolean.FALSE;
+        if (isPreviousFrame(frameHash, frameFormat)) {
+            framesSkipped.incrementAndGet();
+            imageCache.add(imageCopyIn);
+            imageCache.add(imageCopyOut);
+            threadCount.decrementAndGet();
+            return;
+        }
+
         final long mid = System.nanoTime();
-        final int size2 = WriteFxImage.getCompressedSizeBound(width, height, true);
+        final int size2 = WriteFxImage.getCompressedSizeBound(width, height, true, N_ENCODER_STRIPS);
         final byte[] rawByteBuffer = byteArrayCache.getArray(size2);
         final ByteBuffer imageBuffer = ByteBuffer.wrap(rawByteBuffer);
         // WriteFxImage.encodeAlt(imageCopyOut, imageBuffer, useAlpha, Deflater.BEST_SPEED, null)
         if (usePalette) {
-            // updatePalette(imageCopyOut)
-            WriteFxImage.encodePalette(imageCopyOut, imageBuffer, IMAGE_USE_ALPHA, Deflater.BEST_SPEED, FilterType.FILTER_NONE, userPalette);
+            synchronized (palette) { // N.B. adaptive palette is updated and used for look-ups during encoding
+                WriteFxImage.encodePaletteParallel(imageCopyOut, imageBuffer, IMAGE_USE_ALPHA, Deflater.BEST_SPEED, N_ENCODER_STRIPS, palette);
+            }
         } else {
-            WriteFxImage.encode(imageCopyOut, imageBuffer, IMAGE_USE_ALPHA, Deflater.BEST_SPEED, FilterType.FILTER_NONE);
+            WriteFxImage.encodeParallel(imageCopyOut, imageBuffer, IMAGE_USE_ALPHA, Deflater.BEST_SPEED, FilterType.FILTER_NONE, N_ENCODER_STRIPS);
         }
 
         sizeTotal.add((double) imageBuffer.limit());
-        imageCache.add(imageCopyIn);
-        imageCache.add(imageCopyOut);
 
         LOGGER.atDebug().addArgument(getExportNameImage()).addArgument(getExportNameImage()) //
                 .log("new image '{}' for export name '{}' generated -> notify listener");
         final int maxUpdatePeriodMillis = (int) getMaxUpdatePeriodTimeUnit().toMillis(getMaxUpdatePeriod());
-        addClipboardData(new DataContainer(getExportNameImage(), maxUpdatePeriodMillis, imageBuffer.array(), imageBuffer.limit()));
+        // N.B. the encoded frame is shared by and served as-is to all clients
+        final DataContainer frame = new DataContainer(getExportNameImage(), maxUpdatePeriodMillis, imageBuffer.array(), imageBuffer.limit());
+        updateTileClients(CLIPBOARD_BASE + frame.getCategory() + frame.getExportName() + TILES_SUFFIX, imageCopyOut);
+        imageCache.add(imageCopyIn);
+        imageCache.add(imageCopyOut);
+        lastFrameHash = frameHash;
+        lastFrameFormat = frameFormat;
+        lastFrame = frame;
+        framesEncoded.incrementAndGet();
+        addClipboardData(frame);
         processingTotal.add(((System.nanoTime() - mid) / 1e6));
 
         printDiffs("capture", "ms", captureDiffs);
@@ -282,7 +323,7 @@ public class Clipboard implements EventSource, EventListener {
                   }
 
                   serveImageData(ctx, category, imageDataTag);
-              }) {};
+              }, this::sendTileKeyFrame) {};
     @OpenApi(
             description = "endpoint for posting clipboard data",
             summary = "submit new clipboard data",
@@ -371,7 +412,7 @@ public class Clipboard implements EventSource, EventListener {
         }
         clipboardCacheCategory = clipboardCacheBuilder.build();
 
-        eventRateLimiter = new EventRateLimiter(evt -> RestCommonThreadPool.getCommonPool().execute(convertImage), maxUpdatePeriodTimeUnit.toMillis(maxUpdatePeriod));
+        eventRateLimiter = new EventRateLimiter(evt -> RestCommonThreadPool.getImagePool().execute(convertImage), maxUpdatePeriodTimeUnit.toMillis(maxUpdatePeriod));
 
         // add default routes
         Set<Role> accessRoles = Collections.singleton(ANYONE);
@@ -390,9 +431,8 @@ public class Clipboard implements EventSource, EventListener {
      * @param data data Container
      */
     public void addClipboardData(@NotNull final DataContainer data) {
-        RestCommonThreadPool.getCommonPool().execute(() -> {
-            try {
-                clipboardLock.lock();
+        try {
+            RestCommonThreadPool.getCommonPool().execute(() -> {
                 final String category = data.getCategory() == null ? CLIPBOARD_ROOT : data.getCategory();
                 final Cache<String, DataContainer> categoryMap = getClipboardCache(category);
                 final DataContainer ret = categoryMap.put(data.getExportNameData(), data);
@@ -400,11 +440,11 @@ public class Clipboard implements EventSource, EventListener {
                         .log("adding c = '{}' ex = '{}' exData = '{}' previous data = {}");
                 data.updateAccess();
                 updateListener(CLIPBOARD_BASE + data.getCategory() + data.getExportNameData(), data.getTimeStampCreation());
-                clipboardCondition.signalAll();
-            } finally {
-                clipboardLock.unlock();
-            }
-        });
+                longPollingNotifier.publish(fixPreAndPost(category) + data.getExportNameData());
+            });
+        } catch (final RejectedExecutionException e) {
+            LOGGER.atWarn().addArgument(data.getExportNameData()).log("could not add '{}' - common executor saturated");
+        }
     }
 
     public void addTestImageData() {
@@ -439,6 +479,34 @@ public class Clipboard implements EventSource, EventListener {
         return clipboardCacheCategory.computeIfAbsent(fixPreAndPost(category), categoryMappingFunction);
     }
 
+    /**
+     * @return number of region snapshots taken
+     */
+    public long getFramesCaptured() {
+        return framesCaptured.get();
+    }
+
+    /**
+     * @return number of captured frames that have been PNG-encoded and published
+     */
+    public long getFramesEncoded() {
+        return framesEncoded.get();
+    }
+
+    /**
+     * @return number of captured frames that have been skipped since they were identical to the previously published frame
+     */
+    public long getFramesSkipped() {
+        return framesSkipped.get();
+    }
+
+    /**
+     * @return the encoder used for the tile-based delta streaming to '&lt;image&gt;.tiles' SSE clients (e.g. for statistics)
+     */
+    public TileDeltaEncoder getTileEncoder() {
+        return tileEncoder;
+    }
+
     public String getExportNameImage() {
         return exportNameImage;
     }
@@ -459,6 +527,14 @@ public class Clipboard implements EventSource, EventListener {
         return maxUpdatePeriodTimeUnit;
     }
 
+    /**
+     * @return adaptive palette that is used for indexed encoding unless a static palette has been computed via
+     *         {@link #updatePalette(Image)}
+     */
+    public PaletteQuantizerMedianCut getFramePalette() {
+        return framePalette;
+    }
+
     public EventRateLimiter getPaletteUpdateRateLimiter() {
         return paletteUpdateRateLimiter;
     }
@@ -496,7 +572,7 @@ public class Clipboard implements EventSource, EventListener {
     public void updateListener(@NotNull final String eventSource, final long eventTimeStamp) {
         final Queue<SseClient> sseClients = RestServer.getEventClients(eventSource);
         FXUtils.runFX(() -> userCountSse.set(sseClients.size()));
-        sseClients.forEach((final SseClient client) -> client.sendEvent("new '" + eventSource + "' @" + eventTimeStamp));
+        RestServer.getEventBroadcaster().broadcast(eventSource, "message", "new '" + eventSource + "' @" + eventTimeStamp);
     }
 
     public ReadOnlyIntegerProperty userCountProperty() {
@@ -511,6 +587,59 @@ public class Clipboard implements EventSource, EventListener {
         paletteUpdateRateLimiter.handle(new UpdateEvent(this, "update palette", WriteFxImage.clone(imageCopyOut)));
     }
 
+    private void sendTileKeyFrame(final SseClient client) {
+        if (!client.ctx.req.getRequestURI().endsWith(TILES_SUFFIX)) {
+            return;
+        }
+        // N.B. the key frame is enqueued under the encoder lock so that it cannot be overtaken by a concurrently
+        // broadcast delta, the client skips deltas that precede or are already contained in the first key frame
+        synchronized (tileEncoder) {
+            final String keyFrame = tileEncoder.getKeyFrame();
+            if (keyFrame != null) {
+                RestServer.getEventBroadcaster().send(client, EVENT_TILES, keyFrame);
+                return;
+            }
+        }
+        // no tiles yet or encoder state is outdated -> force new frame capture that is sent as a key frame
+        lastFrame = null;
+        handle(new UpdateEvent(this, "new tile client"));
+    }
+
+    private void updateTileClients(final String tileEndpoint, final Image image) {
+        final Queue<SseClient> tileClients = RestServer.getEventClients(tileEndpoint);
+        if (tileClients.isEmpty()) {
+            synchronized (tileEncoder) { // N.B. must not interleave with a concurrent update or key frame request
+                tileEncoder.reset(); // N.B. next client starts with a key frame
+            }
+            return;
+        }
+        final int w = (int) image.getWidth();
+        final int h = (int) image.getHeight();
+        final int[] pixels = ArrayCache.getCachedIntArray(TILE_PIXEL_ARRAY_CACHE_NAME, w * h);
+        try {
+            image.getPixelReader().getPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), pixels, 0, w);
+            synchronized (tileEncoder) { // N.B. keeps deltas and key frames for new clients in sequence order
+                final String delta = tileEncoder.update(pixels, w, h);
+                if (delta != null) {
+                    // N.B. message is rendered and serialised only once and shared by all clients
+                    RestServer.getEventBroadcaster().broadcast(tileEndpoint, EVENT_TILES, delta);
+                }
+            }
+        } finally {
+            ArrayCache.release(TILE_PIXEL_ARRAY_CACHE_NAME, pixels);
+        }
+    }
+
+    private boolean isPreviousFrame(final long frameHash, final Object frameFormat) {
+        final DataContainer previous = lastFrame;
+        if (previous == null || frameHash != lastFrameHash || frameFormat != lastFrameFormat) { // NOPMD - identity check intended
+            return false;
+        }
+        // N.B. the previous frame may have been evicted or replaced in the mean time (e.g. by uploads)
+        final Cache<String, DataContainer> categoryMap = getClipboardCache().get(fixPreAndPost(previous.getCategory()));
+        return categoryMap != null && categoryMap.get(previous.getExportNameData()) == previous;
+    }
+
     private String categoryNotFound(final String category) {
         return "category = " + category + " not found";
     }
@@ -537,7 +666,7 @@ public class Clipboard implements EventSource, EventListener {
     private void serveImageData(Context ctx, final String category, final String imageDataTag) {
         final Cache<String, DataContainer> categoryMap = getClipboardCache(category);
 
-        DataContainer cbData = categoryMap.get(imageDataTag);
+        final DataContainer cbData = categoryMap.get(imageDataTag);
         if (cbData == null) {
             // image/data does not exist
             ctx.status(404).result("category = " + category + " and imageDataTag " + imageDataTag + " not found");
@@ -553,28 +682,30 @@ public class Clipboard implements EventSource, EventListener {
         final long lastUpdate = sessionUpdate == null ? 0 : sessionUpdate;
         ctx.contentType(MimeType.PNG.toString());
 
-        while (cbData.getTimeStampCreation() <= lastUpdate && isLongPolling /* && cbData.getMaxUpdatePeriod() > 0 */) {
-            try {
-                final long waitPeriod = MathBase.max(TimeUnit.SECONDS.toMillis(1), 4 * cbData.getUpdatePeriod());
-                clipboardLock.lock();
-                final boolean condition1 = !clipboardCondition.await(waitPeriod, TimeUnit.MILLISECONDS) && LOGGER.isInfoEnabled();
-                if (condition1) {
-                    LOGGER.atInfo().log("aborted a possibly too long long-polling await");
-                }
-                clipboardLock.unlock();
-            } catch (final InterruptedException e) {
-                clipboardLock.unlock();
-                LOGGER.atError().setCause(e).addArgument(imageDataTag).log("waiting for new image '{}' to be updated");
-                Thread.currentThread().interrupt();
-            }
-            cbData = categoryMap.get(imageDataTag);
-            if (cbData == null) {
-                // image does not exist
-                return;
-            }
+        if (isLongPolling && cbData.getTimeStampCreation() <= lastUpdate) {
+            // N.B. asynchronous: the pending request does not occupy a server thread until new data is published
+            // (or the wait period expired in which case the current data is served)
+            final long waitPeriod = MathBase.max(TimeUnit.SECONDS.toMillis(1), 4 * cbData.getUpdatePeriod());
+            final Predicate<DataContainer> isUpdated = data -> data == null || data.getTimeStampCreation() > lastUpdate;
+            ctx.result(longPollingNotifier.await(category + imageDataTag, () -> categoryMap.get(imageDataTag), isUpdated, waitPeriod, TimeUnit.MILLISECONDS) //
+                               .thenApplyAsync(data -> {
+                                   if (data == null) {
+                                       ctx.status(404).result("category = " + category + " and imageDataTag " + imageDataTag + " not found");
+                                   } else {
+                                       writeImageData(ctx, data);
+                                   }
+                                   return null;
+                               }, RestCommonThreadPool.getResponsePool()));
+            return;
         }
+        writeImageData(ctx, cbData);
+    }
 
+    private void writeImageData(final Context ctx, final DataContainer cbData) {
         ctx.sessionAttribute(QUERY_LAST_UPDATE + ctx.path(), cbData.getTimeStampCreation());
+        if (RestServer.isNotModified(ctx, cbData.getETag())) {
+            return; // client already has the up-to-date payload (304)
+        }
         ctx.res.setContentType(cbData.getMimeType());
         RestServer.writeBytesToContext(ctx, cbData.getDataByteArray(), cbData.getDataByteArraySize());
     }
@@ -599,7 +730,11 @@ public class Clipboard implements EventSource, EventListener {
         model.put("imageLanding", CLIPBOARD_BASE + data.getExportName() + "?updatePeriod=" + data.getUpdatePeriod());
         model.put("imageSource", CLIPBOARD_BASE + category + data.getExportNameData());
         model.put(QUERY_LONG_POLLING, QUERY_LONG_POLLING);
-        if (ctx.queryParam(QUERY_SSE) == null) {
+        if (ctx.queryParam(QUERY_TILES) != null && getExportNameImage().equals(data.getExportNameData())) {
+            // tile-based delta streaming is available only for the captured region
+            model.put("tileSource", CLIPBOARD_BASE + category + data.getExportName() + TILES_SUFFIX);
+            ctx.render(TEMPLATE_ONE_IMAGE_TILES, model);
+        } else if (ctx.queryParam(QUERY_SSE) == null) {
             ctx.render(TEMPLATE_ONE_IMAGE_LONG_POLLING, model);
         } else {
             ctx.render(TEMPLATE_ONE_IMAGE_SSE, model);
@@ -616,6 +751,16 @@ public class Clipboard implements EventSource, EventListener {
         }
     }
 
+    public static long getCacheMaxBytes() {
+        final String property = System.getProperty(CACHE_MAX_BYTES, Long.toString(CACHE_MAX_BYTES_DEFAULT));
+        try {
+            return Long.parseLong(property);
+        } catch (final NumberFormatException e) {
+            LOGGER.atError().addArgument(CACHE_MAX_BYTES).addArgument(property).addArgument(CACHE_MAX_BYTES_DEFAULT).log("could not parse {}='{}' return default max bytes {}");
+            return CACHE_MAX_BYTES_DEFAULT;
+        }
+    }
+
     public static int getCacheTimeOut() {
         final String property = System.getProperty(CACHE_TIME_OUT, Integer.toString(CACHE_TIME_OUT_DEFAULT));
         try {
@@ -0,0 +1,208 @@
+package de.gsi.acc.remote.clipboard;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.Deflater;
+
+import ar.com.hjg.pngj.FilterType;
+import ar.com.hjg.pngj.ImageInfo;
+import ar.com.hjg.pngj.ImageLineHelper;
+import ar.com.hjg.pngj.ImageLineInt;
+import ar.com.hjg.pngj.PngWriter;
+
+/**
+ * Splits consecutive ARGB frames into fixed-size tiles and PNG-encodes only the tiles that changed w.r.t. the previous
+ * frame. The changed tiles are rendered into a single-line JSON message that is suitable for being pushed as an SSE
+ * 'data' field and composited on the client side (see 'one_tiles.vm'), ie.:
+ *
+ * <pre>
+ * {@code
+ * {"seq":42,"keyFrame":false,"width":800,"height":600,"tiles":[{"x":64,"y":128,"png":"<base64>"},...]}
+ * }
+ * </pre>
+ * <p>
+ * The encoded PNG of every tile is retained so that key frames for newly connecting clients can be composed without
+ * re-encoding. Frames with new dimensions are sent as key frames. A key frame carries the sequence number of the latest
+ * delta it contains, ie. clients should discard deltas received before their first key frame or with a sequence number
+ * not larger than the key frame's.
+ * <p>
+ * N.B. the Base64 transport encoding inflates the tile payloads by about 33% compared to binary transports. For mostly
+ * static dashboards, where only the plot area changes, the savings w.r.t. full frames still dominate.
+ */
+public class TileDeltaEncoder {
+    public static final int DEFAULT_TILE_SIZE = 64;
+    private final int tileSize;
+    private final Base64.Encoder base64Encoder = Base64.getEncoder();
+    private final ByteArrayOutputStream tileByteStream = new ByteArrayOutputStream();
+    private int width;
+    private int height;
+    private int nTilesX;
+    private int nTilesY;
+    private int[] previousFrame = new int[0];
+    private String[] tileCache = new String[0]; // Base64-encoded PNG per tile
+    private long sequence;
+    private long tilesEncoded;
+    private long tilesUnchanged;
+
+    public TileDeltaEncoder() {
+        this(DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * @param tileSize width and height of the (square) tiles in pixel
+     */
+    public TileDeltaEncoder(final int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize must be positive: " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * @return JSON message containing all tiles of the latest frame or {@code null} if no frame has been encoded yet
+     */
+    public synchronized String getKeyFrame() {
+        if (nTilesX * nTilesY == 0) {
+            return null;
+        }
+        final StringBuilder builder = startMessage(sequence, true);
+        boolean first = true;
+        for (int tileY = 0; tileY < nTilesY; tileY++) {
+            for (int tileX = 0; tileX < nTilesX; tileX++) {
+                first = appendTile(builder, tileX, tileY, first);
+            }
+        }
+        return builder.append("]}").toString();
+    }
+
+    /**
+     * @return sequence number of the latest message
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @return accumulated number of tiles that have been PNG-encoded
+     */
+    public synchronized long getTilesEncoded() {
+        return tilesEncoded;
+    }
+
+    /**
+     * @return accumulated number of tiles that have been skipped since they were identical to the previous frame
+     */
+    public synchronized long getTilesUnchanged() {
+        return tilesUnchanged;
+    }
+
+    /**
+     * resets the internal state, ie. the next frame is encoded as a key frame
+     */
+    public synchronized void reset() {
+        width = 0;
+        height = 0;
+        nTilesX = 0;
+        nTilesY = 0;
+        tileCache = new String[0];
+    }
+
+    /**
+     * @param pixels ARGB pixel values in row-major order (N.B. not modified nor retained)
+     * @param width frame width
+     * @param height frame height
+     * @return JSON message containing the changed tiles, or {@code null} if the frame did not change
+     */
+    public synchronized String update(final int[] pixels, final int width, final int height) {
+        if (pixels == null || width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("invalid frame: pixels[" + (pixels == null ? "null" : pixels.length) + "] for " + width + "x" + height);
+        }
+        final boolean keyFrame = width != this.width || height != this.height;
+        if (keyFrame) {
+            this.width = width;
+            this.height = height;
+            nTilesX = (width + tileSize - 1) / tileSize;
+            nTilesY = (height + tileSize - 1) / tileSize;
+            tileCache = new String[nTilesX * nTilesY];
+            if (previousFrame.length < width * height) {
+                previousFrame = new int[width * height];
+            }
+        }
+
+        final StringBuilder builder = startMessage(sequence + 1, keyFrame);
+        boolean first = true;
+        for (int tileY = 0; tileY < nTilesY; tileY++) {
+            for (int tileX = 0; tileX < nTilesX; tileX++) {
+                if (keyFrame || isTileChanged(pixels, tileX, tileY)) {
+                    encodeTile(pixels, tileX, tileY);
+                    first = appendTile(builder, tileX, tileY, first);
+                    tilesEncoded++;
+                } else {
+                    tilesUnchanged++;
+                }
+            }
+        }
+        if (first) {
+            return null; // nothing changed -> no message
+        }
+        sequence++;
+        return builder.append("]}").toString();
+    }
+
+    private boolean appendTile(final StringBuilder builder, final int tileX, final int tileY, final boolean first) {
+        if (!first) {
+            builder.append(',');
+        }
+        builder.append("{\"x\":").append(tileX * tileSize).append(",\"y\":").append(tileY * tileSize) //
+                .append(",\"png\":\"").append(tileCache[tileY * nTilesX + tileX]).append("\"}");
+        return false;
+    }
+
+    private void encodeTile(final int[] pixels, final int tileX, final int tileY) {
+        final int x0 = tileX * tileSize;
+        final int y0 = tileY * tileSize;
+        final int w = Math.min(tileSize, width - x0);
+        final int h = Math.min(tileSize, height - y0);
+
+        tileByteStream.reset();
+        final PngWriter png = new PngWriter(tileByteStream, new ImageInfo(w, h, 8, true, false, false));
+        png.getPixelsWriter().setFilterType(FilterType.FILTER_NONE);
+        png.setCompLevel(Deflater.BEST_SPEED);
+        final ImageLineInt line = new ImageLineInt(png.imgInfo);
+        for (int y = 0; y < h; y++) {
+            final int offset = (y0 + y) * width + x0;
+            for (int x = 0; x < w; x++) {
+                ImageLineHelper.setPixelRGBA8(line, x, pixels[offset + x]);
+            }
+            png.writeRow(line, y);
+            // retain the new tile content as reference for the next frame
+            System.arraycopy(pixels, offset, previousFrame, offset, w);
+        }
+        png.end();
+        tileCache[tileY * nTilesX + tileX] = base64Encoder.encodeToString(tileByteStream.toByteArray());
+    }
+
+    private boolean isTileChanged(final int[] pixels, final int tileX, final int tileY) {
+        final int x0 = tileX * tileSize;
+        final int y0 = tileY * tileSize;
+        final int w = Math.min(tileSize, width - x0);
+        final int yMax = Math.min(y0 + tileSize, height);
+        for (int y = y0; y < yMax; y++) {
+            final int offset = y * width + x0;
+            if (Arrays.mismatch(pixels, offset, offset + w, previousFrame, offset, offset + w) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private StringBuilder startMessage(final long seq, final boolean keyFrame) {
+        return new StringBuilder(256).append("{\"seq\":").append(seq).append(",\"keyFrame\":").append(keyFrame) //
+                .append(",\"width\":").append(width).append(",\"height\":").append(height).append(",\"tiles\":[");
+    }
+}
@@ -0,0 +1,415 @@
+package de.gsi.acc.remote.data;
+
+import static de.gsi.acc.remote.BasicRestRoles.ANYONE;
+import static de.gsi.acc.remote.RestServer.prefixPath;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.gsi.acc.remote.RestCommonThreadPool;
+import de.gsi.acc.remote.RestServer;
+import de.gsi.chart.XYChart;
+import de.gsi.chart.utils.FXUtils;
+import de.gsi.chart.utils.WritableImageCache;
+import de.gsi.chart.utils.WriteFxImage;
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.remote.MimeType;
+import de.gsi.dataset.utils.Cache;
+
+import ar.com.hjg.pngj.FilterType;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.plugin.openapi.annotations.HttpMethod;
+import io.javalin.plugin.openapi.annotations.OpenApi;
+import io.javalin.plugin.openapi.annotations.OpenApiContent;
+import io.javalin.plugin.openapi.annotations.OpenApiParam;
+import io.javalin.plugin.openapi.annotations.OpenApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * REST end point rendering the DataSets served by a {@link DataSetEndpoint} as PNG chart images on demand, e.g.
+ * {@code GET /chart/<name>?width=1024&height=768&style=default}, without requiring an open window per chart.
+ * <p>
+ * The images are rendered by a bounded pool of off-screen {@link XYChart}s (each attached to its own window-less
+ * {@link Scene}) via {@link javafx.scene.Node#snapshot snapshot} on the JavaFX thread, and are encoded off the JavaFX
+ * thread using the multi-core {@link WriteFxImage#encodeParallel striped PNG encoder}. The chart appearance is defined
+ * by named styles, ie. functions configuring a newly created chart (axes, renderers, CSS, ...), see
+ * {@link #addStyle(String, Consumer)}.
+ * <p>
+ * The encoded images are cached per (DataSet version, size, style) and tagged with a matching ETag, ie. repeated
+ * requests for unchanged DataSets are neither re-rendered nor re-transmitted. The DataSet version also changes when a
+ * DataSet is replaced or re-added (see {@link DataSetEndpoint#getVersion(String)}), which also purges the cached images
+ * of the previous DataSet. Requests exceeding the render queue are rejected with '503 Service Unavailable'.
+ * <p>
+ * Metrics (registered to the {@link Metrics#globalRegistry global registry}, tag 'endpoint'):
+ * <ul>
+ * <li>'{@value #METRIC_RENDER}': render and encoding time (timer, ie. also the render throughput),</li>
+ * <li>'{@value #METRIC_CACHE}': cache hits and misses (counter, tag 'result' = 'hit' or 'miss'),</li>
+ * <li>'{@value #METRIC_AVAILABLE}': number of idle charts (gauge),</li>
+ * <li>the render queue metrics of the underlying {@link RestCommonThreadPool} executor ('executor.*', tag 'name' =
+ * 'chart:&lt;endpoint&gt;').</li>
+ * </ul>
+ * N.B. requires a running JavaFX toolkit (e.g. started via {@code Platform.startup(..)}, or using Monocle on headless
+ * servers). {@link #close()} releases the render executor and the metrics, the end point then answers with '503
+ * Service Unavailable' (N.B. Javalin routes cannot be removed).
+ */
+public class ChartImageEndpoint implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChartImageEndpoint.class);
+    public static final String DEFAULT_ENDPOINT = "/chart";
+    public static final String DEFAULT_STYLE = "default";
+    public static final String QUERY_WIDTH = "width";
+    public static final String QUERY_HEIGHT = "height";
+    public static final String QUERY_STYLE = "style";
+    public static final int DEFAULT_WIDTH = 800;
+    public static final int DEFAULT_HEIGHT = 600;
+    public static final int MAX_SIZE = 8192;
+    public static final int DEFAULT_CHART_COUNT = 4;
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+    public static final String METRIC_RENDER = "chart.render";
+    public static final String METRIC_CACHE = "chart.render.cache";
+    public static final String METRIC_AVAILABLE = "chart.render.available";
+    private static final String PATH_PARAM_NAME = "name";
+    private static final int RESPONSE_CACHE_LIMIT = 128;
+    private static final long RESPONSE_CACHE_MAX_BYTES = 64L << 20;
+    // N.B. XYChart skips canvas redraws within its burst limit (15 ms) of the previous redraw
+    private static final long MIN_RENDER_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final AtomicLong STYLE_COUNTER = new AtomicLong();
+    private final String endpoint;
+    private final DataSetEndpoint dataSets;
+    private final ConcurrentMap<String, Style> styles = new ConcurrentHashMap<>();
+    private final BlockingQueue<OffscreenChart> charts;
+    private final ExecutorService renderExecutor;
+    private final WritableImageCache imageCache = new WritableImageCache();
+    private final Cache<String, byte[]> responseCache = Cache.<String, byte[]>builder().withLimit(RESPONSE_CACHE_LIMIT).withMaxWeight(RESPONSE_CACHE_MAX_BYTES, (key, bytes) -> bytes.length).build();
+    private final Timer renderTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Gauge availableCharts;
+    private volatile boolean closed;
+
+    @OpenApi(
+            description = "renders the DataSet as PNG chart image",
+            summary = "GET",
+            tags = { "DataSet" },
+            path = DEFAULT_ENDPOINT + "/:" + PATH_PARAM_NAME,
+            method = HttpMethod.GET,
+            pathParams = { @OpenApiParam(name = PATH_PARAM_NAME, description = "DataSet name") },
+            queryParams = {
+                @OpenApiParam(name = QUERY_WIDTH, type = Integer.class, description = "image width in pixel (default: " + DEFAULT_WIDTH + ")")
+                , @OpenApiParam(name = QUERY_HEIGHT, type = Integer.class, description = "image height in pixel (default: " + DEFAULT_HEIGHT + ")")
+                , @OpenApiParam(name = QUERY_STYLE, description = "chart style (default: " + DEFAULT_STYLE + ")")
+            },
+            responses = {
+                @OpenApiResponse(status = "200", content = @OpenApiContent(type = "image/png"))
+                , @OpenApiResponse(status = "304")
+                , @OpenApiResponse(status = "400")
+                , @OpenApiResponse(status = "404")
+                , @OpenApiResponse(status = "500")
+                , @OpenApiResponse(status = "503")
+            })
+    private final Handler chartHandler = this::serveChartImage;
+
+    /**
+     * Registers the end point at {@link #DEFAULT_ENDPOINT} (N.B. starts the RestServer if necessary)
+     *
+     * @param dataSets source of the DataSets and their revisions
+     */
+    public ChartImageEndpoint(@NotNull final DataSetEndpoint dataSets) {
+        this(DEFAULT_ENDPOINT, dataSets, DEFAULT_CHART_COUNT, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Registers the end point (N.B. starts the RestServer if necessary)
+     *
+     * @param endpoint end point root, images are served at {@code <endpoint>/<DataSet name>}
+     * @param dataSets source of the DataSets and their revisions
+     * @param nCharts number of pooled off-screen charts, ie. maximum number of concurrently rendered images
+     * @param queueSize maximum number of pending render requests
+     */
+    public ChartImageEndpoint(@NotNull final String endpoint, @NotNull final DataSetEndpoint dataSets, final int nCharts, final int queueSize) {
+        if (nCharts < 1 || queueSize < 1) {
+            throw new IllegalArgumentException("nCharts = " + nCharts + " and queueSize = " + queueSize + " must be positive");
+        }
+        this.endpoint = endpoint;
+        this.dataSets = dataSets;
+        dataSets.addDependentCache(responseCache);
+        charts = new ArrayBlockingQueue<>(nCharts);
+        for (int i = 0; i < nCharts; i++) {
+            charts.add(new OffscreenChart());
+        }
+        renderExecutor = RestCommonThreadPool.newExecutor(getExecutorName(), nCharts, queueSize, new ThreadPoolExecutor.AbortPolicy());
+        renderTimer = Metrics.globalRegistry.timer(METRIC_RENDER, "endpoint", endpoint);
+        cacheHits = Metrics.globalRegistry.counter(METRIC_CACHE, "endpoint", endpoint, "result", "hit");
+        cacheMisses = Metrics.globalRegistry.counter(METRIC_CACHE, "endpoint", endpoint, "result", "miss");
+        availableCharts = Gauge.builder(METRIC_AVAILABLE, charts, BlockingQueue::size).tags(Tags.of("endpoint", endpoint)).register(Metrics.globalRegistry);
+        addStyle(DEFAULT_STYLE, chart -> chart.setLegendVisible(false));
+        RestServer.getInstance().get(prefixPath(endpoint) + "/:" + PATH_PARAM_NAME, chartHandler, Collections.singleton(ANYONE));
+    }
+
+    /**
+     * Adds or replaces a named chart style (N.B. images rendered with a replaced style are not served anymore)
+     *
+     * @param name style name as used by the 'style' query parameter
+     * @param style function configuring a newly created chart, executed on the JavaFX thread
+     */
+    public void addStyle(@NotNull final String name, @NotNull final Consumer<XYChart> style) {
+        styles.put(name, new Style(style));
+    }
+
+    /**
+     * Shuts down the render executor (pending renders are completed) and unregisters the metrics and the image cache,
+     * ie. the end point may be re-created afterwards. Subsequent requests are answered with '503 Service Unavailable'.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        RestCommonThreadPool.shutdownExecutor(getExecutorName());
+        Metrics.globalRegistry.remove(renderTimer);
+        Metrics.globalRegistry.remove(cacheHits);
+        Metrics.globalRegistry.remove(cacheMisses);
+        Metrics.globalRegistry.remove(availableCharts);
+        dataSets.removeDependentCache(responseCache);
+        responseCache.clear();
+    }
+
+    public DataSetEndpoint getDataSetEndpoint() {
+        return dataSets;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return cache of encoded images (N.B. mainly for diagnostics)
+     */
+    public Cache<String, byte[]> getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * @return the names of the available chart styles
+     */
+    public Set<String> getStyleNames() {
+        return Collections.unmodifiableSet(styles.keySet());
+    }
+
+    /**
+     * @param name style name
+     * @return {@code true} if the style existed
+     */
+    public boolean removeStyle(@NotNull final String name) {
+        return styles.remove(name) != null;
+    }
+
+    /**
+     * Renders the DataSet into a PNG image (N.B. blocks until a pooled chart is available and the image is encoded)
+     *
+     * @param dataSet DataSet to be rendered
+     * @param width image width in pixel
+     * @param height image height in pixel
+     * @param styleName name of the chart style
+     * @return the PNG encoded image
+     */
+    public byte[] render(@NotNull final DataSet dataSet, final int width, final int height, @NotNull final String styleName) {
+        final Style style = styles.get(styleName);
+        if (style == null) {
+            throw new IllegalArgumentException("unknown chart style '" + styleName + "'");
+        }
+        if (width < 1 || height < 1 || width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("invalid image size " + width + "x" + height + " (max: " + MAX_SIZE + ")");
+        }
+        return renderTimer.record(() -> {
+            final WritableImage image = snapshot(dataSet, width, height, style);
+            try {
+                final ByteBuffer buffer = WriteFxImage.encodeParallel(image, null, true, Deflater.BEST_SPEED, FilterType.FILTER_NONE, Runtime.getRuntime().availableProcessors());
+                return Arrays.copyOf(buffer.array(), buffer.limit());
+            } finally {
+                imageCache.add(image);
+            }
+        });
+    }
+
+    /**
+     * @return {@code true} if the end point has been closed (see {@link #close()})
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    protected void serveChartImage(final Context ctx) {
+        if (closed) {
+            ctx.status(503).result("end point closed");
+            return;
+        }
+        final String name = ctx.pathParam(PATH_PARAM_NAME);
+        // N.B. the version is read before the data: a concurrent update or replacement invalidates the entry rather
+        // than being masked
+        final String version = dataSets.getVersion(name);
+        final DataSet dataSet = dataSets.getDataSet(name);
+        if (version == null || dataSet == null) {
+            ctx.status(404).result("DataSet '" + name + "' not found");
+            return;
+        }
+        final String styleName = ctx.queryParam(QUERY_STYLE, DEFAULT_STYLE);
+        final Style style = styles.get(styleName);
+        if (style == null) {
+            ctx.status(400).result("unknown style '" + styleName + "', available: " + getStyleNames());
+            return;
+        }
+        final int width;
+        final int height;
+        try {
+            width = Integer.parseInt(ctx.queryParam(QUERY_WIDTH, Integer.toString(DEFAULT_WIDTH)));
+            height = Integer.parseInt(ctx.queryParam(QUERY_HEIGHT, Integer.toString(DEFAULT_HEIGHT)));
+        } catch (final NumberFormatException e) {
+            ctx.status(400).result("malformed query parameter: " + e.getMessage());
+            return;
+        }
+        if (width < 1 || height < 1 || width > MAX_SIZE || height > MAX_SIZE) {
+            ctx.status(400).result("invalid image size " + width + "x" + height + " (max: " + MAX_SIZE + ")");
+            return;
+        }
+
+        final String query = width + "x" + height + '|' + styleName + '#' + style.id;
+        if (RestServer.isNotModified(ctx, DataSetEndpoint.getETag(version, query))) {
+            return;
+        }
+        final String cacheKey = version + '|' + query;
+        final byte[] cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            cacheHits.increment();
+            writeImage(ctx, cached);
+            return;
+        }
+        cacheMisses.increment();
+
+        final CompletableFuture<byte[]> rendered;
+        try {
+            rendered = CompletableFuture.supplyAsync(() -> render(dataSet, width, height, styleName), renderExecutor);
+        } catch (final RejectedExecutionException e) {
+            ctx.status(503).result("render queue saturated - please retry later");
+            return;
+        }
+        ctx.result(rendered.handle((bytes, exception) -> {
+            if (exception != null) {
+                final Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                LOGGER.atError().setCause(cause).addArgument(name).addArgument(query).log("could not render DataSet '{}' - {}");
+                ctx.status(500).result("could not render DataSet '" + name + "'");
+                return null;
+            }
+            responseCache.put(cacheKey, bytes);
+            writeImage(ctx, bytes);
+            return null;
+        }));
+    }
+
+    private String getExecutorName() {
+        return "chart:" + endpoint;
+    }
+
+    private WritableImage snapshot(final DataSet dataSet, final int width, final int height, final Style style) {
+        final OffscreenChart slot;
+        try {
+            slot = charts.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for an off-screen chart", e);
+        }
+        try {
+            slot.awaitRenderPeriod();
+            final WritableImage image = imageCache.getImage(width, height);
+            return FXUtils.runAndWait(() -> slot.snapshot(dataSet, width, height, style, image));
+        } catch (final Exception e) { // NOPMD -- rethrown with context
+            throw new IllegalStateException("could not render DataSet '" + dataSet.getName() + "'", e);
+        } finally {
+            slot.lastRender = System.nanoTime();
+            charts.add(slot);
+        }
+    }
+
+    private static void writeImage(final Context ctx, final byte[] bytes) {
+        ctx.res.setContentType(MimeType.PNG.toString());
+        RestServer.writeBytesToContext(ctx, bytes, bytes.length);
+    }
+
+    private static class OffscreenChart {
+        private final SnapshotParameters snapshotParameters = new SnapshotParameters();
+        private Group root;
+        private XYChart chart;
+        private Style style;
+        private long lastRender = System.nanoTime() - MIN_RENDER_PERIOD_NANOS;
+
+        private void awaitRenderPeriod() throws InterruptedException {
+            final long remaining = lastRender + MIN_RENDER_PERIOD_NANOS - System.nanoTime();
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+        }
+
+        private WritableImage snapshot(final DataSet dataSet, final int width, final int height, final Style style, final WritableImage image) {
+            if (root == null) {
+                root = new Group();
+                new Scene(root); // NOPMD -- window-less scene needed for CSS styling and layout
+            }
+            if (this.style != style) { // NOPMD -- identity check intended, replaced styles recreate the chart
+                chart = new XYChart();
+                style.function.accept(chart);
+                root.getChildren().setAll(chart);
+                this.style = style;
+            }
+            chart.setMinSize(width, height);
+            chart.setPrefSize(width, height);
+            chart.setMaxSize(width, height);
+            chart.getDatasets().setAll(dataSet);
+            try {
+                root.applyCss();
+                root.layout();
+                return chart.snapshot(snapshotParameters, image);
+            } finally {
+                // N.B. detach the DataSet so that its updates do not trigger redraws of idle charts
+                chart.getDatasets().clear();
+            }
+        }
+    }
+
+    private static class Style {
+        private final long id = STYLE_COUNTER.incrementAndGet();
+        private final Consumer<XYChart> function;
+
+        private Style(final Consumer<XYChart> function) {
+            this.function = function;
+        }
+    }
+}
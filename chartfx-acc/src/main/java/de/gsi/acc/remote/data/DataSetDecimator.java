@@ -0,0 +1,160 @@
+package de.gsi.acc.remote.data;
+
+import org.jetbrains.annotations.NotNull;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.DataSetError;
+import de.gsi.dataset.DataSetMetaData;
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.dataset.spi.DoubleErrorDataSet;
+
+/**
+ * Min/max decimation of two-dimensional DataSets for (thin) web clients.
+ * <p>
+ * The x-range slice is split into one bin per target pixel and each bin is represented by its minimum and maximum
+ * y-value (in their original order), ie. at most two points per pixel are returned while peaks and the visual envelope
+ * of the signal are preserved. N.B. the x-values are assumed to be sorted in ascending order.
+ */
+public final class DataSetDecimator {
+    private DataSetDecimator() {
+        // utility class
+    }
+
+    /**
+     * @param dataSet source DataSet (N.B. two-dimensional, sorted x-values, is read-locked while being decimated)
+     * @param xMin minimum x-value to be included (may be {@code Double.NEGATIVE_INFINITY})
+     * @param xMax maximum x-value to be included (may be {@code Double.POSITIVE_INFINITY})
+     * @param nPixels target pixel width, the returned slice is not decimated if {@code <= 0} or if the slice contains
+     *        less than {@code 2 * nPixels} points
+     * @return new DataSet containing the (decimated) slice. The axis names/units and meta data are copied, errors are
+     *         retained if the source is a {@link DataSetError}
+     */
+    public static DataSet decimate(@NotNull final DataSet dataSet, final double xMin, final double xMax, final int nPixels) {
+        if (dataSet.getDimension() != 2) {
+            throw new IllegalArgumentException("decimation supported only for two-dimensional DataSets, dimension = " + dataSet.getDimension());
+        }
+        if (Double.isNaN(xMin) || Double.isNaN(xMax) || xMin > xMax) {
+            throw new IllegalArgumentException("invalid range [" + xMin + ", " + xMax + "]");
+        }
+        return dataSet.lock().readLockGuard(() -> {
+            final int nData = dataSet.getDataCount();
+            final int first = getFirstIndex(dataSet, xMin, nData);
+            final int last = getLastIndex(dataSet, xMax, nData);
+            final int count = Math.max(0, last - first + 1);
+            final boolean decimate = nPixels > 0 && count > 2 * nPixels;
+            final Slice slice = new Slice(dataSet, decimate ? 2 * nPixels : count);
+            if (!decimate) {
+                for (int index = first; index <= last; index++) {
+                    slice.add(index);
+                }
+                return slice.toDataSet();
+            }
+
+            final double xLow = dataSet.get(DataSet.DIM_X, first);
+            final double binScale = nPixels / Math.max(dataSet.get(DataSet.DIM_X, last) - xLow, Double.MIN_NORMAL);
+            int currentBin = 0;
+            int minIndex = first;
+            int maxIndex = first;
+            for (int index = first + 1; index <= last; index++) {
+                final int bin = Math.min(nPixels - 1, (int) ((dataSet.get(DataSet.DIM_X, index) - xLow) * binScale));
+                if (bin != currentBin) {
+                    slice.addMinMax(minIndex, maxIndex);
+                    currentBin = bin;
+                    minIndex = index;
+                    maxIndex = index;
+                    continue;
+                }
+                final double y = dataSet.get(DataSet.DIM_Y, index);
+                if (y < dataSet.get(DataSet.DIM_Y, minIndex)) {
+                    minIndex = index;
+                } else if (y > dataSet.get(DataSet.DIM_Y, maxIndex)) {
+                    maxIndex = index;
+                }
+            }
+            slice.addMinMax(minIndex, maxIndex);
+            return slice.toDataSet();
+        });
+    }
+
+    private static int getFirstIndex(final DataSet dataSet, final double xMin, final int nData) {
+        if (nData == 0 || xMin == Double.NEGATIVE_INFINITY) {
+            return 0;
+        }
+        // N.B. getIndex(..) returns the closest index which may be outside of the range
+        int index = Math.max(0, dataSet.getIndex(DataSet.DIM_X, xMin));
+        while (index < nData && dataSet.get(DataSet.DIM_X, index) < xMin) {
+            index++;
+        }
+        while (index > 0 && dataSet.get(DataSet.DIM_X, index - 1) >= xMin) {
+            index--;
+        }
+        return index;
+    }
+
+    private static int getLastIndex(final DataSet dataSet, final double xMax, final int nData) {
+        if (nData == 0 || xMax == Double.POSITIVE_INFINITY) {
+            return nData - 1;
+        }
+        int index = Math.min(nData - 1, dataSet.getIndex(DataSet.DIM_X, xMax));
+        while (index >= 0 && dataSet.get(DataSet.DIM_X, index) > xMax) {
+            index--;
+        }
+        while (index < nData - 1 && dataSet.get(DataSet.DIM_X, index + 1) <= xMax) {
+            index++;
+        }
+        return index;
+    }
+
+    private static class Slice {
+        private final DataSet source;
+        private final DataSetError sourceErrors;
+        private final double[] x;
+        private final double[] y;
+        private final double[] eyn;
+        private final double[] eyp;
+        private int size;
+
+        private Slice(final DataSet source, final int capacity) {
+            this.source = source;
+            sourceErrors = source instanceof DataSetError ? (DataSetError) source : null;
+            x = new double[capacity];
+            y = new double[capacity];
+            eyn = sourceErrors == null ? null : new double[capacity];
+            eyp = sourceErrors == null ? null : new double[capacity];
+        }
+
+        private void add(final int index) {
+            x[size] = source.get(DataSet.DIM_X, index);
+            y[size] = source.get(DataSet.DIM_Y, index);
+            if (sourceErrors != null) {
+                eyn[size] = sourceErrors.getErrorNegative(DataSet.DIM_Y, index);
+                eyp[size] = sourceErrors.getErrorPositive(DataSet.DIM_Y, index);
+            }
+            size++;
+        }
+
+        private void addMinMax(final int minIndex, final int maxIndex) {
+            // N.B. keeps the original order to preserve the line shape
+            add(Math.min(minIndex, maxIndex));
+            if (minIndex != maxIndex) {
+                add(Math.max(minIndex, maxIndex));
+            }
+        }
+
+        private DataSet toDataSet() {
+            final DataSet result = sourceErrors == null ? new DoubleDataSet(source.getName(), x, y, size, false) : new DoubleErrorDataSet(source.getName(), x, y, eyn, eyp, size, false);
+            for (int dim = 0; dim < 2; dim++) {
+                result.getAxisDescription(dim).set(source.getAxisDescription(dim).getName(), source.getAxisDescription(dim).getUnit());
+            }
+            if (source instanceof DataSetMetaData) {
+                final DataSetMetaData sourceMetaData = (DataSetMetaData) source;
+                final DataSetMetaData metaData = (DataSetMetaData) result;
+                metaData.getInfoList().addAll(sourceMetaData.getInfoList());
+                metaData.getWarningList().addAll(sourceMetaData.getWarningList());
+                metaData.getErrorList().addAll(sourceMetaData.getErrorList());
+                metaData.getMetaInfo().putAll(sourceMetaData.getMetaInfo());
+            }
+            return result.recomputeLimits(DataSet.DIM_X).recomputeLimits(DataSet.DIM_Y);
+        }
+    }
+}
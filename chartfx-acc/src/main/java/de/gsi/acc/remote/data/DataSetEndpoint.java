@@ -0,0 +1,331 @@
+package de.gsi.acc.remote.data;
+
+import static de.gsi.acc.remote.BasicRestRoles.ANYONE;
+import static de.gsi.acc.remote.RestServer.prefixPath;
+
+import java.io.ByteArrayOutputStream;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.gsi.acc.remote.RestServer;
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.event.EventListener;
+import de.gsi.dataset.remote.MimeType;
+import de.gsi.dataset.utils.Cache;
+import de.gsi.dataset.utils.DataSetUtils;
+import de.gsi.serializer.IoBuffer;
+import de.gsi.serializer.spi.BinarySerialiser;
+import de.gsi.serializer.spi.FastByteBuffer;
+import de.gsi.serializer.spi.iobuffer.DataSetJsonSerialiser;
+import de.gsi.serializer.spi.iobuffer.DataSetSerialiser;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.plugin.openapi.annotations.HttpMethod;
+import io.javalin.plugin.openapi.annotations.OpenApi;
+import io.javalin.plugin.openapi.annotations.OpenApiContent;
+import io.javalin.plugin.openapi.annotations.OpenApiParam;
+import io.javalin.plugin.openapi.annotations.OpenApiResponse;
+
+/**
+ * REST end point serving named DataSets to (thin) web clients, e.g. {@code GET /dataset/<name>?xMin=0&xMax=10&width=800}.
+ * <p>
+ * The format is chosen via content negotiation (see {@link RestServer#getRequestedMimeProtocol}):
+ * <ul>
+ * <li>{@link MimeType#BINARY} (default): {@link DataSetSerialiser} with {@link BinarySerialiser},</li>
+ * <li>{@link MimeType#JSON} (also served to browsers requesting HTML): {@link DataSetJsonSerialiser},</li>
+ * <li>{@link MimeType#CSV} or {@link MimeType#TEXT}: {@link DataSetUtils#writeDataSetToByteArray}.</li>
+ * </ul>
+ * The optional 'xMin'/'xMax' parameters select the x-range and 'width' the target pixel width for which the slice is
+ * min/max-decimated (see {@link DataSetDecimator}), ie. at most {@code 2 * width} points are transmitted.
+ * <p>
+ * Each DataSet's revision is incremented on every update event. Responses are cached per version and query, and are
+ * tagged with a matching ETag, ie. repeated requests for unchanged DataSets are neither re-encoded nor re-transmitted.
+ * The version (see {@link #getVersion(String)}) combines the revision with a publication epoch that is unique per
+ * {@link #addDataSet(DataSet)} call and server instance, ie. ETags and cached responses of replaced, removed and
+ * re-added DataSets, or from before a server restart, never match the current DataSet. Cached responses of replaced or
+ * removed DataSets are purged, also from the caches of dependent end points (see {@link #addDependentCache(Cache)}).
+ */
+public class DataSetEndpoint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataSetEndpoint.class);
+    public static final String DEFAULT_ENDPOINT = "/dataset";
+    public static final String QUERY_X_MIN = "xMin";
+    public static final String QUERY_X_MAX = "xMax";
+    public static final String QUERY_WIDTH = "width";
+    public static final int MAX_WIDTH = 100_000;
+    private static final String PATH_PARAM_NAME = "name";
+    private static final int RESPONSE_CACHE_LIMIT = 128;
+    private static final long RESPONSE_CACHE_MAX_BYTES = 64L << 20;
+    private static final String INSTANCE_NONCE = Long.toHexString(new SecureRandom().nextLong()); // N.B. unique per server start
+    private static final AtomicLong PUBLICATION_COUNTER = new AtomicLong();
+    private final String endpoint;
+    private final ConcurrentMap<String, PublishedDataSet> dataSets = new ConcurrentHashMap<>();
+    private final Cache<String, byte[]> responseCache = Cache.<String, byte[]>builder().withLimit(RESPONSE_CACHE_LIMIT).withMaxWeight(RESPONSE_CACHE_MAX_BYTES, (key, bytes) -> bytes.length).build();
+    private final List<Cache<String, ?>> dependentCaches = new CopyOnWriteArrayList<>(Collections.singletonList(responseCache));
+
+    @OpenApi(
+            description = "serves the (min/max-decimated) DataSet slice as binary, JSON or CSV",
+            summary = "GET",
+            tags = { "DataSet" },
+            path = DEFAULT_ENDPOINT + "/:" + PATH_PARAM_NAME,
+            method = HttpMethod.GET,
+            pathParams = { @OpenApiParam(name = PATH_PARAM_NAME, description = "DataSet name") },
+            queryParams = {
+                @OpenApiParam(name = QUERY_X_MIN, type = Double.class, description = "minimum x-value (default: -inf)")
+                , @OpenApiParam(name = QUERY_X_MAX, type = Double.class, description = "maximum x-value (default: +inf)")
+                , @OpenApiParam(name = QUERY_WIDTH, type = Integer.class, description = "target pixel width for min/max decimation (default: 0 = none)")
+            },
+            responses = {
+                @OpenApiResponse(status = "200", content = @OpenApiContent(type = "application/octet-stream"))
+                , @OpenApiResponse(status = "200", content = @OpenApiContent(type = "application/json"))
+                , @OpenApiResponse(status = "200", content = @OpenApiContent(type = "text/csv"))
+                , @OpenApiResponse(status = "304")
+                , @OpenApiResponse(status = "400")
+                , @OpenApiResponse(status = "404")
+                , @OpenApiResponse(status = "406")
+            })
+    private final Handler dataSetHandler = this::serveDataSet;
+
+    /**
+     * Registers the end point at {@link #DEFAULT_ENDPOINT} (N.B. starts the RestServer if necessary)
+     */
+    public DataSetEndpoint() {
+        this(DEFAULT_ENDPOINT);
+    }
+
+    /**
+     * Registers the end point (N.B. starts the RestServer if necessary)
+     *
+     * @param endpoint end point root, DataSets are served at {@code <endpoint>/<DataSet name>}
+     */
+    public DataSetEndpoint(@NotNull final String endpoint) {
+        this.endpoint = endpoint;
+        RestServer.getInstance().get(prefixPath(endpoint) + "/:" + PATH_PARAM_NAME, dataSetHandler, Collections.singleton(ANYONE));
+    }
+
+    /**
+     * Publishes the DataSet under its name (N.B. replaces a previously published DataSet with the same name)
+     *
+     * @param dataSet the DataSet to be served
+     */
+    public void addDataSet(@NotNull final DataSet dataSet) {
+        final PublishedDataSet previous = dataSets.put(dataSet.getName(), new PublishedDataSet(dataSet));
+        if (previous != null) {
+            retire(previous);
+        }
+    }
+
+    /**
+     * Registers a cache of another end point deriving its responses from the DataSets served here (e.g.
+     * {@link ChartImageEndpoint}). Its entries of replaced or removed DataSets are purged together with the own ones.
+     *
+     * @param cache cache whose keys start with {@code getVersion(name) + '|'}
+     */
+    public void addDependentCache(@NotNull final Cache<String, ?> cache) {
+        dependentCaches.add(cache);
+    }
+
+    /**
+     * @param cache cache previously registered via {@link #addDependentCache(Cache)}
+     * @return {@code true} if the cache was registered
+     */
+    public boolean removeDependentCache(@NotNull final Cache<String, ?> cache) {
+        return dependentCaches.remove(cache);
+    }
+
+    /**
+     * @param name DataSet name
+     * @return the served DataSet or {@code null} if no DataSet with this name is served
+     */
+    public DataSet getDataSet(@NotNull final String name) {
+        final PublishedDataSet published = dataSets.get(name);
+        return published == null ? null : published.dataSet;
+    }
+
+    /**
+     * @return the names of the served DataSets
+     */
+    public Set<String> getDataSetNames() {
+        return Collections.unmodifiableSet(dataSets.keySet());
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return cache of encoded responses (N.B. mainly for diagnostics)
+     */
+    public Cache<String, byte[]> getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * @param name DataSet name
+     * @return revision of the DataSet, ie. number of update events since it has been published, or {@code -1} if the
+     *         DataSet is not served
+     */
+    public long getRevision(@NotNull final String name) {
+        final PublishedDataSet published = dataSets.get(name);
+        return published == null ? -1 : published.revision.get();
+    }
+
+    /**
+     * @param name DataSet name
+     * @return version of the DataSet ({@code <epoch>-<revision>}), ie. changes on every update event and with every
+     *         (re-)publication, or {@code null} if the DataSet is not served
+     */
+    public String getVersion(@NotNull final String name) {
+        final PublishedDataSet published = dataSets.get(name);
+        return published == null ? null : published.getVersion();
+    }
+
+    /**
+     * @param name DataSet name
+     * @return {@code true} if the DataSet has been served
+     */
+    public boolean removeDataSet(@NotNull final String name) {
+        final PublishedDataSet published = dataSets.remove(name);
+        if (published == null) {
+            return false;
+        }
+        retire(published);
+        return true;
+    }
+
+    protected void serveDataSet(final Context ctx) {
+        final String name = ctx.pathParam(PATH_PARAM_NAME);
+        final PublishedDataSet published = dataSets.get(name);
+        if (published == null) {
+            ctx.status(404).result("DataSet '" + name + "' not found");
+            return;
+        }
+        final MimeType mimeType = getResponseMimeType(RestServer.getRequestedMimeProtocol(ctx, MimeType.BINARY));
+        if (mimeType == null) {
+            ctx.status(406).result("supported formats: " + Arrays.asList(MimeType.BINARY, MimeType.JSON, MimeType.CSV));
+            return;
+        }
+        final double xMin;
+        final double xMax;
+        final int width;
+        try {
+            xMin = Double.parseDouble(ctx.queryParam(QUERY_X_MIN, "-Infinity"));
+            xMax = Double.parseDouble(ctx.queryParam(QUERY_X_MAX, "Infinity"));
+            width = Integer.parseInt(ctx.queryParam(QUERY_WIDTH, "0"));
+        } catch (final NumberFormatException e) {
+            ctx.status(400).result("malformed query parameter: " + e.getMessage());
+            return;
+        }
+        if (Double.isNaN(xMin) || Double.isNaN(xMax) || xMin > xMax || width < 0 || width > MAX_WIDTH) {
+            ctx.status(400).result("invalid range [" + xMin + ", " + xMax + "] or width = " + width + " (max: " + MAX_WIDTH + ")");
+            return;
+        }
+        final boolean slice = xMin != Double.NEGATIVE_INFINITY || xMax != Double.POSITIVE_INFINITY || width > 0;
+        if (slice && published.dataSet.getDimension() != 2) {
+            ctx.status(400).result("range queries supported only for two-dimensional DataSets");
+            return;
+        }
+
+        // N.B. the version is read before the data: a concurrent update invalidates the entry rather than being masked
+        final String version = published.getVersion();
+        final String query = mimeType + "|" + xMin + '|' + xMax + '|' + width;
+        if (RestServer.isNotModified(ctx, getETag(version, query))) {
+            return;
+        }
+        final String cacheKey = version + '|' + query;
+        byte[] bytes = responseCache.get(cacheKey);
+        if (bytes == null) {
+            final DataSet dataSet = slice ? DataSetDecimator.decimate(published.dataSet, xMin, xMax, width) : published.dataSet;
+            bytes = encode(dataSet, mimeType);
+            responseCache.put(cacheKey, bytes);
+        }
+        ctx.res.setContentType(mimeType.toString());
+        RestServer.writeBytesToContext(ctx, bytes, bytes.length);
+    }
+
+    protected static byte[] encode(@NotNull final DataSet dataSet, @NotNull final MimeType mimeType) {
+        switch (mimeType) {
+        case CSV:
+            final ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+            DataSetUtils.writeDataSetToByteArray(dataSet, byteOutput, false, false);
+            return byteOutput.toByteArray();
+        case JSON:
+            final IoBuffer jsonBuffer = new FastByteBuffer(4096);
+            dataSet.lock().readLockGuard(() -> new DataSetJsonSerialiser(jsonBuffer).write(dataSet, false));
+            return Arrays.copyOf(jsonBuffer.elements(), jsonBuffer.position());
+        case BINARY:
+            final IoBuffer binaryBuffer = new FastByteBuffer(4096);
+            dataSet.lock().readLockGuard(() -> DataSetSerialiser.withIoSerialiser(new BinarySerialiser(binaryBuffer)).write(dataSet, false));
+            return Arrays.copyOf(binaryBuffer.elements(), binaryBuffer.position());
+        default:
+            throw new IllegalArgumentException("unsupported MIME type: " + mimeType);
+        }
+    }
+
+    /**
+     * @param version DataSet version (see {@link #getVersion(String)})
+     * @param query normalised query the response depends on (format, range, size, ...)
+     * @return strong ETag of the response
+     */
+    protected static String getETag(@NotNull final String version, @NotNull final String query) {
+        return "\"" + version + '-' + Integer.toHexString(query.hashCode()) + '"';
+    }
+
+    private void retire(final PublishedDataSet published) {
+        published.dataSet.removeListener(published.listener);
+        final String prefix = published.epoch + '-';
+        for (final Cache<String, ?> cache : dependentCaches) {
+            final List<String> keys = new ArrayList<>(cache.keySet());
+            for (final String key : keys) {
+                if (key.startsWith(prefix)) {
+                    cache.remove(key);
+                }
+            }
+        }
+    }
+
+    private static MimeType getResponseMimeType(final MimeType requested) {
+        switch (requested) {
+        case BINARY:
+        case UNKNOWN:
+            return MimeType.BINARY;
+        case JSON:
+        case HTML: // N.B. human-readable format for browsers
+            return MimeType.JSON;
+        case CSV:
+        case TEXT:
+            return MimeType.CSV;
+        default:
+            LOGGER.atDebug().addArgument(requested).log("unsupported DataSet format '{}' requested");
+            return null;
+        }
+    }
+
+    private static class PublishedDataSet {
+        private final DataSet dataSet;
+        private final String epoch = INSTANCE_NONCE + '.' + Long.toHexString(PUBLICATION_COUNTER.incrementAndGet());
+        private final AtomicLong revision = new AtomicLong();
+        private final EventListener listener = evt -> revision.incrementAndGet();
+
+        private PublishedDataSet(final DataSet dataSet) {
+            this.dataSet = dataSet;
+            dataSet.addListener(listener);
+        }
+
+        private String getVersion() {
+            return epoch + '-' + revision.get();
+        }
+    }
+}
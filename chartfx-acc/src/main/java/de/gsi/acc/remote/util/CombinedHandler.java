@@ -30,25 +30,31 @@ import io.javalin.http.sse.SseClient;
 public class CombinedHandler implements Handler {
     private static final Logger LOGGER = LoggerFactory.getLogger(CombinedHandler.class);
     private final Handler getHandler;
+    private final Consumer<SseClient> sseConnectHandler;
 
     private final Consumer<SseClient> clientConsumer = client -> {
         final String endPointName = client.ctx.req.getRequestURI();
-        RestServer.getEventClients(endPointName).add(client);
+        RestServer.getEventBroadcaster().register(endPointName, client);
         if (LOGGER.isDebugEnabled()) {
             LOGGER.atDebug().addArgument(client.ctx.req.getRemoteHost()).addArgument(endPointName).log("added SSE client: '{}' to route '{}'");
         }
-        client.sendEvent("connected", "Hello, new SSE client " + client.ctx.req.getRemoteHost());
-
-        client.onClose(() -> {
-            RestServer.getEventClients(endPointName).remove(client);
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.atDebug().addArgument(client.ctx.req.getRemoteHost()).addArgument(endPointName).log("removed client: '{}' from route '{}'");
-            }
-        });
+        RestServer.getEventBroadcaster().send(client, "connected", "Hello, new SSE client " + client.ctx.req.getRemoteHost());
+        if (sseConnectHandler != null) {
+            sseConnectHandler.accept(client);
+        }
     };
 
     public CombinedHandler(@NotNull Handler getHandler) {
+        this(getHandler, null);
+    }
+
+    /**
+     * @param getHandler handler for regular GET requests
+     * @param sseConnectHandler optional handler called for each newly connected SSE client (e.g. to send an initial state)
+     */
+    public CombinedHandler(@NotNull Handler getHandler, final Consumer<SseClient> sseConnectHandler) {
         this.getHandler = getHandler;
+        this.sseConnectHandler = sseConnectHandler;
     }
 
     @Override
@@ -64,27 +70,36 @@ public class CombinedHandler implements Handler {
 
             ctx.req.startAsync(ctx.req, ctx.res);
             ctx.req.getAsyncContext().setTimeout(0);
-            clientConsumer.accept(new SseClient(ctx));
-
+            final SseClient client = new SseClient(ctx);
             ctx.req.getAsyncContext().addListener(new AsyncListener() {
                 @Override
-                public void onComplete(AsyncEvent event) throws IOException { /* not needed */
+                public void onComplete(AsyncEvent event) throws IOException {
+                    removeClient(client);
                 }
                 @Override
                 public void onError(AsyncEvent event) throws IOException {
-                    event.getAsyncContext().complete();
+                    removeClient(client);
                 }
                 @Override
                 public void onStartAsync(AsyncEvent event) throws IOException { /* not needed */
                 }
                 @Override
                 public void onTimeout(AsyncEvent event) throws IOException {
-                    event.getAsyncContext().complete();
+                    removeClient(client);
                 }
             });
+            clientConsumer.accept(client);
             return;
         }
 
         getHandler.handle(ctx);
     }
-}
\ No newline at end of file
+
+    private static void removeClient(final SseClient client) {
+        // N.B. completes the asynchronous request if not already done
+        RestServer.getEventBroadcaster().unregister(client);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.atDebug().addArgument(client.ctx.req.getRemoteHost()).addArgument(client.ctx.req.getRequestURI()).log("removed client: '{}' from route '{}'");
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package de.gsi.acc.remote.util;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.NotNull;
+
+import de.gsi.acc.remote.RestCommonThreadPool;
+
+/**
+ * Asynchronous long-polling support.
+ * <p>
+ * Instead of parking a server thread until new data is available, each long-polling request registers a
+ * {@link CompletableFuture} for its topic that is completed by the publishing thread (see {@link #publish(String)}) or
+ * once the request timed out. The future can be handed to Javalin via {@code Context#result(CompletableFuture)}, ie. any
+ * number of pending long-polling requests does not occupy any thread.
+ *
+ * <pre>
+ * {@code
+ * ctx.result(notifier.await(topic, () -> cache.get(key), data -> data.getTimeStampCreation() > lastUpdate, 10, TimeUnit.SECONDS)
+ *         .thenApply(data -> ...));
+ * }
+ * </pre>
+ */
+public class LongPollingNotifier {
+    private final ConcurrentMap<String, Set<PendingRequest<?>>> pendingRequests = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timeoutExecutor;
+
+    public LongPollingNotifier() {
+        this(RestCommonThreadPool.getCommonScheduledPool());
+    }
+
+    /**
+     * @param timeoutExecutor executor used to complete timed-out requests
+     */
+    public LongPollingNotifier(@NotNull final ScheduledExecutorService timeoutExecutor) {
+        this.timeoutExecutor = timeoutExecutor;
+    }
+
+    /**
+     * Registers a long-polling request for the given topic.
+     *
+     * @param topic topic the request waits for, e.g. the end point of the requested data
+     * @param state supplier of the current state (N.B. called by the publishing thread, should be inexpensive)
+     * @param isUpdated returns {@code true} if the state is newer than the state already known to the client
+     * @param timeout maximum waiting time after which the future is completed with the current (not updated) state
+     * @param timeUnit time unit of timeout
+     * @param <T> generic state type
+     * @return future that is completed with the updated state, or the current state after the time-out
+     */
+    public <T> CompletableFuture<T> await(@NotNull final String topic, @NotNull final Supplier<T> state, @NotNull final Predicate<T> isUpdated, final long timeout, @NotNull final TimeUnit timeUnit) {
+        final PendingRequest<T> request = new PendingRequest<>(state, isUpdated);
+        // N.B. registration and removal are atomic per topic: an emptied topic is dropped and re-created on demand
+        pendingRequests.compute(topic, (key, requests) -> {
+            final Set<PendingRequest<?>> topicRequests = requests == null ? ConcurrentHashMap.newKeySet() : requests;
+            topicRequests.add(request);
+            return topicRequests;
+        });
+        // N.B. checks the state only after registering: an update published in the meantime would be missed otherwise
+        if (!request.completeIfUpdated()) {
+            final ScheduledFuture<?> timer = timeoutExecutor.schedule(request::complete, timeout, timeUnit);
+            request.future.whenComplete((value, throwable) -> timer.cancel(false));
+        }
+        request.future.whenComplete((value, throwable) -> pendingRequests.computeIfPresent(topic, (key, requests) -> {
+            requests.remove(request);
+            return requests.isEmpty() ? null : requests;
+        }));
+        return request.future;
+    }
+
+    /**
+     * @return number of pending long-polling requests (all topics)
+     */
+    public int getPendingCount() {
+        return pendingRequests.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * @param topic topic
+     * @return number of pending long-polling requests for the given topic
+     */
+    public int getPendingCount(@NotNull final String topic) {
+        final Set<PendingRequest<?>> requests = pendingRequests.get(topic);
+        return requests == null ? 0 : requests.size();
+    }
+
+    /**
+     * @return number of topics with pending long-polling requests
+     */
+    public int getTopicCount() {
+        return pendingRequests.size();
+    }
+
+    /**
+     * Completes all pending requests of the given topic whose state has been updated.
+     * N.B. dependent actions of the futures (e.g. writing the response) are executed by the calling thread unless they
+     * have been registered asynchronously.
+     *
+     * @param topic topic that has been updated
+     * @return number of completed requests
+     */
+    public int publish(@NotNull final String topic) {
+        final Set<PendingRequest<?>> requests = pendingRequests.get(topic);
+        if (requests == null || requests.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        for (final PendingRequest<?> request : requests) {
+            if (request.completeIfUpdated()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static class PendingRequest<T> {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Supplier<T> state;
+        private final Predicate<T> isUpdated;
+
+        private PendingRequest(final Supplier<T> state, final Predicate<T> isUpdated) {
+            this.state = state;
+            this.isUpdated = isUpdated;
+        }
+
+        private void complete() {
+            try {
+                future.complete(state.get());
+            } catch (final RuntimeException e) { // NOPMD -- forwarded to the waiting request
+                future.completeExceptionally(e);
+            }
+        }
+
+        private boolean completeIfUpdated() {
+            if (future.isDone()) {
+                return false;
+            }
+            try {
+                final T value = state.get();
+                return isUpdated.test(value) && future.complete(value);
+            } catch (final RuntimeException e) { // NOPMD -- forwarded to the waiting request
+                return future.completeExceptionally(e);
+            }
+        }
+    }
+}
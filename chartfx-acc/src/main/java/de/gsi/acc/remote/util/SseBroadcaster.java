@@ -0,0 +1,421 @@
+package de.gsi.acc.remote.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.gsi.acc.remote.RestCommonThreadPool;
+import de.gsi.acc.remote.RestServer;
+
+import io.javalin.http.sse.SseClient;
+
+/**
+ * Server-sent-event (SSE) broadcaster with per-client backpressure.
+ * <p>
+ * Each event is serialised only once into its SSE wire format and the same immutable byte array is enqueued into a
+ * bounded queue per client. The queues are drained using the non-blocking servlet API (see
+ * {@link ServletOutputStream#setWriteListener(WriteListener)}), ie. the broadcasting thread never blocks on a slow
+ * client and one slow browser cannot delay the notification of others. If a client's queue is full, its oldest pending
+ * event is dropped. Clients with pending events that did not make any write progress for longer than the stall time-out
+ * are disconnected, either when new events are enqueued or by a periodic check (see
+ * {@link RestCommonThreadPool#getCommonScheduledPool()}) that runs while clients are registered.
+ * <p>
+ * N.B. once registered, all events to a client must be sent via {@link #broadcast(String, String, String)} or
+ * {@link #send(SseClient, String, String)}: blocking writes, e.g. via {@link SseClient#sendEvent(String, String)}, are
+ * not permitted by the servlet container for streams in non-blocking mode.
+ *
+ * @see RestServer#getEventBroadcaster()
+ * @see CombinedHandler
+ */
+public class SseBroadcaster {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SseBroadcaster.class);
+    public static final int DEFAULT_QUEUE_CAPACITY = 32;
+    public static final long DEFAULT_STALL_TIMEOUT_MILLIS = 30_000;
+    private final int queueCapacity;
+    private final long stallTimeoutNanos;
+    private final ConcurrentMap<SseClient, ClientChannel> channels = new ConcurrentHashMap<>();
+    private final LongAdder eventsBroadcast = new LongAdder();
+    private final LongAdder eventsDropped = new LongAdder();
+    private final LongAdder clientsDisconnected = new LongAdder();
+    private final LongAdder fanOutLatencySum = new LongAdder(); // [ns]
+    private final LongAdder fanOutLatencyCount = new LongAdder();
+    private final AtomicLong fanOutLatencyMax = new AtomicLong(); // [ns]
+    private ScheduledFuture<?> stallCheck; // guarded by 'this'
+
+    public SseBroadcaster() {
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_STALL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param queueCapacity maximum number of pending events per client before the oldest pending events are dropped
+     * @param stallTimeout time after which clients without write progress are disconnected
+     * @param timeUnit time unit of stallTimeout
+     */
+    public SseBroadcaster(final int queueCapacity, final long stallTimeout, final TimeUnit timeUnit) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        if (stallTimeout <= 0) {
+            throw new IllegalArgumentException("stallTimeout must be positive: " + stallTimeout);
+        }
+        this.queueCapacity = queueCapacity;
+        this.stallTimeoutNanos = timeUnit.toNanos(stallTimeout);
+    }
+
+    /**
+     * Serialises the event once and enqueues it for all clients registered to the given end point.
+     *
+     * @param endpointName end point the clients have been registered for
+     * @param event the SSE event name
+     * @param data the SSE event data (N.B. multi-line data is sent as multiple 'data:' fields)
+     * @return number of clients the event has been enqueued for
+     */
+    public int broadcast(@NotNull final String endpointName, @NotNull final String event, @NotNull final String data) {
+        final Queue<SseClient> clients = RestServer.getEventClients(endpointName);
+        if (clients.isEmpty()) {
+            return 0;
+        }
+        final Message message = new Message(event, data);
+        eventsBroadcast.increment();
+        int count = 0;
+        for (final SseClient client : clients) {
+            final ClientChannel channel = channels.get(client);
+            if (channel != null && channel.enqueue(message)) {
+                count++;
+            }
+        }
+        message.complete(); // N.B. releases the broadcaster's reference: fan-out is complete once all clients have been served
+        return count;
+    }
+
+    /**
+     * @return number of clients with non-blocking write channels
+     */
+    public int getClientCount() {
+        return channels.size();
+    }
+
+    /**
+     * @return number of clients that have been disconnected because they stalled
+     */
+    public long getClientsDisconnected() {
+        return clientsDisconnected.sum();
+    }
+
+    /**
+     * @return number of events that have been broadcast
+     */
+    public long getEventsBroadcast() {
+        return eventsBroadcast.sum();
+    }
+
+    /**
+     * @return number of events that have been dropped for clients that fell behind
+     */
+    public long getEventsDropped() {
+        return eventsDropped.sum();
+    }
+
+    /**
+     * @return average time [ms] between broadcasting an event and handing it to the last client's output stream
+     */
+    public double getFanOutLatencyAverage() {
+        final long count = fanOutLatencyCount.sum();
+        return count == 0 ? 0.0 : fanOutLatencySum.sum() / (count * 1e6);
+    }
+
+    /**
+     * @return maximum time [ms] between broadcasting an event and handing it to the last client's output stream
+     */
+    public double getFanOutLatencyMax() {
+        return fanOutLatencyMax.get() / 1e6;
+    }
+
+    /**
+     * @return number of pending events of the given client or {@code -1} if the client is not registered
+     */
+    public int getPendingEvents(@NotNull final SseClient client) {
+        final ClientChannel channel = channels.get(client);
+        return channel == null ? -1 : channel.queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Registers the client for the given end point and switches its output stream to non-blocking mode.
+     * N.B. the request must have been put into asynchronous mode before (see {@link javax.servlet.ServletRequest#startAsync()}).
+     *
+     * @param endpointName end point the client subscribed to
+     * @param client the SSE client
+     */
+    public void register(@NotNull final String endpointName, @NotNull final SseClient client) {
+        final ServletOutputStream outputStream;
+        try {
+            outputStream = client.ctx.res.getOutputStream();
+        } catch (final IOException e) {
+            LOGGER.atWarn().setCause(e).addArgument(endpointName).log("could not register SSE client for '{}'");
+            return;
+        }
+        final ClientChannel channel = new ClientChannel(endpointName, client, outputStream);
+        channels.put(client, channel);
+        updateStallCheck();
+        RestServer.getEventClients(endpointName).add(client);
+        try {
+            outputStream.setWriteListener(channel);
+        } catch (final IllegalStateException e) {
+            LOGGER.atWarn().setCause(e).addArgument(endpointName).log("SSE client for '{}' is not in asynchronous mode");
+            unregister(client);
+        }
+    }
+
+    public void resetStatistics() {
+        eventsBroadcast.reset();
+        eventsDropped.reset();
+        clientsDisconnected.reset();
+        fanOutLatencySum.reset();
+        fanOutLatencyCount.reset();
+        fanOutLatencyMax.set(0);
+    }
+
+    /**
+     * Sends an event to a single client, e.g. an initial state for a newly connected client.
+     *
+     * @param client the SSE client
+     * @param event the SSE event name
+     * @param data the SSE event data
+     * @return {@code false} if the client is not registered
+     */
+    public boolean send(@NotNull final SseClient client, @NotNull final String event, @NotNull final String data) {
+        final ClientChannel channel = channels.get(client);
+        if (channel == null) {
+            return false;
+        }
+        final Message message = new Message(event, data);
+        final boolean enqueued = channel.enqueue(message);
+        message.complete();
+        return enqueued;
+    }
+
+    /**
+     * Removes the client and completes its asynchronous request (ie. closes the connection).
+     *
+     * @param client the SSE client
+     * @return {@code false} if the client was not (or no longer) registered
+     */
+    public boolean unregister(@NotNull final SseClient client) {
+        final ClientChannel channel = channels.remove(client);
+        if (channel == null) {
+            return false;
+        }
+        channel.close();
+        updateStallCheck();
+        return true;
+    }
+
+    /**
+     * disconnects clients that did not make write progress, N.B. also those that are idle, ie. without new events
+     */
+    private void checkStalledClients() {
+        final long now = System.nanoTime();
+        channels.values().forEach(channel -> channel.isStalled(now));
+    }
+
+    private void recordFanOutLatency(final long latency) {
+        fanOutLatencySum.add(latency);
+        fanOutLatencyCount.increment();
+        fanOutLatencyMax.accumulateAndGet(latency, Math::max);
+    }
+
+    /**
+     * starts the periodic stall check for the first and stops it after the last registered client
+     */
+    private synchronized void updateStallCheck() {
+        if (channels.isEmpty()) {
+            if (stallCheck != null) {
+                stallCheck.cancel(false);
+                stallCheck = null;
+            }
+        } else if (stallCheck == null) {
+            final long period = Math.max(stallTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(1));
+            stallCheck = RestCommonThreadPool.getCommonScheduledPool().scheduleAtFixedRate(this::checkStalledClients, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static byte[] serialise(final String event, final String data) {
+        final StringBuilder builder = new StringBuilder(event.length() + data.length() + 16).append("event: ").append(event).append('\n');
+        int start = 0;
+        int end;
+        while ((end = data.indexOf('\n', start)) >= 0) {
+            builder.append("data: ").append(data, start, end).append('\n');
+            start = end + 1;
+        }
+        builder.append("data: ").append(data, start, data.length()).append("\n\n");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private class ClientChannel implements WriteListener {
+        private final String endpointName;
+        private final SseClient client;
+        private final ServletOutputStream outputStream;
+        private final ArrayBlockingQueue<Message> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long lastProgress = System.nanoTime();
+        private volatile boolean closed;
+        private volatile boolean flushPending;
+
+        private ClientChannel(final String endpointName, final SseClient client, final ServletOutputStream outputStream) {
+            this.endpointName = endpointName;
+            this.client = client;
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            LOGGER.atDebug().setCause(t).addArgument(endpointName).log("SSE client for '{}' failed");
+            unregister(client);
+        }
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        private void close() {
+            closed = true;
+            RestServer.getEventClients(endpointName).remove(client);
+            Message message;
+            while ((message = queue.poll()) != null) {
+                message.complete();
+            }
+            try {
+                client.ctx.req.getAsyncContext().complete();
+            } catch (final IllegalStateException e) { // NOPMD -- request already completed
+                LOGGER.atTrace().setCause(e).log("async context already completed");
+            }
+        }
+
+        private void drain() {
+            do {
+                if (!draining.compareAndSet(false, true)) {
+                    return; // another thread is draining, N.B. it re-checks the queue before returning
+                }
+                try {
+                    writePending();
+                } catch (final IOException | IllegalStateException e) {
+                    LOGGER.atDebug().setCause(e).addArgument(endpointName).log("SSE client for '{}' disconnected");
+                    unregister(client);
+                    return;
+                } finally {
+                    draining.set(false);
+                }
+                // N.B. re-check after releasing the drain flag: events may have been enqueued or the stream may have
+                // become ready (and 'onWritePossible()' been rejected) while this thread was still draining.
+                // If not ready, the container calls 'onWritePossible()' once the output can be written to.
+            } while (!closed && (flushPending || !queue.isEmpty()) && outputStream.isReady());
+        }
+
+        private boolean enqueue(final Message message) {
+            if (closed) {
+                return false;
+            }
+            message.retain();
+            if (queue.isEmpty()) {
+                lastProgress = System.nanoTime(); // N.B. stall time is measured from the oldest pending event
+            }
+            while (!queue.offer(message)) {
+                if (isStalled(System.nanoTime())) {
+                    message.complete();
+                    return false;
+                }
+                final Message dropped = queue.poll();
+                if (dropped != null) {
+                    eventsDropped.increment();
+                    dropped.complete();
+                }
+            }
+            drain();
+            return true;
+        }
+
+        /**
+         * disconnects the client if it has pending events but did not make any write progress within the stall time-out
+         *
+         * @param now current time stamp [ns]
+         * @return {@code true} if the client stalled and has been disconnected
+         */
+        private boolean isStalled(final long now) {
+            if (closed || queue.isEmpty() || now - lastProgress <= stallTimeoutNanos) {
+                return false;
+            }
+            if (unregister(client)) { // N.B. may be checked concurrently by the broadcasting and the periodic check
+                LOGGER.atInfo().addArgument(client.ctx.req.getRemoteHost()).addArgument(endpointName).log("disconnected stalled SSE client '{}' from '{}'");
+                clientsDisconnected.increment();
+            }
+            return true;
+        }
+
+        /**
+         * @return {@code true} if all pending events have been written, {@code false} if the output stream is not ready
+         * @throws IOException in case the client disconnected
+         */
+        private boolean writePending() throws IOException {
+            while (outputStream.isReady()) {
+                final Message message = queue.poll();
+                if (message == null) {
+                    if (!flushPending) {
+                        return true;
+                    }
+                    flushPending = false;
+                    outputStream.flush();
+                    continue;
+                }
+                outputStream.write(message.bytes);
+                flushPending = true;
+                lastProgress = System.nanoTime();
+                message.complete();
+            }
+            return false;
+        }
+    }
+
+    private class Message {
+        private final byte[] bytes;
+        private final long timeStamp = System.nanoTime();
+        private final AtomicInteger references = new AtomicInteger(1); // N.B. initially held by the sender
+
+        private Message(final String event, final String data) {
+            bytes = serialise(event, data);
+        }
+
+        /**
+         * releases one reference, ie. the event has been written, dropped or its client disconnected
+         */
+        private void complete() {
+            if (references.decrementAndGet() == 0) {
+                recordFanOutLatency(System.nanoTime() - timeStamp);
+            }
+        }
+
+        private void retain() {
+            references.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package de.gsi.acc.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests of the bounded and instrumented {@link RestCommonThreadPool} executors
+ */
+class RestCommonThreadPoolTests {
+    private static final SimpleMeterRegistry REGISTRY = new SimpleMeterRegistry();
+
+    @BeforeAll
+    static void addRegistry() {
+        Metrics.addRegistry(REGISTRY);
+    }
+
+    @AfterAll
+    static void removeRegistry() {
+        Metrics.removeRegistry(REGISTRY);
+    }
+
+    @Test
+    void testDefaultExecutors() {
+        assertSame(RestCommonThreadPool.getCommonPool(), RestCommonThreadPool.getExecutor(RestCommonThreadPool.EXECUTOR_COMMON));
+        assertSame(RestCommonThreadPool.getImagePool(), RestCommonThreadPool.getExecutor(RestCommonThreadPool.EXECUTOR_IMAGE));
+        assertSame(RestCommonThreadPool.getResponsePool(), RestCommonThreadPool.getExecutor(RestCommonThreadPool.EXECUTOR_RESPONSE));
+        assertSame(RestCommonThreadPool.getCommonScheduledPool(), RestCommonThreadPool.getExecutor(RestCommonThreadPool.EXECUTOR_SCHEDULED));
+        assertTrue(RestCommonThreadPool.getNumbersOfThreads() >= 32);
+        assertThrows(UnsupportedOperationException.class, () -> RestCommonThreadPool.getExecutors().clear());
+
+        assertThrows(IllegalArgumentException.class, () -> RestCommonThreadPool.newExecutor(RestCommonThreadPool.EXECUTOR_COMMON, 1, 1, new ThreadPoolExecutor.AbortPolicy()));
+        assertThrows(IllegalArgumentException.class, () -> RestCommonThreadPool.newExecutor("testInvalid", 0, 1, new ThreadPoolExecutor.AbortPolicy()));
+        assertThrows(IllegalArgumentException.class, () -> RestCommonThreadPool.newExecutor("testInvalid", 1, 0, new ThreadPoolExecutor.AbortPolicy()));
+    }
+
+    @Test
+    void testBoundedQueueAndMetrics() throws InterruptedException {
+        final String name = "testBounded";
+        final ExecutorService executor = RestCommonThreadPool.newExecutor(name, 1, 2, new ThreadPoolExecutor.AbortPolicy());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executed = new AtomicInteger();
+        final Runnable blockingTask = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executed.incrementAndGet();
+        };
+        executor.execute(blockingTask);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(executed::incrementAndGet);
+        executor.execute(executed::incrementAndGet);
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(executed::incrementAndGet), "queue is full");
+
+        assertEquals(1.0, REGISTRY.get("executor.active").tag("name", name).gauge().value());
+        assertEquals(2.0, REGISTRY.get("executor.queued").tag("name", name).gauge().value());
+        assertEquals(1.0, REGISTRY.get(RestCommonThreadPool.METRIC_REJECTED).tag("name", name).counter().count());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, executed.get());
+        assertNotNull(REGISTRY.find("executor").tag("name", name).timer());
+        assertEquals(3, REGISTRY.get("executor").tag("name", name).timer().count(), "task latency");
+    }
+
+    @Test
+    void testDiscardOldestPolicy() throws InterruptedException {
+        final ExecutorService executor = RestCommonThreadPool.newExecutor("testDiscardOldest", 1, 1, new ThreadPoolExecutor.DiscardOldestPolicy());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final StringBuffer executed = new StringBuffer(); // NOPMD -- thread-safe by design
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> executed.append("outdated"));
+        executor.execute(() -> executed.append("latest"));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals("latest", executed.toString());
+    }
+}
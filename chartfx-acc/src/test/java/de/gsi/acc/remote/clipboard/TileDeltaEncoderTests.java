@@ -0,0 +1,202 @@
+package de.gsi.acc.remote.clipboard;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests of the tile-based {@link TileDeltaEncoder}: the decoded messages composited onto a client-side canvas must
+ * reproduce the encoded frames.
+ */
+class TileDeltaEncoderTests {
+    private static final Pattern HEADER = Pattern.compile("^\\{\"seq\":(\\d+),\"keyFrame\":(true|false),\"width\":(\\d+),\"height\":(\\d+),\"tiles\":\\[");
+    private static final Pattern TILE = Pattern.compile("\\{\"x\":(\\d+),\"y\":(\\d+),\"png\":\"([A-Za-z0-9+/=]*)\"\\}");
+
+    @ParameterizedTest(name = "tileSize - {0}")
+    @ValueSource(ints = { 1, 16, 32, 64 })
+    void testRoundTrip(final int tileSize) {
+        final int width = 100; // N.B. not a multiple of the tile size -> partial edge tiles
+        final int height = 70;
+        final TileDeltaEncoder encoder = new TileDeltaEncoder(tileSize);
+        assertEquals(tileSize, encoder.getTileSize());
+        assertNull(encoder.getKeyFrame());
+
+        final Random random = new Random(42);
+        final int[] frame = new int[width * height];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = random.nextInt();
+        }
+        final Canvas client = new Canvas();
+        final Message first = client.apply(encoder.update(frame, width, height));
+        assertTrue(first.keyFrame);
+        assertEquals(1, first.seq);
+        assertEquals(nTiles(width, tileSize) * nTiles(height, tileSize), first.nTiles);
+        assertArrayEquals(frame, client.pixels);
+
+        for (int update = 0; update < 5; update++) {
+            // modify a small rectangle -> only the overlapping tiles are sent
+            final int x0 = random.nextInt(width - 10);
+            final int y0 = random.nextInt(height - 10);
+            for (int y = y0; y < y0 + 10; y++) {
+                for (int x = x0; x < x0 + 10; x++) {
+                    frame[y * width + x] = random.nextInt();
+                }
+            }
+            final Message delta = client.apply(encoder.update(frame, width, height));
+            assertFalse(delta.keyFrame);
+            assertEquals(update + 2, delta.seq);
+            assertEquals(((x0 + 9) / tileSize - x0 / tileSize + 1) * ((y0 + 9) / tileSize - y0 / tileSize + 1), delta.nTiles);
+            assertArrayEquals(frame, client.pixels, "update " + update);
+        }
+        assertEquals(encoder.getSequence(), client.lastSequence);
+
+        // a newly connecting client is fully initialised by the key frame
+        final Canvas newClient = new Canvas();
+        final Message keyFrame = newClient.apply(encoder.getKeyFrame());
+        assertTrue(keyFrame.keyFrame);
+        assertEquals(encoder.getSequence(), keyFrame.seq);
+        assertArrayEquals(frame, newClient.pixels);
+    }
+
+    @Test
+    void testUnchangedFramesAndStatistics() {
+        final TileDeltaEncoder encoder = new TileDeltaEncoder();
+        assertEquals(TileDeltaEncoder.DEFAULT_TILE_SIZE, encoder.getTileSize());
+        final int[] frame = new int[128 * 128]; // 2 x 2 tiles
+        assertNotNull(encoder.update(frame, 128, 128));
+        assertEquals(4, encoder.getTilesEncoded());
+        assertEquals(0, encoder.getTilesUnchanged());
+
+        assertNull(encoder.update(frame.clone(), 128, 128), "unchanged frame -> no message");
+        assertEquals(1, encoder.getSequence());
+        assertEquals(4, encoder.getTilesEncoded());
+        assertEquals(4, encoder.getTilesUnchanged());
+
+        frame[127 * 128 + 127] = 0xFF00FF00; // last pixel -> last tile
+        final Message delta = new Canvas().parse(encoder.update(frame, 128, 128));
+        assertEquals(1, delta.nTiles);
+        assertEquals(2, delta.seq);
+        assertEquals(5, encoder.getTilesEncoded());
+        assertEquals(7, encoder.getTilesUnchanged());
+    }
+
+    @Test
+    void testKeyFrameOnResizeAndReset() {
+        final TileDeltaEncoder encoder = new TileDeltaEncoder(8);
+        final Canvas client = new Canvas();
+        assertTrue(client.apply(encoder.update(new int[16 * 16], 16, 16)).keyFrame);
+        final int[] resized = new int[24 * 8];
+        resized[5] = 0x80FF0000;
+        final Message resize = client.apply(encoder.update(resized, 24, 8));
+        assertTrue(resize.keyFrame, "new dimensions -> key frame");
+        assertEquals(3, resize.nTiles);
+        assertArrayEquals(resized, client.pixels);
+
+        encoder.reset();
+        assertNull(encoder.getKeyFrame());
+        final Message afterReset = client.apply(encoder.update(resized, 24, 8));
+        assertTrue(afterReset.keyFrame, "reset -> key frame");
+        assertEquals(3, afterReset.seq, "sequence continues after reset");
+        assertArrayEquals(resized, client.pixels);
+
+        assertThrows(IllegalArgumentException.class, () -> new TileDeltaEncoder(0));
+        assertThrows(IllegalArgumentException.class, () -> encoder.update(null, 8, 8));
+        assertThrows(IllegalArgumentException.class, () -> encoder.update(new int[63], 8, 8));
+        assertThrows(IllegalArgumentException.class, () -> encoder.update(new int[64], 0, 8));
+    }
+
+    private static int nTiles(final int length, final int tileSize) {
+        return (length + tileSize - 1) / tileSize;
+    }
+
+    private static class Message {
+        private long seq;
+        private boolean keyFrame;
+        private int nTiles;
+    }
+
+    /**
+     * minimal client-side compositor equivalent to the one in 'one_tiles.vm'
+     */
+    private static class Canvas {
+        private int width;
+        private int height;
+        private int[] pixels = new int[0];
+        private long lastSequence = -1;
+
+        private Message apply(final String json) {
+            final Message message = parse(json);
+            if (message.keyFrame) {
+                if (width * height != pixels.length || pixels.length == 0) {
+                    pixels = new int[width * height];
+                }
+            } else {
+                assertEquals(lastSequence + 1, message.seq, "sequence gap");
+            }
+            lastSequence = message.seq;
+            final Matcher tile = TILE.matcher(json);
+            while (tile.find()) {
+                final int x0 = Integer.parseInt(tile.group(1));
+                final int y0 = Integer.parseInt(tile.group(2));
+                final BufferedImage image = decode(tile.group(3));
+                for (int y = 0; y < image.getHeight(); y++) {
+                    for (int x = 0; x < image.getWidth(); x++) {
+                        pixels[(y0 + y) * width + x0 + x] = image.getRGB(x, y);
+                    }
+                }
+            }
+            return message;
+        }
+
+        private Message parse(final String json) {
+            assertNotNull(json);
+            final Matcher header = HEADER.matcher(json);
+            assertTrue(header.find(), json);
+            final Message message = new Message();
+            message.seq = Long.parseLong(header.group(1));
+            message.keyFrame = Boolean.parseBoolean(header.group(2));
+            final int newWidth = Integer.parseInt(header.group(3));
+            final int newHeight = Integer.parseInt(header.group(4));
+            if (newWidth != width || newHeight != height) {
+                width = newWidth;
+                height = newHeight;
+                pixels = new int[0];
+            }
+            final Matcher tile = TILE.matcher(json);
+            while (tile.find()) {
+                message.nTiles++;
+            }
+            assertTrue(json.endsWith("]}"), json);
+            return message;
+        }
+
+        private static BufferedImage decode(final String base64) {
+            try {
+                final BufferedImage image = ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(base64)));
+                assertNotNull(image);
+                return image;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
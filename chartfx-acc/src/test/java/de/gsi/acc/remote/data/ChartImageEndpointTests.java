@@ -0,0 +1,225 @@
+package de.gsi.acc.remote.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import de.gsi.acc.remote.RestCommonThreadPool;
+import de.gsi.acc.remote.RestServer;
+import de.gsi.dataset.remote.MimeType;
+import de.gsi.dataset.spi.DoubleDataSet;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests of the {@link ChartImageEndpoint} off-screen chart pool, rendering, image cache and metrics.
+ * N.B. renders via the headless Monocle platform unless another JavaFX platform has been configured.
+ */
+class ChartImageEndpointTests {
+    private static final String ENDPOINT = "/chartimageendpointtest";
+    private static final int N_CHARTS = 2;
+    private static final int QUEUE_SIZE = 4;
+    private static final SimpleMeterRegistry REGISTRY = new SimpleMeterRegistry();
+    private static final HttpClient CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private static DataSetEndpoint dataSets;
+    private static ChartImageEndpoint chartEndpoint;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        if (System.getProperty("glass.platform") == null) {
+            System.setProperty("glass.platform", "Monocle");
+            System.setProperty("monocle.platform", "Headless");
+            System.setProperty("prism.order", "sw");
+        }
+        try {
+            Platform.startup(() -> {});
+        } catch (final IllegalStateException e) { // NOPMD -- toolkit already initialised
+            assertNotNull(e);
+        }
+        Metrics.addRegistry(REGISTRY);
+        DataSetEndpointTests.startRestServerOnFreePorts();
+        dataSets = new DataSetEndpoint(ENDPOINT + "data");
+        chartEndpoint = new ChartImageEndpoint(ENDPOINT, dataSets, N_CHARTS, QUEUE_SIZE);
+        assertEquals(ENDPOINT, chartEndpoint.getEndpoint());
+        assertEquals(dataSets, chartEndpoint.getDataSetEndpoint());
+    }
+
+    @AfterAll
+    static void removeRegistry() {
+        Metrics.removeRegistry(REGISTRY);
+    }
+
+    @Test
+    void testRenderAndStyles() throws IOException {
+        final DoubleDataSet dataSet = newDataSet("render", 100);
+        final long renderCount = REGISTRY.get(ChartImageEndpoint.METRIC_RENDER).tag("endpoint", ENDPOINT).timer().count();
+        final BufferedImage image = decode(chartEndpoint.render(dataSet, 320, 200, ChartImageEndpoint.DEFAULT_STYLE));
+        assertEquals(320, image.getWidth());
+        assertEquals(200, image.getHeight());
+        assertEquals(renderCount + 1, REGISTRY.get(ChartImageEndpoint.METRIC_RENDER).tag("endpoint", ENDPOINT).timer().count());
+
+        chartEndpoint.addStyle("legend", chart -> chart.setLegendVisible(true));
+        assertTrue(chartEndpoint.getStyleNames().contains("legend"));
+        assertEquals(640, decode(chartEndpoint.render(dataSet, 640, 480, "legend")).getWidth());
+        assertTrue(chartEndpoint.removeStyle("legend"));
+        assertFalse(chartEndpoint.removeStyle("legend"));
+
+        assertThrows(IllegalArgumentException.class, () -> chartEndpoint.render(dataSet, 320, 200, "legend"));
+        assertThrows(IllegalArgumentException.class, () -> chartEndpoint.render(dataSet, 0, 200, ChartImageEndpoint.DEFAULT_STYLE));
+        assertThrows(IllegalArgumentException.class, () -> chartEndpoint.render(dataSet, 320, ChartImageEndpoint.MAX_SIZE + 1, ChartImageEndpoint.DEFAULT_STYLE));
+        assertThrows(IllegalArgumentException.class, () -> new ChartImageEndpoint(ENDPOINT + "invalid", dataSets, 0, 1));
+    }
+
+    @Test
+    void testServeAndCache() throws IOException, InterruptedException {
+        dataSets.addDataSet(newDataSet("served", 100));
+        final HttpResponse<byte[]> first = get("served?width=300&height=200", null);
+        assertEquals(200, first.statusCode());
+        assertTrue(first.headers().firstValue("Content-Type").orElse("").startsWith(MimeType.PNG.toString()));
+        assertEquals(300, decode(first.body()).getWidth());
+        final String eTag = first.headers().firstValue("ETag").orElse(null);
+        assertNotNull(eTag);
+
+        // unchanged -> '304 Not Modified', or served from the cache
+        assertEquals(304, get("served?width=300&height=200", eTag).statusCode());
+        final double hits = cacheCount("hit");
+        final double misses = cacheCount("miss");
+        final HttpResponse<byte[]> cached = get("served?width=300&height=200", null);
+        assertEquals(200, cached.statusCode());
+        assertEquals(hits + 1, cacheCount("hit"));
+        assertEquals(misses, cacheCount("miss"));
+
+        // replacement -> new ETag, cached images of the previous DataSet are purged
+        final String version = dataSets.getVersion("served");
+        assertTrue(hasCachedImages(version));
+        dataSets.addDataSet(newDataSet("served", 50));
+        assertFalse(hasCachedImages(version), "images of replaced DataSet must be purged");
+        final HttpResponse<byte[]> replaced = get("served?width=300&height=200", eTag);
+        assertEquals(200, replaced.statusCode(), "stale ETag must not match the replacement");
+        assertNotEquals(eTag, replaced.headers().firstValue("ETag").orElse(null));
+        assertEquals(misses + 1, cacheCount("miss"));
+
+        // remove -> purged and not found
+        final String replacedVersion = dataSets.getVersion("served");
+        assertTrue(dataSets.removeDataSet("served"));
+        assertFalse(hasCachedImages(replacedVersion));
+        assertEquals(404, get("served?width=300&height=200", null).statusCode());
+    }
+
+    @Test
+    void testBadRequests() throws IOException, InterruptedException {
+        dataSets.addDataSet(newDataSet("bad", 10));
+        assertEquals(404, get("unknown", null).statusCode());
+        assertEquals(400, get("bad?style=unknown", null).statusCode());
+        assertEquals(400, get("bad?width=abc", null).statusCode());
+        assertEquals(400, get("bad?width=0", null).statusCode());
+        assertEquals(400, get("bad?height=" + (ChartImageEndpoint.MAX_SIZE + 1), null).statusCode());
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void testRenderPool() {
+        dataSets.addDataSet(newDataSet("pool", 1000));
+        final int nRequests = 3 * (N_CHARTS + QUEUE_SIZE);
+        final List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>(nRequests);
+        for (int i = 0; i < nRequests; i++) {
+            // N.B. distinct sizes -> no cache hits
+            final HttpRequest request = HttpRequest.newBuilder(URI.create(RestServer.getLocalURI() + ENDPOINT + "/pool?width=" + (200 + i) + "&height=100")).build();
+            responses.add(CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()));
+        }
+        int nRendered = 0;
+        for (final CompletableFuture<HttpResponse<byte[]>> response : responses) {
+            final int status = response.join().statusCode();
+            assertTrue(status == 200 || status == 503, "unexpected status " + status);
+            nRendered += status == 200 ? 1 : 0;
+        }
+        assertTrue(nRendered >= N_CHARTS, "rendered = " + nRendered);
+        // all charts are returned to the pool
+        assertEquals(N_CHARTS, REGISTRY.get(ChartImageEndpoint.METRIC_AVAILABLE).tag("endpoint", ENDPOINT).gauge().value());
+    }
+
+    @Test
+    void testClose() throws IOException, InterruptedException {
+        final String closedEndpoint = ENDPOINT + "closed";
+        final ChartImageEndpoint closable = new ChartImageEndpoint(closedEndpoint, dataSets, 1, 1);
+        assertNotNull(RestCommonThreadPool.getExecutor("chart:" + closedEndpoint));
+        assertNotNull(Metrics.globalRegistry.find(ChartImageEndpoint.METRIC_AVAILABLE).tag("endpoint", closedEndpoint).gauge());
+        assertFalse(closable.isClosed());
+
+        closable.close();
+        assertTrue(closable.isClosed());
+        assertNull(RestCommonThreadPool.getExecutor("chart:" + closedEndpoint), "executor must be shut down and unregistered");
+        assertNull(Metrics.globalRegistry.find(ChartImageEndpoint.METRIC_RENDER).tag("endpoint", closedEndpoint).timer());
+        assertNull(Metrics.globalRegistry.find(ChartImageEndpoint.METRIC_AVAILABLE).tag("endpoint", closedEndpoint).gauge());
+        assertTrue(Metrics.globalRegistry.find("executor.completed").tag("name", "chart:" + closedEndpoint).meters().isEmpty());
+        assertFalse(dataSets.removeDependentCache(closable.getResponseCache()), "image cache must be unregistered");
+        closable.close(); // N.B. idempotent
+
+        dataSets.addDataSet(newDataSet("closed", 10));
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(RestServer.getLocalURI() + closedEndpoint + "/closed")).build();
+        assertEquals(503, CLIENT.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode());
+
+        // the executor name may be re-used, the shared executors cannot be shut down
+        RestCommonThreadPool.newExecutor("chart:" + closedEndpoint, 1, 1, new ThreadPoolExecutor.AbortPolicy());
+        assertTrue(RestCommonThreadPool.shutdownExecutor("chart:" + closedEndpoint));
+        assertFalse(RestCommonThreadPool.shutdownExecutor("chart:" + closedEndpoint));
+        assertThrows(IllegalArgumentException.class, () -> RestCommonThreadPool.shutdownExecutor(RestCommonThreadPool.EXECUTOR_COMMON));
+    }
+
+    private static double cacheCount(final String result) {
+        return REGISTRY.get(ChartImageEndpoint.METRIC_CACHE).tags("endpoint", ENDPOINT, "result", result).counter().count();
+    }
+
+    private static BufferedImage decode(final byte[] png) throws IOException {
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(image, "not a valid PNG image");
+        return image;
+    }
+
+    private static HttpResponse<byte[]> get(final String path, final String ifNoneMatch) throws IOException, InterruptedException {
+        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(RestServer.getLocalURI() + ENDPOINT + '/' + path));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static boolean hasCachedImages(final String version) {
+        return chartEndpoint.getResponseCache().keySet().stream().anyMatch(key -> key.startsWith(version + '|'));
+    }
+
+    private static DoubleDataSet newDataSet(final String name, final int nSamples) {
+        final DoubleDataSet dataSet = new DoubleDataSet(name, nSamples);
+        for (int i = 0; i < nSamples; i++) {
+            dataSet.add(i, Math.cos(0.1 * i));
+        }
+        return dataSet;
+    }
+}
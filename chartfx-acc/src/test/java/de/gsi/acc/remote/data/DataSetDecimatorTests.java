@@ -0,0 +1,93 @@
+package de.gsi.acc.remote.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.DataSetError;
+import de.gsi.dataset.DataSetMetaData;
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.dataset.spi.DoubleErrorDataSet;
+import de.gsi.dataset.spi.DoubleGridDataSet;
+
+/**
+ * Tests for {@link DataSetDecimator}
+ */
+class DataSetDecimatorTests {
+    private static final int N_SAMPLES = 10_000;
+
+    @Test
+    void testExceptions() {
+        final DataSet dataSet = getTestDataSet();
+        assertThrows(IllegalArgumentException.class, () -> DataSetDecimator.decimate(dataSet, 1.0, 0.0, 10));
+        assertThrows(IllegalArgumentException.class, () -> DataSetDecimator.decimate(dataSet, Double.NaN, 0.0, 10));
+        assertThrows(IllegalArgumentException.class, () -> DataSetDecimator.decimate(new DoubleGridDataSet("grid", 3), 0.0, 1.0, 10));
+    }
+
+    @Test
+    void testRangeSlice() {
+        final DataSet dataSet = getTestDataSet();
+        final DataSet slice = DataSetDecimator.decimate(dataSet, 100.0, 199.5, 0);
+        assertEquals(100, slice.getDataCount());
+        assertEquals(100.0, slice.get(DataSet.DIM_X, 0));
+        assertEquals(199.0, slice.get(DataSet.DIM_X, 99));
+        assertEquals("test", slice.getName());
+        assertEquals("time", slice.getAxisDescription(DataSet.DIM_X).getName());
+        assertEquals("s", slice.getAxisDescription(DataSet.DIM_X).getUnit());
+        assertEquals("value", ((DataSetMetaData) slice).getMetaInfo().get("key"));
+        assertTrue(slice instanceof DataSetError);
+        assertEquals(0.5, ((DataSetError) slice).getErrorNegative(DataSet.DIM_Y, 0));
+        assertEquals(1.0, ((DataSetError) slice).getErrorPositive(DataSet.DIM_Y, 0));
+
+        // not decimated if less than two points per pixel
+        assertEquals(100, DataSetDecimator.decimate(dataSet, 100.0, 199.5, 50).getDataCount());
+        assertEquals(N_SAMPLES, DataSetDecimator.decimate(dataSet, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0).getDataCount());
+        assertEquals(0, DataSetDecimator.decimate(dataSet, -10.0, -1.0, 0).getDataCount());
+        assertEquals(0, DataSetDecimator.decimate(dataSet, 10.2, 10.8, 0).getDataCount());
+        assertEquals(1, DataSetDecimator.decimate(dataSet, 10.0, 10.0, 0).getDataCount());
+        assertEquals(0, DataSetDecimator.decimate(new DoubleDataSet("empty"), 0.0, 1.0, 10).getDataCount());
+    }
+
+    @Test
+    void testMinMaxDecimation() {
+        final int nPixels = 100;
+        final DataSet dataSet = getTestDataSet();
+        final DataSet decimated = DataSetDecimator.decimate(dataSet, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, nPixels);
+        assertTrue(decimated.getDataCount() <= 2 * nPixels, "count = " + decimated.getDataCount());
+        assertTrue(decimated.getDataCount() >= nPixels, "count = " + decimated.getDataCount());
+
+        // envelope and peaks are preserved
+        assertEquals(dataSet.getAxisDescription(DataSet.DIM_Y).getMin(), decimated.getAxisDescription(DataSet.DIM_Y).getMin());
+        assertEquals(dataSet.getAxisDescription(DataSet.DIM_Y).getMax(), decimated.getAxisDescription(DataSet.DIM_Y).getMax());
+        assertEquals(1000.0, Arrays.stream(decimated.getValues(DataSet.DIM_Y)).limit(decimated.getDataCount()).max().orElse(0.0), "peak");
+        // x-values remain sorted, ie. original order is kept
+        for (int i = 1; i < decimated.getDataCount(); i++) {
+            assertTrue(decimated.get(DataSet.DIM_X, i) > decimated.get(DataSet.DIM_X, i - 1));
+        }
+        // and are original samples
+        for (int i = 0; i < decimated.getDataCount(); i++) {
+            final int index = (int) decimated.get(DataSet.DIM_X, i);
+            assertEquals(dataSet.get(DataSet.DIM_Y, index), decimated.get(DataSet.DIM_Y, i));
+        }
+
+        final DataSet plain = DataSetDecimator.decimate(new DoubleDataSet("plain", new double[] { 0, 1, 2, 3, 4, 5 }, new double[] { 0, 5, 1, 1, -3, 2 }, 6, true), 0.0, 5.0, 2);
+        assertEquals(4, plain.getDataCount());
+        assertArrayEquals(new double[] { 0, 1, 4, 5 }, Arrays.copyOf(plain.getValues(DataSet.DIM_X), 4));
+    }
+
+    private static DataSet getTestDataSet() {
+        final DoubleErrorDataSet dataSet = new DoubleErrorDataSet("test", N_SAMPLES);
+        for (int i = 0; i < N_SAMPLES; i++) {
+            dataSet.add(i, i == 4242 ? 1000.0 : Math.sin(0.01 * i), 0.5, 1.0);
+        }
+        dataSet.getAxisDescription(DataSet.DIM_X).set("time", "s");
+        dataSet.getMetaInfo().put("key", "value");
+        return dataSet.recomputeLimits(DataSet.DIM_Y);
+    }
+}
@@ -0,0 +1,186 @@
+package de.gsi.acc.remote.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import de.gsi.acc.remote.RestServer;
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.event.UpdateEvent;
+import de.gsi.dataset.remote.MimeType;
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.serializer.spi.BinarySerialiser;
+import de.gsi.serializer.spi.FastByteBuffer;
+import de.gsi.serializer.spi.iobuffer.DataSetSerialiser;
+
+/**
+ * Loop-back tests of the {@link DataSetEndpoint} content negotiation, range queries, conditional requests and response
+ * caching.
+ */
+class DataSetEndpointTests {
+    private static final String ENDPOINT = "/datasetendpointtest";
+    private static final HttpClient CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private static DataSetEndpoint dataSetEndpoint;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        startRestServerOnFreePorts();
+        dataSetEndpoint = new DataSetEndpoint(ENDPOINT);
+        assertEquals(ENDPOINT, dataSetEndpoint.getEndpoint());
+    }
+
+    @Test
+    void testContentNegotiation() throws IOException, InterruptedException {
+        final DoubleDataSet dataSet = newDataSet("negotiation", 100);
+        dataSetEndpoint.addDataSet(dataSet);
+        assertTrue(dataSetEndpoint.getDataSetNames().contains("negotiation"));
+
+        final HttpResponse<byte[]> binary = get("negotiation", MimeType.BINARY, null);
+        assertEquals(200, binary.statusCode());
+        assertTrue(binary.headers().firstValue("Content-Type").orElse("").startsWith(MimeType.BINARY.toString()));
+        final DataSet received = DataSetSerialiser.withIoSerialiser(new BinarySerialiser(new FastByteBuffer(binary.body(), binary.body().length))).read();
+        assertEquals(dataSet.getDataCount(), received.getDataCount());
+        assertArrayEquals(Arrays.copyOf(dataSet.getValues(DataSet.DIM_Y), 100), Arrays.copyOf(received.getValues(DataSet.DIM_Y), 100), 0.0);
+
+        final HttpResponse<byte[]> json = get("negotiation", MimeType.JSON, null);
+        assertEquals(200, json.statusCode());
+        assertTrue(json.headers().firstValue("Content-Type").orElse("").startsWith(MimeType.JSON.toString()));
+        assertTrue(new String(json.body(), StandardCharsets.UTF_8).startsWith("{"));
+        assertArrayEquals(json.body(), get("negotiation", MimeType.HTML, null).body(), "browsers are served JSON");
+
+        final HttpResponse<byte[]> csv = get("negotiation", MimeType.CSV, null);
+        assertEquals(200, csv.statusCode());
+        assertTrue(csv.headers().firstValue("Content-Type").orElse("").startsWith(MimeType.CSV.toString()));
+
+        assertEquals(406, get("negotiation", MimeType.PNG, null).statusCode());
+    }
+
+    @Test
+    void testBadRequests() throws IOException, InterruptedException {
+        dataSetEndpoint.addDataSet(newDataSet("bad", 100));
+        assertEquals(404, get("unknown", MimeType.JSON, null).statusCode());
+        assertEquals(400, get("bad?xMin=abc", MimeType.JSON, null).statusCode());
+        assertEquals(400, get("bad?xMin=10&xMax=1", MimeType.JSON, null).statusCode());
+        assertEquals(400, get("bad?width=-1", MimeType.JSON, null).statusCode());
+        assertEquals(400, get("bad?width=" + (DataSetEndpoint.MAX_WIDTH + 1), MimeType.JSON, null).statusCode());
+        assertEquals(200, get("bad?xMin=10&xMax=20&width=4", MimeType.JSON, null).statusCode());
+    }
+
+    @Test
+    void testConditionalRequestsAndCache() throws IOException, InterruptedException {
+        final DoubleDataSet dataSet = newDataSet("conditional", 1000);
+        dataSetEndpoint.addDataSet(dataSet);
+        final HttpResponse<byte[]> first = get("conditional?width=10", MimeType.BINARY, null);
+        assertEquals(200, first.statusCode());
+        final String eTag = first.headers().firstValue("ETag").orElse(null);
+        assertNotNull(eTag);
+
+        // unchanged -> '304 Not Modified', or served from the cache
+        assertEquals(304, get("conditional?width=10", MimeType.BINARY, eTag).statusCode());
+        final long hits = dataSetEndpoint.getResponseCache().getHitCount();
+        final HttpResponse<byte[]> cached = get("conditional?width=10", MimeType.BINARY, null);
+        assertEquals(200, cached.statusCode());
+        assertArrayEquals(first.body(), cached.body());
+        assertEquals(hits + 1, dataSetEndpoint.getResponseCache().getHitCount());
+        final DataSet decimated = DataSetSerialiser.withIoSerialiser(new BinarySerialiser(new FastByteBuffer(cached.body(), cached.body().length))).read();
+        assertTrue(decimated.getDataCount() <= 20, "min/max decimation -> at most 2 * width points");
+
+        // different query -> different ETag
+        final HttpResponse<byte[]> otherQuery = get("conditional?width=20", MimeType.BINARY, eTag);
+        assertEquals(200, otherQuery.statusCode());
+        assertNotEquals(eTag, otherQuery.headers().firstValue("ETag").orElse(null));
+
+        // update -> new revision and ETag
+        final String version = dataSetEndpoint.getVersion("conditional");
+        dataSet.invokeListener(new UpdateEvent(dataSet, "test update"));
+        assertNotEquals(version, dataSetEndpoint.getVersion("conditional"));
+        final HttpResponse<byte[]> updated = get("conditional?width=10", MimeType.BINARY, eTag);
+        assertEquals(200, updated.statusCode());
+        assertNotEquals(eTag, updated.headers().firstValue("ETag").orElse(null));
+    }
+
+    @Test
+    void testReplaceAndRemove() throws IOException, InterruptedException {
+        final DoubleDataSet original = newDataSet("replaced", 100);
+        dataSetEndpoint.addDataSet(original);
+        final HttpResponse<byte[]> first = get("replaced", MimeType.JSON, null);
+        final String eTag = first.headers().firstValue("ETag").orElse(null);
+        final String version = dataSetEndpoint.getVersion("replaced");
+        assertNotNull(version);
+        assertTrue(hasCachedEntries(version));
+
+        // replacement with the same revision count -> new version, old entries are purged
+        final DoubleDataSet replacement = newDataSet("replaced", 50);
+        dataSetEndpoint.addDataSet(replacement);
+        assertNotEquals(version, dataSetEndpoint.getVersion("replaced"));
+        assertFalse(hasCachedEntries(version), "entries of replaced DataSet must be purged");
+        final HttpResponse<byte[]> afterReplace = get("replaced", MimeType.JSON, eTag);
+        assertEquals(200, afterReplace.statusCode(), "stale ETag must not match the replacement");
+        assertFalse(Arrays.equals(first.body(), afterReplace.body()));
+
+        // remove + re-add of the same DataSet -> new version, no false '304 Not Modified'
+        final String replacedETag = afterReplace.headers().firstValue("ETag").orElse(null);
+        final String replacedVersion = dataSetEndpoint.getVersion("replaced");
+        assertTrue(dataSetEndpoint.removeDataSet("replaced"));
+        assertFalse(dataSetEndpoint.removeDataSet("replaced"));
+        assertNull(dataSetEndpoint.getVersion("replaced"));
+        assertNull(dataSetEndpoint.getDataSet("replaced"));
+        assertEquals(-1, dataSetEndpoint.getRevision("replaced"));
+        assertFalse(hasCachedEntries(replacedVersion));
+        assertEquals(404, get("replaced", MimeType.JSON, replacedETag).statusCode());
+
+        dataSetEndpoint.addDataSet(replacement);
+        assertEquals(0, dataSetEndpoint.getRevision("replaced"));
+        assertNotEquals(replacedVersion, dataSetEndpoint.getVersion("replaced"));
+        assertEquals(200, get("replaced", MimeType.JSON, replacedETag).statusCode());
+    }
+
+    private static HttpResponse<byte[]> get(final String path, final MimeType mimeType, final String ifNoneMatch) throws IOException, InterruptedException {
+        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(RestServer.getLocalURI() + ENDPOINT + '/' + path)).header("Accept", mimeType.toString());
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static boolean hasCachedEntries(final String version) {
+        return dataSetEndpoint.getResponseCache().keySet().stream().anyMatch(key -> key.startsWith(version + '|'));
+    }
+
+    private static DoubleDataSet newDataSet(final String name, final int nSamples) {
+        final DoubleDataSet dataSet = new DoubleDataSet(name, nSamples);
+        for (int i = 0; i < nSamples; i++) {
+            dataSet.add(i, Math.sin(0.1 * i));
+        }
+        return dataSet;
+    }
+
+    /**
+     * starts the RestServer on free ports unless these have been configured (or the server been started) before
+     */
+    static void startRestServerOnFreePorts() throws IOException {
+        if (System.getProperty(RestServer.TAG_REST_SERVER_PORT) == null) {
+            try (ServerSocket socket1 = new ServerSocket(0); ServerSocket socket2 = new ServerSocket(0)) {
+                System.setProperty(RestServer.TAG_REST_SERVER_PORT, Integer.toString(socket1.getLocalPort()));
+                System.setProperty(RestServer.TAG_REST_SERVER_PORT2, Integer.toString(socket2.getLocalPort()));
+            }
+        }
+        assertNotNull(RestServer.getInstance());
+    }
+}
@@ -0,0 +1,220 @@
+package de.gsi.acc.remote.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.javalin.Javalin;
+
+/**
+ * Tests of {@link LongPollingNotifier} including a load test that compares the server thread count and notification
+ * latency of asynchronous long-polling against the (previously used) blocking wait on a {@link Condition}.
+ * N.B. the load test with many clients is opt-in and enabled by setting the number of clients via the
+ * 'longPollingTestClients' system property (e.g. '-DlongPollingTestClients=1000').
+ */
+class LongPollingNotifierTests {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LongPollingNotifierTests.class);
+    private static final String PROPERTY_LOAD_TEST_CLIENTS = "longPollingTestClients";
+    private static final int N_CLIENTS = 16;
+    private static final int N_LOAD_TEST_CLIENTS = Integer.getInteger(PROPERTY_LOAD_TEST_CLIENTS, 0);
+    private static final String TOPIC = "/topic";
+
+    @Test
+    void testBasicNotification() throws InterruptedException, ExecutionException, TimeoutException {
+        final LongPollingNotifier notifier = new LongPollingNotifier();
+        final AtomicLong state = new AtomicLong(1);
+
+        // state is already newer -> immediate completion
+        final CompletableFuture<Long> immediate = notifier.await(TOPIC, state::get, value -> value > 0, 10, TimeUnit.SECONDS);
+        assertTrue(immediate.isDone());
+        assertEquals(1L, immediate.get());
+        assertEquals(0, notifier.getPendingCount());
+
+        final CompletableFuture<Long> pending1 = notifier.await(TOPIC, state::get, value -> value > 1, 10, TimeUnit.SECONDS);
+        final CompletableFuture<Long> pending2 = notifier.await(TOPIC, state::get, value -> value > 2, 10, TimeUnit.SECONDS);
+        final CompletableFuture<Long> otherTopic = notifier.await("/other", state::get, value -> value > 1, 10, TimeUnit.SECONDS);
+        assertEquals(3, notifier.getPendingCount());
+        assertEquals(2, notifier.getPendingCount(TOPIC));
+        assertEquals(0, notifier.publish(TOPIC), "state not yet updated");
+        assertEquals(0, notifier.publish("/unknown"));
+
+        state.set(2);
+        assertEquals(1, notifier.publish(TOPIC));
+        assertEquals(2L, pending1.get(1, TimeUnit.SECONDS));
+        assertFalse(pending2.isDone());
+        assertFalse(otherTopic.isDone(), "other topic must not be notified");
+        assertEquals(1, notifier.getPendingCount(TOPIC));
+
+        state.set(3);
+        assertEquals(1, notifier.publish(TOPIC));
+        assertEquals(3L, pending2.get(1, TimeUnit.SECONDS));
+        assertEquals(0, notifier.getPendingCount(TOPIC));
+        otherTopic.cancel(false);
+        assertEquals(0, notifier.getPendingCount());
+        assertEquals(0, notifier.getTopicCount(), "topics without pending requests are removed");
+    }
+
+    @Test
+    void testExceptions() {
+        final LongPollingNotifier notifier = new LongPollingNotifier();
+        final CompletableFuture<Object> future = notifier.await(TOPIC, () -> {
+            throw new IllegalStateException("state not available");
+        }, value -> true, 10, TimeUnit.SECONDS);
+        assertTrue(future.isCompletedExceptionally());
+        final ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertEquals(0, notifier.getPendingCount());
+    }
+
+    @Test
+    void testTimeOut() throws InterruptedException, ExecutionException, TimeoutException {
+        final LongPollingNotifier notifier = new LongPollingNotifier();
+        final AtomicLong state = new AtomicLong(42);
+        final CompletableFuture<Long> future = notifier.await(TOPIC, state::get, value -> value > 42, 50, TimeUnit.MILLISECONDS);
+        assertFalse(future.isDone());
+        assertEquals(42L, future.get(5, TimeUnit.SECONDS), "current state after time-out");
+        assertEquals(0, notifier.getPendingCount());
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void testAsynchronousVsBlocking() throws Exception {
+        compareAsynchronousVsBlocking(N_CLIENTS, false);
+    }
+
+    @Test
+    @Tag("LoadTest")
+    @EnabledIfSystemProperty(named = PROPERTY_LOAD_TEST_CLIENTS, matches = "[1-9][0-9]*")
+    @Timeout(value = 180, unit = TimeUnit.SECONDS)
+    void testLoadAsynchronousVsBlocking() throws Exception {
+        compareAsynchronousVsBlocking(N_LOAD_TEST_CLIENTS, true);
+    }
+
+    private static void compareAsynchronousVsBlocking(final int nClients, final boolean checkThreads) throws Exception {
+        final LongPollingNotifier notifier = new LongPollingNotifier();
+        final AtomicLong state = new AtomicLong();
+        final Lock lock = new ReentrantLock();
+        final Condition condition = lock.newCondition();
+        final AtomicInteger blockedRequests = new AtomicInteger();
+
+        final Javalin server = Javalin.create(config -> config.server(() -> new Server(new QueuedThreadPool(nClients + 64)))).start(0);
+        server.get("/async", ctx -> {
+            final long lastUpdate = Long.parseLong(ctx.queryParam("lastUpdate", "0"));
+            ctx.result(notifier.await(TOPIC, state::get, value -> value > lastUpdate, 60, TimeUnit.SECONDS).thenApply(Object::toString));
+        });
+        server.get("/blocking", ctx -> {
+            final long lastUpdate = Long.parseLong(ctx.queryParam("lastUpdate", "0"));
+            lock.lock();
+            try {
+                blockedRequests.incrementAndGet();
+                while (state.get() <= lastUpdate) {
+                    condition.await(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                blockedRequests.decrementAndGet();
+                lock.unlock();
+            }
+            ctx.result(Long.toString(state.get()));
+        });
+
+        final ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        final HttpClient client = HttpClient.newBuilder().executor(clientExecutor).version(HttpClient.Version.HTTP_1_1).build();
+        try {
+            final LoadResult async = runLoad(client, nClients, server.port(), "/async", state, notifier::getPendingCount, () -> notifier.publish(TOPIC));
+            final LoadResult blocking = runLoad(client, nClients, server.port(), "/blocking", state, blockedRequests::get, () -> {
+                lock.lock();
+                try {
+                    condition.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            });
+            LOGGER.atInfo().addArgument(nClients).addArgument(async).addArgument(blocking).log("{} pending long-polling requests - asynchronous: {} vs. blocking: {}");
+
+            assertEquals(0, notifier.getPendingCount());
+            assertEquals(0, notifier.getTopicCount());
+            if (checkThreads) {
+                // N.B. JVM-wide thread count, only meaningful if the number of clients dominates other threads
+                assertTrue(async.additionalThreads < nClients / 4, "asynchronous long-polling: " + async);
+                assertTrue(async.additionalThreads < blocking.additionalThreads, "asynchronous: " + async + " blocking: " + blocking);
+            }
+        } finally {
+            clientExecutor.shutdown();
+            server.stop();
+        }
+    }
+
+    private static LoadResult runLoad(final HttpClient client, final int nClients, final int port, final String endpoint, final AtomicLong state, final IntSupplier pendingCount, final Runnable publisher) throws Exception {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        final int threadsBefore = threadBean.getThreadCount();
+        final long lastUpdate = state.get();
+        final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + endpoint + "?lastUpdate=" + lastUpdate)).build();
+        final List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>(nClients);
+        for (int i = 0; i < nClients; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        final long timeOut = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(60);
+        while (pendingCount.getAsInt() < nClients) {
+            assertTrue(System.currentTimeMillis() < timeOut, endpoint + " pending requests: " + pendingCount.getAsInt());
+            Thread.sleep(10); // NOPMD -- wait for the requests to be registered
+        }
+        final int threadsPending = threadBean.getThreadCount();
+
+        final long start = System.nanoTime();
+        state.incrementAndGet();
+        publisher.run();
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+        final double latency = (System.nanoTime() - start) * 1e-6;
+        for (final CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.get().statusCode());
+            assertEquals(Long.toString(lastUpdate + 1), response.get().body());
+        }
+        return new LoadResult(threadsPending - threadsBefore, latency);
+    }
+
+    private static class LoadResult {
+        private final int additionalThreads;
+        private final double latency; // [ms] until all pending requests have been answered
+
+        private LoadResult(final int additionalThreads, final double latency) {
+            this.additionalThreads = additionalThreads;
+            this.latency = latency;
+        }
+
+        @Override
+        public String toString() {
+            return "additional threads = " + additionalThreads + ", latency = " + String.format("%.1f", latency) + " ms";
+        }
+    }
+}
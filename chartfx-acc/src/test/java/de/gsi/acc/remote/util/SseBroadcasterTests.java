@@ -0,0 +1,253 @@
+package de.gsi.acc.remote.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.gsi.acc.remote.RestServer;
+import de.gsi.dataset.remote.MimeType;
+
+import io.javalin.Javalin;
+import io.javalin.http.sse.SseClient;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.sse.EventSource;
+import okhttp3.sse.EventSourceListener;
+import okhttp3.sse.EventSources;
+
+/**
+ * Loop-back tests of {@link SseBroadcaster} with simulated OkHttp SSE clients.
+ * N.B. the load test with many clients is opt-in and enabled by setting the number of clients via the
+ * 'sseBroadcasterTestClients' system property (e.g. '-DsseBroadcasterTestClients=2000').
+ */
+class SseBroadcasterTests {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SseBroadcasterTests.class);
+    private static final String PROPERTY_LOAD_TEST_CLIENTS = "sseBroadcasterTestClients";
+    private static final int N_CLIENTS = 16;
+    private static final int N_LOAD_TEST_CLIENTS = Integer.getInteger(PROPERTY_LOAD_TEST_CLIENTS, 0);
+    private static final String ENDPOINT = "/sseBroadcasterTest";
+    private static final String ENDPOINT_SLOW = "/sseBroadcasterTestSlow";
+    private static final String ENDPOINT_STALLED = "/sseBroadcasterTestStalled";
+    private static final SseBroadcaster STALL_BROADCASTER = new SseBroadcaster(SseBroadcaster.DEFAULT_QUEUE_CAPACITY, 500, TimeUnit.MILLISECONDS);
+    private static Javalin server;
+    private static OkHttpClient okClient;
+
+    @BeforeAll
+    static void startServer() {
+        server = Javalin.create().start(0);
+        server.get(ENDPOINT, new CombinedHandler(ctx -> ctx.result("GET")));
+        server.get(ENDPOINT_SLOW, new CombinedHandler(ctx -> ctx.result("GET")));
+        server.get(ENDPOINT_STALLED, ctx -> { // N.B. same as CombinedHandler but with a dedicated broadcaster
+            ctx.res.setStatus(200);
+            ctx.res.setContentType(MimeType.EVENT_STREAM.toString());
+            ctx.res.flushBuffer();
+            ctx.req.startAsync(ctx.req, ctx.res);
+            ctx.req.getAsyncContext().setTimeout(0);
+            STALL_BROADCASTER.register(ENDPOINT_STALLED, new SseClient(ctx));
+        });
+
+        final int maxClients = Math.max(N_CLIENTS, N_LOAD_TEST_CLIENTS);
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxClients + 16);
+        dispatcher.setMaxRequestsPerHost(maxClients + 16);
+        okClient = new OkHttpClient.Builder().dispatcher(dispatcher).readTimeout(0, TimeUnit.SECONDS).build();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        okClient.dispatcher().cancelAll();
+        okClient.dispatcher().executorService().shutdown();
+        server.stop();
+    }
+
+    @Test
+    void testConstructor() {
+        assertThrows(IllegalArgumentException.class, () -> new SseBroadcaster(0, 1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new SseBroadcaster(1, 0, TimeUnit.SECONDS));
+        final SseBroadcaster broadcaster = new SseBroadcaster();
+        assertEquals(SseBroadcaster.DEFAULT_QUEUE_CAPACITY, broadcaster.getQueueCapacity());
+        assertEquals(0, broadcaster.broadcast("/noClients", "message", "nobody listening"));
+        assertEquals(0, broadcaster.getEventsBroadcast());
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void testFanOut() throws InterruptedException {
+        fanOut(N_CLIENTS);
+    }
+
+    @Test
+    @Tag("LoadTest")
+    @EnabledIfSystemProperty(named = PROPERTY_LOAD_TEST_CLIENTS, matches = "[1-9][0-9]*")
+    @Timeout(value = 120, unit = TimeUnit.SECONDS)
+    void testFanOutLoad() throws InterruptedException {
+        fanOut(N_LOAD_TEST_CLIENTS);
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void testIdleStalledClient() throws IOException, InterruptedException {
+        final char[] payload = new char[1024 * 1024]; // N.B. 16 MB in total, exceeds the loop-back socket buffers
+        Arrays.fill(payload, 'x');
+        final String data = new String(payload);
+
+        // raw client that subscribes but never reads
+        try (Socket stalledClient = new Socket("localhost", server.port())) {
+            stalledClient.setReceiveBufferSize(1024);
+            final OutputStream out = stalledClient.getOutputStream();
+            out.write(("GET " + ENDPOINT_STALLED + " HTTP/1.1\r\nHost: localhost\r\nAccept: " + MimeType.EVENT_STREAM + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            while (STALL_BROADCASTER.getClientCount() < 1) {
+                Thread.sleep(10); // NOPMD -- wait for the client's registration
+            }
+
+            // N.B. fewer events than the queue capacity -> no stall check while enqueuing, the client becomes idle
+            for (int i = 0; i < 16; i++) {
+                assertEquals(1, STALL_BROADCASTER.broadcast(ENDPOINT_STALLED, "message", data));
+            }
+            while (STALL_BROADCASTER.getClientsDisconnected() == 0) {
+                Thread.sleep(50); // NOPMD -- wait for the periodic stall check
+            }
+            assertEquals(1, STALL_BROADCASTER.getClientsDisconnected());
+            assertEquals(0, STALL_BROADCASTER.getClientCount());
+            assertEquals(0, STALL_BROADCASTER.getEventsDropped());
+            assertTrue(RestServer.getEventClients(ENDPOINT_STALLED).isEmpty());
+        }
+    }
+
+    private static void fanOut(final int nClients) throws InterruptedException {
+        final int nEvents = 20;
+        final SseBroadcaster broadcaster = RestServer.getEventBroadcaster();
+        broadcaster.resetStatistics();
+        final CountDownLatch connected = new CountDownLatch(nClients);
+        final CountDownLatch received = new CountDownLatch(nClients * nEvents);
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        final List<EventSource> sources = new ArrayList<>(nClients);
+        final long start = System.nanoTime();
+        for (int i = 0; i < nClients; i++) {
+            sources.add(newEventSource(ENDPOINT, new TestListener(connected, received, outOfOrder)));
+        }
+        assertTrue(connected.await(60, TimeUnit.SECONDS), "clients not connected: " + connected.getCount());
+        LOGGER.atDebug().addArgument(nClients).addArgument((System.nanoTime() - start) * 1e-6).log("connected {} SSE clients in {} ms");
+
+        for (int i = 0; i < nEvents; i++) {
+            assertEquals(nClients, broadcaster.broadcast(ENDPOINT, "message", Integer.toString(i)));
+        }
+        assertTrue(received.await(60, TimeUnit.SECONDS), "events not received: " + received.getCount());
+        assertEquals(0, outOfOrder.get(), "events received out of order");
+        assertEquals(nEvents, broadcaster.getEventsBroadcast());
+        assertEquals(0, broadcaster.getEventsDropped());
+        assertEquals(0, broadcaster.getClientsDisconnected());
+        assertTrue(broadcaster.getFanOutLatencyAverage() > 0.0);
+        assertTrue(broadcaster.getFanOutLatencyMax() >= broadcaster.getFanOutLatencyAverage());
+        LOGGER.atInfo().addArgument(nClients).addArgument(broadcaster.getFanOutLatencyAverage()).addArgument(broadcaster.getFanOutLatencyMax()).log("fan-out to {} clients: latency average = {} ms, max = {} ms");
+
+        sources.forEach(EventSource::cancel);
+    }
+
+    @Test
+    @Timeout(value = 120, unit = TimeUnit.SECONDS)
+    void testSlowClient() throws IOException, InterruptedException {
+        final int nFastClients = 4;
+        final int nEvents = 128;
+        final char[] payload = new char[256 * 1024]; // N.B. large enough to fill the socket buffers of the slow client
+        Arrays.fill(payload, 'x');
+        final String data = new String(payload);
+        final SseBroadcaster broadcaster = RestServer.getEventBroadcaster();
+
+        // raw client that subscribes but never reads
+        try (Socket slowClient = new Socket("localhost", server.port())) {
+            slowClient.setReceiveBufferSize(1024);
+            final OutputStream out = slowClient.getOutputStream();
+            out.write(("GET " + ENDPOINT_SLOW + " HTTP/1.1\r\nHost: localhost\r\nAccept: " + MimeType.EVENT_STREAM + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            final CountDownLatch connected = new CountDownLatch(nFastClients);
+            final AtomicInteger outOfOrder = new AtomicInteger();
+            final List<CountDownLatch> received = new ArrayList<>(nEvents);
+            for (int i = 0; i < nEvents; i++) {
+                received.add(new CountDownLatch(nFastClients));
+            }
+            final List<EventSource> sources = new ArrayList<>(nFastClients);
+            for (int i = 0; i < nFastClients; i++) {
+                sources.add(newEventSource(ENDPOINT_SLOW, new TestListener(connected, null, outOfOrder) {
+                    @Override
+                    public void onEvent(@NotNull final EventSource eventSource, final String id, final String type, @NotNull final String eventData) {
+                        if (!"message".equals(type)) {
+                            super.onEvent(eventSource, id, type, eventData);
+                            return;
+                        }
+                        received.get(eventCount.getAndIncrement()).countDown();
+                    }
+                }));
+            }
+            assertTrue(connected.await(10, TimeUnit.SECONDS));
+            while (RestServer.getEventClients(ENDPOINT_SLOW).size() < nFastClients + 1) {
+                Thread.sleep(10); // NOPMD -- wait for the slow client's registration
+            }
+
+            broadcaster.resetStatistics();
+            for (int i = 0; i < nEvents; i++) {
+                assertEquals(nFastClients + 1, broadcaster.broadcast(ENDPOINT_SLOW, "message", data));
+                // N.B. the fast clients keep up, ie. are not affected by the slow client
+                assertTrue(received.get(i).await(10, TimeUnit.SECONDS), "fast clients blocked at event " + i);
+            }
+            assertEquals(0, outOfOrder.get());
+            assertTrue(broadcaster.getEventsDropped() > 0, "slow client events should have been dropped");
+            assertTrue(broadcaster.getEventsDropped() <= nEvents - broadcaster.getQueueCapacity());
+            sources.forEach(EventSource::cancel);
+        }
+    }
+
+    private static EventSource newEventSource(final String endpoint, final EventSourceListener listener) {
+        final Request request = new Request.Builder().url("http://localhost:" + server.port() + endpoint).addHeader("Accept", MimeType.EVENT_STREAM.toString()).build();
+        return EventSources.createFactory(okClient).newEventSource(request, listener);
+    }
+
+    private static class TestListener extends EventSourceListener {
+        protected final AtomicInteger eventCount = new AtomicInteger();
+        private final CountDownLatch connected;
+        private final CountDownLatch received;
+        private final AtomicInteger outOfOrder;
+
+        private TestListener(final CountDownLatch connected, final CountDownLatch received, final AtomicInteger outOfOrder) {
+            this.connected = connected;
+            this.received = received;
+            this.outOfOrder = outOfOrder;
+        }
+
+        @Override
+        public void onEvent(@NotNull final EventSource eventSource, final String id, final String type, @NotNull final String data) {
+            if ("connected".equals(type)) {
+                connected.countDown();
+                return;
+            }
+            if (Integer.parseInt(data) != eventCount.getAndIncrement()) {
+                outOfOrder.incrementAndGet();
+            }
+            received.countDown();
+        }
+    }
+}
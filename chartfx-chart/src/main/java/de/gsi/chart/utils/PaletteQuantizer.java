@@ -10,4 +10,16 @@ public interface PaletteQuantizer {
     int lookup(int r, int g, int b);
 
     int lookup(int r, int g, int b, int a);
-}
\ No newline at end of file
+
+    /**
+     * Adapts the palette to a new image. Static palettes (default) ignore this.
+     *
+     * @param argb ARGB pixel values in row-major order
+     * @param width image width
+     * @param height image height
+     * @return {@code true} if the palette has changed
+     */
+    default boolean update(final int[] argb, final int width, final int height) {
+        return false;
+    }
+}
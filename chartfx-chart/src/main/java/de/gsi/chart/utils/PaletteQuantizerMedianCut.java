@@ -0,0 +1,392 @@
+package de.gsi.chart.utils;
+
+import java.util.Arrays;
+
+/**
+ * Fast median-cut colour quantiser based on a 15-bit (5 bits per channel) RGB histogram.
+ * <p>
+ * The palette is derived from the occupied histogram bins (ie. the cost scales with the number of distinct colours
+ * rather than the number of pixels). Each bin also accumulates the full 8-bit RGB sums of its pixels so that palette
+ * colours are the true population-weighted means rather than the 5-bit bin centres. Colour look-ups are served via a 32768-entry RGB-to-index table that is filled
+ * lazily, ie. only for colours that actually occur. The palette and look-up table are retained across frames: each
+ * {@link #update(int[], int, int)} merely recomputes the histogram and rebuilds the palette only if the mean
+ * quantisation error of the new frame exceeds {@link #getMaxMeanError()}. This makes indexed encoding cheap enough to
+ * be performed for every frame (see e.g. {@link WriteFxImage#encodePaletteParallel}).
+ * <p>
+ * N.B. look-ups may be performed concurrently, but not concurrently with {@link #update(int[], int, int)}.
+ */
+public class PaletteQuantizerMedianCut implements PaletteQuantizer {
+    public static final int DEFAULT_TRANSPARENCY_THRESHOLD = 127;
+    public static final double DEFAULT_MAX_MEAN_ERROR = 8.0;
+    private static final int BITS = 5;
+    private static final int COMPONENT_MASK = (1 << BITS) - 1;
+    private static final int N_BINS = 1 << (3 * BITS);
+    private static final short UNKNOWN = -1;
+    private final int nColors;
+    private final boolean reserveAlphaColor;
+    private final int[] histogram = new int[N_BINS];
+    private final long[] binSumR = new long[N_BINS];
+    private final long[] binSumG = new long[N_BINS];
+    private final long[] binSumB = new long[N_BINS];
+    private final short[] lookupTable = new short[N_BINS];
+    private final int[] keys = new int[N_BINS];
+    private final int[] sortBuffer = new int[N_BINS];
+    private final int[] boxFrom;
+    private final int[] boxTo;
+    private final long[] boxScore;
+    private final int[] boxAxis;
+    private final int[] palette; // packed 0xRRGGBB
+    private int paletteSize;
+    private int transparencyThreshold = DEFAULT_TRANSPARENCY_THRESHOLD;
+    private double maxMeanError = DEFAULT_MAX_MEAN_ERROR;
+    private double meanError;
+    private long rebuildCount;
+
+    /**
+     * @param nColors maximum number of (opaque) palette colours
+     * @param reserveAlphaColor {@code true}: reserves palette index '0' for transparent pixels
+     */
+    public PaletteQuantizerMedianCut(final int nColors, final boolean reserveAlphaColor) {
+        final int maxColors = reserveAlphaColor ? 255 : 256; // N.B. PNG palette limit
+        if (nColors < 1 || nColors > maxColors) {
+            throw new IllegalArgumentException("nColors = " + nColors + " must be within [1, " + maxColors + "]");
+        }
+        this.nColors = nColors;
+        this.reserveAlphaColor = reserveAlphaColor;
+        boxFrom = new int[nColors];
+        boxTo = new int[nColors];
+        boxScore = new long[nColors];
+        boxAxis = new int[nColors];
+        palette = new int[nColors];
+        paletteSize = 1; // black until the first update
+        Arrays.fill(lookupTable, UNKNOWN);
+    }
+
+    @Override
+    public int[] getColor(final int i) {
+        int index = i;
+        if (reserveAlphaColor) {
+            index--;
+            if (index < 0) {
+                return new int[] { 0, 0, 0, 0 };
+            }
+        }
+        if (index < 0 || index >= paletteSize) {
+            throw new IllegalArgumentException("index out of range [0, " + getColorCount() + "[");
+        }
+        final int color = palette[index];
+        return new int[] { color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF, 255 };
+    }
+
+    @Override
+    public int getColorCount() { // includes transparent color if applicable
+        return reserveAlphaColor ? paletteSize + 1 : paletteSize;
+    }
+
+    /**
+     * @return maximum mean quantisation error (Euclidean RGB distance) before the palette is rebuilt
+     */
+    public double getMaxMeanError() {
+        return maxMeanError;
+    }
+
+    /**
+     * @return mean quantisation error (Euclidean RGB distance) of the last update
+     */
+    public double getMeanError() {
+        return meanError;
+    }
+
+    /**
+     * @return number of palette (re-)computations
+     */
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    @Override
+    public int getTransparentIndex() { // -1 if not exists
+        return reserveAlphaColor ? 0 : -1;
+    }
+
+    public int getTransparencyThreshold() {
+        return transparencyThreshold;
+    }
+
+    public boolean isReserveAlphaColor() {
+        return reserveAlphaColor;
+    }
+
+    @Override
+    public int lookup(final int r, final int g, final int b) {
+        final int index = lookupIndex((r >> 3) << (2 * BITS) | (g >> 3) << BITS | b >> 3);
+        return reserveAlphaColor ? index + 1 : index;
+    }
+
+    @Override
+    public int lookup(final int r, final int g, final int b, final int a) {
+        if (reserveAlphaColor && a < transparencyThreshold) {
+            return 0; // extra entry: transparent
+        }
+        return lookup(r, g, b);
+    }
+
+    /**
+     * forces the palette to be recomputed from the histogram of the last update
+     */
+    public void rebuild() {
+        int nKeys = 0;
+        for (int key = 0; key < N_BINS; key++) {
+            if (histogram[key] > 0) {
+                keys[nKeys++] = key;
+            }
+        }
+        if (nKeys == 0) {
+            paletteSize = 1;
+            palette[0] = 0;
+        } else {
+            medianCut(nKeys);
+        }
+        Arrays.fill(lookupTable, UNKNOWN);
+        rebuildCount++;
+    }
+
+    /**
+     * @param maxMeanError maximum mean quantisation error (Euclidean RGB distance) before the palette is rebuilt
+     */
+    public void setMaxMeanError(final double maxMeanError) {
+        this.maxMeanError = maxMeanError;
+    }
+
+    /**
+     * @param transparencyThreshold alpha value below which pixels are mapped to the transparent palette index
+     */
+    public void setTransparencyThreshold(final int transparencyThreshold) {
+        this.transparencyThreshold = transparencyThreshold;
+    }
+
+    /**
+     * Updates the colour histogram with a new frame and rebuilds the palette if needed.
+     *
+     * @param argb ARGB pixel values in row-major order
+     * @param width image width
+     * @param height image height
+     * @return {@code true} if the palette has been rebuilt
+     */
+    @Override
+    public boolean update(final int[] argb, final int width, final int height) {
+        if (argb == null) {
+            throw new IllegalArgumentException("argb must not be null");
+        }
+        final int nPixel = width * height;
+        if (width < 0 || height < 0 || argb.length < nPixel) {
+            throw new IllegalArgumentException("argb.length(" + argb.length + ") must be >= " + nPixel + " = " + width + " (width) x" + height + " (height)");
+        }
+        Arrays.fill(histogram, 0);
+        Arrays.fill(binSumR, 0);
+        Arrays.fill(binSumG, 0);
+        Arrays.fill(binSumB, 0);
+        int nOpaque = 0;
+        for (int i = 0; i < nPixel; i++) {
+            final int pixel = argb[i];
+            if (reserveAlphaColor && (pixel >>> 24) < transparencyThreshold) {
+                continue;
+            }
+            final int key = (pixel >> 9 & 0x7C00) | (pixel >> 6 & 0x03E0) | (pixel >> 3 & 0x001F);
+            histogram[key]++;
+            binSumR[key] += pixel >> 16 & 0xFF;
+            binSumG[key] += pixel >> 8 & 0xFF;
+            binSumB[key] += pixel & 0xFF;
+            nOpaque++;
+        }
+
+        meanError = computeMeanError(nOpaque);
+        if (rebuildCount > 0 && meanError <= maxMeanError) {
+            return false;
+        }
+        rebuild();
+        meanError = computeMeanError(nOpaque);
+        return true;
+    }
+
+    private double computeMeanError(final int nOpaque) {
+        if (nOpaque == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int key = 0; key < N_BINS; key++) {
+            final int count = histogram[key];
+            if (count > 0) {
+                sum += count * Math.sqrt(distanceSquared(binColor(key), palette[lookupIndex(key)]));
+            }
+        }
+        return sum / nOpaque;
+    }
+
+    private void computeBoxStatistics(final int box) {
+        int minR = COMPONENT_MASK;
+        int minG = COMPONENT_MASK;
+        int minB = COMPONENT_MASK;
+        int maxR = 0;
+        int maxG = 0;
+        int maxB = 0;
+        long population = 0;
+        for (int i = boxFrom[box]; i < boxTo[box]; i++) {
+            final int key = keys[i];
+            final int r = component(key, 0);
+            final int g = component(key, 1);
+            final int b = component(key, 2);
+            minR = Math.min(minR, r);
+            maxR = Math.max(maxR, r);
+            minG = Math.min(minG, g);
+            maxG = Math.max(maxG, g);
+            minB = Math.min(minB, b);
+            maxB = Math.max(maxB, b);
+            population += histogram[key];
+        }
+        final int rangeR = maxR - minR;
+        final int rangeG = maxG - minG;
+        final int rangeB = maxB - minB;
+        if (rangeR >= rangeG && rangeR >= rangeB) {
+            boxAxis[box] = 0;
+        } else {
+            boxAxis[box] = rangeG >= rangeB ? 1 : 2;
+        }
+        final int range = Math.max(rangeR, Math.max(rangeG, rangeB));
+        // boxes with a single distinct colour cannot be split any further
+        boxScore[box] = boxTo[box] - boxFrom[box] > 1 ? population * range : -1;
+    }
+
+    private void computePaletteColor(final int box) {
+        long sumR = 0;
+        long sumG = 0;
+        long sumB = 0;
+        long population = 0;
+        for (int i = boxFrom[box]; i < boxTo[box]; i++) {
+            final int key = keys[i];
+            sumR += binSumR[key];
+            sumG += binSumG[key];
+            sumB += binSumB[key];
+            population += histogram[key];
+        }
+        final long half = population / 2;
+        palette[box] = (int) ((sumR + half) / population) << 16 | (int) ((sumG + half) / population) << 8 | (int) ((sumB + half) / population);
+    }
+
+    /**
+     * @param key histogram bin
+     * @return packed 0xRRGGBB mean colour of the pixels in the bin, or the bin centre for empty bins
+     */
+    private int binColor(final int key) {
+        final int count = histogram[key];
+        if (count == 0) {
+            return expand(component(key, 0)) << 16 | expand(component(key, 1)) << 8 | expand(component(key, 2));
+        }
+        final int half = count / 2;
+        return (int) ((binSumR[key] + half) / count) << 16 | (int) ((binSumG[key] + half) / count) << 8 | (int) ((binSumB[key] + half) / count);
+    }
+
+    private int lookupIndex(final int key) {
+        int index = lookupTable[key];
+        if (index == UNKNOWN) {
+            index = nearestColor(key);
+            lookupTable[key] = (short) index; // N.B. idempotent, benign race for concurrent look-ups
+        }
+        return index;
+    }
+
+    private void medianCut(final int nKeys) {
+        int nBoxes = 1;
+        boxFrom[0] = 0;
+        boxTo[0] = nKeys;
+        computeBoxStatistics(0);
+        while (nBoxes < nColors) {
+            int best = -1;
+            for (int box = 0; box < nBoxes; box++) {
+                if (boxScore[box] >= 0 && (best < 0 || boxScore[box] > boxScore[best])) {
+                    best = box;
+                }
+            }
+            if (best < 0) {
+                break; // all boxes contain only a single distinct colour
+            }
+            final int split = splitBox(best);
+            boxFrom[nBoxes] = split;
+            boxTo[nBoxes] = boxTo[best];
+            boxTo[best] = split;
+            computeBoxStatistics(best);
+            computeBoxStatistics(nBoxes);
+            nBoxes++;
+        }
+        for (int box = 0; box < nBoxes; box++) {
+            computePaletteColor(box);
+        }
+        paletteSize = nBoxes;
+    }
+
+    private int nearestColor(final int key) {
+        final int color = binColor(key);
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < paletteSize; i++) {
+            final int distance = distanceSquared(color, palette[i]);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * sorts the box along its longest axis (counting sort) and returns the population-weighted median
+     *
+     * @param box index of box to be split
+     * @return index of the first key belonging to the upper half (N.B. both halves are non-empty)
+     */
+    private int splitBox(final int box) {
+        final int from = boxFrom[box];
+        final int to = boxTo[box];
+        final int axis = boxAxis[box];
+        final int[] bucketStart = new int[COMPONENT_MASK + 2];
+        for (int i = from; i < to; i++) {
+            bucketStart[component(keys[i], axis) + 1]++;
+        }
+        for (int i = 1; i < bucketStart.length; i++) {
+            bucketStart[i] += bucketStart[i - 1];
+        }
+        long population = 0;
+        for (int i = from; i < to; i++) {
+            final int key = keys[i];
+            sortBuffer[from + bucketStart[component(key, axis)]++] = key;
+            population += histogram[key];
+        }
+        System.arraycopy(sortBuffer, from, keys, from, to - from);
+
+        long cumulative = 0;
+        int split = from + 1;
+        for (int i = from; i < to - 1; i++) {
+            cumulative += histogram[keys[i]];
+            split = i + 1;
+            if (2 * cumulative >= population) {
+                break;
+            }
+        }
+        return split;
+    }
+
+    private static int component(final int key, final int axis) {
+        return key >> ((2 - axis) * BITS) & COMPONENT_MASK;
+    }
+
+    private static int distanceSquared(final int color1, final int color2) {
+        final int dr = (color1 >> 16 & 0xFF) - (color2 >> 16 & 0xFF);
+        final int dg = (color1 >> 8 & 0xFF) - (color2 >> 8 & 0xFF);
+        final int db = (color1 & 0xFF) - (color2 & 0xFF);
+        return dr * dr + dg * dg + db * db;
+    }
+
+    private static int expand(final int component) {
+        return component << 3 | component >> 2;
+    }
+}
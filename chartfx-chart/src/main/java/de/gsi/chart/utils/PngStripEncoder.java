@@ -0,0 +1,397 @@
+package de.gsi.chart.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import de.gsi.dataset.utils.ByteArrayCache;
+
+import ar.com.hjg.pngj.FilterType;
+
+/**
+ * Multi-core PNG encoder: the image is split into horizontal strips that are filtered and deflated concurrently. Similar
+ * to 'pigz', each strip is compressed into independent raw deflate blocks (primed with the last 32 kB of the preceding
+ * strip as dictionary) that are byte-aligned via {@link Deflater#SYNC_FLUSH} and thus can be concatenated into a single
+ * valid zlib stream. Each strip is written as a separate IDAT chunk, the zlib header and the combined Adler-32 checksum
+ * are written into the first and last IDAT chunk respectively.
+ * <p>
+ * N.B. the compressed size is slightly larger (few bytes per strip, less context at strip boundaries) than for the
+ * single-threaded encoders.
+ *
+ * @see WriteFxImage#encodeParallel
+ * @see WriteFxImage#encodePaletteParallel
+ */
+final class PngStripEncoder {
+    /** minimum number of rows per strip, below which the per-strip overhead dominates */
+    static final int MIN_ROWS_PER_STRIP = 16;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int CHUNK_OVERHEAD = 12; // length, type and CRC fields
+    private static final int ADLER_BASE = 65521;
+    private static final byte[] SIGNATURE = { (byte) 0x89, 0x50, 0x4e, 0x47, 0x0d, 0x0a, 0x1a, 0x0a };
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final ByteArrayCache BUFFER_CACHE = ByteArrayCache.getInstance();
+
+    private PngStripEncoder() {
+        // static helper class
+    }
+
+    /**
+     * @param argb ARGB pixel values in row-major order
+     * @param width image width
+     * @param height image height
+     * @param alpha whether to include alpha information in the image (N.B. indexed images: used for the palette look-up)
+     * @param compressionLevel {@link Deflater#BEST_COMPRESSION} (9) to {@link Deflater#NO_COMPRESSION} (0)
+     * @param filterType PNG row filter, adaptive types select the filter per row (minimum sum of absolute differences)
+     * @param nStrips requested number of concurrently encoded strips (limited by image height)
+     * @param palette optional palette for indexed images ({@code null}: true-colour)
+     * @param byteBuffer optional output buffer, allocated if {@code null}
+     * @return output buffer containing the encoded image (flipped)
+     */
+    static ByteBuffer encode(final int[] argb, final int width, final int height, final boolean alpha, final int compressionLevel, final FilterType filterType, final int nStrips, final PaletteQuantizer palette, final ByteBuffer byteBuffer) { // NOPMD
+        final int bytesPerPixel = palette == null ? (alpha ? 4 : 3) : 1;
+        final int rowBytes = width * bytesPerPixel + 1; // + filter type byte
+        final int nStripsEffective = Math.max(1, Math.min(nStrips, height / MIN_ROWS_PER_STRIP));
+        final int rowsPerStrip = (height + nStripsEffective - 1) / nStripsEffective;
+        final int nStripsUsed = (height + rowsPerStrip - 1) / rowsPerStrip;
+        // N.B. row filters are not useful for indexed images
+        final int filter = palette == null && filterType != null ? filterType.val : FilterType.FILTER_NONE.val;
+
+        final byte[] raw = BUFFER_CACHE.getArray(rowBytes * height);
+        final byte[][] compressed = new byte[nStripsUsed][];
+        final int[] compressedLength = new int[nStripsUsed];
+        final long[] adler = new long[nStripsUsed];
+        final long[] chunkCrc = new long[nStripsUsed];
+        final byte[] zlibHeader = getZlibHeader(compressionLevel);
+        try {
+            // phase 1: convert and filter rows
+            IntStream.range(0, nStripsUsed).parallel().forEach(strip -> {
+                final int y0 = strip * rowsPerStrip;
+                final int y1 = Math.min(height, y0 + rowsPerStrip);
+                filterStrip(argb, width, y0, y1, alpha, palette, bytesPerPixel, filter, raw);
+            });
+
+            // phase 2: deflate strips (N.B. needs the filtered data of the preceding strip as dictionary)
+            IntStream.range(0, nStripsUsed).parallel().forEach(strip -> {
+                final int offset = strip * rowsPerStrip * rowBytes;
+                final int length = (Math.min(height, (strip + 1) * rowsPerStrip) - strip * rowsPerStrip) * rowBytes;
+                final Adler32 checksum = new Adler32();
+                checksum.update(raw, offset, length);
+                adler[strip] = checksum.getValue();
+
+                final Deflater deflater = new Deflater(compressionLevel, true);
+                try {
+                    if (offset > 0) {
+                        // N.B. copy needed: the JDK 11 'setDictionary(byte[], off, len)' ignores non-zero offsets
+                        final byte[] dictionary = BUFFER_CACHE.getArrayExact(Math.min(DICTIONARY_SIZE, offset));
+                        System.arraycopy(raw, offset - dictionary.length, dictionary, 0, dictionary.length);
+                        deflater.setDictionary(dictionary);
+                        BUFFER_CACHE.add(dictionary);
+                    }
+                    deflater.setInput(raw, offset, length);
+                    final boolean last = strip == nStripsUsed - 1;
+                    if (last) {
+                        deflater.finish();
+                    }
+                    byte[] out = BUFFER_CACHE.getArray(getDeflateBound(length));
+                    int outLength = 0;
+                    while (true) {
+                        outLength += deflater.deflate(out, outLength, out.length - outLength, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                        if ((last ? deflater.finished() : deflater.needsInput()) && outLength < out.length) {
+                            break;
+                        }
+                        final byte[] larger = BUFFER_CACHE.getArray(2 * out.length);
+                        System.arraycopy(out, 0, larger, 0, outLength);
+                        BUFFER_CACHE.add(out);
+                        out = larger;
+                    }
+                    compressed[strip] = out;
+                    compressedLength[strip] = outLength;
+                } finally {
+                    deflater.end();
+                }
+
+                final CRC32 crc = new CRC32();
+                crc.update(IDAT);
+                if (strip == 0) {
+                    crc.update(zlibHeader);
+                }
+                crc.update(compressed[strip], 0, compressedLength[strip]);
+                chunkCrc[strip] = crc.getValue();
+            });
+
+            // phase 3: assemble PNG
+            int totalSize = SIGNATURE.length + 13 + 2 * CHUNK_OVERHEAD + zlibHeader.length + 4 + CHUNK_OVERHEAD;
+            if (palette != null) {
+                totalSize += 3 * palette.getColorCount() + palette.getColorCount() + 2 * CHUNK_OVERHEAD;
+            }
+            for (int strip = 0; strip < nStripsUsed; strip++) {
+                totalSize += compressedLength[strip] + CHUNK_OVERHEAD;
+            }
+            if (byteBuffer != null && byteBuffer.remaining() < totalSize) {
+                throw new IllegalArgumentException("byteBuffer has insufficient capacity: remaining=" + byteBuffer.remaining() + " required=" + totalSize);
+            }
+            final ByteBuffer output = byteBuffer == null ? ByteBuffer.allocate(totalSize) : byteBuffer;
+            output.put(SIGNATURE);
+            writeHeader(output, width, height, alpha, palette);
+            long combinedAdler = 1L;
+            for (int strip = 0; strip < nStripsUsed; strip++) {
+                output.putInt(compressedLength[strip] + (strip == 0 ? zlibHeader.length : 0));
+                output.put(IDAT);
+                if (strip == 0) {
+                    output.put(zlibHeader);
+                }
+                output.put(compressed[strip], 0, compressedLength[strip]);
+                output.putInt((int) chunkCrc[strip]);
+                final int stripLength = (Math.min(height, (strip + 1) * rowsPerStrip) - strip * rowsPerStrip) * rowBytes;
+                combinedAdler = adler32Combine(combinedAdler, adler[strip], stripLength);
+            }
+            writeChunk(output, "IDAT", new byte[] { (byte) (combinedAdler >>> 24), (byte) (combinedAdler >>> 16), (byte) (combinedAdler >>> 8), (byte) combinedAdler });
+            writeChunk(output, "IEND", new byte[0]);
+            return output.flip();
+        } finally {
+            BUFFER_CACHE.add(raw);
+            for (final byte[] buffer : compressed) {
+                if (buffer != null) {
+                    BUFFER_CACHE.add(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * zlib's adler32_combine(..)
+     *
+     * @param adler1 checksum of the first data block
+     * @param adler2 checksum of the second data block
+     * @param length2 length of the second data block
+     * @return checksum of the concatenated data blocks
+     */
+    static long adler32Combine(final long adler1, final long adler2, final long length2) {
+        final long rem = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = (rem * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xffff) + ADLER_BASE - 1;
+        sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= (ADLER_BASE << 1)) {
+            sum2 -= (ADLER_BASE << 1);
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    /**
+     * @param nStrips number of strips
+     * @return upper bound of the additional bytes w.r.t. a single-threaded encoder, ie. IDAT chunk, SYNC_FLUSH marker and
+     *         block headers per strip, trailing checksum chunk as well as 256-colour PLTE and tRNS chunks
+     */
+    static int getOverheadBound(final int nStrips) {
+        return nStrips * (CHUNK_OVERHEAD + 16) + CHUNK_OVERHEAD + 4 + 2 * CHUNK_OVERHEAD + 4 * 256;
+    }
+
+    private static void filterRow(final byte[] raw, final int offset, final byte[] current, final byte[] previous, final int length, final int bytesPerPixel, final int filter) {
+        raw[offset] = (byte) filter;
+        final int dst = offset + 1;
+        switch (filter) {
+        case 1: // Sub
+            for (int i = 0; i < length; i++) {
+                final int left = i < bytesPerPixel ? 0 : current[i - bytesPerPixel] & 0xff;
+                raw[dst + i] = (byte) (current[i] - left);
+            }
+            break;
+        case 2: // Up
+            for (int i = 0; i < length; i++) {
+                raw[dst + i] = (byte) (current[i] - previous[i]);
+            }
+            break;
+        case 3: // Average
+            for (int i = 0; i < length; i++) {
+                final int left = i < bytesPerPixel ? 0 : current[i - bytesPerPixel] & 0xff;
+                raw[dst + i] = (byte) (current[i] - ((left + (previous[i] & 0xff)) >>> 1));
+            }
+            break;
+        case 4: // Paeth
+            for (int i = 0; i < length; i++) {
+                final int left = i < bytesPerPixel ? 0 : current[i - bytesPerPixel] & 0xff;
+                final int upperLeft = i < bytesPerPixel ? 0 : previous[i - bytesPerPixel] & 0xff;
+                raw[dst + i] = (byte) (current[i] - paethPredictor(left, previous[i] & 0xff, upperLeft));
+            }
+            break;
+        case 0: // None
+        default:
+            System.arraycopy(current, 0, raw, dst, length);
+            break;
+        }
+    }
+
+    private static void filterStrip(final int[] argb, final int width, final int y0, final int y1, final boolean alpha, final PaletteQuantizer palette, final int bytesPerPixel, final int filter, final byte[] raw) { // NOPMD
+        final int length = width * bytesPerPixel;
+        byte[] previous = BUFFER_CACHE.getArrayExact(length);
+        byte[] current = BUFFER_CACHE.getArrayExact(length);
+        try {
+            if (y0 > 0) {
+                toBytes(argb, width, y0 - 1, alpha, palette, previous);
+            } else {
+                Arrays.fill(previous, (byte) 0);
+            }
+            for (int y = y0; y < y1; y++) {
+                toBytes(argb, width, y, alpha, palette, current);
+                final int offset = y * (length + 1);
+                if (filter >= 0) {
+                    filterRow(raw, offset, current, previous, length, bytesPerPixel, filter);
+                } else {
+                    filterRow(raw, offset, current, previous, length, bytesPerPixel, selectFilter(current, previous, length, bytesPerPixel));
+                }
+                final byte[] tmp = previous;
+                previous = current;
+                current = tmp;
+            }
+        } finally {
+            BUFFER_CACHE.add(previous);
+            BUFFER_CACHE.add(current);
+        }
+    }
+
+    private static int getDeflateBound(final int length) {
+        // zlib's deflateBound(..) plus some margin for the SYNC_FLUSH marker
+        return length + (length + 7 >> 3) + (length + 63 >> 6) + 5 + 16;
+    }
+
+    private static byte[] getZlibHeader(final int compressionLevel) {
+        final int cmf = 0x78; // deflate with 32 kB window
+        final int level;
+        if (compressionLevel >= 0 && compressionLevel <= 1) {
+            level = 0;
+        } else if (compressionLevel >= 2 && compressionLevel <= 5) {
+            level = 1;
+        } else if (compressionLevel == 6 || compressionLevel == Deflater.DEFAULT_COMPRESSION) {
+            level = 2;
+        } else {
+            level = 3;
+        }
+        int flg = level << 6;
+        flg += 31 - ((cmf << 8) + flg) % 31;
+        return new byte[] { (byte) cmf, (byte) flg };
+    }
+
+    private static int paethPredictor(final int a, final int b, final int c) {
+        final int p = a + b - c;
+        final int pa = Math.abs(p - a);
+        final int pb = Math.abs(p - b);
+        final int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private static int selectFilter(final byte[] current, final byte[] previous, final int length, final int bytesPerPixel) {
+        // heuristic: filter with the minimum sum of absolute (signed) differences
+        long bestSum = Long.MAX_VALUE;
+        int bestFilter = 0;
+        for (int filter = 0; filter <= 4; filter++) {
+            long sum = 0;
+            for (int i = 0; i < length && sum < bestSum; i++) {
+                final int value = current[i] & 0xff;
+                final int left = i < bytesPerPixel ? 0 : current[i - bytesPerPixel] & 0xff;
+                final int up = previous[i] & 0xff;
+                final int upperLeft = i < bytesPerPixel ? 0 : previous[i - bytesPerPixel] & 0xff;
+                final int predicted;
+                switch (filter) {
+                case 1:
+                    predicted = left;
+                    break;
+                case 2:
+                    predicted = up;
+                    break;
+                case 3:
+                    predicted = (left + up) >>> 1;
+                    break;
+                case 4:
+                    predicted = paethPredictor(left, up, upperLeft);
+                    break;
+                default:
+                    predicted = 0;
+                    break;
+                }
+                sum += Math.abs((byte) (value - predicted));
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                bestFilter = filter;
+            }
+        }
+        return bestFilter;
+    }
+
+    private static void toBytes(final int[] argb, final int width, final int y, final boolean alpha, final PaletteQuantizer palette, final byte[] row) {
+        int index = y * width;
+        if (palette != null) {
+            for (int x = 0; x < width; x++) {
+                final int pixel = argb[index++];
+                row[x] = (byte) (alpha ? palette.lookup(pixel >> 16 & 0xFF, pixel >> 8 & 0xFF, pixel & 0xFF, pixel >> 24 & 0xFF) : palette.lookup(pixel >> 16 & 0xFF, pixel >> 8 & 0xFF, pixel & 0xFF));
+            }
+            return;
+        }
+        int i = 0;
+        for (int x = 0; x < width; x++) {
+            final int pixel = argb[index++];
+            row[i++] = (byte) (pixel >> 16 & 0xff); // red
+            row[i++] = (byte) (pixel >> 8 & 0xff); // green
+            row[i++] = (byte) (pixel & 0xff); // blue
+            if (alpha) {
+                row[i++] = (byte) (pixel >> 24 & 0xff); // alpha
+            }
+        }
+    }
+
+    private static void writeChunk(final ByteBuffer output, final String type, final byte[] data) {
+        final byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        final CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        output.putInt(data.length);
+        output.put(typeBytes);
+        output.put(data);
+        output.putInt((int) crc.getValue());
+    }
+
+    private static void writeHeader(final ByteBuffer output, final int width, final int height, final boolean alpha, final PaletteQuantizer palette) {
+        // IHDR: width, height, bit depth, colour type (2: RGB, 3: indexed, 6: RGBA), compression, filter and interlace method
+        final ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width).putInt(height).put((byte) 8).put((byte) (palette == null ? (alpha ? 6 : 2) : 3)).put((byte) 0).put((byte) 0).put((byte) 0);
+        writeChunk(output, "IHDR", header.array());
+        if (palette == null) {
+            return;
+        }
+
+        final int nColors = palette.getColorCount();
+        final byte[] plte = new byte[3 * nColors];
+        for (int i = 0; i < nColors; i++) {
+            final int[] color = palette.getColor(i);
+            plte[3 * i] = (byte) color[0];
+            plte[3 * i + 1] = (byte) color[1];
+            plte[3 * i + 2] = (byte) color[2];
+        }
+        writeChunk(output, "PLTE", plte);
+
+        final int transparentIndex = palette.getTransparentIndex();
+        if (transparentIndex >= 0) {
+            final byte[] trns = new byte[transparentIndex + 1];
+            Arrays.fill(trns, (byte) 0xff);
+            trns[transparentIndex] = 0;
+            writeChunk(output, "tRNS", trns);
+        }
+    }
+}
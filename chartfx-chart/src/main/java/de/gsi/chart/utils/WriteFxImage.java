@@ -10,6 +10,7 @@ import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.PixelReader;
 import javafx.scene.image.PixelWriter;
 import javafx.scene.image.WritableImage;
@@ -82,6 +83,41 @@ public final class WriteFxImage {
         return writableImage;
     }
 
+    /**
+     * Computes a (non-cryptographic) 64-bit hash of the image dimensions and ARGB pixel content, e.g. to detect unchanged
+     * frames that do not need to be re-encoded.
+     *
+     * @param image the input image
+     * @return content hash
+     */
+    public static long contentHash(final Image image) {
+        if (image == null) {
+            throw new IllegalArgumentException(IMAGE_MUST_NOT_BE_NULL);
+        }
+        final PixelReader pr = image.getPixelReader();
+        if (pr == null) {
+            throw new IllegalStateException(IMAGE_PIXEL_READER_NOT_AVAILABLE);
+        }
+        final int w = (int) image.getWidth();
+        final int h = (int) image.getHeight();
+        final int[] lineArray = ArrayCache.getCachedIntArray(INTERNAL_LINE_ARRAY_CACHE_NAME, w);
+        long hash = 0xcbf29ce484222325L ^ (((long) w << 32) | h); // FNV-1a offset basis
+        try {
+            for (int y = 0; y < h; y++) {
+                pr.getPixels(0, y, w, 1, PixelFormat.getIntArgbInstance(), lineArray, 0, w);
+                for (int x = 0; x < w; x++) {
+                    hash = (hash ^ (lineArray[x] & 0xFFFFFFFFL)) * 0x100000001b3L; // FNV-1a prime, one pixel per round
+                }
+            }
+        } finally {
+            ArrayCache.release(INTERNAL_LINE_ARRAY_CACHE_NAME, lineArray);
+        }
+        // final avalanche (murmur3 fmix64)
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
     public static void copyImageDataToPixelBuffer(final Image image, final int[] uncompressedImageData) {
         if (image == null) {
             throw new IllegalArgumentException("image is null");
@@ -254,6 +290,7 @@ public final class WriteFxImage {
         copyImageDataToPixelBuffer(image, uncompressedImageData);
 
         PaletteQuantizer palette = userPalette.length > 0 && userPalette[0] != null ? userPalette[0] : estimatePalette(uncompressedImageData, w, h, alpha, DEFAULT_PALETTE_COLOR_COUNT);
+        palette.update(uncompressedImageData, w, h); // N.B. no-op for static palettes
         // add in addition ~ 256*(3..4) bytes to store palette info
         // N.B. alpha with palette has a bug, thus forcing it here
         final int bytesPerPixel = 3; // (alpha ? 4 : 3);
@@ -302,6 +339,46 @@ public final class WriteFxImage {
         return null;
     }
 
+    /**
+     * Encodes a JavaFx image as an RGB(A) png image using multiple cores: horizontal strips of the image are filtered and
+     * deflated concurrently and joined into a single valid png (see {@link PngStripEncoder}). Please make sure that a
+     * passed ByteBuffer has enough capacity, e.g. via {@link #getCompressedSizeBound(int, int, boolean, int)}.
+     *
+     * @param image            The input image to be encoded
+     * @param byteBuffer       optional byte buffer to store the output in, pass null to return a new one.
+     * @param alpha            whether to include alpha information in the image
+     * @param compressionLevel {@link Deflater#BEST_COMPRESSION} (9) to {@link Deflater#BEST_SPEED} (0)
+     * @param filterType       filter as outlined in the png specification (adaptive types select the filter per row)
+     * @param nStrips          number of concurrently encoded strips (limited to one strip per 16 rows), e.g. number
+     *                         of available cores
+     * @return a byte buffer with the encoded image
+     */
+    public static ByteBuffer encodeParallel(final Image image, final ByteBuffer byteBuffer, final boolean alpha, final int compressionLevel, final FilterType filterType, final int nStrips) {
+        return encodeParallel(image, byteBuffer, alpha, compressionLevel, filterType, nStrips, null);
+    }
+
+    /**
+     * Palette-based (indexed) counterpart of {@link #encodeParallel(Image, ByteBuffer, boolean, int, FilterType, int)}.
+     * Adaptive palettes (e.g. {@link PaletteQuantizerMedianCut}) are updated with the image content prior to encoding,
+     * ie. a palette instance that is kept across frames follows the image content at little extra cost. N.B. row filtering
+     * is not applied for indexed images.
+     *
+     * @param image            The input image to be encoded
+     * @param byteBuffer       optional byte buffer to store the output in, pass null to return a new one.
+     * @param alpha            whether to include alpha information in the palette look-up
+     * @param compressionLevel {@link Deflater#BEST_COMPRESSION} (9) to {@link Deflater#BEST_SPEED} (0)
+     * @param nStrips          number of concurrently encoded strips (limited to one strip per 16 rows)
+     * @param userPalette      optional pre-computed or adaptive palette, a new {@link PaletteQuantizerMedianCut} otherwise
+     * @return a byte buffer with the encoded image
+     */
+    public static ByteBuffer encodePaletteParallel(final Image image, final ByteBuffer byteBuffer, final boolean alpha, final int compressionLevel, final int nStrips, final PaletteQuantizer... userPalette) {
+        if (image == null) {
+            throw new IllegalArgumentException(IMAGE_MUST_NOT_BE_NULL);
+        }
+        final PaletteQuantizer palette = userPalette.length > 0 && userPalette[0] != null ? userPalette[0] : new PaletteQuantizerMedianCut(alpha ? DEFAULT_PALETTE_COLOR_COUNT - 1 : DEFAULT_PALETTE_COLOR_COUNT, alpha);
+        return encodeParallel(image, byteBuffer, alpha, compressionLevel, FilterType.FILTER_NONE, nStrips, palette);
+    }
+
     public static PaletteQuantizer estimatePalette(final Image image, final boolean alpha, final int nColors) {
         if (image == null) {
             throw new IllegalArgumentException(IMAGE_MUST_NOT_BE_NULL);
@@ -357,6 +434,22 @@ public final class WriteFxImage {
         return compressedSize + HEADER_SIZE;
     }
 
+    /**
+     * Returns the conservative upper bound for the compressed image size of the multi-core encoders, ie. including the
+     * per-strip overhead and an optional 256-colour palette.
+     *
+     * @param width   Image width
+     * @param height  Image height
+     * @param alpha   Alpha enabled
+     * @param nStrips number of concurrently encoded strips
+     * @return the upper bound for the size of the resulting png in bytes
+     * @see #encodeParallel(Image, ByteBuffer, boolean, int, FilterType, int)
+     * @see #encodePaletteParallel(Image, ByteBuffer, boolean, int, int, PaletteQuantizer...)
+     */
+    public static int getCompressedSizeBound(final int width, final int height, final boolean alpha, final int nStrips) {
+        return getCompressedSizeBound(width, height, alpha) + PngStripEncoder.getOverheadBound(Math.max(1, nStrips));
+    }
+
     /**
      * Saves the given image as a png file.
      *
@@ -371,6 +464,29 @@ public final class WriteFxImage {
         }
     }
 
+    private static ByteBuffer encodeParallel(final Image image, final ByteBuffer byteBuffer, final boolean alpha, final int compressionLevel, final FilterType filterType, final int nStrips, final PaletteQuantizer palette) {
+        if (image == null) {
+            throw new IllegalArgumentException(IMAGE_MUST_NOT_BE_NULL);
+        }
+        final PixelReader pr = image.getPixelReader();
+        if (pr == null) {
+            throw new IllegalStateException(IMAGE_PIXEL_READER_NOT_AVAILABLE);
+        }
+        final int w = (int) image.getWidth();
+        final int h = (int) image.getHeight();
+        final int[] uncompressedImageData = ArrayCache.getCachedIntArray(INTERNAL_ARRAY_CACHE_NAME, w * h);
+        try {
+            // N.B. pixels are read once on the calling thread, the strips are processed on the common fork-join pool
+            pr.getPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), uncompressedImageData, 0, w);
+            if (palette != null) {
+                palette.update(uncompressedImageData, w, h); // N.B. no-op for static palettes
+            }
+            return PngStripEncoder.encode(uncompressedImageData, w, h, alpha, compressionLevel, filterType, nStrips, palette, byteBuffer);
+        } finally {
+            ArrayCache.release(INTERNAL_ARRAY_CACHE_NAME, uncompressedImageData);
+        }
+    }
+
     private static void preparePaletteHeader(PngWriter pngWriter, PaletteQuantizer cuant) {
         // create palette
         PngChunkPLTE palette = pngWriter.getMetadata().createPLTEChunk();
@@ -0,0 +1,157 @@
+package de.gsi.chart.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link PaletteQuantizerMedianCut}
+ */
+class PaletteQuantizerMedianCutTests {
+    private static final int[] COLORS = { 0xFF000000, 0xFFFFFFFF, 0xFFFF0000, 0xFF00FF00, 0xFF0000FF, 0xFF848484, 0xFFFF8400 };
+
+    @Test
+    void testExceptions() {
+        assertThrows(IllegalArgumentException.class, () -> new PaletteQuantizerMedianCut(0, false));
+        assertThrows(IllegalArgumentException.class, () -> new PaletteQuantizerMedianCut(257, false));
+        assertThrows(IllegalArgumentException.class, () -> new PaletteQuantizerMedianCut(256, true));
+        assertDoesNotThrow(() -> new PaletteQuantizerMedianCut(256, false));
+
+        final PaletteQuantizerMedianCut quantizer = new PaletteQuantizerMedianCut(16, false);
+        assertThrows(IllegalArgumentException.class, () -> quantizer.update(null, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> quantizer.update(new int[3], 2, 2));
+        assertTrue(quantizer.update(new int[4], 2, 2));
+        assertThrows(IllegalArgumentException.class, () -> quantizer.getColor(-1));
+        assertThrows(IllegalArgumentException.class, () -> quantizer.getColor(quantizer.getColorCount()));
+    }
+
+    @Test
+    void testExactColors() {
+        final int[] image = getTestImage(COLORS, 100, 50);
+        final PaletteQuantizerMedianCut quantizer = new PaletteQuantizerMedianCut(16, false);
+        assertTrue(quantizer.update(image, 100, 50));
+        assertEquals(COLORS.length, quantizer.getColorCount());
+        assertEquals(-1, quantizer.getTransparentIndex());
+        assertEquals(0.0, quantizer.getMeanError());
+
+        for (final int color : COLORS) {
+            final int index = quantizer.lookup(color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF);
+            assertArrayEquals(new int[] { color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF, 255 }, quantizer.getColor(index));
+            assertEquals(index, quantizer.lookup(color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF, 0), "alpha ignored w/o reserved colour");
+        }
+    }
+
+    @Test
+    void testNonAlignedColors() {
+        // N.B. colours are not representable by the 5-bit histogram bin centres (e.g. 0xFF123456 -> 0xFF103152)
+        final int[] colors = { 0xFF123456, 0xFFABCDEF, 0xFF7F7F7F };
+        final PaletteQuantizerMedianCut quantizer = new PaletteQuantizerMedianCut(16, false);
+        assertTrue(quantizer.update(getTestImage(colors, 100, 50), 100, 50));
+        assertEquals(colors.length, quantizer.getColorCount());
+        assertEquals(0.0, quantizer.getMeanError());
+        for (final int color : colors) {
+            final int index = quantizer.lookup(color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF);
+            assertArrayEquals(new int[] { color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF, 255 }, quantizer.getColor(index));
+        }
+
+        // colours sharing the same bin -> population-weighted mean of the actual pixel values
+        final int[] image = getTestImage(new int[] { 0xFF101010, 0xFF101010, 0xFF101010, 0xFF171717 }, 28, 1);
+        assertTrue(quantizer.update(image, 28, 1));
+        assertEquals(1, quantizer.getColorCount());
+        assertArrayEquals(new int[] { 0x12, 0x12, 0x12, 255 }, quantizer.getColor(0)); // (3 * 16 + 23) / 4 = 17.75
+    }
+
+    @Test
+    void testIncrementalUpdate() {
+        final PaletteQuantizerMedianCut quantizer = new PaletteQuantizerMedianCut(4, false);
+        final int[] image = getTestImage(new int[] { 0xFF000000, 0xFFFFFFFF }, 64, 64);
+        assertTrue(quantizer.update(image, 64, 64));
+        assertEquals(1, quantizer.getRebuildCount());
+
+        // unchanged and marginally changed frames re-use the palette and look-up table
+        assertFalse(quantizer.update(image, 64, 64));
+        image[42] = 0xFFFF0000;
+        assertFalse(quantizer.update(image, 64, 64));
+        assertEquals(1, quantizer.getRebuildCount());
+        assertTrue(quantizer.getMeanError() > 0.0);
+
+        // new dominant colour -> palette rebuild
+        final int[] image2 = getTestImage(new int[] { 0xFF000000, 0xFFFFFFFF, 0xFFFF0000 }, 64, 64);
+        assertTrue(quantizer.update(image2, 64, 64));
+        assertEquals(2, quantizer.getRebuildCount());
+        assertEquals(3, quantizer.getColorCount());
+        assertEquals(0.0, quantizer.getMeanError());
+        assertArrayEquals(new int[] { 255, 0, 0, 255 }, quantizer.getColor(quantizer.lookup(255, 0, 0)));
+
+        // forced rebuild
+        image[42] = 0xFF000000;
+        quantizer.setMaxMeanError(1000.0);
+        assertEquals(1000.0, quantizer.getMaxMeanError());
+        assertFalse(quantizer.update(image, 64, 64));
+        quantizer.rebuild();
+        assertEquals(3, quantizer.getRebuildCount());
+        assertEquals(2, quantizer.getColorCount());
+    }
+
+    @Test
+    void testManyColors() {
+        final int width = 300;
+        final int height = 200;
+        final int[] image = new int[width * height];
+        final Random rnd = new Random(42);
+        for (int i = 0; i < image.length; i++) {
+            // smooth gradient with some noise
+            final int r = Math.min(255, (i % width) * 255 / width + rnd.nextInt(8));
+            final int g = (i / width) * 255 / height;
+            image[i] = 0xFF000000 | r << 16 | g << 8 | 0x40;
+        }
+        final PaletteQuantizerMedianCut quantizer = new PaletteQuantizerMedianCut(256, false);
+        assertTrue(quantizer.update(image, width, height));
+        assertEquals(256, quantizer.getColorCount());
+        assertTrue(quantizer.getMeanError() < PaletteQuantizerMedianCut.DEFAULT_MAX_MEAN_ERROR, "mean error = " + quantizer.getMeanError());
+
+        double error = 0.0;
+        for (final int pixel : image) {
+            final int[] color = quantizer.getColor(quantizer.lookup(pixel >> 16 & 0xFF, pixel >> 8 & 0xFF, pixel & 0xFF));
+            final int dr = color[0] - (pixel >> 16 & 0xFF);
+            final int dg = color[1] - (pixel >> 8 & 0xFF);
+            final int db = color[2] - (pixel & 0xFF);
+            error += Math.sqrt(dr * dr + dg * dg + db * db);
+        }
+        assertTrue(error / image.length < 2 * PaletteQuantizerMedianCut.DEFAULT_MAX_MEAN_ERROR, "pixel error = " + error / image.length);
+    }
+
+    @Test
+    void testTransparency() {
+        final int[] image = getTestImage(new int[] { 0x00000000, 0xFFFF0000, 0x10FFFFFF }, 30, 30);
+        final PaletteQuantizerMedianCut quantizer = new PaletteQuantizerMedianCut(8, true);
+        assertTrue(quantizer.isReserveAlphaColor());
+        assertEquals(PaletteQuantizerMedianCut.DEFAULT_TRANSPARENCY_THRESHOLD, quantizer.getTransparencyThreshold());
+        quantizer.update(image, 30, 30);
+        assertEquals(0, quantizer.getTransparentIndex());
+        assertEquals(2, quantizer.getColorCount(), "transparent + red");
+        assertArrayEquals(new int[] { 0, 0, 0, 0 }, quantizer.getColor(0));
+        assertEquals(0, quantizer.lookup(255, 255, 255, 0x10));
+        assertEquals(1, quantizer.lookup(255, 0, 0, 255));
+        assertEquals(1, quantizer.lookup(255, 0, 0));
+
+        quantizer.setTransparencyThreshold(0);
+        assertEquals(0, quantizer.getTransparencyThreshold());
+        assertTrue(quantizer.lookup(255, 255, 255, 0x10) > 0);
+    }
+
+    private static int[] getTestImage(final int[] colors, final int width, final int height) {
+        final int[] image = new int[width * height];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = colors[(i / 7) % colors.length];
+        }
+        return image;
+    }
+}
@@ -3,6 +3,7 @@ package de.gsi.chart.utils;
 import static de.gsi.chart.utils.WriteFxImageBenchmark.Implementation.NEWREF;
 import static de.gsi.chart.utils.WriteFxImageBenchmark.Implementation.OLDREF;
 import static de.gsi.chart.utils.WriteFxImageBenchmark.Implementation.PALETTE;
+import static de.gsi.chart.utils.WriteFxImageBenchmark.Implementation.PARALLEL;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
@@ -38,6 +39,8 @@ public class WriteFxImageBenchmark {
     private static final Logger LOGGER = LoggerFactory.getLogger(WriteFxImageBenchmark.class);
     private static final int DEFAULT_PALETTE_COLOR_COUNT = 8;
     private static final int N_ITER = 50;
+    private static final int[] N_STRIPS = { 1, 2, 4, 8, 16 };
+    private static final int[][] IMAGE_SIZES = { { 640, 480 }, { 1920, 1080 }, { 3840, 2160 } };
 
     private static final int w = 333;
     private static final int h = 777;
@@ -110,6 +113,26 @@ public class WriteFxImageBenchmark {
 
         testCompressionPerformance(testimage, "noise data (difficult to compress)");
         testCompressionPerformance(testimage2, "simple shapes (easy to compress)");
+
+        testParallelPerformance();
+    }
+
+    public static void testParallelPerformance() {
+        LOGGER.atInfo().addArgument(Runtime.getRuntime().availableProcessors()).log("Test striped multi-core encoder performance ({} available cores)");
+        for (final int[] size : IMAGE_SIZES) {
+            final Image image = getPlotLikeImage(size[0], size[1]);
+            for (final boolean alpha : new boolean[] { true, false }) {
+                writeFxImage(image, alpha, true, Deflater.BEST_SPEED, NEWREF);
+                for (final int nStrips : N_STRIPS) {
+                    writeFxImage(image, alpha, true, Deflater.BEST_SPEED, PARALLEL, nStrips);
+                }
+                writeFxImage(image, alpha, true, Deflater.BEST_COMPRESSION, NEWREF);
+                for (final int nStrips : N_STRIPS) {
+                    writeFxImage(image, alpha, true, Deflater.BEST_COMPRESSION, PARALLEL, nStrips);
+                }
+                LOGGER.atInfo().log(" "); // deliberatly empty line for better readability
+            }
+        }
     }
 
     public static void testCompressionPerformance(final Image image, final String description) {
@@ -123,6 +146,7 @@ public class WriteFxImageBenchmark {
             for (int compressionLevel = Deflater.NO_COMPRESSION; compressionLevel <= Deflater.BEST_COMPRESSION; compressionLevel++) {
                 writeFxImage(image, alpha, true, compressionLevel, OLDREF);
                 writeFxImage(image, alpha, true, compressionLevel, NEWREF);
+                writeFxImage(image, alpha, true, compressionLevel, PARALLEL);
                 // compute palette on-the-fly
                 writeFxImage(image, alpha, true, compressionLevel, PALETTE);
                 // use pre-computed palette
@@ -132,8 +156,55 @@ public class WriteFxImageBenchmark {
         }
     }
 
+    /**
+     * @param width image width
+     * @param height image height
+     * @return image with mostly uniform background, grid lines and a noisy trace (N.B. typical chart content)
+     */
+    private static Image getPlotLikeImage(final int width, final int height) {
+        final Random rnd = new Random(42);
+        final int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = x % 100 == 0 || y % 100 == 0 ? 0xFFC0C0C0 : 0xFFFFFFFF;
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            final int y = (int) (height * (0.5 + 0.3 * Math.sin(20.0 * Math.PI * x / width) + 0.05 * rnd.nextGaussian()));
+            for (int dy = -1; dy <= 1; dy++) {
+                pixels[Math.max(0, Math.min(height - 1, y + dy)) * width + x] = 0xFF0000FF;
+            }
+        }
+        final WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        return image;
+    }
+
+    private static void writeFxImage(final Image image, final boolean alpha, final boolean keepBuffer, final int compression, final Implementation implementation, final int nStrips) {
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(WriteFxImage.getCompressedSizeBound((int) image.getWidth(), (int) image.getHeight(), alpha, nStrips));
+        int size = 0;
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < N_ITER; i++) {
+            final ByteBuffer bb = implementation == PARALLEL ? WriteFxImage.encodeParallel(image, keepBuffer ? byteBuffer.clear() : null, alpha, compression, FilterType.FILTER_NONE, nStrips) : WriteFxImage.encode(image, keepBuffer ? byteBuffer : null, alpha, compression, FilterType.FILTER_NONE);
+            size += bb.limit();
+        }
+        final long stop = System.currentTimeMillis();
+        final double avgSize = size / (double) N_ITER;
+        final double actualCompression = 100.0 * avgSize / (double) WriteFxImage.encode(image, null, alpha, Deflater.NO_COMPRESSION, null).limit();
+        LOGGER.atInfo() //
+                .addArgument(implementation.getName())
+                .addArgument((int) image.getWidth())
+                .addArgument((int) image.getHeight()) //
+                .addArgument(String.format("%5.1f", actualCompression)) //
+                .addArgument(String.format("%6.2f", (stop - start) / (double) N_ITER)) //
+                .addArgument(alpha ? "rgba" : "rgb ") //
+                .addArgument(implementation == PARALLEL ? nStrips : 1) //
+                .addArgument(compression) //
+                .log("FxImage-{}: size {}x{} \t compression: {}% \t {} ms/image    {} strips: {} compressionLevel: {}");
+    }
+
     private static void writeFxImage(Image image, boolean alpha, boolean keepBuffer, int compression, final Implementation implementation, PaletteQuantizer... quantizer) {
-        final ByteBuffer byteBuffer = ByteBuffer.allocate(WriteFxImage.getCompressedSizeBound((int) image.getWidth(), (int) image.getHeight(), alpha));
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(WriteFxImage.getCompressedSizeBound((int) image.getWidth(), (int) image.getHeight(), alpha, Runtime.getRuntime().availableProcessors()));
         int size = 0;
         final long start = System.currentTimeMillis();
         switch (implementation) {
@@ -143,6 +214,12 @@ public class WriteFxImageBenchmark {
                 size += bb.limit();
             }
             break;
+        case PARALLEL:
+            for (int i = 0; i < N_ITER; i++) {
+                final ByteBuffer bb = WriteFxImage.encodeParallel(image, keepBuffer ? byteBuffer.clear() : null, alpha, compression, FilterType.FILTER_NONE, Runtime.getRuntime().availableProcessors());
+                size += bb.limit();
+            }
+            break;
         case PALETTE:
             for (int i = 0; i < N_ITER; i++) {
                 final ByteBuffer bb = WriteFxImage.encodePalette(image, keepBuffer ? byteBuffer : null, alpha, compression, FilterType.FILTER_NONE, quantizer.length == 0 ? null : quantizer[0]);
@@ -206,7 +283,8 @@ public class WriteFxImageBenchmark {
     public enum Implementation {
         OLDREF,
         NEWREF,
-        PALETTE;
+        PALETTE,
+        PARALLEL;
 
         public String getName() {
             switch (this) {
@@ -216,6 +294,8 @@ public class WriteFxImageBenchmark {
                 return "NewRef ";
             case PALETTE:
                 return "Palette";
+            case PARALLEL:
+                return "Strips ";
             default:
                 return "unknown";
             }
@@ -23,12 +23,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.stream.Stream;
+import java.util.zip.Adler32;
 import java.util.zip.Deflater;
 
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
@@ -102,6 +104,23 @@ public class WriteFxImageTests {
         image1x1 = onexoneCanvas.snapshot(null, null);
     }
 
+    @Test
+    public void testContentHash() {
+        assertThrows(IllegalArgumentException.class, () -> WriteFxImage.contentHash(null));
+
+        assertEquals(WriteFxImage.contentHash(imageOvals), WriteFxImage.contentHash(imageOvals));
+        assertEquals(WriteFxImage.contentHash(imageOvals), WriteFxImage.contentHash(WriteFxImage.clone(imageOvals)));
+        assertNotEquals(WriteFxImage.contentHash(imageOvals), WriteFxImage.contentHash(imageRandom));
+
+        // single pixel change
+        final WritableImage modified = WriteFxImage.clone(imageOvals);
+        modified.getPixelWriter().setArgb(100, 150, ~modified.getPixelReader().getArgb(100, 150));
+        assertNotEquals(WriteFxImage.contentHash(imageOvals), WriteFxImage.contentHash(modified));
+
+        // same content, different dimensions
+        assertNotEquals(WriteFxImage.contentHash(new WritableImage(2, 4)), WriteFxImage.contentHash(new WritableImage(4, 2)));
+    }
+
     @Test
     public void testHelperFunctions() {
         assertImageEqual(image1x1, WriteFxImage.clone(image1x1));
@@ -300,6 +319,87 @@ public class WriteFxImageTests {
         }
     }
 
+    @ParameterizedTest
+    @MethodSource("testWritingImageByteBufferProvider")
+    public void testWritingImageByteBufferParallel(final int testImageID, final boolean allocateNewBuffer, final boolean encodeRGBA, final int compressionLevel, final FilterType filterType) throws IOException {
+        final Image testImage = getTestImage(testImageID);
+        final int nStrips = 4;
+
+        int w = (int) testImage.getWidth();
+        int h = (int) testImage.getHeight();
+        final int requiredSize = WriteFxImage.getCompressedSizeBound(w, h, encodeRGBA, nStrips);
+        final ByteBuffer pngOutput = allocateNewBuffer ? ByteBuffer.allocate(requiredSize) : null;
+        final ByteBuffer pngOutReal = WriteFxImage.encodeParallel(testImage, pngOutput, encodeRGBA, compressionLevel, filterType, nStrips);
+
+        if (allocateNewBuffer) {
+            // assert that the provided buffer was used
+            assertSame(pngOutput, pngOutReal);
+        } else {
+            // user supplied output must be null
+            assertNull(pngOutput);
+        }
+
+        // load from png
+        try (final InputStream is = new ByteArrayInputStream(pngOutReal.array(), pngOutReal.position(), pngOutReal.limit())) {
+            final Image recovered = new Image(is);
+            // compare against original
+            assertImageSimilar(testImage, recovered, /* threshold */ 0.0, encodeRGBA);
+        }
+
+        // the strip count must not affect the image content
+        for (final FilterType filter : new FilterType[] { FilterType.FILTER_SUB, FilterType.FILTER_PAETH, FilterType.FILTER_ADAPTIVE_FAST }) {
+            final ByteBuffer stripped = WriteFxImage.encodeParallel(testImage, null, encodeRGBA, Deflater.BEST_SPEED, filter, 3);
+            try (final InputStream is = new ByteArrayInputStream(stripped.array(), stripped.position(), stripped.limit())) {
+                assertImageSimilar(testImage, new Image(is), /* threshold */ 0.0, encodeRGBA);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("testWritingImageByteBufferProvider")
+    public void testWritingImageByteBufferPaletteParallel(final int testImageID, final boolean allocateNewBuffer, final boolean encodeRGBA, final int compressionLevel, final FilterType filterType) throws IOException {
+        final Image testImage = getTestImage(testImageID);
+        final int nStrips = 4;
+
+        int w = (int) testImage.getWidth();
+        int h = (int) testImage.getHeight();
+        final int requiredSize = WriteFxImage.getCompressedSizeBound(w, h, encodeRGBA, nStrips);
+        final ByteBuffer pngOutput = allocateNewBuffer ? ByteBuffer.allocate(requiredSize) : null;
+        final ByteBuffer pngOutReal = WriteFxImage.encodePaletteParallel(testImage, pngOutput, encodeRGBA, compressionLevel, nStrips);
+
+        if (allocateNewBuffer) {
+            // assert that the provided buffer was used
+            assertSame(pngOutput, pngOutReal);
+        } else {
+            // user supplied output must be null
+            assertNull(pngOutput);
+        }
+
+        // load from png
+        try (final InputStream is = new ByteArrayInputStream(pngOutReal.array(), pngOutReal.position(), pngOutReal.limit())) {
+            final Image recovered = new Image(is);
+            // compare against original with color threshold
+            assertImageSimilar(testImage, recovered, /* threshold */ 0.2, encodeRGBA);
+        }
+    }
+
+    @Test
+    public void testParallelHelperFunctions() {
+        final byte[] data = new byte[10_000];
+        new Random(42).nextBytes(data);
+        final Adler32 full = new Adler32();
+        full.update(data, 0, data.length);
+        final Adler32 first = new Adler32();
+        first.update(data, 0, 3333);
+        final Adler32 second = new Adler32();
+        second.update(data, 3333, data.length - 3333);
+        assertEquals(full.getValue(), PngStripEncoder.adler32Combine(first.getValue(), second.getValue(), data.length - 3333));
+
+        assertThrows(IllegalArgumentException.class, () -> WriteFxImage.encodeParallel(null, null, true, Deflater.BEST_SPEED, FilterType.FILTER_NONE, 4));
+        assertThrows(IllegalArgumentException.class, () -> WriteFxImage.encodePaletteParallel(null, null, true, Deflater.BEST_SPEED, 4));
+        assertThrows(IllegalArgumentException.class, () -> WriteFxImage.encodeParallel(imageRandom, ByteBuffer.allocate(100), true, Deflater.BEST_SPEED, FilterType.FILTER_NONE, 4));
+    }
+
     @Test
     public void testWritingImageByteBufferRandom() throws IOException {
         // convert to png
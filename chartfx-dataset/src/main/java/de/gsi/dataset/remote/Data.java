@@ -1,6 +1,7 @@
 package de.gsi.dataset.remote;
 
 import java.io.Serializable;
+import java.util.zip.CRC32;
 
 /**
  * Simple data storage container for net-based file/data-transfers.
@@ -17,6 +18,7 @@ public class Data implements Serializable {
     private final String mimeType;
     private final byte[] dataByteArray;
     private final int dataByteArraySize;
+    private transient String eTag; // lazily computed
 
     public Data(final String exportNameData, final String mimeType, final byte[] dataByteArray, final int dataByteArraySize) {
         if (exportNameData == null || exportNameData.isBlank()) {
@@ -42,6 +44,20 @@ public class Data implements Serializable {
         return dataByteArraySize;
     }
 
+    /**
+     * N.B. computed once from the payload and cached. Thus, the data byte array must not be modified after the first call.
+     *
+     * @return (quoted) entity tag identifying the payload content, e.g. for HTTP 'ETag' and 'If-None-Match' headers
+     */
+    public String getETag() {
+        if (eTag == null) {
+            final CRC32 crc = new CRC32();
+            crc.update(dataByteArray, 0, dataByteArraySize);
+            eTag = '"' + Long.toHexString(crc.getValue()) + '-' + Integer.toHexString(dataByteArraySize) + '"';
+        }
+        return eTag;
+    }
+
     public String getExportNameData() {
         return exportNameData;
     }
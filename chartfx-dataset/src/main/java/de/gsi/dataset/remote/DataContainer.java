@@ -65,6 +65,13 @@ public class DataContainer implements Serializable {
         return getData().get(0).getDataByteArraySize();
     }
 
+    /**
+     * @return convenience method
+     */
+    public String getETag() {
+        return getData().get(0).getETag();
+    }
+
     public String getExportName() {
         return exportName;
     }
@@ -1,9 +1,12 @@
 package de.gsi.dataset.utils;
 
-import java.time.Instant;
+import java.lang.ref.WeakReference;
 import java.time.temporal.ChronoUnit;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -11,13 +14,30 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
-import java.util.stream.Collectors;
+import java.util.function.ToLongBiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * A simple map based cache with timeOut and limit
- *
+ * A map based cache with expire-after-access timeOut, entry-count limit and optional weight (e.g. byte-size) bound.
+ * <p>
+ * Eviction follows a simplified W-TinyLFU policy: new entries are admitted to a small LRU 'window' (1% of the bounds)
+ * and, once they fall out of it, only replace the least-recently-used entry of the main region if they have been accessed
+ * more frequently (estimated via a compact count-min sketch with periodic aging). This protects frequently used entries
+ * from being flushed by bursts of one-time insertions. Entries are weighed by the optional weigher (default: 1).
+ * <p>
+ * Expired entries are purged by a single daemon scheduler shared by all Cache instances (ie. no thread per instance)
+ * and lazily on access. Hit, miss, eviction and expiration counts are available via the respective getters.
+ * <p>
+ * N.B. writes are serialised by an internal lock while reads are lock-free (frequency and recency updates of reads are
+ * skipped under lock contention).
+ * <p>
  * usage example:
  *
  * <pre>
@@ -28,6 +48,8 @@ import java.util.stream.Collectors;
  *         public Demo() {
  *             cache = final Cache<String, Integer> cache = Cache.<String, Integer>builder().withLimit(10)
  *                  .withTimeout(100, TimeUnit.MILLISECONDS).build();
+ *             // byte-size bounded variant:
+ *             // Cache.<String, byte[]>builder().withMaxWeight(10_000_000, (k, v) -> v.length).build();
  *             // alternatively:
  *             // cache = new Cache(100, TimeUnit.MILLISECONDS, 10);
  *
@@ -76,39 +98,49 @@ import java.util.stream.Collectors;
  * @param <K> search key
  * @param <V> cached value
  */
-public class Cache<K, V> implements Map<K, V> {
-    private final ConcurrentHashMap<K, V> dataCache;
-    private final ConcurrentHashMap<K, Instant> timeOutMap;
-    private final ChronoUnit chronoUnit;
+public class Cache<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Cache.class);
+    private static final ScheduledExecutorService EXPIRY_SERVICE = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = Executors.defaultThreadFactory().newThread(r);
+        t.setName(Cache.class.getCanonicalName() + "-Expiry");
+        t.setDaemon(true);
+        return t;
+    }); // Daemon Service shared by all instances
+    private static final int WINDOW_FRACTION = 100; // window region: 1% of the cache bounds
+    private final ConcurrentHashMap<K, Node<V>> dataCache = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // access-ordered LRU queues - guarded by evictionLock
+    private final LinkedHashMap<K, Node<V>> windowQueue = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<V>> mainQueue = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
     private final TimeUnit timeUnit;
     private final long timeOut;
+    private final long timeOutNanos;
     private final int limit;
+    private final long maxWeight;
+    private final ToLongBiFunction<K, V> weigher;
     private final BiConsumer<K, V> preListener;
     private final BiConsumer<K, V> postListener;
+    private long totalWeight; // guarded by evictionLock
+    private long windowWeight; // guarded by evictionLock
 
     public Cache(final int limit) {
-        this(0, TimeUnit.MILLISECONDS, limit, null, null);
+        this(0, TimeUnit.MILLISECONDS, limit, Long.MAX_VALUE, null, null, null);
     }
 
     public Cache(final long timeOut, final TimeUnit timeUnit) {
-        this(timeOut, timeUnit, Integer.MAX_VALUE, null, null);
+        this(timeOut, timeUnit, Integer.MAX_VALUE, Long.MAX_VALUE, null, null, null);
     }
 
     public Cache(final long timeOut, final TimeUnit timeUnit, final int limit) {
-        this(timeOut, timeUnit, limit, null, null);
+        this(timeOut, timeUnit, limit, Long.MAX_VALUE, null, null, null);
     }
 
-    private Cache(final long timeOut, final TimeUnit timeUnit, final int limit, final BiConsumer<K, V> preListener, final BiConsumer<K, V> postListener) {
-        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
-            final Thread t = Executors.defaultThreadFactory().newThread(r);
-            t.setName(Cache.class.getCanonicalName() + "-Thread");
-            t.setDaemon(true);
-            return t;
-        }); // Daemon Service
-
-        dataCache = new ConcurrentHashMap<>();
-        timeOutMap = new ConcurrentHashMap<>();
-
+    private Cache(final long timeOut, final TimeUnit timeUnit, final int limit, final long maxWeight, final ToLongBiFunction<K, V> weigher, final BiConsumer<K, V> preListener, final BiConsumer<K, V> postListener) {
         if (timeOut < 0) {
             throw new IllegalArgumentException("Timeout cannot be negative");
         }
@@ -118,24 +150,40 @@ public class Cache<K, V> implements Map<K, V> {
         if (limit < 1) {
             throw new IllegalArgumentException("Limit cannot be smaller than 1");
         }
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight cannot be smaller than 1");
+        }
 
         this.timeOut = timeOut;
         this.timeUnit = timeUnit;
-        chronoUnit = convertToChronoUnit(timeUnit);
+        this.timeOutNanos = timeOut > 0 ? timeUnit.toNanos(timeOut) : 0;
         this.limit = limit;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
 
         this.preListener = preListener;
         this.postListener = postListener;
+        if (limit < Integer.MAX_VALUE) {
+            sketch.ensureCapacity(limit); // avoids losing the frequency history by re-sizing while the cache fills up
+        }
 
         if (timeOut != 0) {
-            executor.scheduleAtFixedRate(this::checkTime, 0, timeOut, timeUnit);
+            ExpiryTask.schedule(this, timeOut, timeUnit);
         }
     }
 
     @Override
     public void clear() {
-        dataCache.clear();
-        timeOutMap.clear();
+        evictionLock.lock();
+        try {
+            dataCache.clear();
+            windowQueue.clear();
+            mainQueue.clear();
+            totalWeight = 0;
+            windowWeight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
     }
 
     @Override
@@ -145,12 +193,17 @@ public class Cache<K, V> implements Map<K, V> {
 
     @Override
     public boolean containsValue(final Object value) {
-        return dataCache.containsValue(value);
+        for (final Node<V> node : dataCache.values()) {
+            if (node.value.equals(value)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public Set<Entry<K, V>> entrySet() {
-        return dataCache.entrySet();
+        return new EntrySetView();
     }
 
     @Override
@@ -159,15 +212,67 @@ public class Cache<K, V> implements Map<K, V> {
         return getIfPresent((K) key);
     }
 
+    /**
+     * @return number of entries evicted due to the entry-count limit or weight bound
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return number of entries removed due to the time-out
+     */
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return ratio of hits vs. all look-ups (hits and misses), {@code 1.0} if there were no look-ups
+     */
+    public double getHitRate() {
+        final long hits = hitCount.sum();
+        final long requests = hits + missCount.sum();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
     public V getIfPresent(final K key) {
-        timeOutMap.put(key, Instant.now());
-        return dataCache.getOrDefault(key, null);
+        final Node<V> node = dataCache.get(key);
+        if (node == null) {
+            missCount.increment();
+            recordAccess(key, null);
+            return null;
+        }
+        final long now = System.nanoTime();
+        if (isExpired(node, now)) {
+            missCount.increment();
+            expire(key, node);
+            return null;
+        }
+        node.accessTime = now;
+        hitCount.increment();
+        recordAccess(key, node);
+        return node.value;
     }
 
     public long getLimit() {
         return limit;
     }
 
+    /**
+     * @return maximum accumulated weight of all entries ({@code Long.MAX_VALUE}: unbounded)
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
     public Optional<V> getOptional(final K key) {
         return Optional.ofNullable(getIfPresent(key));
     }
@@ -184,45 +289,62 @@ public class Cache<K, V> implements Map<K, V> {
         return timeUnit;
     }
 
+    /**
+     * @return accumulated weight of all entries (equals the number of entries if no weigher is defined)
+     */
+    public long getWeight() {
+        evictionLock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
     @Override
     public boolean isEmpty() {
         return dataCache.isEmpty();
     }
 
     @Override
-    public Set<K> keySet() {
-        return dataCache.keySet();
+    public V put(final K key, final V value) {
+        return put(key, value, false);
     }
 
     @Override
-    public V put(final K key, final V value) {
-        checkSize();
-        final V val = dataCache.put(key, value);
-        timeOutMap.put(key, Instant.now());
-        return val;
+    public void putAll(final Map<? extends K, ? extends V> m) {
+        m.forEach(this::put);
     }
 
     @Override
     public V putIfAbsent(final K key, final V value) {
-        checkSize();
-        final V val = dataCache.putIfAbsent(key, value);
-        timeOutMap.putIfAbsent(key, Instant.now());
-        return val;
+        return put(key, value, true);
     }
 
     @Override
-    public void putAll(final Map<? extends K, ? extends V> m) {
-        checkSize(m.size());
-        dataCache.putAll(m);
-        final Instant now = Instant.now();
-        m.keySet().forEach(key -> timeOutMap.putIfAbsent(key, now));
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        evictionLock.lock();
+        try {
+            final Node<V> node = dataCache.get(key);
+            if (node == null) {
+                return null;
+            }
+            unlink((K) key, node);
+            return node.value;
+        } finally {
+            evictionLock.unlock();
+        }
     }
 
-    @Override
-    public V remove(final Object key) {
-        final V val = dataCache.remove(key);
-        timeOutMap.remove(key);
-        return val;
+    /**
+     * resets the hit, miss, eviction and expiration counters
+     */
+    public void resetStatistics() {
+        hitCount.reset();
+        missCount.reset();
+        evictionCount.reset();
+        expirationCount.reset();
     }
 
     @Override
@@ -230,52 +352,203 @@ public class Cache<K, V> implements Map<K, V> {
         return dataCache.size();
     }
 
-    @Override
-    public Collection<V> values() {
-        return dataCache.values();
-    }
-
+    /**
+     * enforces the entry-count limit and weight bound (N.B. done implicitly on every insertion)
+     */
     protected void checkSize() {
-        checkSize(1);
+        checkSize(0);
     }
 
+    /**
+     * @param nNewElements number of entries to make room for with respect to the entry-count limit
+     */
     protected void checkSize(final int nNewElements) {
-        if (dataCache.size() < limit) {
-            return;
+        final List<K> evictedKeys = new ArrayList<>();
+        final List<V> evictedValues = new ArrayList<>();
+        evictionLock.lock();
+        try {
+            evict(nNewElements, evictedKeys, evictedValues);
+        } finally {
+            evictionLock.unlock();
         }
-        final int surplusEntries = Math.max(dataCache.size() - limit + nNewElements, 0);
-        final List<K> toBeRemoved = timeOutMap.entrySet().stream().sorted(Map.Entry.<K, Instant>comparingByValue().reversed()).limit(surplusEntries).map(Map.Entry::getKey).collect(Collectors.toList());
-        removeEntries(toBeRemoved);
+        notifyPostListener(evictedKeys, evictedValues);
     }
 
+    /**
+     * removes all entries that have not been accessed within the time-out (N.B. called periodically by the shared expiry
+     * scheduler)
+     */
     protected void checkTime() {
-        final Instant cutoffTime = Instant.now().minus(timeOut, chronoUnit);
-        final List<K> toBeRemoved = timeOutMap.entrySet().stream().filter(entry -> entry.getValue().isBefore(cutoffTime)).map(Map.Entry::getKey).collect(Collectors.toList());
-        removeEntries(toBeRemoved);
+        if (timeOutNanos <= 0) {
+            return;
+        }
+        final long now = System.nanoTime();
+        dataCache.forEach((key, node) -> {
+            if (isExpired(node, now)) {
+                expire(key, node);
+            }
+        });
     }
 
-    private void removeEntries(final List<K> toBeRemoved) {
-        final HashMap<K, V> removalMap;
-        if (preListener == null && postListener == null) {
-            removalMap = null;
-        } else {
-            removalMap = new HashMap<>();
-            toBeRemoved.forEach(key -> removalMap.put(key, dataCache.get(key)));
+    private void evict(final int nNewElements, final List<K> evictedKeys, final List<V> evictedValues) {
+        // move entries falling out of the admission window to the main region, subject to TinyLFU admission
+        final int windowLimit = Math.max(1, limit / WINDOW_FRACTION);
+        final long windowMaxWeight = Math.max(1, maxWeight / WINDOW_FRACTION);
+        while (windowQueue.size() > 1 && (windowQueue.size() > windowLimit || windowWeight > windowMaxWeight)) {
+            final Entry<K, Node<V>> candidate = windowQueue.entrySet().iterator().next();
+            final K candidateKey = candidate.getKey();
+            final Node<V> candidateNode = candidate.getValue();
+            windowQueue.remove(candidateKey);
+            windowWeight -= candidateNode.weight;
+            candidateNode.inWindow = false;
+            mainQueue.put(candidateKey, candidateNode);
+
+            while (isOverBounds(nNewElements) && dataCache.get(candidateKey) == candidateNode) {
+                final Entry<K, Node<V>> victim = mainQueue.entrySet().iterator().next();
+                if (victim.getValue() == candidateNode || sketch.frequency(candidateKey) <= sketch.frequency(victim.getKey())) {
+                    evictEntry(candidateKey, candidateNode, evictedKeys, evictedValues);
+                } else {
+                    evictEntry(victim.getKey(), victim.getValue(), evictedKeys, evictedValues);
+                }
+            }
         }
 
-        // call registered pre-listener
-        if (preListener != null) {
-            removalMap.forEach(preListener::accept);
+        // remaining overflow, e.g. due to oversized entries: LRU in main region first, window second
+        while (isOverBounds(nNewElements) && !dataCache.isEmpty()) {
+            final Entry<K, Node<V>> victim = (mainQueue.isEmpty() ? windowQueue : mainQueue).entrySet().iterator().next();
+            evictEntry(victim.getKey(), victim.getValue(), evictedKeys, evictedValues);
         }
+    }
 
-        toBeRemoved.forEach(key -> {
-            timeOutMap.remove(key);
-            dataCache.remove(key);
-        });
+    private void evictEntry(final K key, final Node<V> node, final List<K> evictedKeys, final List<V> evictedValues) {
+        if (preListener != null) {
+            preListener.accept(key, node.value);
+        }
+        unlink(key, node);
+        evictionCount.increment();
+        evictedKeys.add(key);
+        evictedValues.add(node.value);
+    }
 
-        // call registered post-listener
+    private void expire(final K key, final Node<V> node) {
+        evictionLock.lock();
+        try {
+            if (dataCache.get(key) != node || !isExpired(node, System.nanoTime())) {
+                return; // already removed, replaced or accessed in the meantime
+            }
+            if (preListener != null) {
+                preListener.accept(key, node.value);
+            }
+            unlink(key, node);
+            expirationCount.increment();
+        } finally {
+            evictionLock.unlock();
+        }
         if (postListener != null) {
-            removalMap.forEach(postListener::accept);
+            postListener.accept(key, node.value);
+        }
+    }
+
+    private boolean isExpired(final Node<V> node, final long now) {
+        return timeOutNanos > 0 && now - node.accessTime > timeOutNanos;
+    }
+
+    private boolean isOverBounds(final int nNewElements) {
+        return dataCache.size() + nNewElements > limit || totalWeight > maxWeight;
+    }
+
+    private void notifyPostListener(final List<K> keys, final List<V> values) {
+        if (postListener == null) {
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            postListener.accept(keys.get(i), values.get(i));
+        }
+    }
+
+    private V put(final K key, final V value, final boolean onlyIfAbsent) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("key and value cannot be null");
+        }
+        final long weight = weigher == null ? 1 : weigher.applyAsLong(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight cannot be negative: " + weight);
+        }
+        final List<K> evictedKeys = new ArrayList<>();
+        final List<V> evictedValues = new ArrayList<>();
+        final V oldValue;
+        evictionLock.lock();
+        try {
+            final long now = System.nanoTime();
+            final Node<V> node = dataCache.get(key);
+            sketch.ensureCapacity(Math.min(limit, Math.max(16L, dataCache.size() + 1L))); // N.B. grows only if not entry-count bounded
+            sketch.increment(key);
+            if (node == null || isExpired(node, now)) {
+                if (node != null) {
+                    unlink(key, node);
+                    expirationCount.increment();
+                }
+                final Node<V> newNode = new Node<>(value, weight, now);
+                dataCache.put(key, newNode);
+                windowQueue.put(key, newNode);
+                windowWeight += weight;
+                totalWeight += weight;
+                oldValue = null;
+            } else if (onlyIfAbsent) {
+                node.accessTime = now;
+                touch(key, node);
+                return node.value;
+            } else {
+                oldValue = node.value;
+                totalWeight += weight - node.weight;
+                if (node.inWindow) {
+                    windowWeight += weight - node.weight;
+                }
+                node.value = value;
+                node.weight = weight;
+                node.accessTime = now;
+                touch(key, node);
+            }
+            evict(0, evictedKeys, evictedValues);
+        } finally {
+            evictionLock.unlock();
+        }
+        notifyPostListener(evictedKeys, evictedValues);
+        return oldValue;
+    }
+
+    private void recordAccess(final K key, final Node<V> node) {
+        // N.B. lossy: frequency and recency updates are skipped if a writer holds the lock
+        if (key == null || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(key);
+            if (node != null && dataCache.get(key) == node) {
+                touch(key, node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void touch(final K key, final Node<V> node) {
+        // N.B. get(..) of access-ordered LinkedHashMap moves the entry to the most-recently-used end
+        if (node.inWindow) {
+            windowQueue.get(key);
+        } else {
+            mainQueue.get(key);
+        }
+    }
+
+    private void unlink(final K key, final Node<V> node) {
+        dataCache.remove(key, node);
+        totalWeight -= node.weight;
+        if (node.inWindow) {
+            windowQueue.remove(key);
+            windowWeight -= node.weight;
+        } else {
+            mainQueue.remove(key);
         }
     }
 
@@ -325,6 +598,8 @@ public class Cache<K, V> implements Map<K, V> {
 
     public static class CacheBuilder<K2, V2> {
         private int limit = Integer.MAX_VALUE;
+        private long maxWeight = Long.MAX_VALUE;
+        private ToLongBiFunction<K2, V2> weigher = null;
         private long timeOut = 0;
         private TimeUnit timeUnit = TimeUnit.MILLISECONDS;
         private BiConsumer<K2, V2> preListener = null;
@@ -335,7 +610,7 @@ public class Cache<K, V> implements Map<K, V> {
         }
 
         public Cache<K2, V2> build() {
-            return new Cache<>(timeOut, timeUnit, limit, preListener, postListener);
+            return new Cache<>(timeOut, timeUnit, limit, maxWeight, weigher, preListener, postListener);
         }
 
         public CacheBuilder<K2, V2> withLimit(final int limit) {
@@ -346,6 +621,23 @@ public class Cache<K, V> implements Map<K, V> {
             return this;
         }
 
+        /**
+         * @param maxWeight maximum accumulated weight of all entries (e.g. byte-size)
+         * @param weigher computes the weight of an entry (N.B. evaluated once on insertion)
+         * @return itself (fluent design)
+         */
+        public CacheBuilder<K2, V2> withMaxWeight(final long maxWeight, final ToLongBiFunction<K2, V2> weigher) {
+            if (maxWeight < 1) {
+                throw new IllegalArgumentException("maxWeight cannot be smaller than 1");
+            }
+            if (weigher == null) {
+                throw new IllegalArgumentException("weigher cannot be null");
+            }
+            this.maxWeight = maxWeight;
+            this.weigher = weigher;
+            return this;
+        }
+
         public CacheBuilder<K2, V2> withPostListener(final BiConsumer<K2, V2> listener) {
             if (listener == null) {
                 throw new IllegalArgumentException("listener cannot be null");
@@ -374,4 +666,177 @@ public class Cache<K, V> implements Map<K, V> {
             return this;
         }
     }
+
+    private class EntrySetView extends AbstractSet<Entry<K, V>> {
+        @Override
+        public void clear() {
+            Cache.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            final Iterator<Entry<K, Node<V>>> iterator = dataCache.entrySet().iterator();
+            return new Iterator<>() {
+                private K lastKey;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    final Entry<K, Node<V>> entry = iterator.next();
+                    lastKey = entry.getKey();
+                    return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().value);
+                }
+
+                @Override
+                public void remove() {
+                    if (lastKey == null) {
+                        throw new IllegalStateException("next() has not been called");
+                    }
+                    Cache.this.remove(lastKey);
+                    lastKey = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return dataCache.size();
+        }
+    }
+
+    /**
+     * periodic expiry task on the shared scheduler -- N.B. only weakly references the cache so that unused caches can be
+     * garbage-collected, the task cancels itself thereafter
+     */
+    private static final class ExpiryTask implements Runnable {
+        private final WeakReference<Cache<?, ?>> reference;
+        private volatile ScheduledFuture<?> future;
+
+        private ExpiryTask(final Cache<?, ?> cache) {
+            reference = new WeakReference<>(cache);
+        }
+
+        @Override
+        public void run() {
+            final Cache<?, ?> cache = reference.get();
+            if (cache == null) {
+                final ScheduledFuture<?> scheduledFuture = future;
+                if (scheduledFuture != null) {
+                    scheduledFuture.cancel(false);
+                }
+                return;
+            }
+            try {
+                cache.checkTime();
+            } catch (Exception e) { // NOPMD - must not cancel the periodic task
+                LOGGER.atError().setCause(e).log("error while purging expired cache entries");
+            }
+        }
+
+        private static void schedule(final Cache<?, ?> cache, final long period, final TimeUnit timeUnit) {
+            final ExpiryTask task = new ExpiryTask(cache);
+            task.future = EXPIRY_SERVICE.scheduleAtFixedRate(task, period, period, timeUnit);
+        }
+    }
+
+    /**
+     * Count-min sketch with four 4-bit counters per entry (16 counters per long) estimating the access frequency of keys
+     * (saturating at 15). All counters are halved once the number of increments reaches ten times the table size (aging),
+     * so that the sketch tracks the recent rather than the all-time popularity.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEED = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long ONE_MASK = 0x1111111111111111L;
+        private long[] table = new long[0];
+        private int tableMask;
+        private int sampleSize;
+        private int size;
+
+        private void ensureCapacity(final long maximumSize) {
+            final int maximum = (int) Math.min(maximumSize, Integer.MAX_VALUE >>> 1);
+            if (table.length >= maximum) {
+                return;
+            }
+            table = new long[Math.max(Integer.highestOneBit(maximum - 1) << 1, 8)];
+            tableMask = table.length - 1;
+            sampleSize = 10 * maximum;
+            size = 0;
+        }
+
+        private int frequency(final Object key) {
+            final int hash = spread(key.hashCode());
+            final int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                final int index = indexOf(hash, i);
+                final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xFL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        private void increment(final Object key) {
+            if (table.length == 0) {
+                return;
+            }
+            final int hash = spread(key.hashCode());
+            final int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && ++size >= sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(final int index, final int counter) {
+            final int offset = counter << 2;
+            final long mask = 0xFL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                return true;
+            }
+            return false;
+        }
+
+        private int indexOf(final int item, final int i) {
+            long hash = (item + SEED[i]) * SEED[i];
+            hash += hash >>> 32;
+            return ((int) hash) & tableMask;
+        }
+
+        private void reset() {
+            int count = 0;
+            for (int i = 0; i < table.length; i++) {
+                count += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = (size >>> 1) - (count >>> 2);
+        }
+
+        private static int spread(final int value) {
+            int x = ((value >>> 16) ^ value) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+
+    private static final class Node<V> {
+        private volatile V value;
+        private volatile long accessTime;
+        private long weight; // guarded by evictionLock
+        private boolean inWindow = true; // guarded by evictionLock
+
+        private Node(final V value, final long weight, final long accessTime) {
+            this.value = value;
+            this.weight = weight;
+            this.accessTime = accessTime;
+        }
+    }
 }
@@ -3,7 +3,10 @@ package de.gsi.dataset.remote;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
@@ -44,4 +47,18 @@ public class DataTests {
 
         assertThrows(IllegalArgumentException.class, () -> new Data("testExportName", "testMimeType", testBytes, 6));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void eTagTests() {
+        final byte[] testBytes = { 1, 2, 3, 4, 5 };
+        final Data test = new Data("testExportName", "testMimeType", testBytes, 4);
+        final String eTag = test.getETag();
+        assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""), "quoted entity tag");
+        assertSame(eTag, test.getETag(), "computed only once");
+
+        // only the valid payload range is considered
+        assertEquals(eTag, new Data("otherExportName", "otherMimeType", new byte[] { 1, 2, 3, 4, 42 }, 4).getETag());
+        assertNotEquals(eTag, new Data("testExportName", "testMimeType", new byte[] { 1, 2, 3, 5, 5 }, 4).getETag());
+        assertNotEquals(eTag, new Data("testExportName", "testMimeType", testBytes, 5).getETag());
+    }
+}
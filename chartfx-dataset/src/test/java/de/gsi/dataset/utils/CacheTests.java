@@ -7,13 +7,16 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
@@ -221,6 +224,103 @@ public class CacheTests {
         assertEquals(4, cache.putIfAbsent("key", 5));
     }
 
+    @Test
+    public void testFrequencyAdmission() {
+        final Cache<String, Integer> cache = Cache.<String, Integer>builder().withLimit(100).build();
+        for (int i = 0; i < 10; i++) {
+            cache.put("hot" + i, i);
+        }
+        for (int access = 0; access < 5; access++) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i, cache.get("hot" + i));
+            }
+        }
+
+        // scan of one-time entries larger than the cache must not flush the frequently used entries
+        for (int i = 0; i < 1000; i++) {
+            cache.put("scan" + i, i);
+            assertTrue(cache.getSize() <= 100, "cache size during scan " + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(isCached(cache, "hot" + i), "hot entry #" + i + " survived scan");
+        }
+        assertTrue(isCached(cache, "scan999"), "newest entry being cached");
+        assertEquals(1000 + 10 - 100, cache.getEvictionCount(), "eviction count");
+    }
+
+    @Test
+    public void testSharedExpiry() throws InterruptedException {
+        final AtomicInteger expired = new AtomicInteger();
+        final Cache<String, Integer> cache1 = Cache.<String, Integer>builder().withTimeout(20, TimeUnit.MILLISECONDS).withPostListener((k, v) -> expired.incrementAndGet()).build();
+        final Cache<String, Integer> cache2 = Cache.<String, Integer>builder().withTimeout(20, TimeUnit.MILLISECONDS).withPostListener((k, v) -> expired.incrementAndGet()).build();
+        cache1.put("key1", 1);
+        cache2.put("key2", 2);
+
+        // N.B. no access -> entries need to be purged by the shared background scheduler
+        final long deadline = System.currentTimeMillis() + 2000;
+        while (expired.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, expired.get(), "expired entries");
+        assertEquals(0, cache1.size());
+        assertEquals(0, cache2.size());
+        assertEquals(1, cache1.getExpirationCount());
+        assertEquals(0, cache1.getEvictionCount());
+    }
+
+    @Test
+    public void testStatistics() {
+        final Cache<String, Integer> cache = Cache.<String, Integer>builder().withLimit(10).build();
+        assertEquals(1.0, cache.getHitRate());
+        cache.put("key", 1);
+        assertEquals(1, cache.get("key"));
+        assertEquals(1, cache.get("key"));
+        assertEquals(1, cache.get("key"));
+        assertNull(cache.get("unknown"));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.75, cache.getHitRate());
+        assertEquals(0, cache.getEvictionCount());
+
+        cache.resetStatistics();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testWeightLimit() {
+        final List<String> evicted = new ArrayList<>();
+        final Cache<String, byte[]> cache = Cache.<String, byte[]>builder().withMaxWeight(1000, (k, v) -> v.length).withPostListener((k, v) -> evicted.add(k)).build();
+        assertEquals(1000, cache.getMaxWeight());
+        assertEquals(Integer.MAX_VALUE, cache.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, new byte[100]);
+            assertTrue(cache.getWeight() <= 1000, "weight during iteration " + i);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(1000, cache.getWeight());
+        assertEquals(10, evicted.size());
+        assertTrue(isCached(cache, "key19"), "newest entry being cached");
+
+        // replacing an entry with a larger one needs to be accounted for
+        cache.put("key19", new byte[300]);
+        assertTrue(cache.getWeight() <= 1000);
+        assertTrue(isCached(cache, "key19"));
+        assertEquals(8, cache.size());
+
+        // oversized entries cannot be retained
+        cache.put("large", new byte[2000]);
+        assertFalse(isCached(cache, "large"));
+        assertTrue(cache.getWeight() <= 1000);
+
+        cache.clear();
+        assertEquals(0, cache.getWeight());
+
+        assertThrows(IllegalArgumentException.class, () -> Cache.<String, byte[]>builder().withMaxWeight(0, (k, v) -> v.length));
+        assertThrows(IllegalArgumentException.class, () -> Cache.<String, byte[]>builder().withMaxWeight(10, null));
+    }
+
     private boolean isCached(Cache cache, final String KEY) {
         return cache.getOptional(KEY).isPresent();
     }
@@ -20,16 +20,25 @@ import de.gsi.dataset.DataSet;
 import de.gsi.dataset.DataSetError;
 import de.gsi.dataset.EditableDataSet;
 import de.gsi.dataset.GridDataSet;
+import de.gsi.dataset.event.UpdatedDataEvent;
 import de.gsi.dataset.spi.DoubleDataSet;
 import de.gsi.dataset.spi.DoubleErrorDataSet;
 import de.gsi.dataset.spi.Histogram;
 import de.gsi.dataset.spi.utils.DoublePointError;
+import de.gsi.dataset.utils.AssertUtils;
 import de.gsi.dataset.utils.NoDuplicatesList;
 import de.gsi.math.spectra.Apodization;
 import de.gsi.math.spectra.SpectrumTools;
+import de.gsi.math.spectra.fft.FFTPlanCache;
 
 /**
  * Some math operation on DataSet, DataSetError and Histogram
+ * <p>
+ * N.B. the operations returning a new DataSet allocate the result and intermediate arrays for each call. The common
+ * operations also provide destination-passing variants writing into a caller-supplied {@link DoubleErrorDataSet} (first
+ * argument) and re-using its capacity, ie. for periodic updates (e.g. in a {@link MathDataSet}) they do not allocate
+ * data storage once the destination's capacity suffices. The destination's name and axis descriptions are left to the
+ * caller.
  *
  * @author rstein
  */
@@ -49,37 +58,11 @@ public final class DataSetMath { // NOPMD - nomen est omen
     }
 
     public static DoubleErrorDataSet applyMathOperation(final DoubleErrorDataSet ret, final MathOp op, final double x1, final double y1, final double y2, final double eyn1, final double eyp1, final double eyn2, final double eyp2) {
-        // switch through math operations
-        switch (op) {
-        case ADD:
-            return ret.add(x1, y1 + y2, MathBase.hypot(eyn1, eyn2), MathBase.hypot(eyp1, eyp2));
-        case SUBTRACT:
-            return ret.add(x1, y1 - y2, MathBase.hypot(eyn1, eyn2), MathBase.hypot(eyp1, eyp2));
-        case MULTIPLY:
-            return ret.add(x1, y1 * y2, MathBase.hypot(y2 * eyn1, y1 * eyn2), MathBase.hypot(y2 * eyp1, y1 * eyp2));
-        case DIVIDE:
-            final double newY = y1 / y2;
-            final double nEYN = MathBase.hypot(eyn1 / y2, newY * eyn2 / y2);
-            final double nEYP = MathBase.hypot(eyp1 / y2, newY * eyp2 / y2);
-            return ret.add(x1, newY, nEYN, nEYP);
-        case SQR:
-            return ret.add(x1, MathBase.sqr(y1 + y2), 2 * MathBase.abs(y1 + y2) * MathBase.hypot(eyn1, eyn2), 2 * MathBase.abs(y1 + y2) * MathBase.hypot(eyp1, eyp2));
-        case SQRT:
-            return ret.add(x1, MathBase.sqrt(y1 + y2), MathBase.sqrt(MathBase.abs(y1 + y2)) * MathBase.hypot(eyn1, eyn2), MathBase.sqrt(MathBase.abs(y1 + y2)) * MathBase.hypot(eyp1, eyp2));
-        case LOG10:
-            double norm = 1.0 / MathBase.log(10);
-            final double nEYNLog = y1 + y2 > 0 ? norm / MathBase.abs(y1 + y2) * MathBase.hypot(eyn1, eyn2) : Double.NaN;
-            final double nEYPLog = y1 + y2 > 0 ? norm / MathBase.abs(y1 + y2) * MathBase.hypot(eyp1, eyp2) : Double.NaN;
-            return ret.add(x1, 10 * MathBase.log10(y1 + y2), nEYNLog, nEYPLog);
-        case DB:
-            final double normDb = 20.0 / MathBase.log(10);
-            final double nEYNDb = y1 + y2 > 0 ? normDb / MathBase.abs(y1 + y2) * MathBase.hypot(eyn1, eyn2) : Double.NaN;
-            final double nEYPDb = y1 + y2 > 0 ? normDb / MathBase.abs(y1 + y2) * MathBase.hypot(eyp1, eyp2) : Double.NaN;
-            return ret.add(x1, 20 * MathBase.log10(y1 + y2), nEYNDb, nEYPDb);
-        case IDENTITY:
-        default:
-            return ret.add(x1, y1 + y2, eyn1, eyp1);
-        }
+        final double[] y = new double[1];
+        final double[] eyn = new double[1];
+        final double[] eyp = new double[1];
+        applyMathOperation(op, y1, y2, eyn1, eyp1, eyn2, eyp2, 0, y, eyn, eyp);
+        return ret.add(x1, y[0], eyn[0], eyp[0]);
     }
 
     // convenience short-hand notation for getting error variables (if defined for dataset)
@@ -260,6 +243,93 @@ public final class DataSetMath { // NOPMD - nomen est omen
         return retFunction;
     }
 
+    /**
+     * Destination-passing variant of {@link #averageDataSetsIIR(DataSet, DataSet, DataSet, int)} that does not allocate
+     * once the DataSets' capacities suffice.
+     *
+     * @param destination receives the new average, may be identical to {@code prevAverage} for in-place updates
+     * @param prevAverage previous average, may be {@code null} or empty for the first update
+     * @param prevAverage2 previous average of the squared values, updated in place
+     * @param newDataSet new DataSet to be averaged
+     * @param nUpdates number of updates defining the IIR time constant
+     * @return the destination (fluent design)
+     */
+    public static DoubleErrorDataSet averageDataSetsIIR(final DoubleErrorDataSet destination, final DataSet prevAverage,
+            final DoubleErrorDataSet prevAverage2, final DataSet newDataSet, final int nUpdates) {
+        AssertUtils.notNull("newDataSet", newDataSet);
+        checkDestination(destination, newDataSet);
+        checkDestination(prevAverage2, newDataSet);
+        if (destination == prevAverage2) {
+            throw new IllegalArgumentException("destination must not be identical to prevAverage2");
+        }
+        if (prevAverage == null || prevAverage.getDataCount() == 0 || prevAverage2.getDataCount() == 0) {
+            final int n = newDataSet.getDataCount();
+            beginUpdate(prevAverage2, n);
+            try {
+                final double[] x2 = prevAverage2.getValues(DIM_X);
+                final double[] y2 = prevAverage2.getValues(DIM_Y);
+                final double[] eyn2 = prevAverage2.getErrorsNegative(DIM_Y);
+                final double[] eyp2 = prevAverage2.getErrorsPositive(DIM_Y);
+                for (int i = 0; i < n; i++) {
+                    x2[i] = newDataSet.get(DIM_X, i);
+                    y2[i] = MathBase.sqr(newDataSet.get(DIM_Y, i));
+                    eyn2[i] = MathBase.sqr(error(newDataSet, EYN, i));
+                    eyp2[i] = MathBase.sqr(error(newDataSet, EYP, i));
+                }
+            } finally {
+                endUpdate(prevAverage2);
+            }
+            return mathFunction(destination, newDataSet, 0.0, MathOp.IDENTITY);
+        }
+
+        final int n = prevAverage.getDataCount();
+        final double alpha = 1.0 / (1.0 + nUpdates);
+        beginUpdate(destination, n);
+        try {
+            beginUpdate(prevAverage2, n);
+            try {
+                final double[] x = destination.getValues(DIM_X);
+                final double[] y = destination.getValues(DIM_Y);
+                final double[] eyn = destination.getErrorsNegative(DIM_Y);
+                final double[] eyp = destination.getErrorsPositive(DIM_Y);
+                final double[] x2 = prevAverage2.getValues(DIM_X);
+                final double[] y2 = prevAverage2.getValues(DIM_Y);
+                final double[] eyn2 = prevAverage2.getErrorsNegative(DIM_Y);
+                final double[] eyp2 = prevAverage2.getErrorsPositive(DIM_Y);
+                for (int i = 0; i < n; i++) {
+                    final double oldX = prevAverage.get(DIM_X, i);
+                    final double oldY = prevAverage.get(DIM_Y, i);
+                    final double oldY2 = y2[i];
+                    final double newX = newDataSet.get(DIM_X, i);
+
+                    // whether we need to interpolate
+                    final boolean inter = oldX != newX;
+
+                    final double newValue = inter ? newDataSet.getValue(DIM_Y, oldX) : newDataSet.get(DIM_Y, i);
+                    final double newY = (1 - alpha) * oldY + alpha * newValue;
+                    final double newY2 = (1 - alpha) * oldY2 + alpha * (newValue * newValue);
+                    final double newEYN = error(newDataSet, EYN, i, newX, inter);
+                    final double newEYP = error(newDataSet, EYP, i, newX, inter);
+
+                    x2[i] = newX;
+                    y2[i] = newY2;
+                    eyn2[i] = newEYN;
+                    eyp2[i] = newEYP;
+
+                    x[i] = oldX;
+                    y[i] = newY;
+                    eyn[i] = MathBase.sqrt(MathBase.abs(newY2 - MathBase.pow(newY, 2)) + newEYN * newEYN);
+                    eyp[i] = MathBase.sqrt(MathBase.abs(newY2 - MathBase.pow(newY, 2)) + newEYP * newEYP);
+                }
+            } finally {
+                endUpdate(prevAverage2);
+            }
+        } finally {
+            endUpdate(destination);
+        }
+        return destination;
+    }
+
     public static DataSet dbFunction(final DataSet function) {
         return mathFunction(function, 0.0, MathOp.DB);
     }
@@ -341,6 +411,55 @@ public final class DataSetMath { // NOPMD - nomen est omen
         return retFunction;
     }
 
+    /**
+     * Destination-passing variant of {@link #derivativeFunction(DataSet, double)} that does not allocate once the
+     * destination's capacity suffices.
+     *
+     * @param destination receives the derivative, must not be identical to the input
+     * @param function input DataSet
+     * @param sign factor applied to the derivative
+     * @return the destination (fluent design)
+     */
+    public static DoubleErrorDataSet derivativeFunction(final DoubleErrorDataSet destination, final DataSet function, final double sign) {
+        checkDestination(destination, function);
+        if (destination == function) {
+            throw new IllegalArgumentException("destination must not be identical to the input");
+        }
+        final int ncount = function.getDataCount();
+        beginUpdate(destination, ncount <= 3 ? 0 : ncount);
+        try {
+            if (ncount <= 3) {
+                return destination;
+            }
+            final double[] x = destination.getValues(DIM_X);
+            final double[] y = destination.getValues(DIM_Y);
+            final double[] eyn = destination.getErrorsNegative(DIM_Y);
+            final double[] eyp = destination.getErrorsPositive(DIM_Y);
+            for (int i = 0; i < ncount; i++) {
+                x[i] = function.get(DIM_X, i);
+                y[i] = 0.0;
+                eyn[i] = 0.0;
+                eyp[i] = 0.0;
+            }
+            for (int i = 2; i < ncount - 2; i++) {
+                final double x0 = x[i];
+                final double stepL = x0 - x[i - 1];
+                final double stepR = x[i + 1] - x0;
+                final double valL = function.get(DIM_Y, i - 1);
+                final double valC = function.get(DIM_Y, i);
+                final double valR = function.get(DIM_Y, i + 1);
+
+                // simple derivative computation
+                y[i] = sign * (0.5 * ((valC - valL) / stepL + (valR - valC) / stepR));
+                eyn[i] = MathBase.sqrt(MathBase.sqr(error(function, EYN, i - 1)) + MathBase.sqr(error(function, EYN, i)) + MathBase.sqr(error(function, EYN, i + 1))) / 4;
+                eyp[i] = MathBase.sqrt(MathBase.sqr(error(function, EYP, i - 1)) + MathBase.sqr(error(function, EYP, i)) + MathBase.sqr(error(function, EYP, i + 1))) / 4;
+            }
+        } finally {
+            endUpdate(destination);
+        }
+        return destination;
+    }
+
     public static DataSet divideFunction(final DataSet function1, final DataSet function2) {
         return mathFunction(function1, function2, MathOp.DIVIDE);
     }
@@ -400,6 +519,17 @@ public final class DataSetMath { // NOPMD - nomen est omen
         }
     }
 
+    /**
+     * Sliding-window filter: the filtered value of each sample is the given statistic of all samples whose x-value is
+     * within {@code width} of the sample's x-value. The errors are filtered alike (N.B. the mean errors being scaled by
+     * {@code 1/sqrt(n)}). Evaluated in O(n log w) for windows of w samples, large DataSets in parallel (see
+     * {@link SlidingWindowFilter}).
+     *
+     * @param function input DataSet (N.B. x-values need not be sorted)
+     * @param width maximum x-distance of the samples within a window
+     * @param filterType statistic to be computed
+     * @return new filtered DataSet
+     */
     public static DataSet filterFunction(final DataSet function, final double width, final Filter filterType) {
         final int n = function.getDataCount();
         final DoubleErrorDataSet filteredFunction = new DoubleErrorDataSet(filterType.getTag() + "(" + function.getName() + "," + width + ")", n);
@@ -407,63 +537,21 @@ public final class DataSetMath { // NOPMD - nomen est omen
             final AxisDescription refAxisDescription = function.getAxisDescription(dim);
             filteredFunction.getAxisDescription(dim).set(refAxisDescription.getName(), refAxisDescription.getUnit());
         }
-        final double[] subArrayY = new double[n];
-        final double[] subArrayYn = new double[n];
-        final double[] subArrayYp = new double[n];
 
         final double[] xValues = function.getValues(DIM_X);
-        final double[] yValues = function.getValues(DIM_Y);
-        final double[] yen = errors(function, EYN);
-        final double[] yep = errors(function, EYN);
-
-        for (int i = 0; i < n; i++) {
-            final double time0 = xValues[i];
-
-            int count = 0;
-            for (int j = 0; j < n; j++) {
-                final double time = xValues[j];
-                if (MathBase.abs(time0 - time) <= width) {
-                    subArrayY[count] = yValues[j];
-                    subArrayYn[count] = yen[j];
-                    subArrayYp[count] = yep[j];
-                    count++;
-                }
-            }
-
-            final double norm = count > 0 ? 1.0 / MathBase.sqrt(count) : 0.0;
-
-            switch (filterType) {
-            case MEDIAN:
-                filteredFunction.add(time0, Math.median(subArrayY, count), Math.median(subArrayYn, count),
-                        Math.median(subArrayYp, count));
-                break;
-            case MIN:
-                filteredFunction.add(time0, Math.minimum(subArrayY, count), Math.minimum(subArrayYn, count),
-                        Math.minimum(subArrayYp, count));
-                break;
-            case MAX:
-                filteredFunction.add(time0, Math.maximum(subArrayY, count), Math.maximum(subArrayYn, count),
-                        Math.maximum(subArrayYp, count));
-                break;
-            case P2P:
-                filteredFunction.add(time0, Math.peakToPeak(subArrayY, count), Math.peakToPeak(subArrayYn, count),
-                        Math.peakToPeak(subArrayYp, count));
-                break;
-            case RMS:
-                filteredFunction.add(time0, Math.rms(subArrayY, count), Math.rms(subArrayYn, count),
-                        Math.rms(subArrayYp, count));
-                break;
-            case GEOMMEAN:
-                filteredFunction.add(time0, Math.geometricMean(subArrayY, 0, count),
-                        Math.geometricMean(subArrayYn, 0, count), Math.geometricMean(subArrayYp, 0, count));
-                break;
-            case MEAN:
-            default:
-                filteredFunction.add(time0, Math.mean(subArrayY, count), Math.mean(subArrayYn, count) * norm,
-                        Math.mean(subArrayYp, count) * norm);
-                break;
+        final SlidingWindowFilter filter = new SlidingWindowFilter(xValues, n, width);
+        final double[] y = filter.filter(function.getValues(DIM_Y), filterType);
+        final double[] yen = filter.filter(errors(function, EYN), filterType);
+        final double[] yep = filter.filter(errors(function, EYP), filterType);
+        if (filterType == Filter.MEAN) {
+            final int[] windowSizes = filter.getWindowSizes();
+            for (int i = 0; i < n; i++) {
+                final double norm = windowSizes[i] > 0 ? 1.0 / MathBase.sqrt(windowSizes[i]) : 0.0;
+                yen[i] *= norm;
+                yep[i] *= norm;
             }
         }
+        filteredFunction.set(Arrays.copyOf(xValues, n), y, yen, yep, false);
 
         return filteredFunction;
     }
@@ -759,6 +847,57 @@ public final class DataSetMath { // NOPMD - nomen est omen
         return retFunction;
     }
 
+    /**
+     * Destination-passing variant of {@link #integrateFunction(DataSet)} (ie. integrating over the full range) that does
+     * not allocate once the destination's capacity suffices.
+     *
+     * @param destination receives the cumulative integral, must not be identical to the input
+     * @param function input DataSet
+     * @return the destination (fluent design)
+     */
+    public static DoubleErrorDataSet integrateFunction(final DoubleErrorDataSet destination, final DataSet function) {
+        checkDestination(destination, function);
+        if (destination == function) {
+            throw new IllegalArgumentException("destination must not be identical to the input");
+        }
+        final int nLength = function.getDataCount();
+        beginUpdate(destination, nLength);
+        try {
+            if (nLength <= 0) {
+                return destination;
+            }
+            final double[] x = destination.getValues(DIM_X);
+            final double[] y = destination.getValues(DIM_Y);
+            final double[] eyn = destination.getErrorsNegative(DIM_Y);
+            final double[] eyp = destination.getErrorsPositive(DIM_Y);
+            double integral = 0;
+            double integralEN = 0.0;
+            double integralEP = 0.0;
+            x[0] = function.get(DIM_X, 0);
+            y[0] = 0.0;
+            eyn[0] = 0.0;
+            eyp[0] = 0.0;
+            for (int i = 1; i < nLength; i++) {
+                final double x0 = x[i - 1];
+                final double x1 = function.get(DIM_X, i);
+                final double step = x1 - x0;
+
+                // simple triangulation integration, assuming uncorrelated errors between bins
+                integral += 0.5 * step * (function.get(DIM_Y, i - 1) + function.get(DIM_Y, i));
+                integralEN = MathBase.hypot(integralEN, 0.5 * step * (error(function, EYN, i - 1) + error(function, EYN, i)));
+                integralEP = MathBase.hypot(integralEP, 0.5 * step * (error(function, EYP, i - 1) + error(function, EYP, i)));
+
+                x[i] = x1;
+                y[i] = integral;
+                eyn[i] = integralEN;
+                eyp[i] = integralEP;
+            }
+        } finally {
+            endUpdate(destination);
+        }
+        return destination;
+    }
+
     public static DataSet inversedbFunction(final DataSet function) {
         return mathFunction(function, 1.0, MathOp.INV_DB);
     }
@@ -783,7 +922,7 @@ public final class DataSetMath { // NOPMD - nomen est omen
             final boolean dbScale, final boolean normalisedFrequency) {
         final int n = function.getDataCount();
 
-        final DoubleFFT_1D fastFourierTrafo = new DoubleFFT_1D(n);
+        final DoubleFFT_1D fastFourierTrafo = FFTPlanCache.getDoubleFFT(n);
 
         // N.B. since realForward computes the FFT in-place -> generate a copy
         final double[] fftSpectra = new double[n];
@@ -809,6 +948,58 @@ public final class DataSetMath { // NOPMD - nomen est omen
         return ret;
     }
 
+    /**
+     * Destination-passing variant of {@link #magnitudeSpectrum(DataSet, Apodization, boolean, boolean)} that does not
+     * allocate once the destination's capacity suffices, N.B. the destination's storage is used as FFT workspace and thus
+     * retains a capacity of twice the spectrum length.
+     *
+     * @param destination receives the magnitude spectrum, must not be identical to the input
+     * @param function input DataSet
+     * @param apodization apodization window applied to the input
+     * @param dbScale true: spectrum in [dB]
+     * @param normalisedFrequency true: frequency axis normalised to the sampling frequency
+     * @return the destination (fluent design)
+     */
+    public static DoubleErrorDataSet magnitudeSpectrum(final DoubleErrorDataSet destination, final DataSet function, final Apodization apodization,
+            final boolean dbScale, final boolean normalisedFrequency) {
+        checkDestination(destination, function);
+        AssertUtils.notNull("apodization", apodization);
+        if (destination == function) {
+            throw new IllegalArgumentException("destination must not be identical to the input");
+        }
+        final int n = function.getDataCount();
+        final int nMag = n / 2;
+        beginUpdate(destination, n);
+        try {
+            final double[] fftSpectra = destination.getValues(DIM_Y);
+            for (int i = 0; i < n; i++) {
+                fftSpectra[i] = function.get(DIM_Y, i) * apodization.getIndex(i, n);
+            }
+            FFTPlanCache.getDoubleFFT(n).realForward(fftSpectra);
+            // N.B. in-place since the i-th magnitude only depends on the (2i)-th and (2i+1)-th FFT coefficients
+            if (dbScale) {
+                SpectrumTools.computeMagnitudeSpectrum_dB(fftSpectra, 0, n, fftSpectra, 0, true);
+            } else {
+                SpectrumTools.computeMagnitudeSpectrum(fftSpectra, 0, n, fftSpectra, 0, true);
+            }
+            destination.resize(nMag); // N.B. notification deferred until the end of the update
+
+            final double dt = function.get(DIM_X, n - 1) - function.get(DIM_X, 0);
+            final double fsampling = normalisedFrequency || dt <= 0 ? 0.5 / nMag : 1.0 / dt;
+            final double[] x = destination.getValues(DIM_X);
+            final double[] eyn = destination.getErrorsNegative(DIM_Y);
+            final double[] eyp = destination.getErrorsPositive(DIM_Y);
+            for (int i = 0; i < nMag; i++) {
+                x[i] = i * fsampling;
+                eyn[i] = 0.0;
+                eyp[i] = 0.0;
+            }
+        } finally {
+            endUpdate(destination);
+        }
+        return destination;
+    }
+
     public static DataSet magnitudeSpectrumComplex(final DataSet function) {
         return magnitudeSpectrumComplex(function, Apodization.Hann, false, false);
     }
@@ -817,7 +1008,7 @@ public final class DataSetMath { // NOPMD - nomen est omen
             final boolean dbScale, final boolean normalisedFrequency) {
         final int n = function.getDataCount();
 
-        final DoubleFFT_1D fastFourierTrafo = new DoubleFFT_1D(n);
+        final DoubleFFT_1D fastFourierTrafo = FFTPlanCache.getDoubleFFT(n);
 
         // N.B. since realForward computes the FFT in-place -> generate a copy
         final double[] fftSpectra = new double[2 * n];
@@ -869,37 +1060,80 @@ public final class DataSetMath { // NOPMD - nomen est omen
 
     public static DataSet mathFunction(final DataSet function1, final DataSet function2, final MathOp op) {
         final DoubleErrorDataSet ret = new DoubleErrorDataSet(function1.getName() + op.getTag() + function2.getName(), function1.getDataCount());
-        ret.getAxisDescription(DIM_X).set(function1.getAxisDescription(DIM_X));
+        ret.getAxisDescription(DIM_X).set(function1.getAxisDescription(DIM_X).getName(), function1.getAxisDescription(DIM_X).getUnit());
         ret.getAxisDescription(DIM_Y).set(function1.getAxisDescription(DIM_Y).getName(), function1.getAxisDescription(DIM_Y).getUnit());
+        return mathFunction(ret, function1, function2, op);
+    }
 
-        final boolean needsInterpolation = !sameHorizontalBase(function1, function2);
-        if (needsInterpolation) {
+    /**
+     * Destination-passing variant of {@link #mathFunction(DataSet, DataSet, MathOp)} that does not allocate once the
+     * destination's capacity suffices and both inputs share the same horizontal base (otherwise the common base and
+     * interpolated result are computed in temporary storage).
+     *
+     * @param destination receives the result, may be identical to one of the inputs for in-place operations
+     * @param function1 first input DataSet
+     * @param function2 second input DataSet
+     * @param op math operation
+     * @return the destination (fluent design)
+     */
+    public static DoubleErrorDataSet mathFunction(final DoubleErrorDataSet destination, final DataSet function1, final DataSet function2, final MathOp op) {
+        checkDestination(destination, function1);
+        AssertUtils.notNull("function2", function2);
+        AssertUtils.notNull("op", op);
+        if (!sameHorizontalBase(function1, function2)) {
+            // N.B. computed in temporary storage since the destination may be one of the interpolated inputs
             final List<Double> xValues = getCommonBase(function1, function2);
-            for (double x : xValues) {
-                final double Y1 = function1.getValue(DIM_Y, x);
-                final double Y2 = function2.getValue(DIM_Y, x);
-                final double eyn1 = error(function1, EYN, 0, x, needsInterpolation);
-                final double eyp1 = error(function1, EYP, 0, x, needsInterpolation);
-                final double eyn2 = error(function2, EYN, 0, x, needsInterpolation);
-                final double eyp2 = error(function2, EYP, 0, x, needsInterpolation);
-                applyMathOperation(ret, op, x, Y1, Y2, eyn1, eyp1, eyn2, eyp2);
+            final int n = xValues.size();
+            final double[] y = new double[n];
+            final double[] eyn = new double[n];
+            final double[] eyp = new double[n];
+            for (int i = 0; i < n; i++) {
+                final double x = xValues.get(i);
+                final double y1 = function1.getValue(DIM_Y, x);
+                final double y2 = function2.getValue(DIM_Y, x);
+                final double eyn1 = error(function1, EYN, 0, x, true);
+                final double eyp1 = error(function1, EYP, 0, x, true);
+                final double eyn2 = error(function2, EYN, 0, x, true);
+                final double eyp2 = error(function2, EYP, 0, x, true);
+                applyMathOperation(op, y1, y2, eyn1, eyp1, eyn2, eyp2, i, y, eyn, eyp);
             }
-            return ret;
+            beginUpdate(destination, n);
+            try {
+                final double[] x = destination.getValues(DIM_X);
+                for (int i = 0; i < n; i++) {
+                    x[i] = xValues.get(i);
+                }
+                System.arraycopy(y, 0, destination.getValues(DIM_Y), 0, n);
+                System.arraycopy(eyn, 0, destination.getErrorsNegative(DIM_Y), 0, n);
+                System.arraycopy(eyp, 0, destination.getErrorsPositive(DIM_Y), 0, n);
+            } finally {
+                endUpdate(destination);
+            }
+            return destination;
         }
 
-        for (int i = 0; i < function1.getDataCount(); i++) {
-            final double X1 = function1.get(DIM_X, i);
-            // not needed : final double X2 = function1.get(DIM_X, i) ...
-            final double Y1 = function1.get(DIM_Y, i);
-            final double Y2 = function2.get(DIM_Y, i);
-            final double eyn1 = error(function1, EYN, i);
-            final double eyp1 = error(function1, EYP, i);
-            final double eyn2 = error(function2, EYN, i, X1, needsInterpolation);
-            final double eyp2 = error(function2, EYP, i, X1, needsInterpolation);
-            applyMathOperation(ret, op, X1, Y1, Y2, eyn1, eyp1, eyn2, eyp2);
+        final int n = function1.getDataCount();
+        beginUpdate(destination, n);
+        try {
+            final double[] x = destination.getValues(DIM_X);
+            final double[] y = destination.getValues(DIM_Y);
+            final double[] eyn = destination.getErrorsNegative(DIM_Y);
+            final double[] eyp = destination.getErrorsPositive(DIM_Y);
+            for (int i = 0; i < n; i++) {
+                final double x1 = function1.get(DIM_X, i);
+                final double y1 = function1.get(DIM_Y, i);
+                final double y2 = function2.get(DIM_Y, i);
+                final double eyn1 = error(function1, EYN, i);
+                final double eyp1 = error(function1, EYP, i);
+                final double eyn2 = error(function2, EYN, i);
+                final double eyp2 = error(function2, EYP, i);
+                x[i] = x1;
+                applyMathOperation(op, y1, y2, eyn1, eyp1, eyn2, eyp2, i, y, eyn, eyp);
+            }
+        } finally {
+            endUpdate(destination);
         }
-
-        return ret;
+        return destination;
     }
 
     public static List<Double> getCommonBase(final DataSet... functions) {
@@ -920,66 +1154,96 @@ public final class DataSetMath { // NOPMD - nomen est omen
     }
 
     public static DataSet mathFunction(final DataSet function, final double value, final MathOp op) {
-        final String functionName = op.getTag() + "(" + function.getName() + ")";
-        final double[] y = function.getValues(DIM_Y);
-        final double[] eyn = Arrays.copyOf(errors(function, EYN), y.length);
-        final double[] eyp = Arrays.copyOf(errors(function, EYP), y.length);
+        final DoubleErrorDataSet ret = new DoubleErrorDataSet(op.getTag() + "(" + function.getName() + ")", function.getDataCount());
+        ret.getAxisDescription(DIM_X).set(function.getAxisDescription(DIM_X).getName(), function.getAxisDescription(DIM_X).getUnit());
+        ret.getAxisDescription(DIM_Y).set(function.getAxisDescription(DIM_Y).getName(), function.getAxisDescription(DIM_Y).getUnit());
+        return mathFunction(ret, function, value, op);
+    }
 
-        final int ncount = function.getDataCount();
-        switch (op) {
-        case ADD:
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), ArrayMath.add(y, value), eyn, eyp,
-                    ncount, true);
-        case SUBTRACT:
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), ArrayMath.subtract(y, value), eyn, eyp,
-                    ncount, true);
-        case MULTIPLY:
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), ArrayMath.multiply(y, value),
-                    ArrayMath.multiply(eyn, value), ArrayMath.multiply(eyp, value), ncount, true);
-        case DIVIDE:
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), ArrayMath.divide(y, value),
-                    ArrayMath.divide(eyn, value), ArrayMath.divide(eyp, value), ncount, true);
-        case SQR:
-            for (int i = 0; i < eyn.length; i++) {
-                eyn[i] = 2 * MathBase.abs(y[i] + value) * eyn[i];
-                eyp[i] = 2 * MathBase.abs(y[i] + value) * eyp[i];
-            }
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), value == 0.0 ? ArrayMath.sqr(y) : ArrayMath.sqr(ArrayMath.add(y, value)), eyn, eyp, ncount,
-                    true);
-        case SQRT:
-            for (int i = 0; i < eyn.length; i++) {
-                eyn[i] = MathBase.sqrt(MathBase.abs(y[i] + value)) * eyn[i];
-                eyp[i] = MathBase.sqrt(MathBase.abs(y[i] + value)) * eyp[i];
-            }
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), value == 0.0 ? ArrayMath.sqrt(y) : ArrayMath.sqrt(ArrayMath.add(y, value)), eyn, eyp, ncount,
-                    true);
-        case LOG10:
-            for (int i = 0; i < eyn.length; i++) {
-                eyn[i] = 0.0; // 0.0 as a work-around
-                eyp[i] = 0.0;
-            }
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), ArrayMath.tenLog10(y), eyn, eyp,
-                    ncount, true);
-        case DB:
-            for (int i = 0; i < eyn.length; i++) {
-                eyn[i] = 0.0; // 0.0 as a work-around
-                eyp[i] = 0.0;
-            }
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), ArrayMath.decibel(y), eyn, eyp, ncount,
-                    true);
-        case INV_DB:
-            for (int i = 0; i < eyn.length; i++) {
-                eyn[i] = 0.0; // 0.0 as a work-around
-                eyp[i] = 0.0;
+    /**
+     * Destination-passing variant of {@link #mathFunction(DataSet, double, MathOp)} that does not allocate once the
+     * destination's capacity suffices.
+     *
+     * @param destination receives the result, may be identical to the input for in-place operations
+     * @param function input DataSet
+     * @param value scalar operand
+     * @param op math operation
+     * @return the destination (fluent design)
+     */
+    public static DoubleErrorDataSet mathFunction(final DoubleErrorDataSet destination, final DataSet function, final double value, final MathOp op) {
+        checkDestination(destination, function);
+        AssertUtils.notNull("op", op);
+        final int n = function.getDataCount();
+        beginUpdate(destination, n);
+        try {
+            final double[] x = destination.getValues(DIM_X);
+            final double[] y = destination.getValues(DIM_Y);
+            final double[] eyn = destination.getErrorsNegative(DIM_Y);
+            final double[] eyp = destination.getErrorsPositive(DIM_Y);
+            for (int i = 0; i < n; i++) {
+                final double x0 = function.get(DIM_X, i);
+                final double y0 = function.get(DIM_Y, i);
+                final double eyn0 = error(function, EYN, i);
+                final double eyp0 = error(function, EYP, i);
+                x[i] = x0;
+                switch (op) {
+                case ADD:
+                    y[i] = y0 + value;
+                    eyn[i] = eyn0;
+                    eyp[i] = eyp0;
+                    break;
+                case SUBTRACT:
+                    y[i] = y0 - value;
+                    eyn[i] = eyn0;
+                    eyp[i] = eyp0;
+                    break;
+                case MULTIPLY:
+                    y[i] = y0 * value;
+                    eyn[i] = eyn0 * value;
+                    eyp[i] = eyp0 * value;
+                    break;
+                case DIVIDE:
+                    y[i] = y0 / value;
+                    eyn[i] = eyn0 / value;
+                    eyp[i] = eyp0 / value;
+                    break;
+                case SQR:
+                    y[i] = MathBase.sqr(y0 + value);
+                    eyn[i] = 2 * MathBase.abs(y0 + value) * eyn0;
+                    eyp[i] = 2 * MathBase.abs(y0 + value) * eyp0;
+                    break;
+                case SQRT:
+                    y[i] = MathBase.sqrt(y0 + value);
+                    eyn[i] = MathBase.sqrt(MathBase.abs(y0 + value)) * eyn0;
+                    eyp[i] = MathBase.sqrt(MathBase.abs(y0 + value)) * eyp0;
+                    break;
+                case LOG10:
+                    y[i] = 10 * MathBase.log10(y0);
+                    eyn[i] = 0.0; // 0.0 as a work-around
+                    eyp[i] = 0.0;
+                    break;
+                case DB:
+                    y[i] = 20 * MathBase.log10(y0);
+                    eyn[i] = 0.0; // 0.0 as a work-around
+                    eyp[i] = 0.0;
+                    break;
+                case INV_DB:
+                    y[i] = MathBase.pow(10, y0 / 20);
+                    eyn[i] = 0.0; // 0.0 as a work-around
+                    eyp[i] = 0.0;
+                    break;
+                case IDENTITY:
+                default:
+                    y[i] = y0;
+                    eyn[i] = eyn0;
+                    eyp[i] = eyp0;
+                    break;
+                }
             }
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), ArrayMath.inverseDecibel(y), eyn, eyp,
-                    ncount, true);
-        case IDENTITY:
-        default:
-            // return copy if nothing else matches
-            return new DoubleErrorDataSet(functionName, function.getValues(DIM_X), function.getValues(DIM_Y),
-                    errors(function, EYN), errors(function, EYP), ncount, true);
+        } finally {
+            endUpdate(destination);
         }
+        return destination;
     }
 
     public static DataSet maxFilteredFunction(final DataSet function, final double width) {
@@ -1087,6 +1351,80 @@ public final class DataSetMath { // NOPMD - nomen est omen
         return mathFunction(function, value, MathOp.SUBTRACT);
     }
 
+    private static void applyMathOperation(final MathOp op, final double y1, final double y2, final double eyn1, final double eyp1, final double eyn2,
+            final double eyp2, final int index, final double[] y, final double[] eyn, final double[] eyp) {
+        switch (op) {
+        case ADD:
+            y[index] = y1 + y2;
+            eyn[index] = MathBase.hypot(eyn1, eyn2);
+            eyp[index] = MathBase.hypot(eyp1, eyp2);
+            break;
+        case SUBTRACT:
+            y[index] = y1 - y2;
+            eyn[index] = MathBase.hypot(eyn1, eyn2);
+            eyp[index] = MathBase.hypot(eyp1, eyp2);
+            break;
+        case MULTIPLY:
+            y[index] = y1 * y2;
+            eyn[index] = MathBase.hypot(y2 * eyn1, y1 * eyn2);
+            eyp[index] = MathBase.hypot(y2 * eyp1, y1 * eyp2);
+            break;
+        case DIVIDE:
+            final double newY = y1 / y2;
+            y[index] = newY;
+            eyn[index] = MathBase.hypot(eyn1 / y2, newY * eyn2 / y2);
+            eyp[index] = MathBase.hypot(eyp1 / y2, newY * eyp2 / y2);
+            break;
+        case SQR:
+            y[index] = MathBase.sqr(y1 + y2);
+            eyn[index] = 2 * MathBase.abs(y1 + y2) * MathBase.hypot(eyn1, eyn2);
+            eyp[index] = 2 * MathBase.abs(y1 + y2) * MathBase.hypot(eyp1, eyp2);
+            break;
+        case SQRT:
+            y[index] = MathBase.sqrt(y1 + y2);
+            eyn[index] = MathBase.sqrt(MathBase.abs(y1 + y2)) * MathBase.hypot(eyn1, eyn2);
+            eyp[index] = MathBase.sqrt(MathBase.abs(y1 + y2)) * MathBase.hypot(eyp1, eyp2);
+            break;
+        case LOG10:
+            final double norm = 1.0 / MathBase.log(10);
+            y[index] = 10 * MathBase.log10(y1 + y2);
+            eyn[index] = y1 + y2 > 0 ? norm / MathBase.abs(y1 + y2) * MathBase.hypot(eyn1, eyn2) : Double.NaN;
+            eyp[index] = y1 + y2 > 0 ? norm / MathBase.abs(y1 + y2) * MathBase.hypot(eyp1, eyp2) : Double.NaN;
+            break;
+        case DB:
+            final double normDb = 20.0 / MathBase.log(10);
+            y[index] = 20 * MathBase.log10(y1 + y2);
+            eyn[index] = y1 + y2 > 0 ? normDb / MathBase.abs(y1 + y2) * MathBase.hypot(eyn1, eyn2) : Double.NaN;
+            eyp[index] = y1 + y2 > 0 ? normDb / MathBase.abs(y1 + y2) * MathBase.hypot(eyp1, eyp2) : Double.NaN;
+            break;
+        case IDENTITY:
+        default:
+            y[index] = y1 + y2;
+            eyn[index] = eyn1;
+            eyp[index] = eyp1;
+            break;
+        }
+    }
+
+    /**
+     * write-locks the destination and sets its data count, re-using the existing capacity, N.B. to be followed by
+     * {@link #endUpdate(DoubleErrorDataSet)}
+     *
+     * @param destination destination DataSet
+     * @param nSamples new number of samples
+     */
+    private static void beginUpdate(final DoubleErrorDataSet destination, final int nSamples) {
+        destination.lock().writeLock();
+        if (destination.getDataCount() != nSamples) {
+            destination.resize(nSamples); // N.B. notification is suppressed while locked
+        }
+    }
+
+    private static void checkDestination(final DoubleErrorDataSet destination, final DataSet function) {
+        AssertUtils.notNull("destination", destination);
+        AssertUtils.notNull("function", function);
+    }
+
     private static double[] cropToLength(final double[] in, final int length) {
         // small helper routine to crop data array in case it's to long
         if (in.length == length) {
@@ -1095,6 +1433,23 @@ public final class DataSetMath { // NOPMD - nomen est omen
         return Arrays.copyOf(in, length);
     }
 
+    /**
+     * invalidates the ranges, releases the write lock and notifies the listeners of the destination
+     *
+     * @param destination destination DataSet
+     */
+    private static void endUpdate(final DoubleErrorDataSet destination) {
+        try {
+            final List<AxisDescription> axisDescriptions = destination.getAxisDescriptions();
+            for (int dim = 0; dim < axisDescriptions.size(); dim++) {
+                axisDescriptions.get(dim).clear();
+            }
+        } finally {
+            destination.lock().writeUnLock();
+        }
+        destination.fireInvalidated(new UpdatedDataEvent(destination, "DataSetMath update"));
+    }
+
     public enum ErrType {
         EXN,
         EXP,
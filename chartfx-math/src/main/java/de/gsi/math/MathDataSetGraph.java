@@ -0,0 +1,535 @@
+package de.gsi.math;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.event.EventListener;
+import de.gsi.dataset.event.UpdatedDataEvent;
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.dataset.utils.CachedDaemonThreadFactory;
+
+/**
+ * Asynchronous dataflow executor for chains and graphs of {@link MathDataSet}s.
+ * <p>
+ * By default, a {@link MathDataSet} recomputes synchronously on the thread that fired the source event and each
+ * derived DataSet in a chain is recomputed once per upstream update. Nodes added to this graph are instead detached
+ * from their sources and recomputed on a worker pool:
+ * <ul>
+ * <li>nodes are scheduled in topological order, ie. a node is computed only once all its (invalidated) upstream nodes
+ * have been updated and no node still reading its data is being computed,</li>
+ * <li>independent branches are computed in parallel,</li>
+ * <li>several upstream updates arriving before a node has been (re-)computed are coalesced into one recompute,</li>
+ * <li>computations that are queued but not yet started are cancelled if their inputs are invalidated again. Running
+ * computations are not interrupted, but their result is considered stale: the node is recomputed and its downstream
+ * nodes are only scheduled after the up-to-date computation.</li>
+ * </ul>
+ * Timing and scheduling statistics for each node are available via {@link #getStatistics(MathDataSet)}.
+ * <p>
+ * Usage example:
+ *
+ * <pre>
+ * {@code
+ * final MathDataSet filtered = new MathDataSet("filtered", filterFunction, rawData);
+ * final MathDataSet spectrum = new MathDataSet("spectrum", spectrumFunction, filtered);
+ * final MathDataSetGraph graph = new MathDataSetGraph();
+ * graph.add(filtered, spectrum); // updates of 'rawData' are now processed asynchronously
+ * }
+ * </pre>
+ *
+ * N.B. nodes removed from the graph (or when the graph is closed) revert to the synchronous update behaviour.
+ */
+public class MathDataSetGraph implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MathDataSetGraph.class);
+    private final ExecutorService executor;
+    private final Map<MathDataSet, Node> nodes = new IdentityHashMap<>();
+    private final Map<DataSet, List<Node>> consumers = new IdentityHashMap<>(); // source -> nodes depending on it
+    private final Map<DataSet, EventListener> sourceListeners = new IdentityHashMap<>(); // listeners on external sources
+    private List<Node> topologicalOrder = new ArrayList<>();
+    private long generation;
+
+    /**
+     * graph using the {@link CachedDaemonThreadFactory#getCommonPool()} worker pool
+     */
+    public MathDataSetGraph() {
+        this(CachedDaemonThreadFactory.getCommonPool());
+    }
+
+    /**
+     * @param executor the worker pool on which the nodes are computed
+     */
+    public MathDataSetGraph(final ExecutorService executor) {
+        AssertUtils.notNull("executor", executor);
+        this.executor = executor;
+    }
+
+    /**
+     * Adds the nodes to the graph and detaches them from the synchronous updates by their sources. Sources that are
+     * MathDataSets of this graph become upstream nodes, updates of all other sources trigger the re-computation of the
+     * depending nodes.
+     *
+     * @param mathDataSets nodes to be added
+     * @return itself (fluent design)
+     * @throws IllegalArgumentException if the resulting graph contains a cycle
+     */
+    public MathDataSetGraph add(final MathDataSet... mathDataSets) {
+        AssertUtils.notNull("mathDataSets", mathDataSets);
+        synchronized (this) {
+            final List<Node> added = new ArrayList<>();
+            for (final MathDataSet mathDataSet : mathDataSets) {
+                AssertUtils.notNull("mathDataSet", mathDataSet);
+                if (!nodes.containsKey(mathDataSet)) {
+                    final Node node = new Node(mathDataSet);
+                    nodes.put(mathDataSet, node);
+                    added.add(node);
+                }
+            }
+            try {
+                updateTopology();
+            } catch (IllegalArgumentException e) {
+                added.forEach(node -> nodes.remove(node.mathDataSet));
+                updateTopology();
+                throw e;
+            }
+            added.forEach(node -> node.mathDataSet.deregisterListener());
+        }
+        return this;
+    }
+
+    /**
+     * Blocks until all invalidated nodes have been recomputed.
+     *
+     * @param timeout maximum time to wait
+     * @param unit time unit of the timeout argument
+     * @return {@code true} if the graph is idle, {@code false} if the timeout elapsed before
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean awaitIdle(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isIdle()) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * removes all nodes from the graph, N.B. the (externally provided) executor is not shut down
+     */
+    @Override
+    public void close() {
+        final MathDataSet[] all;
+        synchronized (this) {
+            all = nodes.keySet().toArray(new MathDataSet[0]);
+        }
+        remove(all);
+    }
+
+    /**
+     * @return the nodes in topological order, ie. upstream nodes before the nodes depending on them
+     */
+    public synchronized List<MathDataSet> getNodes() {
+        final List<MathDataSet> retVal = new ArrayList<>(topologicalOrder.size());
+        topologicalOrder.forEach(node -> retVal.add(node.mathDataSet));
+        return retVal;
+    }
+
+    /**
+     * @param mathDataSet node of this graph
+     * @return snapshot of the timing and scheduling statistics of the node
+     */
+    public synchronized NodeStatistics getStatistics(final MathDataSet mathDataSet) {
+        return new NodeStatistics(getNode(mathDataSet).statistics);
+    }
+
+    /**
+     * Invalidates the nodes depending (directly or indirectly) on the given DataSet and schedules their re-computation.
+     * N.B. this is called automatically on updates of the external sources and may be used to force a re-computation
+     *
+     * @param dataSet source DataSet or node of this graph
+     */
+    public void invalidate(final DataSet dataSet) {
+        AssertUtils.notNull("dataSet", dataSet);
+        synchronized (this) {
+            final long now = System.nanoTime();
+            generation++;
+            final Node self = nodes.get(dataSet);
+            final Deque<Node> queue = new ArrayDeque<>();
+            if (self != null) {
+                queue.add(self);
+            }
+            queue.addAll(consumers.getOrDefault(dataSet, List.of()));
+            final Map<Node, Boolean> visited = new IdentityHashMap<>();
+            while (!queue.isEmpty()) {
+                final Node node = queue.poll();
+                if (visited.put(node, Boolean.TRUE) != null) {
+                    continue;
+                }
+                node.invalidate(generation, now);
+                queue.addAll(consumers.getOrDefault(node.mathDataSet, List.of()));
+            }
+            schedule();
+        }
+    }
+
+    /**
+     * @return {@code true} if there are no invalidated or running nodes
+     */
+    public synchronized boolean isIdle() {
+        for (final Node node : topologicalOrder) {
+            if (node.dirty || node.running) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the nodes from the graph and re-attaches them to their sources, ie. they revert to synchronous updates.
+     *
+     * @param mathDataSets nodes to be removed
+     * @return itself (fluent design)
+     */
+    public MathDataSetGraph remove(final MathDataSet... mathDataSets) {
+        AssertUtils.notNull("mathDataSets", mathDataSets);
+        final List<MathDataSet> removed = new ArrayList<>();
+        synchronized (this) {
+            for (final MathDataSet mathDataSet : mathDataSets) {
+                final Node node = nodes.remove(mathDataSet);
+                if (node != null) {
+                    node.cancel();
+                    removed.add(mathDataSet);
+                }
+            }
+            updateTopology();
+            schedule();
+            notifyAll();
+        }
+        removed.forEach(MathDataSet::registerListener);
+        return this;
+    }
+
+    private void execute(final Node node, final long runId) {
+        synchronized (this) {
+            if (node.runId != runId || nodes.get(node.mathDataSet) != node) {
+                return; // cancelled before start
+            }
+            node.started = true;
+            node.startGeneration = node.generation;
+        }
+        final long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            node.mathDataSet.handle(new UpdatedDataEvent(node.mathDataSet, MathDataSetGraph.class.getSimpleName() + " update"));
+        } catch (Exception e) { // NOPMD -- isolate failures of individual transforms
+            failed = true;
+            LOGGER.atError().setCause(e).addArgument(node.mathDataSet.getName()).log("could not compute MathDataSet '{}'");
+        }
+        final long stop = System.nanoTime();
+        synchronized (this) {
+            if (node.runId == runId) {
+                node.complete(start, stop, failed);
+            }
+            schedule();
+            notifyAll();
+        }
+    }
+
+    private Node getNode(final MathDataSet mathDataSet) {
+        final Node node = nodes.get(mathDataSet);
+        if (node == null) {
+            throw new IllegalArgumentException("MathDataSet '" + (mathDataSet == null ? null : mathDataSet.getName()) + "' is not part of this graph");
+        }
+        return node;
+    }
+
+    /**
+     * @param node graph node
+     * @return {@code true} if a node reading the given node's data is still being computed, N.B. to be called while
+     *         holding the graph lock
+     */
+    private boolean isDownstreamRunning(final Node node) {
+        for (final Node consumer : consumers.getOrDefault(node.mathDataSet, List.of())) {
+            if (consumer.running) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * submits all invalidated nodes whose upstream nodes are up-to-date, N.B. to be called while holding the graph lock
+     */
+    private void schedule() {
+        for (final Node node : topologicalOrder) {
+            if (!node.dirty || node.running || !node.isUpstreamValid() || isDownstreamRunning(node)) {
+                continue;
+            }
+            node.running = true;
+            node.started = false;
+            final long runId = ++node.runId;
+            try {
+                node.future = executor.submit(() -> execute(node, runId));
+            } catch (RejectedExecutionException e) {
+                node.running = false;
+                LOGGER.atWarn().setCause(e).addArgument(node.mathDataSet.getName()).log("could not schedule MathDataSet '{}'");
+            }
+        }
+    }
+
+    /**
+     * re-computes the edges, topological order and the listeners on the external sources, N.B. to be called while
+     * holding the graph lock
+     *
+     * @throws IllegalArgumentException if the graph contains a cycle
+     */
+    private void updateTopology() {
+        // edges
+        consumers.clear();
+        final Map<Node, Integer> inDegree = new LinkedHashMap<>();
+        for (final Node node : nodes.values()) {
+            node.upstream.clear();
+            inDegree.put(node, 0);
+        }
+        for (final Node node : nodes.values()) {
+            for (final DataSet source : node.mathDataSet.getSourceDataSets()) {
+                consumers.computeIfAbsent(source, key -> new ArrayList<>()).add(node);
+                final Node upstream = nodes.get(source);
+                if (upstream != null) {
+                    node.upstream.add(upstream);
+                    inDegree.merge(node, 1, Integer::sum);
+                }
+            }
+        }
+
+        // Kahn's algorithm
+        final List<Node> order = new ArrayList<>(nodes.size());
+        final Deque<Node> ready = new ArrayDeque<>();
+        inDegree.forEach((node, degree) -> {
+            if (degree == 0) {
+                ready.add(node);
+            }
+        });
+        while (!ready.isEmpty()) {
+            final Node node = ready.poll();
+            order.add(node);
+            for (final Node consumer : consumers.getOrDefault(node.mathDataSet, List.of())) {
+                if (inDegree.merge(consumer, -1, Integer::sum) == 0) {
+                    ready.add(consumer);
+                }
+            }
+        }
+        if (order.size() != nodes.size()) {
+            throw new IllegalArgumentException("MathDataSet graph contains a cycle");
+        }
+        topologicalOrder = order;
+
+        // listeners on external sources
+        final Map<DataSet, EventListener> oldListeners = new IdentityHashMap<>(sourceListeners);
+        sourceListeners.clear();
+        for (final DataSet source : consumers.keySet()) {
+            if (nodes.containsKey(source)) {
+                continue;
+            }
+            EventListener listener = oldListeners.remove(source);
+            if (listener == null) {
+                listener = evt -> invalidate(source);
+                source.addListener(listener);
+            }
+            sourceListeners.put(source, listener);
+        }
+        oldListeners.forEach(DataSet::removeListener);
+    }
+
+    /**
+     * timing and scheduling statistics of a graph node
+     */
+    public static class NodeStatistics {
+        private long invalidations;
+        private long computations;
+        private long coalesced;
+        private long cancelled;
+        private long failures;
+        private long lastComputeTime;
+        private long maxComputeTime;
+        private long totalComputeTime;
+        private long lastLatency;
+        private long firstPendingInvalidation;
+
+        private NodeStatistics() {
+            // only created by the graph
+        }
+
+        private NodeStatistics(final NodeStatistics other) {
+            invalidations = other.invalidations;
+            computations = other.computations;
+            coalesced = other.coalesced;
+            cancelled = other.cancelled;
+            failures = other.failures;
+            lastComputeTime = other.lastComputeTime;
+            maxComputeTime = other.maxComputeTime;
+            totalComputeTime = other.totalComputeTime;
+            lastLatency = other.lastLatency;
+            firstPendingInvalidation = other.firstPendingInvalidation;
+        }
+
+        /**
+         * @return average computation time in nanoseconds
+         */
+        public double getAverageComputeTime() {
+            return computations == 0 ? 0.0 : (double) totalComputeTime / computations;
+        }
+
+        /**
+         * @return number of queued computations that were cancelled because their inputs were invalidated again
+         */
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return number of invalidations that were merged into an already pending re-computation
+         */
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        /**
+         * @return number of (started) computations
+         */
+        public long getComputations() {
+            return computations;
+        }
+
+        /**
+         * @return number of computations that threw an exception
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return number of invalidations by upstream updates
+         */
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        /**
+         * @return duration of the last computation in nanoseconds
+         */
+        public long getLastComputeTime() {
+            return lastComputeTime;
+        }
+
+        /**
+         * @return time in nanoseconds between the first invalidation and the completion of the last up-to-date
+         *         computation, ie. including queuing and waiting for the upstream nodes
+         */
+        public long getLastLatency() {
+            return lastLatency;
+        }
+
+        /**
+         * @return maximum computation time in nanoseconds
+         */
+        public long getMaxComputeTime() {
+            return maxComputeTime;
+        }
+
+        /**
+         * @return total computation time in nanoseconds
+         */
+        public long getTotalComputeTime() {
+            return totalComputeTime;
+        }
+
+        @Override
+        public String toString() {
+            return "NodeStatistics [invalidations=" + invalidations + ", computations=" + computations + ", coalesced=" + coalesced + ", cancelled=" + cancelled
+                    + ", failures=" + failures + ", lastComputeTime=" + lastComputeTime + ", maxComputeTime=" + maxComputeTime + ", averageComputeTime="
+                    + getAverageComputeTime() + ", lastLatency=" + lastLatency + "]";
+        }
+    }
+
+    private static class Node {
+        private final MathDataSet mathDataSet;
+        private final List<Node> upstream = new ArrayList<>();
+        private final NodeStatistics statistics = new NodeStatistics();
+        private boolean dirty;
+        private boolean running;
+        private boolean started;
+        private long runId;
+        private long generation; // generation of the latest invalidation
+        private long startGeneration; // generation of the inputs of the running computation
+        private Future<?> future;
+
+        private Node(final MathDataSet mathDataSet) {
+            this.mathDataSet = mathDataSet;
+        }
+
+        private void cancel() {
+            if (running && !started) {
+                runId++; // N.B. invalidates the queued task even if it cannot be removed from the executor queue anymore
+                running = false;
+                future.cancel(false);
+                statistics.cancelled++;
+            }
+        }
+
+        private void complete(final long start, final long stop, final boolean failed) {
+            running = false;
+            started = false;
+            future = null;
+            statistics.computations++;
+            statistics.lastComputeTime = stop - start;
+            statistics.maxComputeTime = Math.max(statistics.maxComputeTime, stop - start);
+            statistics.totalComputeTime += stop - start;
+            if (failed) {
+                statistics.failures++;
+            }
+            if (generation == startGeneration) {
+                // up-to-date, otherwise the node has been invalidated during the computation and stays dirty
+                dirty = false;
+                statistics.lastLatency = stop - statistics.firstPendingInvalidation;
+            }
+        }
+
+        private void invalidate(final long newGeneration, final long now) {
+            statistics.invalidations++;
+            if (dirty && !(running && started && generation == startGeneration)) {
+                // N.B. invalidations during a computation are only coalesced if the node is already marked stale
+                statistics.coalesced++;
+            } else {
+                statistics.firstPendingInvalidation = now;
+            }
+            dirty = true;
+            generation = newGeneration;
+            cancel(); // queued computations would use outdated inputs
+        }
+
+        private boolean isUpstreamValid() {
+            for (final Node node : upstream) {
+                if (node.dirty || node.running) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
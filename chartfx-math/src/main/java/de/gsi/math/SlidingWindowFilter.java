@@ -0,0 +1,511 @@
+package de.gsi.math;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import de.gsi.math.DataSetMath.Filter;
+import de.gsi.math.utils.ConcurrencyUtils;
+
+/**
+ * Sliding-window engine of {@link DataSetMath#filterFunction}: the statistic of each sample {@code i} is evaluated over
+ * all samples {@code j} with {@code |x[i] - x[j]| <= width}.
+ * <p>
+ * The samples are traversed in ascending x-order (sorted once if necessary) so that both window bounds advance
+ * monotonically (two pointers) and the statistics are updated incrementally for each sample entering or leaving the
+ * window: monotonic deques for min/max/peak-to-peak, compensated running sums for mean/rms/geometric mean, and an
+ * indexed two-heap order statistic for the median, ie. O(n log w) rather than O(n^2). Large inputs are split into
+ * chunks that are processed in parallel.
+ * <p>
+ * N.B. samples with non-finite x-values are excluded from all windows and their filtered values are NaN. Windows
+ * containing non-finite y-values are evaluated directly.
+ */
+final class SlidingWindowFilter {
+    /** minimum number of samples per parallel chunk */
+    static final int MIN_CHUNK_SIZE = 1 << 14;
+    private final int nData;
+    private final int nFinite;
+    private final int[] order; // sorted rank -> original index, null: already sorted
+    private final int[] lower; // sorted rank -> first rank within window
+    private final int[] upper; // sorted rank -> last rank within window
+
+    /**
+     * @param x x-values (N.B. need not be sorted)
+     * @param nData number of samples to be used
+     * @param width maximum x-distance of samples within a window
+     */
+    SlidingWindowFilter(final double[] x, final int nData, final double width) {
+        if (!(width >= 0)) { // NOPMD -- also catches NaN
+            throw new IllegalArgumentException("width = " + width + " must be non-negative");
+        }
+        if (nData < 0 || nData > x.length) {
+            throw new IllegalArgumentException("nData = " + nData + " out of range [0, " + x.length + "]");
+        }
+        this.nData = nData;
+        order = isSorted(x, nData) ? null : sortedOrder(x, nData);
+        final double[] xSorted = gather(x);
+        int count = 0;
+        while (count < nData && Double.isFinite(xSorted[count])) {
+            count++;
+        }
+        nFinite = count;
+
+        lower = new int[nFinite];
+        upper = new int[nFinite];
+        int lo = 0;
+        int hi = 0;
+        for (int i = 0; i < nFinite; i++) {
+            while (xSorted[i] - xSorted[lo] > width) {
+                lo++;
+            }
+            if (hi < i) {
+                hi = i;
+            }
+            while (hi + 1 < nFinite && xSorted[hi + 1] - xSorted[i] <= width) {
+                hi++;
+            }
+            lower[i] = lo;
+            upper[i] = hi;
+        }
+    }
+
+    /**
+     * @param values y-values in original sample order
+     * @param filterType statistic to be computed
+     * @return filtered values in original sample order
+     */
+    double[] filter(final double[] values, final Filter filterType) {
+        if (values.length < nData) {
+            throw new IllegalArgumentException("values.length = " + values.length + " < nData = " + nData);
+        }
+        final double[] sorted = gather(values);
+        final double[] filtered = new double[nData];
+        Arrays.fill(filtered, nFinite, nData, Double.NaN);
+
+        final int nChunks = Math.min(ConcurrencyUtils.getNumberOfThreads(), nFinite / MIN_CHUNK_SIZE);
+        ConcurrencyUtils.forRange(0, nFinite, nChunks, (start, end) -> filterChunk(sorted, filtered, filterType, start, end));
+        return scatter(filtered);
+    }
+
+    /**
+     * @return number of samples within the window of each sample, in original sample order
+     */
+    int[] getWindowSizes() {
+        final int[] sizes = new int[nData];
+        for (int rank = 0; rank < nFinite; rank++) {
+            sizes[order == null ? rank : order[rank]] = upper[rank] - lower[rank] + 1;
+        }
+        return sizes;
+    }
+
+    private void filterChunk(final double[] values, final double[] filtered, final Filter filterType, final int start, final int end) {
+        if (start >= end) {
+            return;
+        }
+        final int base = lower[start];
+        final WindowStatistic statistic = newStatistic(filterType, values, base, upper[end - 1] - base + 1);
+        int lo = lower[start];
+        int hi = lo - 1;
+        for (int i = start; i < end; i++) {
+            while (hi < upper[i]) {
+                statistic.add(++hi);
+            }
+            while (lo < lower[i]) {
+                statistic.remove(lo++);
+            }
+            filtered[i] = statistic.get(lo, hi);
+        }
+    }
+
+    private double[] gather(final double[] values) {
+        if (order == null) {
+            return Arrays.copyOf(values, nData);
+        }
+        final double[] sorted = new double[nData];
+        for (int rank = 0; rank < nData; rank++) {
+            sorted[rank] = values[order[rank]];
+        }
+        return sorted;
+    }
+
+    private double[] scatter(final double[] sorted) {
+        if (order == null) {
+            return sorted;
+        }
+        final double[] values = new double[nData];
+        for (int rank = 0; rank < nData; rank++) {
+            values[order[rank]] = sorted[rank];
+        }
+        return values;
+    }
+
+    private static boolean isSorted(final double[] x, final int nData) {
+        for (int i = 0; i < nData; i++) {
+            if (!Double.isFinite(x[i]) || i > 0 && x[i] < x[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static WindowStatistic newStatistic(final Filter filterType, final double[] values, final int base, final int span) {
+        switch (filterType) {
+        case MEDIAN:
+            return new MedianStatistic(values, base, span);
+        case MIN:
+        case MAX:
+        case P2P:
+            return new ExtremaStatistic(filterType, values, span);
+        case RMS:
+        case GEOMMEAN:
+        case MEAN:
+        default:
+            return new SumStatistic(filterType, values);
+        }
+    }
+
+    private static int[] sortedOrder(final double[] x, final int nData) {
+        // N.B. stable, non-finite values last
+        return IntStream.range(0, nData).boxed().sorted((a, b) -> {
+            final boolean finiteA = Double.isFinite(x[a]);
+            final boolean finiteB = Double.isFinite(x[b]);
+            if (finiteA != finiteB) {
+                return finiteA ? -1 : 1;
+            }
+            return finiteA ? Double.compare(x[a], x[b]) : 0;
+        }).mapToInt(Integer::intValue).toArray();
+    }
+
+    private interface WindowStatistic {
+        void add(int index);
+
+        /**
+         * @param lo first index within the window
+         * @param hi last index within the window
+         * @return statistic of the current window
+         */
+        double get(int lo, int hi);
+
+        void remove(int index);
+    }
+
+    /**
+     * min/max via monotonic deques (indices with increasing index and monotonic value), NaN if the window contains NaNs
+     */
+    private static class ExtremaStatistic implements WindowStatistic {
+        private final Filter filterType;
+        private final double[] values;
+        private final int[] minQueue;
+        private final int[] maxQueue;
+        private int minHead;
+        private int minTail;
+        private int maxHead;
+        private int maxTail;
+        private int nanCount;
+
+        private ExtremaStatistic(final Filter filterType, final double[] values, final int span) {
+            this.filterType = filterType;
+            this.values = values;
+            // N.B. each index is enqueued at most once, ie. the queue tails never exceed the span and need not wrap
+            minQueue = new int[span];
+            maxQueue = new int[span];
+        }
+
+        @Override
+        public void add(final int index) {
+            final double value = values[index];
+            if (Double.isNaN(value)) {
+                nanCount++;
+                return;
+            }
+            while (minTail > minHead && values[minQueue[minTail - 1]] >= value) {
+                minTail--;
+            }
+            minQueue[minTail++] = index;
+            while (maxTail > maxHead && values[maxQueue[maxTail - 1]] <= value) {
+                maxTail--;
+            }
+            maxQueue[maxTail++] = index;
+        }
+
+        @Override
+        public double get(final int lo, final int hi) {
+            if (nanCount > 0 || minHead == minTail) {
+                return Double.NaN;
+            }
+            final double min = values[minQueue[minHead]];
+            final double max = values[maxQueue[maxHead]];
+            switch (filterType) {
+            case MIN:
+                return min;
+            case MAX:
+                return max;
+            case P2P:
+            default:
+                return Math.abs(max - min);
+            }
+        }
+
+        @Override
+        public void remove(final int index) {
+            if (Double.isNaN(values[index])) {
+                nanCount--;
+                return;
+            }
+            if (minHead < minTail && minQueue[minHead] == index) {
+                minHead++;
+            }
+            if (maxHead < maxTail && maxQueue[maxHead] == index) {
+                maxHead++;
+            }
+        }
+    }
+
+    /**
+     * median via an indexed max-heap (lower half) and min-heap (upper half) supporting removal of arbitrary elements in
+     * O(log w), ordered as {@link Double#compare}, ie. as {@link Arrays#sort(double[])}
+     */
+    private static class MedianStatistic implements WindowStatistic {
+        private final IndexedHeap lowerHalf;
+        private final IndexedHeap upperHalf;
+
+        private MedianStatistic(final double[] values, final int base, final int span) {
+            lowerHalf = new IndexedHeap(values, base, span, true);
+            upperHalf = new IndexedHeap(values, base, span, false);
+        }
+
+        @Override
+        public void add(final int index) {
+            if (lowerHalf.size == 0 || Double.compare(lowerHalf.values[index], lowerHalf.peekValue()) <= 0) {
+                lowerHalf.push(index);
+            } else {
+                upperHalf.push(index);
+            }
+            rebalance();
+        }
+
+        @Override
+        public double get(final int lo, final int hi) {
+            if (lowerHalf.size == 0) {
+                return Double.NaN;
+            }
+            if (lowerHalf.size > upperHalf.size) {
+                return lowerHalf.peekValue();
+            }
+            return 0.5 * (lowerHalf.peekValue() + upperHalf.peekValue());
+        }
+
+        @Override
+        public void remove(final int index) {
+            if (!lowerHalf.remove(index)) {
+                upperHalf.remove(index);
+            }
+            rebalance();
+        }
+
+        private void rebalance() {
+            // invariant: lowerHalf.size == upperHalf.size or lowerHalf.size == upperHalf.size + 1
+            while (lowerHalf.size > upperHalf.size + 1) {
+                upperHalf.push(lowerHalf.pop());
+            }
+            while (upperHalf.size > lowerHalf.size) {
+                lowerHalf.push(upperHalf.pop());
+            }
+        }
+    }
+
+    private static class IndexedHeap {
+        private final double[] values;
+        private final int base;
+        private final boolean maxHeap;
+        private final int[] heap; // heap position -> value index
+        private final int[] position; // value index - base -> heap position, -1 if not contained
+        private int size;
+
+        private IndexedHeap(final double[] values, final int base, final int span, final boolean maxHeap) {
+            this.values = values;
+            this.base = base;
+            this.maxHeap = maxHeap;
+            heap = new int[span];
+            position = new int[span];
+            Arrays.fill(position, -1);
+        }
+
+        private double peekValue() {
+            return values[heap[0]];
+        }
+
+        private int pop() {
+            final int top = heap[0];
+            removeAt(0);
+            return top;
+        }
+
+        private void push(final int index) {
+            heap[size] = index;
+            position[index - base] = size;
+            siftUp(size++);
+        }
+
+        private boolean remove(final int index) {
+            final int pos = position[index - base];
+            if (pos < 0) {
+                return false;
+            }
+            removeAt(pos);
+            return true;
+        }
+
+        private boolean isAbove(final int indexA, final int indexB) {
+            final int cmp = Double.compare(values[indexA], values[indexB]);
+            return maxHeap ? cmp > 0 : cmp < 0;
+        }
+
+        private void removeAt(final int pos) {
+            position[heap[pos] - base] = -1;
+            size--;
+            if (pos == size) {
+                return;
+            }
+            heap[pos] = heap[size];
+            position[heap[pos] - base] = pos;
+            siftDown(pos);
+            siftUp(pos);
+        }
+
+        private void set(final int pos, final int index) {
+            heap[pos] = index;
+            position[index - base] = pos;
+        }
+
+        private void siftDown(final int startPos) {
+            int pos = startPos;
+            final int index = heap[pos];
+            while (2 * pos + 1 < size) {
+                int child = 2 * pos + 1;
+                if (child + 1 < size && isAbove(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!isAbove(heap[child], index)) {
+                    break;
+                }
+                set(pos, heap[child]);
+                pos = child;
+            }
+            set(pos, index);
+        }
+
+        private void siftUp(final int startPos) {
+            int pos = startPos;
+            final int index = heap[pos];
+            while (pos > 0) {
+                final int parent = (pos - 1) / 2;
+                if (!isAbove(index, heap[parent])) {
+                    break;
+                }
+                set(pos, heap[parent]);
+                pos = parent;
+            }
+            set(pos, index);
+        }
+    }
+
+    /**
+     * mean, rms and geometric mean via compensated running sums (relative to a reference value to limit cancellation),
+     * windows containing non-finite values are evaluated directly
+     */
+    private static class SumStatistic implements WindowStatistic {
+        private final Filter filterType;
+        private final double[] values;
+        private final CompensatedSum sum = new CompensatedSum();
+        private final CompensatedSum sum2 = new CompensatedSum();
+        private double reference = Double.NaN;
+        private int count;
+        private int nonFiniteCount;
+        private int zeroCount;
+
+        private SumStatistic(final Filter filterType, final double[] values) {
+            this.filterType = filterType;
+            this.values = values;
+        }
+
+        @Override
+        public void add(final int index) {
+            update(values[index], +1);
+        }
+
+        @Override
+        public double get(final int lo, final int hi) {
+            if (nonFiniteCount > 0) {
+                final double[] window = Arrays.copyOfRange(values, lo, hi + 1);
+                switch (filterType) {
+                case RMS:
+                    return Math.rms(window, window.length);
+                case GEOMMEAN:
+                    return Math.geometricMean(window, 0, window.length);
+                case MEAN:
+                default:
+                    return Math.mean(window, window.length);
+                }
+            }
+            switch (filterType) {
+            case RMS:
+                final double mean = sum.get() / count;
+                return Math.sqrt(Math.abs(sum2.get() / count - mean * mean));
+            case GEOMMEAN:
+                return zeroCount > 0 ? 0.0 : Math.exp(sum.get() / count);
+            case MEAN:
+            default:
+                return reference + sum.get() / count;
+            }
+        }
+
+        @Override
+        public void remove(final int index) {
+            update(values[index], -1);
+        }
+
+        private void update(final double value, final int sign) {
+            count += sign;
+            if (!Double.isFinite(value)) {
+                nonFiniteCount += sign;
+                return;
+            }
+            if (filterType == Filter.GEOMMEAN) {
+                if (value == 0.0) {
+                    zeroCount += sign;
+                } else {
+                    sum.add(sign * Math.log(Math.abs(value)));
+                }
+                return;
+            }
+            if (Double.isNaN(reference)) {
+                reference = value; // N.B. rms is shift-invariant, the mean is corrected for the reference
+            }
+            final double delta = value - reference;
+            sum.add(sign * delta);
+            sum2.add(sign * delta * delta);
+        }
+    }
+
+    /**
+     * Neumaier-compensated sum, ie. values can be added and removed without accumulating rounding errors
+     */
+    private static class CompensatedSum {
+        private double sum;
+        private double compensation;
+
+        private void add(final double value) {
+            final double total = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - total) + value;
+            } else {
+                compensation += (value - total) + sum;
+            }
+            sum = total;
+        }
+
+        private double get() {
+            return sum + compensation;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package de.gsi.math.filter;
+
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.math.filter.fir.FirFilter;
+import de.gsi.math.filter.iir.Biquad;
+import de.gsi.math.filter.iir.Cascade;
+import de.gsi.math.utils.ConcurrencyUtils;
+
+/**
+ * Stateful filter engine for live data: signals are filtered chunk-by-chunk while the filter state is kept between the
+ * chunks, ie. only new samples need to be processed and the start-up transient occurs only once. Filtering a signal in
+ * several chunks yields the same result as filtering it at once.
+ * <p>
+ * Each instance holds an independent state for each of its channels sharing the same filter coefficients, e.g. for
+ * multi-channel acquisition systems. Different channels may be filtered concurrently, a single channel must be filtered
+ * from one thread at a time.
+ * <p>
+ * Usage example:
+ *
+ * <pre>
+ * {@code
+ * final Butterworth butterworth = new Butterworth();
+ * butterworth.lowPass(4, sampleRate, cutOffFrequency);
+ * final StreamingFilter filter = StreamingFilter.fromCascade(butterworth, nChannels);
+ * // for each newly acquired chunk
+ * filter.filter(channel, newSamples, filtered, 0, newSamples.length);
+ * }
+ * </pre>
+ *
+ * @see StreamingFilterDataSet for filtering of live DataSets
+ */
+public abstract class StreamingFilter {
+    /**
+     * minimum number of samples (ie. channels x length) for which multi-channel batches are filtered in parallel
+     */
+    public static final int MIN_PARALLEL_WORK = 1 << 16;
+    private final int nChannels;
+
+    protected StreamingFilter(final int nChannels) {
+        AssertUtils.gtThanZero("nChannels", nChannels);
+        this.nChannels = nChannels;
+    }
+
+    /**
+     * @param channel channel index
+     * @param input input signal
+     * @param output output signal, may be identical to input for in-place filtering
+     * @param offset index of the first sample to be filtered
+     * @param length number of samples to be filtered
+     */
+    public void filter(final int channel, final double[] input, final double[] output, final int offset, final int length) {
+        checkChannel(channel);
+        AssertUtils.notNull("input", input);
+        AssertUtils.notNull("output", output);
+        AssertUtils.gtEqThanZero("offset", offset);
+        AssertUtils.gtEqThanZero("length", length);
+        AssertUtils.gtOrEqual("input", offset + length, input.length);
+        AssertUtils.gtOrEqual("output", offset + length, output.length);
+        process(channel, input, output, offset, length);
+    }
+
+    /**
+     * filters a batch of channels, in parallel for large batches
+     *
+     * @param input input signals, one per channel
+     * @param output output signals, one per channel, may be identical to input for in-place filtering
+     * @param offset index of the first sample to be filtered
+     * @param length number of samples to be filtered
+     */
+    public void filter(final double[][] input, final double[][] output, final int offset, final int length) {
+        AssertUtils.notNull("input", input);
+        AssertUtils.notNull("output", output);
+        AssertUtils.equalArrays(input, output);
+        AssertUtils.gtOrEqual("channels", input.length, nChannels);
+        if (input.length <= 1 || (long) input.length * length < MIN_PARALLEL_WORK) {
+            for (int channel = 0; channel < input.length; channel++) {
+                filter(channel, input[channel], output[channel], offset, length);
+            }
+            return;
+        }
+        final Future<?>[] futures = new Future<?>[input.length];
+        for (int channel = 0; channel < input.length; channel++) {
+            final int ch = channel;
+            futures[channel] = ConcurrencyUtils.submit(() -> filter(ch, input[ch], output[ch], offset, length));
+        }
+        ConcurrencyUtils.waitForCompletion(futures);
+    }
+
+    /**
+     * @param channel channel index
+     * @param value new input sample
+     * @return filtered sample
+     */
+    public double filter(final int channel, final double value) {
+        checkChannel(channel);
+        final double[] sample = { value };
+        process(channel, sample, sample, 0, 1);
+        return sample[0];
+    }
+
+    /**
+     * @return number of independent channels
+     */
+    public int getChannelCount() {
+        return nChannels;
+    }
+
+    /**
+     * resets the state of all channels
+     */
+    public void reset() {
+        for (int channel = 0; channel < nChannels; channel++) {
+            reset(channel);
+        }
+    }
+
+    /**
+     * resets the state of the given channel, ie. the next sample is filtered as if it were the first one
+     *
+     * @param channel channel index
+     */
+    public abstract void reset(final int channel);
+
+    protected void checkChannel(final int channel) {
+        if (channel < 0 || channel >= nChannels) {
+            throw new IllegalArgumentException("channel = " + channel + " out of range [0, " + nChannels + "[");
+        }
+    }
+
+    protected abstract void process(final int channel, final double[] input, final double[] output, final int offset, final int length);
+
+    /**
+     * @param cascade IIR filter (e.g. Butterworth, ChebyshevI, ...), N.B. coefficients are copied, the state of the cascade is not modified
+     * @param nChannels number of independent channels
+     * @return streaming filter based on the second-order sections of the cascade (direct form II)
+     */
+    public static StreamingFilter fromCascade(final Cascade cascade, final int nChannels) {
+        AssertUtils.notNull("cascade", cascade);
+        final int nSections = cascade.getNumBiquads();
+        final double[] coefficients = new double[5 * nSections];
+        for (int i = 0; i < nSections; i++) {
+            final Biquad biquad = cascade.getBiquad(i);
+            coefficients[5 * i] = biquad.mB0;
+            coefficients[5 * i + 1] = biquad.mB1;
+            coefficients[5 * i + 2] = biquad.mB2;
+            coefficients[5 * i + 3] = biquad.mA1;
+            coefficients[5 * i + 4] = biquad.mA2;
+        }
+        return new SecondOrderSections(coefficients, nChannels);
+    }
+
+    /**
+     * @param cutoffFraction cutoffFreq must be smaller than half the sample rate
+     * @param filterOrder can be between 2 and 20
+     * @param filterType low- or high-pass
+     * @param ripplePercent ripplePercent is amount of ripple in Chebyshev filter (0-29) (ripplePercent == 0 -&gt;
+     *            Butterworth)
+     * @param nChannels number of independent channels
+     * @return streaming filter using the same recursion coefficients as {@link FirFilter#filterSignal}. N.B. the
+     *         streaming filter computes every output sample starting from a zero input and output history, while
+     *         {@code filterSignal} leaves the first {@code filterOrder} output samples untouched and starts the recursion
+     *         from them, ie. both outputs differ by a start-up transient that decays with the filter's impulse response
+     */
+    public static StreamingFilter fromFirFilter(final double cutoffFraction, final int filterOrder, final FilterType filterType, final double ripplePercent,
+            final int nChannels) {
+        final double[][] coefficients = FirFilter.calculateRecursionCoefficients(cutoffFraction, filterOrder, filterType, ripplePercent);
+        return fromRecursionCoefficients(coefficients[0], coefficients[1], nChannels);
+    }
+
+    /**
+     * @param coeffA feed-forward coefficients a[j] applied to x[n - j]
+     * @param coeffB feed-back coefficients b[j] applied to y[n - j] (N.B. b[0] is ignored), ie.
+     *            {@code y[n] = sum_j a[j] * x[n - j] + sum_{j>0} b[j] * y[n - j]}
+     * @param nChannels number of independent channels
+     * @return streaming filter evaluating the given difference equation
+     */
+    public static StreamingFilter fromRecursionCoefficients(final double[] coeffA, final double[] coeffB, final int nChannels) {
+        AssertUtils.notNull("coeffA", coeffA);
+        AssertUtils.notNull("coeffB", coeffB);
+        AssertUtils.nonEmptyArray("coeffA", coeffA);
+        return new DifferenceEquation(coeffA.clone(), coeffB.length == 0 ? new double[1] : coeffB.clone(), nChannels);
+    }
+
+    /**
+     * evaluates {@code y[n] = sum_j a[j] * x[n - j] + sum_{j>0} b[j] * y[n - j]} based on the previous inputs and outputs
+     */
+    private static final class DifferenceEquation extends StreamingFilter {
+        private final double[] coeffA;
+        private final double[] coeffB;
+        private final int order; // number of retained samples
+        // per channel: [history | chunk] of the inputs and outputs
+        private final double[][] xBuffer;
+        private final double[][] yBuffer;
+
+        private DifferenceEquation(final double[] coeffA, final double[] coeffB, final int nChannels) {
+            super(nChannels);
+            this.coeffA = coeffA;
+            this.coeffB = coeffB;
+            order = Math.max(coeffA.length, coeffB.length) - 1;
+            xBuffer = new double[nChannels][order];
+            yBuffer = new double[nChannels][order];
+        }
+
+        @Override
+        public void reset(final int channel) {
+            checkChannel(channel);
+            Arrays.fill(xBuffer[channel], 0.0);
+            Arrays.fill(yBuffer[channel], 0.0);
+        }
+
+        @Override
+        protected void process(final int channel, final double[] input, final double[] output, final int offset, final int length) {
+            if (xBuffer[channel].length < order + length) {
+                xBuffer[channel] = Arrays.copyOf(xBuffer[channel], order + length);
+                yBuffer[channel] = Arrays.copyOf(yBuffer[channel], order + length);
+            }
+            final double[] x = xBuffer[channel];
+            final double[] y = yBuffer[channel];
+            System.arraycopy(input, offset, x, order, length);
+            for (int n = order; n < order + length; n++) {
+                double sum = 0.0;
+                for (int j = 0; j < coeffA.length; j++) {
+                    sum += coeffA[j] * x[n - j];
+                }
+                for (int j = 1; j < coeffB.length; j++) {
+                    sum += coeffB[j] * y[n - j];
+                }
+                y[n] = sum;
+            }
+            System.arraycopy(y, order, output, offset, length);
+            // retain the last 'order' samples as history for the next chunk
+            System.arraycopy(x, length, x, 0, order);
+            System.arraycopy(y, length, y, 0, order);
+        }
+    }
+
+    /**
+     * cascade of biquads in direct form II, ie. identical to {@link Cascade#filter(double)} with
+     * {@link de.gsi.math.filter.iir.DirectFormAbstract#DIRECT_FORM_II}
+     */
+    private static final class SecondOrderSections extends StreamingFilter {
+        private final double[] coefficients; // [b0, b1, b2, a1, a2] per section
+        private final int nSections;
+        private final double[][] states; // [v1, v2] per section and channel
+
+        private SecondOrderSections(final double[] coefficients, final int nChannels) {
+            super(nChannels);
+            this.coefficients = coefficients;
+            nSections = coefficients.length / 5;
+            states = new double[nChannels][2 * nSections];
+        }
+
+        @Override
+        public void reset(final int channel) {
+            checkChannel(channel);
+            Arrays.fill(states[channel], 0.0);
+        }
+
+        @Override
+        protected void process(final int channel, final double[] input, final double[] output, final int offset, final int length) {
+            System.arraycopy(input, offset, output, offset, length);
+            final double[] state = states[channel];
+            // N.B. section-by-section over the whole chunk keeps the state and coefficients in registers
+            for (int s = 0; s < nSections; s++) {
+                final double b0 = coefficients[5 * s];
+                final double b1 = coefficients[5 * s + 1];
+                final double b2 = coefficients[5 * s + 2];
+                final double a1 = coefficients[5 * s + 3];
+                final double a2 = coefficients[5 * s + 4];
+                double v1 = state[2 * s];
+                double v2 = state[2 * s + 1];
+                for (int i = offset; i < offset + length; i++) {
+                    final double w = output[i] - a1 * v1 - a2 * v2;
+                    output[i] = b0 * w + b1 * v1 + b2 * v2;
+                    v2 = v1;
+                    v1 = w;
+                }
+                state[2 * s] = v1;
+                state[2 * s + 1] = v2;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package de.gsi.math.filter;
+
+import static de.gsi.dataset.event.EventRateLimiter.UpdateStrategy.INSTANTANEOUS_RATE;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.event.AddedDataEvent;
+import de.gsi.dataset.event.EventListener;
+import de.gsi.dataset.event.EventRateLimiter;
+import de.gsi.dataset.event.EventRateLimiter.UpdateStrategy;
+import de.gsi.dataset.event.RemovedDataEvent;
+import de.gsi.dataset.event.UpdateEvent;
+import de.gsi.dataset.event.UpdatedDataEvent;
+import de.gsi.dataset.spi.CircularDoubleErrorDataSet;
+import de.gsi.dataset.utils.AssertUtils;
+
+/**
+ * DataSet that continuously filters a live source DataSet (e.g. a {@link CircularDoubleErrorDataSet}) using a
+ * {@link StreamingFilter}. Contrary to {@link de.gsi.math.MathDataSet}, only the samples appended to the source since the
+ * last update (ie. the trailing samples with x coordinates beyond the last filtered one) are filtered and appended to
+ * this circular buffer DataSet. The filter state is kept between the updates, thus there is only one start-up transient.
+ * If the source x-coordinates restart (e.g. after clearing the source), the filter state and this DataSet are reset.
+ * <p>
+ * Several DataSets may share a multi-channel {@link StreamingFilter}, each using its own channel.
+ */
+public class StreamingFilterDataSet extends CircularDoubleErrorDataSet {
+    private static final long serialVersionUID = 6183412520213795124L;
+    private final transient DataSet source;
+    private final transient StreamingFilter filter;
+    private final int channel;
+    private final transient EventListener eventListener;
+    private transient double lastX = Double.NaN;
+    private transient double[] xBuffer = new double[0];
+    private transient double[] yBuffer = new double[0];
+    private transient double[] zeros = new double[0];
+
+    /**
+     * @param transformName String defining the prefix of the name of the filtered DataSet
+     * @param filter the filter engine
+     * @param channel the filter channel used by this DataSet
+     * @param capacity maximum number of retained filtered samples
+     * @param source the source DataSet, assumed to be sorted in x
+     */
+    public StreamingFilterDataSet(final String transformName, final StreamingFilter filter, final int channel, final int capacity, final DataSet source) {
+        this(transformName, filter, channel, capacity, 0, INSTANTANEOUS_RATE, source);
+    }
+
+    /**
+     * @param transformName String defining the prefix of the name of the filtered DataSet
+     * @param filter the filter engine
+     * @param channel the filter channel used by this DataSet
+     * @param capacity maximum number of retained filtered samples
+     * @param minUpdatePeriod the minimum time in milliseconds between updates, N.B. samples are filtered in batches
+     * @param updateStrategy if null defaults to {@link UpdateStrategy#INSTANTANEOUS_RATE}, see {@link UpdateStrategy} for
+     *            details
+     * @param source the source DataSet, assumed to be sorted in x
+     */
+    public StreamingFilterDataSet(final String transformName, final StreamingFilter filter, final int channel, final int capacity, final long minUpdatePeriod,
+            final UpdateStrategy updateStrategy, final DataSet source) {
+        super(getFilteredDataSetName(transformName, source), capacity);
+        AssertUtils.notNull("filter", filter);
+        this.filter = filter;
+        this.channel = channel;
+        this.source = source;
+        filter.checkChannel(channel);
+        if (minUpdatePeriod > 0) {
+            eventListener = new EventRateLimiter(this::handle, minUpdatePeriod, updateStrategy == null ? INSTANTANEOUS_RATE : updateStrategy);
+        } else {
+            eventListener = this::handle;
+        }
+        registerListener(); // NOPMD
+
+        // exceptionally call handler during DataSet creation
+        handle(new UpdatedDataEvent(this, StreamingFilterDataSet.class.getSimpleName() + " - initial constructor update"));
+    }
+
+    public final void deregisterListener() {
+        source.removeListener(eventListener);
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    public StreamingFilter getFilter() {
+        return filter;
+    }
+
+    public DataSet getSource() {
+        return source;
+    }
+
+    public final void registerListener() {
+        source.addListener(eventListener);
+    }
+
+    protected void handle(final UpdateEvent event) {
+        final boolean isKnownEvent = event instanceof AddedDataEvent || event instanceof RemovedDataEvent || event instanceof UpdatedDataEvent;
+        if (event == null || !isKnownEvent) {
+            return;
+        }
+        final int nNew = source.lock().readLockGuard(this::copyNewSamples);
+        if (nNew <= 0) {
+            return;
+        }
+        filter.filter(channel, yBuffer, yBuffer, 0, nNew);
+        add(xBuffer, yBuffer, zeros, zeros, nNew);
+    }
+
+    private static String getFilteredDataSetName(final String transformName, final DataSet source) {
+        AssertUtils.notNull("source", source);
+        return (transformName == null ? "" : transformName) + "(" + source.getName() + ")";
+    }
+
+    private int copyNewSamples() {
+        final int n = source.getDataCount();
+        if (n == 0) {
+            return 0;
+        }
+        if (source.get(DIM_X, n - 1) < lastX) {
+            // source has been restarted
+            filter.reset(channel);
+            lastX = Double.NaN;
+            reset();
+        }
+        int first = n;
+        while (first > 0 && !(source.get(DIM_X, first - 1) <= lastX)) { // N.B. negated to also cover lastX = NaN
+            first--;
+        }
+        final int nNew = n - first;
+        if (xBuffer.length < nNew) {
+            xBuffer = new double[nNew];
+            yBuffer = new double[nNew];
+            zeros = new double[nNew];
+        }
+        for (int i = 0; i < nNew; i++) {
+            xBuffer[i] = source.get(DIM_X, first + i);
+            yBuffer[i] = source.get(DIM_Y, first + i);
+        }
+        if (nNew > 0) {
+            lastX = xBuffer[nNew - 1];
+        }
+        return nNew;
+    }
+}
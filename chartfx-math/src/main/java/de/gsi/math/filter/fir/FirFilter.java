@@ -1,5 +1,7 @@
 package de.gsi.math.filter.fir;
 
+import java.util.Arrays;
+
 import de.gsi.dataset.utils.AssertUtils;
 import de.gsi.math.filter.FilterType;
 
@@ -99,9 +101,48 @@ public class FirFilter { // NOPMD - nomen est omen
      */
     public static double[] filterSignal(final double[] signal, final double[] output, final double cutoffFraction, final int filterOrder, final FilterType filterType, final double ripplePercent) {
         AssertUtils.notNull("signal", signal);
+        final double[][] recursionCoefficients = calculateRecursionCoefficients(cutoffFraction, filterOrder, filterType, ripplePercent);
+        final double[] coeffA = recursionCoefficients[0];
+        final double[] coeffB = recursionCoefficients[1];
 
-        final double[][] recursionCoefficients = new double[22][2];
+        final double[] filteredSignal = output == null ? new double[signal.length] : output;
+        if (output != null) {
+            AssertUtils.gtOrEqual("output", signal.length, output.length);
+        }
+        double filterSampleA = 0;
+        double filterSampleB = 0;
 
+        // loop for applying recursive filter
+        for (int i = filterOrder; i < signal.length; i++) {
+            for (int j = 0; j < filterOrder + 1; j++) {
+                filterSampleA = filterSampleA + coeffA[j] * signal[i - j];
+            }
+            for (int j = 1; j < filterOrder + 1; j++) {
+                filterSampleB = filterSampleB + coeffB[j] * filteredSignal[i - j];
+            }
+            filteredSignal[i] = filterSampleA + filterSampleB;
+            filterSampleA = 0;
+            filterSampleB = 0;
+        }
+
+        return filteredSignal;
+    }
+
+    /**
+     * calculates the recursion coefficients used by {@link #filterSignal}, ie. the filter output is given by
+     * {@code y[n] = sum_{j=0}^{order} a[j] * x[n - j] + sum_{j=1}^{order} b[j] * y[n - j]}
+     *
+     * N.B. the coefficients may be used with {@link de.gsi.math.filter.StreamingFilter} to filter live data
+     *
+     * @param cutoffFraction cutoffFreq must be smaller than half the sample rate
+     * @param filterOrder can be between 2 and 20
+     * @param filterType 0: lowPass 1: highPass
+     * @param ripplePercent ripplePercent is amount of ripple in Chebyshev filter (0-29) (ripplePercent == 0 -&gt;
+     *            Butterworth)
+     * @return array of [a, b] coefficients, each with {@code filterOrder + 1} entries
+     */
+    public static double[][] calculateRecursionCoefficients(final double cutoffFraction, final int filterOrder, final FilterType filterType, final double ripplePercent) {
+        AssertUtils.gtEqThanZero("filterOrder", filterOrder);
         final double[] coeffA = new double[22]; // a coeffs
         final double[] coeffB = new double[22]; // b coeffs
         final double[] tA = new double[22];
@@ -156,30 +197,6 @@ public class FirFilter { // NOPMD - nomen est omen
         for (int i = 0; i < 20; i++) {
             coeffA[i] = coeffA[i] / gain;
         }
-        for (int i = 0; i < 22; i++) {
-            recursionCoefficients[i][0] = coeffA[i];
-            recursionCoefficients[i][1] = coeffB[i];
-        }
-        final double[] filteredSignal = output == null ? new double[signal.length] : output;
-        if (output != null) {
-            AssertUtils.gtOrEqual("output", signal.length, output.length);
-        }
-        double filterSampleA = 0;
-        double filterSampleB = 0;
-
-        // loop for applying recursive filter
-        for (int i = filterOrder; i < signal.length; i++) {
-            for (int j = 0; j < filterOrder + 1; j++) {
-                filterSampleA = filterSampleA + coeffA[j] * signal[i - j];
-            }
-            for (int j = 1; j < filterOrder + 1; j++) {
-                filterSampleB = filterSampleB + coeffB[j] * filteredSignal[i - j];
-            }
-            filteredSignal[i] = filterSampleA + filterSampleB;
-            filterSampleA = 0;
-            filterSampleB = 0;
-        }
-
-        return filteredSignal;
+        return new double[][] { Arrays.copyOf(coeffA, filterOrder + 1), Arrays.copyOf(coeffB, filterOrder + 1) };
     }
 }
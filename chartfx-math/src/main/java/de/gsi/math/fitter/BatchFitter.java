@@ -0,0 +1,716 @@
+package de.gsi.math.fitter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.DataSetError;
+import de.gsi.dataset.DataSetError.ErrorType;
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.dataset.utils.CachedDaemonThreadFactory;
+import de.gsi.math.functions.DifferentiableFunction1D;
+import de.gsi.math.functions.Function1D;
+import de.gsi.math.utils.ConcurrencyUtils;
+
+/**
+ * Levenberg-Marquardt least-squares fitting of the same model function to many DataSets concurrently (e.g. the beam
+ * profiles of all BPM channels of one cycle).
+ * <p>
+ * The DataSets of a batch are split into contiguous chunks that are processed on the given worker pool. Each worker
+ * uses a reusable workspace holding its own function instance (N.B. functions store their parameters and are thus not
+ * thread-safe) as well as the data, residual, Jacobian and normal-equation arrays, which are only re-allocated if a
+ * larger DataSet is encountered. Functions implementing {@link DifferentiableFunction1D} provide analytic parameter
+ * derivatives, for all other functions the Jacobian is estimated using central finite differences.
+ * <p>
+ * Fixed parameters and parameter ranges (if minimum &lt; maximum) of the function instances are respected. If the
+ * DataSets carry y-errors these are used as weights and the parameter errors are derived from the covariance matrix,
+ * otherwise all samples are equally weighted and the parameter errors are scaled by the reduced chi-square.
+ * <p>
+ * Usage example:
+ *
+ * <pre>
+ * {@code
+ * final BatchFitter fitter = new BatchFitter(() -> new GaussianFunction("profile"));
+ * fitter.setInitialParameterEstimator(BatchFitter::estimateGaussianMoments);
+ * final List<BatchFitter.FitResult> results = fitter.fit(profiles);
+ * LOGGER.atInfo().log(fitter.getStatistics().toString()); // fits/s, convergence statistics, ...
+ * }
+ * </pre>
+ */
+public class BatchFitter {
+    public static final int DEFAULT_MAX_ITERATIONS = 200;
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    private static final double FINITE_DIFFERENCE_STEP = 6e-6; // ~ cbrt(machine epsilon), optimal for central differences
+    private static final double LAMBDA_START = 1e-3;
+    private static final double LAMBDA_MIN = 1e-12;
+    private static final double LAMBDA_MAX = 1e12;
+    private final Supplier<? extends Function1D> functionFactory;
+    private final ExecutorService executor;
+    private final Queue<Workspace> workspaces = new ConcurrentLinkedQueue<>();
+    private InitialParameterEstimator initialParameterEstimator;
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    private double tolerance = DEFAULT_TOLERANCE;
+    private volatile BatchStatistics statistics = new BatchStatistics(new FitResult[0], 0);
+
+    /**
+     * fitter using the {@link CachedDaemonThreadFactory#getCommonPool()} worker pool
+     *
+     * @param functionFactory supplier of new (independent) instances of the model function with the initial parameter
+     *        values, fixed parameters and parameter ranges already set
+     */
+    public BatchFitter(final Supplier<? extends Function1D> functionFactory) {
+        this(functionFactory, CachedDaemonThreadFactory.getCommonPool());
+    }
+
+    /**
+     * @param functionFactory supplier of new (independent) instances of the model function with the initial parameter
+     *        values, fixed parameters and parameter ranges already set
+     * @param executor the worker pool on which the fits are computed
+     */
+    public BatchFitter(final Supplier<? extends Function1D> functionFactory, final ExecutorService executor) {
+        AssertUtils.notNull("functionFactory", functionFactory);
+        AssertUtils.notNull("executor", executor);
+        this.functionFactory = functionFactory;
+        this.executor = executor;
+    }
+
+    /**
+     * Fits the model function to all DataSets. Blocks until all fits are completed.
+     *
+     * @param dataSets the DataSets to be fitted
+     * @return fit results in the same order as the given DataSets
+     */
+    public List<FitResult> fit(final List<? extends DataSet> dataSets) {
+        AssertUtils.notNull("dataSets", dataSets);
+        final long start = System.nanoTime();
+        final int nFits = dataSets.size();
+        final FitResult[] results = new FitResult[nFits];
+        final int nChunks = ConcurrencyUtils.CHUNKS_PER_THREAD * Runtime.getRuntime().availableProcessors();
+        try {
+            ConcurrencyUtils.forRange(0, nFits, nChunks, executor, (from, to) -> fitRange(dataSets, results, from, to));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("batch fit has been interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("batch fit failed", e.getCause());
+        }
+        statistics = new BatchStatistics(results, System.nanoTime() - start);
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * @return initial parameter estimator or {@code null} if the parameter values of the function instances are used
+     */
+    public InitialParameterEstimator getInitialParameterEstimator() {
+        return initialParameterEstimator;
+    }
+
+    /**
+     * @return maximum number of Levenberg-Marquardt iterations per fit
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @return timing and convergence statistics of the last batch
+     */
+    public BatchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return relative chi-square change or parameter step below which a fit is considered converged
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * N.B. the estimator is called concurrently and must thus be thread-safe
+     *
+     * @param estimator estimates the initial parameter values from the data of each DataSet ({@code null}: the
+     *        parameter values of the function instances are used)
+     */
+    public void setInitialParameterEstimator(final InitialParameterEstimator estimator) {
+        initialParameterEstimator = estimator;
+    }
+
+    /**
+     * @param maxIterations maximum number of Levenberg-Marquardt iterations per fit
+     */
+    public void setMaxIterations(final int maxIterations) {
+        AssertUtils.gtThanZero("maxIterations", maxIterations);
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * @param tolerance relative chi-square change or parameter step below which a fit is considered converged
+     */
+    public void setTolerance(final double tolerance) {
+        AssertUtils.gtEqThanZero("tolerance", tolerance);
+        this.tolerance = tolerance;
+    }
+
+    private void fitRange(final List<? extends DataSet> dataSets, final FitResult[] results, final int from, final int to) {
+        Workspace workspace = workspaces.poll();
+        if (workspace == null) {
+            workspace = new Workspace(functionFactory.get());
+        }
+        try {
+            for (int index = from; index < to; index++) {
+                results[index] = workspace.fit(index, dataSets.get(index));
+            }
+        } finally {
+            workspaces.add(workspace);
+        }
+    }
+
+    /**
+     * Moment-based initial estimate of the parameters of the {@link de.gsi.math.functions.GaussianFunction} (mean,
+     * sigma, scaling) for positive peaks above a (minimum) baseline.
+     *
+     * @param x horizontal coordinates
+     * @param y vertical coordinates
+     * @param length number of valid samples
+     * @param parameter output parameter array
+     */
+    public static void estimateGaussianMoments(final double[] x, final double[] y, final int length, final double[] parameter) {
+        double baseline = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            baseline = Math.min(baseline, y[i]);
+        }
+        double sum = 0.0;
+        double sumX = 0.0;
+        double sumX2 = 0.0;
+        double area = 0.0;
+        for (int i = 0; i < length; i++) {
+            final double weight = y[i] - baseline;
+            sum += weight;
+            sumX += weight * x[i];
+            sumX2 += weight * x[i] * x[i];
+            if (i > 0) {
+                area += 0.5 * (y[i] + y[i - 1] - 2 * baseline) * (x[i] - x[i - 1]);
+            }
+        }
+        if (sum <= 0.0) {
+            return;
+        }
+        final double mean = sumX / sum;
+        final double variance = sumX2 / sum - mean * mean;
+        parameter[0] = mean;
+        if (variance > 0.0) {
+            parameter[1] = Math.sqrt(variance);
+        }
+        parameter[2] = area;
+    }
+
+    /**
+     * timing and convergence statistics of one batch
+     */
+    public static class BatchStatistics {
+        private final int nFits;
+        private final int nConverged;
+        private final int nFailed;
+        private final long totalIterations;
+        private final int maxIterations;
+        private final long elapsedNanos;
+
+        private BatchStatistics(final FitResult[] results, final long elapsedNanos) {
+            int converged = 0;
+            int failed = 0;
+            long iterations = 0;
+            int maxIter = 0;
+            for (final FitResult result : results) {
+                if (result.isConverged()) {
+                    converged++;
+                }
+                if (result.getFailureMessage() != null) {
+                    failed++;
+                }
+                iterations += result.getIterations();
+                maxIter = Math.max(maxIter, result.getIterations());
+            }
+            this.nFits = results.length;
+            this.nConverged = converged;
+            this.nFailed = failed;
+            this.totalIterations = iterations;
+            this.maxIterations = maxIter;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return average number of iterations per fit
+         */
+        public double getAverageIterations() {
+            return nFits == 0 ? 0.0 : (double) totalIterations / nFits;
+        }
+
+        /**
+         * @return number of converged fits
+         */
+        public int getConvergedCount() {
+            return nConverged;
+        }
+
+        /**
+         * @return wall-clock duration of the batch [ns]
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return number of fits that could not be performed (insufficient or invalid data, function exceptions)
+         */
+        public int getFailedCount() {
+            return nFailed;
+        }
+
+        /**
+         * @return number of fits in the batch
+         */
+        public int getFitCount() {
+            return nFits;
+        }
+
+        /**
+         * @return fit throughput [1/s]
+         */
+        public double getFitsPerSecond() {
+            return elapsedNanos <= 0 ? 0.0 : nFits * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return maximum number of iterations of a single fit
+         */
+        public int getMaxIterations() {
+            return maxIterations;
+        }
+
+        /**
+         * @return number of fits that reached the iteration limit or failed
+         */
+        public int getNotConvergedCount() {
+            return nFits - nConverged;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BatchStatistics [fits=%d, converged=%d, failed=%d, avgIterations=%.1f, maxIterations=%d, elapsed=%.3f ms, fits/s=%.1f]", //
+                    nFits, nConverged, nFailed, getAverageIterations(), maxIterations, elapsedNanos * 1e-6, getFitsPerSecond());
+        }
+    }
+
+    /**
+     * result of the fit of a single DataSet
+     */
+    public static class FitResult {
+        private final int index;
+        private final double[] parameters;
+        private final double[] parameterErrors;
+        private final double chiSquare;
+        private final int ndf;
+        private final int iterations;
+        private final boolean converged;
+        private final String failureMessage;
+
+        private FitResult(final int index, final double[] parameters, final double[] parameterErrors, final double chiSquare, final int ndf, final int iterations, final boolean converged, final String failureMessage) {
+            this.index = index;
+            this.parameters = parameters;
+            this.parameterErrors = parameterErrors;
+            this.chiSquare = chiSquare;
+            this.ndf = ndf;
+            this.iterations = iterations;
+            this.converged = converged;
+            this.failureMessage = failureMessage;
+        }
+
+        /**
+         * @return (weighted) sum of the squared residuals
+         */
+        public double getChiSquare() {
+            return chiSquare;
+        }
+
+        /**
+         * @return reason why the fit could not be performed or {@code null} if the fit has been performed
+         */
+        public String getFailureMessage() {
+            return failureMessage;
+        }
+
+        /**
+         * @return index of the DataSet within the batch
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return number of performed Levenberg-Marquardt iterations
+         */
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return number of degrees of freedom (samples - free parameters)
+         */
+        public int getNdf() {
+            return ndf;
+        }
+
+        /**
+         * @param id parameter id
+         * @return error estimate of the parameter (0 for fixed parameters)
+         */
+        public double getParameterError(final int id) {
+            return parameterErrors[id];
+        }
+
+        /**
+         * @return copy of the parameter error estimates (0 for fixed parameters)
+         */
+        public double[] getParameterErrors() {
+            return parameterErrors.clone();
+        }
+
+        /**
+         * @param id parameter id
+         * @return fitted parameter value
+         */
+        public double getParameterValue(final int id) {
+            return parameters[id];
+        }
+
+        /**
+         * @return copy of the fitted parameter values
+         */
+        public double[] getParameterValues() {
+            return parameters.clone();
+        }
+
+        /**
+         * @return chi-square per degree of freedom
+         */
+        public double getReducedChiSquare() {
+            return ndf > 0 ? chiSquare / ndf : Double.NaN;
+        }
+
+        /**
+         * @return true: relative chi-square change or parameter step dropped below the tolerance
+         */
+        public boolean isConverged() {
+            return converged;
+        }
+
+        @Override
+        public String toString() {
+            return "FitResult [index=" + index + ", parameters=" + Arrays.toString(parameters) + ", errors=" + Arrays.toString(parameterErrors) + ", chi2=" + chiSquare + ", ndf=" + ndf
+                    + ", iterations=" + iterations + ", converged=" + converged + (failureMessage == null ? "" : ", failure=" + failureMessage) + "]";
+        }
+    }
+
+    @FunctionalInterface
+    public interface InitialParameterEstimator {
+        /**
+         * @param x horizontal coordinates
+         * @param y vertical coordinates
+         * @param length number of valid samples
+         * @param parameter parameter array (pre-set with the function's parameter values) to be updated
+         */
+        void estimate(final double[] x, final double[] y, final int length, final double[] parameter);
+    }
+
+    /**
+     * per-worker function instance and re-usable fitting arrays
+     */
+    private class Workspace {
+        private final Function1D function;
+        private final DifferentiableFunction1D differentiableFunction;
+        private final int nParameters;
+        private final int[] freeIndices;
+        private final double[] initialParameters;
+        private final double[] minimum;
+        private final double[] maximum;
+        private final double[] parameters;
+        private final double[] trialParameters;
+        private final double[] gradient;
+        private final double[] alpha; // J^T*W*J
+        private final double[] beta; // J^T*W*r
+        private final double[] lhs;
+        private final double[] delta;
+        private double[] x = new double[0];
+        private double[] y = new double[0];
+        private double[] weights = new double[0];
+        private double[] residuals = new double[0];
+        private double[] trialResiduals = new double[0];
+        private double[] jacobian = new double[0]; // row-major [sample][free parameter]
+
+        private Workspace(final Function1D function) {
+            AssertUtils.notNull("function", function);
+            this.function = function;
+            differentiableFunction = function instanceof DifferentiableFunction1D ? (DifferentiableFunction1D) function : null;
+            nParameters = function.getParameterCount();
+            initialParameters = new double[nParameters];
+            minimum = new double[nParameters];
+            maximum = new double[nParameters];
+            int nFree = 0;
+            for (int i = 0; i < nParameters; i++) {
+                initialParameters[i] = function.getParameterValue(i);
+                minimum[i] = function.getParameterRangeMinimum(i);
+                maximum[i] = function.getParameterRangeMaximum(i);
+                if (!function.isParameterFixed(i)) {
+                    nFree++;
+                }
+            }
+            freeIndices = new int[nFree];
+            for (int i = 0, free = 0; i < nParameters; i++) {
+                if (!function.isParameterFixed(i)) {
+                    freeIndices[free++] = i;
+                }
+            }
+            parameters = new double[nParameters];
+            trialParameters = new double[nParameters];
+            gradient = new double[nParameters];
+            alpha = new double[nFree * nFree];
+            beta = new double[nFree];
+            lhs = new double[nFree * nFree];
+            delta = new double[nFree];
+        }
+
+        private double chiSquare(final double[] params, final double[] residual, final int n) {
+            function.setParameterValues(params);
+            double chi2 = 0.0;
+            for (int i = 0; i < n; i++) {
+                final double r = y[i] - function.getValue(x[i]);
+                residual[i] = r;
+                chi2 += weights[i] * r * r;
+            }
+            return chi2;
+        }
+
+        private boolean copyData(final DataSet dataSet) {
+            final int n = dataSet.getDataCount();
+            if (x.length < n) {
+                x = new double[n];
+                y = new double[n];
+                weights = new double[n];
+                residuals = new double[n];
+                trialResiduals = new double[n];
+                jacobian = new double[n * freeIndices.length];
+            }
+            final boolean hasErrors = dataSet instanceof DataSetError && ((DataSetError) dataSet).getErrorType(DataSet.DIM_Y) != ErrorType.NO_ERROR;
+            for (int i = 0; i < n; i++) {
+                x[i] = dataSet.get(DataSet.DIM_X, i);
+                y[i] = dataSet.get(DataSet.DIM_Y, i);
+                if (hasErrors) {
+                    final DataSetError errorDataSet = (DataSetError) dataSet;
+                    final double sigma = 0.5 * (errorDataSet.getErrorNegative(DataSet.DIM_Y, i) + errorDataSet.getErrorPositive(DataSet.DIM_Y, i));
+                    weights[i] = sigma > 0.0 ? 1.0 / (sigma * sigma) : 1.0;
+                } else {
+                    weights[i] = 1.0;
+                }
+            }
+            return hasErrors;
+        }
+
+        private boolean decomposeCholesky(final double[] matrix, final int n) {
+            for (int j = 0; j < n; j++) {
+                double d = matrix[j * n + j];
+                for (int k = 0; k < j; k++) {
+                    d -= matrix[j * n + k] * matrix[j * n + k];
+                }
+                if (d <= 0.0 || !Double.isFinite(d)) {
+                    return false;
+                }
+                final double ljj = Math.sqrt(d);
+                matrix[j * n + j] = ljj;
+                for (int i = j + 1; i < n; i++) {
+                    double s = matrix[i * n + j];
+                    for (int k = 0; k < j; k++) {
+                        s -= matrix[i * n + k] * matrix[j * n + k];
+                    }
+                    matrix[i * n + j] = s / ljj;
+                }
+            }
+            return true;
+        }
+
+        private FitResult fit(final int index, final DataSet dataSet) {
+            final int nFree = freeIndices.length;
+            System.arraycopy(initialParameters, 0, parameters, 0, nParameters);
+            final int[] nSamples = new int[1];
+            final boolean[] hasErrors = new boolean[1];
+            try {
+                dataSet.lock().readLockGuard(() -> {
+                    nSamples[0] = dataSet.getDataCount();
+                    hasErrors[0] = copyData(dataSet);
+                });
+                final int n = nSamples[0];
+                final int ndf = n - nFree;
+                if (ndf <= 0) {
+                    return failed(index, ndf, "insufficient number of samples: " + n);
+                }
+                if (initialParameterEstimator != null) {
+                    initialParameterEstimator.estimate(x, y, n, parameters);
+                }
+
+                double chi2 = chiSquare(parameters, residuals, n);
+                if (!Double.isFinite(chi2)) {
+                    return failed(index, ndf, "invalid initial chi-square: " + chi2);
+                }
+                double lambda = LAMBDA_START;
+                boolean converged = nFree == 0 || chi2 == 0.0;
+                int iteration = 0;
+                while (!converged && iteration < maxIterations) {
+                    iteration++;
+                    computeNormalEquations(n);
+                    boolean improved = false;
+                    while (!improved && !converged) {
+                        System.arraycopy(alpha, 0, lhs, 0, alpha.length);
+                        for (int j = 0; j < nFree; j++) {
+                            lhs[j * nFree + j] *= 1.0 + lambda;
+                        }
+                        if (decomposeCholesky(lhs, nFree)) {
+                            solveCholesky(lhs, beta, delta, nFree);
+                            final double maxStep = trialStep();
+                            final double trialChi2 = chiSquare(trialParameters, trialResiduals, n);
+                            if (Double.isFinite(trialChi2) && trialChi2 <= chi2) {
+                                converged = chi2 - trialChi2 <= tolerance * trialChi2 || maxStep <= tolerance;
+                                chi2 = trialChi2;
+                                System.arraycopy(trialParameters, 0, parameters, 0, nParameters);
+                                final double[] tmp = residuals;
+                                residuals = trialResiduals;
+                                trialResiduals = tmp;
+                                lambda = Math.max(LAMBDA_MIN, 0.1 * lambda);
+                                improved = true;
+                                continue;
+                            }
+                        }
+                        lambda *= 10.0;
+                        // no further improvement possible: at the (local) minimum within numerical precision
+                        converged = lambda > LAMBDA_MAX;
+                    }
+                }
+
+                // parameter errors from the covariance matrix (J^T*W*J)^-1
+                final double[] errors = new double[nParameters];
+                function.setParameterValues(parameters);
+                computeNormalEquations(n);
+                System.arraycopy(alpha, 0, lhs, 0, alpha.length);
+                if (nFree > 0 && decomposeCholesky(lhs, nFree)) {
+                    final double scale = hasErrors[0] ? 1.0 : chi2 / ndf;
+                    for (int j = 0; j < nFree; j++) {
+                        Arrays.fill(beta, 0.0);
+                        beta[j] = 1.0;
+                        solveCholesky(lhs, beta, delta, nFree);
+                        errors[freeIndices[j]] = Math.sqrt(delta[j] * scale);
+                    }
+                }
+                return new FitResult(index, parameters.clone(), errors, chi2, ndf, iteration, converged, null);
+            } catch (final RuntimeException e) { // NOPMD -- failure of individual fits must not abort the batch
+                return failed(index, nSamples[0] - nFree, e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+
+        private FitResult failed(final int index, final int ndf, final String message) {
+            return new FitResult(index, parameters.clone(), new double[nParameters], Double.NaN, ndf, 0, false, message);
+        }
+
+        /**
+         * computes Jacobian, alpha = J^T*W*J and beta = J^T*W*r for the current parameters and residuals
+         */
+        private void computeNormalEquations(final int n) {
+            final int nFree = freeIndices.length;
+            if (differentiableFunction == null) {
+                // central finite differences
+                for (int j = 0; j < nFree; j++) {
+                    final int id = freeIndices[j];
+                    final double value = parameters[id];
+                    final double step = FINITE_DIFFERENCE_STEP * Math.max(Math.abs(value), 1.0);
+                    function.setParameterValue(id, value + step);
+                    for (int i = 0; i < n; i++) {
+                        jacobian[i * nFree + j] = function.getValue(x[i]);
+                    }
+                    function.setParameterValue(id, value - step);
+                    for (int i = 0; i < n; i++) {
+                        jacobian[i * nFree + j] = (jacobian[i * nFree + j] - function.getValue(x[i])) / (2.0 * step);
+                    }
+                    function.setParameterValue(id, value);
+                }
+            } else {
+                differentiableFunction.setParameterValues(parameters);
+                for (int i = 0; i < n; i++) {
+                    differentiableFunction.getParameterGradient(x[i], gradient);
+                    for (int j = 0; j < nFree; j++) {
+                        jacobian[i * nFree + j] = gradient[freeIndices[j]];
+                    }
+                }
+            }
+
+            Arrays.fill(alpha, 0.0);
+            Arrays.fill(beta, 0.0);
+            for (int i = 0; i < n; i++) {
+                final int row = i * nFree;
+                final double weight = weights[i];
+                for (int j = 0; j < nFree; j++) {
+                    final double wj = weight * jacobian[row + j];
+                    beta[j] += wj * residuals[i];
+                    for (int k = 0; k <= j; k++) {
+                        alpha[j * nFree + k] += wj * jacobian[row + k];
+                    }
+                }
+            }
+            for (int j = 0; j < nFree; j++) {
+                for (int k = 0; k < j; k++) {
+                    alpha[k * nFree + j] = alpha[j * nFree + k];
+                }
+            }
+        }
+
+        private void solveCholesky(final double[] l, final double[] b, final double[] result, final int n) {
+            // L*z = b
+            for (int i = 0; i < n; i++) {
+                double s = b[i];
+                for (int k = 0; k < i; k++) {
+                    s -= l[i * n + k] * result[k];
+                }
+                result[i] = s / l[i * n + i];
+            }
+            // L^T*result = z
+            for (int i = n - 1; i >= 0; i--) {
+                double s = result[i];
+                for (int k = i + 1; k < n; k++) {
+                    s -= l[k * n + i] * result[k];
+                }
+                result[i] = s / l[i * n + i];
+            }
+        }
+
+        /**
+         * @return maximum relative parameter change
+         */
+        private double trialStep() {
+            System.arraycopy(parameters, 0, trialParameters, 0, nParameters);
+            double maxStep = 0.0;
+            for (int j = 0; j < freeIndices.length; j++) {
+                final int id = freeIndices[j];
+                double value = parameters[id] + delta[j];
+                if (minimum[id] < maximum[id]) {
+                    value = Math.min(maximum[id], Math.max(minimum[id], value));
+                }
+                trialParameters[id] = value;
+                maxStep = Math.max(maxStep, Math.abs(value - parameters[id]) / Math.max(Math.abs(parameters[id]), Double.MIN_NORMAL));
+            }
+            return maxStep;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package de.gsi.math.functions;
+
+/**
+ * one-dimensional function that provides the analytic derivatives with respect to its parameters (used e.g. by the
+ * {@link de.gsi.math.fitter.BatchFitter} instead of finite-difference estimates)
+ */
+public interface DifferentiableFunction1D extends Function1D {
+    /**
+     * @param x the coordinate at which the derivatives should be evaluated
+     * @param gradient output array (length &gt;= getParameterCount()) for the partial derivatives d f(x)/d parameter[i]
+     *        with respect to all (ie. also fixed) parameters for the current parameter values
+     */
+    void getParameterGradient(final double x, final double[] gradient);
+}
@@ -7,7 +7,7 @@ import de.gsi.math.Math;
  *
  * @author rstein
  */
-public class GaussianFunction extends AbstractFunction1D implements Function1D {
+public class GaussianFunction extends AbstractFunction1D implements DifferentiableFunction1D {
     // @formatter:off
     /**
      * initialise Gaussian function (/normal distribution) y = scale/(sigma*sqrt(2.pi)) * exp( -0.5 [(x - mean)/sigma]^2
@@ -49,6 +49,23 @@ public class GaussianFunction extends AbstractFunction1D implements Function1D {
         }
     }
 
+    @Override
+    public void getParameterGradient(final double x, final double[] gradient) {
+        final double sigma = fparameter[1];
+        if (sigma == 0.0) {
+            gradient[0] = 0.0;
+            gradient[1] = 0.0;
+            gradient[2] = 0.0;
+            return;
+        }
+        final double norm = Math.gauss(x, fparameter[0], sigma, true);
+        final double value = fparameter[2] * norm;
+        final double arg = (x - fparameter[0]) / sigma;
+        gradient[0] = value * arg / sigma;
+        gradient[1] = value * (arg * arg - 1.0) / sigma;
+        gradient[2] = norm;
+    }
+
     @Override
     public double getValue(final double x) {
         return fparameter[2] * Math.gauss(x, fparameter[0], fparameter[1], true);
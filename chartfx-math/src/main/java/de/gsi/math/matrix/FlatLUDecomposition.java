@@ -0,0 +1,285 @@
+package de.gsi.math.matrix;
+
+/**
+ * Cache-blocked LU Decomposition of a {@link FlatMatrixD}.
+ * <P>
+ * Same decomposition as the {@link LUDecomposition}, ie. for an m-by-n matrix A with m &gt;= n, an m-by-n unit lower
+ * triangular matrix L, an n-by-n upper triangular matrix U, and a permutation vector piv of length m so that A(piv,:) =
+ * L*U, but computed with the right-looking blocked algorithm used by LAPACK (dgetrf): a narrow panel of
+ * {@link MatrixKernels#BLOCK_SIZE} columns is factorised with partial pivoting, followed by a triangular solve of the
+ * corresponding block row and a rank-{@link MatrixKernels#BLOCK_SIZE} update of the trailing sub-matrix. The latter
+ * performs most of the work on contiguous row segments and is executed in parallel for large matrices.
+ */
+public class FlatLUDecomposition implements java.io.Serializable {
+    private static final long serialVersionUID = 6514962720539628373L;
+    private final double[] LU; // internal row-major storage of L and U
+    private final int m;
+    private final int n;
+    private final int[] piv;
+    private int pivsign;
+
+    /**
+     * LU Decomposition
+     *
+     * @param A Rectangular matrix
+     */
+    public FlatLUDecomposition(final FlatMatrixD A) {
+        m = A.getRowDimension();
+        n = A.getColumnDimension();
+        LU = A.getArray().clone();
+        piv = new int[m];
+        for (int i = 0; i < m; i++) {
+            piv[i] = i;
+        }
+        pivsign = 1;
+
+        final int nDiag = Math.min(m, n);
+        for (int k0 = 0; k0 < nDiag; k0 += MatrixKernels.BLOCK_SIZE) {
+            final int k1 = Math.min(nDiag, k0 + MatrixKernels.BLOCK_SIZE);
+            factorisePanel(k0, k1);
+            if (k1 < n) {
+                solveBlockRow(k0, k1);
+                updateTrailingMatrix(k0, k1);
+            }
+        }
+    }
+
+    /**
+     * Determinant
+     *
+     * @return det(A)
+     * @exception IllegalArgumentException Matrix must be square
+     */
+    public double det() {
+        if (m != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        double d = pivsign;
+        for (int j = 0; j < n; j++) {
+            d *= LU[j * n + j];
+        }
+        return d;
+    }
+
+    /**
+     * Return lower triangular factor
+     *
+     * @return L
+     */
+    public FlatMatrixD getL() {
+        final FlatMatrixD X = new FlatMatrixD(m, n);
+        final double[] L = X.getArray();
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < Math.min(i, n); j++) {
+                L[i * n + j] = LU[i * n + j];
+            }
+            if (i < n) {
+                L[i * n + i] = 1.0;
+            }
+        }
+        return X;
+    }
+
+    /**
+     * Return pivot permutation vector
+     *
+     * @return piv
+     */
+    public int[] getPivot() {
+        return piv.clone();
+    }
+
+    /**
+     * Return upper triangular factor
+     *
+     * @return U
+     */
+    public FlatMatrixD getU() {
+        final FlatMatrixD X = new FlatMatrixD(n, n);
+        final double[] U = X.getArray();
+        for (int i = 0; i < Math.min(m, n); i++) {
+            System.arraycopy(LU, i * n + i, U, i * n + i, n - i);
+        }
+        return X;
+    }
+
+    /**
+     * Is the matrix nonsingular?
+     *
+     * @return true if U, and hence A, is nonsingular.
+     */
+    public boolean isNonsingular() {
+        if (m < n) {
+            return false;
+        }
+        for (int j = 0; j < n; j++) {
+            if (LU[j * n + j] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solve A*X = B
+     *
+     * @param B A Matrix with as many rows as A and any number of columns.
+     * @return X so that L*U*X = B(piv,:)
+     * @exception IllegalArgumentException Matrix row dimensions must agree.
+     * @exception IllegalStateException Matrix is singular.
+     */
+    public FlatMatrixD solve(final FlatMatrixD B) {
+        if (B.getRowDimension() != m) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        if (!this.isNonsingular()) {
+            throw new IllegalStateException("Matrix is singular.");
+        }
+
+        // Copy right hand side with pivoting (N.B. into separate rows to enable the JIT's auto-vectorisation)
+        final int nx = B.getColumnDimension();
+        final double[] b = B.getArray();
+        final double[][] X = new double[n][nx];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(b, piv[i] * nx, X[i], 0, nx);
+        }
+
+        // the columns of the right hand side are independent (parallel for large systems)
+        MatrixKernels.forRange(0, nx, (long) n * n, (from, to) -> {
+            // Solve L*Y = B(piv,:)
+            for (int i = 1; i < n; i++) {
+                final double[] rowX = X[i];
+                for (int k = 0; k < i; k++) {
+                    final double lik = LU[i * n + k];
+                    final double[] rowK = X[k];
+                    for (int j = from; j < to; j++) {
+                        rowX[j] -= lik * rowK[j];
+                    }
+                }
+            }
+            // Solve U*X = Y;
+            for (int i = n - 1; i >= 0; i--) {
+                final double[] rowX = X[i];
+                for (int k = i + 1; k < n; k++) {
+                    final double uik = LU[i * n + k];
+                    final double[] rowK = X[k];
+                    for (int j = from; j < to; j++) {
+                        rowX[j] -= uik * rowK[j];
+                    }
+                }
+                final double uii = LU[i * n + i];
+                for (int j = from; j < to; j++) {
+                    rowX[j] /= uii;
+                }
+            }
+        });
+
+        final FlatMatrixD Xmat = new FlatMatrixD(n, nx);
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(X[i], 0, Xmat.getArray(), i * nx, nx);
+        }
+        return Xmat;
+    }
+
+    /**
+     * unblocked partial-pivoting LU of the panel columns [k0, k1) (rows are swapped over the full matrix width)
+     */
+    private void factorisePanel(final int k0, final int k1) {
+        for (int k = k0; k < k1; k++) {
+            // Find pivot and exchange if necessary.
+            int p = k;
+            double max = Math.abs(LU[k * n + k]);
+            for (int i = k + 1; i < m; i++) {
+                final double value = Math.abs(LU[i * n + k]);
+                if (value > max) {
+                    max = value;
+                    p = i;
+                }
+            }
+            if (p != k) {
+                swapRows(p, k);
+            }
+
+            // Compute multipliers and update the remaining panel columns.
+            final double pivot = LU[k * n + k];
+            if (pivot == 0.0) {
+                continue;
+            }
+            final int col = k;
+            MatrixKernels.forRange(k + 1, m, k1 - k, (from, to) -> {
+                final int rowK = col * n;
+                for (int i = from; i < to; i++) {
+                    final int rowI = i * n;
+                    final double lik = LU[rowI + col] /= pivot;
+                    for (int j = col + 1; j < k1; j++) {
+                        LU[rowI + j] -= lik * LU[rowK + j];
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * U12 = L11^{-1} * A12 for the block row [k0, k1) and columns [k1, n)
+     */
+    private void solveBlockRow(final int k0, final int k1) {
+        MatrixKernels.forRange(k1, n, (long) (k1 - k0) * (k1 - k0) / 2, (from, to) -> {
+            for (int i = k0 + 1; i < k1; i++) {
+                final int rowI = i * n;
+                for (int k = k0; k < i; k++) {
+                    final double lik = LU[rowI + k];
+                    final int rowK = k * n;
+                    for (int j = from; j < to; j++) {
+                        LU[rowI + j] -= lik * LU[rowK + j];
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * A22 = A22 - L21 * U12 for the rows [k1, m) and columns [k1, n), tiled over columns to keep U12 in cache
+     */
+    private void updateTrailingMatrix(final int k0, final int k1) {
+        MatrixKernels.forRange(k1, m, (long) (k1 - k0) * (n - k1), (from, to) -> {
+            // N.B. U12 tile and A22 row segments are copied to zero-offset arrays to enable the JIT's auto-vectorisation
+            final double[][] tile = new double[k1 - k0][MatrixKernels.BLOCK_SIZE];
+            final double[] rowA = new double[MatrixKernels.BLOCK_SIZE];
+            for (int j0 = k1; j0 < n; j0 += MatrixKernels.BLOCK_SIZE) {
+                final int length = Math.min(n, j0 + MatrixKernels.BLOCK_SIZE) - j0;
+                for (int k = k0; k < k1; k++) {
+                    System.arraycopy(LU, k * n + j0, tile[k - k0], 0, length);
+                }
+                for (int i = from; i < to; i++) {
+                    final int rowI = i * n;
+                    System.arraycopy(LU, rowI + j0, rowA, 0, length);
+                    for (int k = k0; k < k1; k++) {
+                        final double lik = LU[rowI + k];
+                        if (lik == 0.0) {
+                            continue;
+                        }
+                        final double[] rowU = tile[k - k0];
+                        for (int j = 0; j < length; j++) {
+                            rowA[j] -= lik * rowU[j];
+                        }
+                    }
+                    System.arraycopy(rowA, 0, LU, rowI + j0, length);
+                }
+            }
+        });
+    }
+
+    private void swapRows(final int p, final int k) {
+        final int rowP = p * n;
+        final int rowK = k * n;
+        for (int j = 0; j < n; j++) {
+            final double t = LU[rowP + j];
+            LU[rowP + j] = LU[rowK + j];
+            LU[rowK + j] = t;
+        }
+        final int t = piv[p];
+        piv[p] = piv[k];
+        piv[k] = t;
+        pivsign = -pivsign;
+    }
+}
@@ -0,0 +1,240 @@
+package de.gsi.math.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Dense matrix stored in a single flat row-major array.
+ * <p>
+ * Contrary to the {@link MatrixD} row-array storage, all elements are stored contiguously (ie. A(i,j) =
+ * element[i*n + j]) which allows cache-blocked kernels, avoids the per-row object overhead and permits the data to be
+ * passed to/from native libraries or DataSets without copying. The multiplication and the {@link FlatLUDecomposition}
+ * used by {@link #solve(FlatMatrixD)}, {@link #inverse()} and {@link #det()} are cache-blocked and are executed in
+ * parallel on the common fork/join pool for large matrices (ie. for response matrix inversions or fitting Jacobians).
+ * <p>
+ * N.B. the remaining decompositions (QR, SVD, ...) are available via {@link #toMatrixD()}.
+ */
+public class FlatMatrixD extends AbstractMatrix {
+    private static final long serialVersionUID = 2651307816924587419L;
+    private final double[] element; // internal row-major array storage
+
+    /**
+     * Construct a matrix using the given row-major array as internal storage (no copy).
+     *
+     * @param vals One-dimensional row-major array of doubles
+     * @param m Number of rows.
+     * @exception IllegalArgumentException Array length must be a multiple of m.
+     */
+    public FlatMatrixD(final double[] vals, final int m) {
+        super.m = m;
+        super.n = m != 0 ? vals.length / m : 0;
+        if (m * n != vals.length) {
+            throw new IllegalArgumentException("Array length must be a multiple of m.");
+        }
+        element = vals;
+    }
+
+    /**
+     * Construct an m-by-n matrix of zeros.
+     *
+     * @param m Number of rows.
+     * @param n Number of columns.
+     */
+    public FlatMatrixD(final int m, final int n) {
+        super.m = m;
+        super.n = n;
+        element = new double[m * n];
+    }
+
+    /**
+     * Construct an m-by-n constant matrix.
+     *
+     * @param m Number of rows.
+     * @param n Number of columns.
+     * @param s Fill the matrix with this scalar value.
+     */
+    public FlatMatrixD(final int m, final int n, final double s) {
+        this(m, n);
+        Arrays.fill(element, s);
+    }
+
+    /**
+     * Construct a matrix from a copy of a {@link MatrixD}.
+     *
+     * @param A the matrix to be copied
+     */
+    public FlatMatrixD(final MatrixD A) {
+        this(A.getRowDimension(), A.getColumnDimension());
+        final double[][] rows = A.getArray();
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(rows[i], 0, element, i * n, n);
+        }
+    }
+
+    private FlatMatrixD(final int m, final int n, final double[] vals) {
+        super.m = m;
+        super.n = n;
+        element = vals;
+    }
+
+    @Override
+    public Object clone() {
+        return copy();
+    }
+
+    @Override
+    public FlatMatrixD copy() {
+        return new FlatMatrixD(m, n, element.clone());
+    }
+
+    /**
+     * Matrix determinant
+     *
+     * @return determinant
+     */
+    public double det() {
+        return lu().det();
+    }
+
+    @Override
+    public double get(final int i, final int j) {
+        return element[i * n + j];
+    }
+
+    /**
+     * Access the internal row-major array.
+     *
+     * @return the array of matrix elements, A(i,j) = array[i*n + j]
+     */
+    public double[] getArray() {
+        return element;
+    }
+
+    /**
+     * Matrix inverse
+     *
+     * @return inverse(A)
+     * @exception IllegalArgumentException Matrix must be square.
+     */
+    public FlatMatrixD inverse() {
+        if (m != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        final FlatMatrixD identity = new FlatMatrixD(m, m);
+        for (int i = 0; i < m; i++) {
+            identity.element[i * m + i] = 1.0;
+        }
+        return solve(identity);
+    }
+
+    /**
+     * LU Decomposition
+     *
+     * @return FlatLUDecomposition
+     * @see FlatLUDecomposition
+     */
+    public FlatLUDecomposition lu() {
+        return new FlatLUDecomposition(this);
+    }
+
+    /**
+     * C = A - B
+     *
+     * @param B another matrix
+     * @return A - B
+     */
+    public FlatMatrixD minus(final FlatMatrixD B) {
+        checkMatrixDimensions(B);
+        final FlatMatrixD X = new FlatMatrixD(m, n);
+        for (int i = 0; i < element.length; i++) {
+            X.element[i] = element[i] - B.element[i];
+        }
+        return X;
+    }
+
+    /**
+     * C = A + B
+     *
+     * @param B another matrix
+     * @return A + B
+     */
+    public FlatMatrixD plus(final FlatMatrixD B) {
+        checkMatrixDimensions(B);
+        final FlatMatrixD X = new FlatMatrixD(m, n);
+        for (int i = 0; i < element.length; i++) {
+            X.element[i] = element[i] + B.element[i];
+        }
+        return X;
+    }
+
+    @Override
+    public void set(final int i, final int j, final double val) {
+        element[i * n + j] = val;
+    }
+
+    /**
+     * Solve A*X = B
+     *
+     * @param B right hand side with as many rows as A
+     * @return solution of the square system
+     * @exception IllegalArgumentException Matrix must be square.
+     */
+    public FlatMatrixD solve(final FlatMatrixD B) {
+        if (m != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        return lu().solve(B);
+    }
+
+    /**
+     * Multiply a matrix by a scalar, C = s*A
+     *
+     * @param s scalar
+     * @return s*A
+     */
+    public FlatMatrixD times(final double s) {
+        final FlatMatrixD X = new FlatMatrixD(m, n);
+        for (int i = 0; i < element.length; i++) {
+            X.element[i] = s * element[i];
+        }
+        return X;
+    }
+
+    /**
+     * Linear algebraic matrix multiplication, A * B (cache-blocked, parallel for large matrices)
+     *
+     * @param B another matrix
+     * @return Matrix product, A * B
+     * @exception IllegalArgumentException Matrix inner dimensions must agree.
+     */
+    public FlatMatrixD times(final FlatMatrixD B) {
+        if (B.m != n) {
+            throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+        }
+        final FlatMatrixD X = new FlatMatrixD(m, B.n);
+        MatrixKernels.multiply(element, B.element, X.element, m, n, B.n);
+        return X;
+    }
+
+    /**
+     * @return copy of this matrix in the {@link MatrixD} row-array storage
+     */
+    public MatrixD toMatrixD() {
+        final MatrixD X = new MatrixD(m, n);
+        final double[][] rows = X.getArray();
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(element, i * n, rows[i], 0, n);
+        }
+        return X;
+    }
+
+    /**
+     * Matrix transpose (cache-blocked).
+     *
+     * @return A^{T}
+     */
+    public FlatMatrixD transpose() {
+        final FlatMatrixD X = new FlatMatrixD(n, m);
+        MatrixKernels.transpose(element, X.element, m, n);
+        return X;
+    }
+}
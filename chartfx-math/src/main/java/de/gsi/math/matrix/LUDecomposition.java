@@ -63,8 +63,7 @@ public class LUDecomposition implements java.io.Serializable {
             piv[i] = i;
         }
         pivsign = 1;
-        double[] LUrowi;
-        double[] LUcolj = new double[m];
+        final double[] LUcolj = new double[m];
 
         // Outer loop.
 
@@ -77,19 +76,16 @@ public class LUDecomposition implements java.io.Serializable {
 
             // Apply previous transformations.
 
-            for (int i = 0; i < m; i++) {
-                LUrowi = LU[i];
-
-                // Most of the time is spent in the following dot product.
-
-                int kmax = Math.min(i, j);
-                double s = 0.0;
-                for (int k = 0; k < kmax; k++) {
-                    s += LUrowi[k] * LUcolj[k];
-                }
-
-                LUrowi[j] = LUcolj[i] -= s;
+            for (int i = 0; i < Math.min(j, m); i++) {
+                applyPreviousTransformations(i, j, LUcolj);
             }
+            // the rows below the diagonal only depend on the upper part of the column (parallel for large matrices)
+            final int col = j;
+            MatrixKernels.forRange(j, m, j, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    applyPreviousTransformations(i, col, LUcolj);
+                }
+            });
 
             // Find pivot and exchange if necessary.
 
@@ -272,29 +268,46 @@ public class LUDecomposition implements java.io.Serializable {
         }
 
         // Copy right hand side with pivoting
-        int nx = B.getColumnDimension();
-        MatrixD Xmat = B.getMatrix(piv, 0, nx - 1);
-        double[][] X = Xmat.getArray();
-
-        // Solve L*Y = B(piv,:)
-        for (int k = 0; k < n; k++) {
-            for (int i = k + 1; i < n; i++) {
-                for (int j = 0; j < nx; j++) {
-                    X[i][j] -= X[k][j] * LU[i][k];
+        final int nx = B.getColumnDimension();
+        final MatrixD Xmat = B.getMatrix(piv, 0, nx - 1);
+        final double[][] X = Xmat.getArray();
+
+        // the columns of the right hand side are independent (parallel for large systems)
+        MatrixKernels.forRange(0, nx, (long) n * n, (from, to) -> {
+            // Solve L*Y = B(piv,:)
+            for (int k = 0; k < n; k++) {
+                for (int i = k + 1; i < n; i++) {
+                    for (int j = from; j < to; j++) {
+                        X[i][j] -= X[k][j] * LU[i][k];
+                    }
                 }
             }
-        }
-        // Solve U*X = Y;
-        for (int k = n - 1; k >= 0; k--) {
-            for (int j = 0; j < nx; j++) {
-                X[k][j] /= LU[k][k];
-            }
-            for (int i = 0; i < k; i++) {
-                for (int j = 0; j < nx; j++) {
-                    X[i][j] -= X[k][j] * LU[i][k];
+            // Solve U*X = Y;
+            for (int k = n - 1; k >= 0; k--) {
+                for (int j = from; j < to; j++) {
+                    X[k][j] /= LU[k][k];
+                }
+                for (int i = 0; i < k; i++) {
+                    for (int j = from; j < to; j++) {
+                        X[i][j] -= X[k][j] * LU[i][k];
+                    }
                 }
             }
-        }
+        });
         return Xmat;
     }
+
+    private void applyPreviousTransformations(final int i, final int j, final double[] LUcolj) {
+        final double[] LUrowi = LU[i];
+
+        // Most of the time is spent in the following dot product.
+
+        int kmax = Math.min(i, j);
+        double s = 0.0;
+        for (int k = 0; k < kmax; k++) {
+            s += LUrowi[k] * LUcolj[k];
+        }
+
+        LUrowi[j] = LUcolj[i] -= s;
+    }
 }
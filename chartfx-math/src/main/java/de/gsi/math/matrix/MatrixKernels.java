@@ -0,0 +1,152 @@
+package de.gsi.math.matrix;
+
+import java.util.Arrays;
+
+import de.gsi.math.utils.ConcurrencyUtils;
+import de.gsi.math.utils.ConcurrencyUtils.RangeTask;
+
+/**
+ * Shared cache-blocked and fork/join parallel kernels of the dense matrix implementations.
+ * <p>
+ * Loops are only split across the common fork/join pool if their total work (number of floating point multiply-adds)
+ * exceeds {@link #MIN_PARALLEL_WORK} and more than one worker thread is available, thus small matrices are processed
+ * sequentially without any task overhead.
+ * Individual matrix elements are always accumulated in the same order as the sequential loops, ie. the results do not
+ * depend on the number of threads.
+ */
+final class MatrixKernels {
+    /**
+     * minimum number of multiply-adds above which the kernels are executed in parallel
+     */
+    static final long MIN_PARALLEL_WORK = 1 << 16;
+    /**
+     * edge length of the square tiles (N.B. 3 x 64 x 64 doubles fit into a typical 128 kB L2 cache)
+     */
+    static final int BLOCK_SIZE = 64;
+
+    private MatrixKernels() {
+        // utility class
+    }
+
+    /**
+     * Executes the task for the index range [from, to), split into contiguous chunks that are processed in parallel if
+     * the total work exceeds {@link #MIN_PARALLEL_WORK}.
+     *
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     * @param workPerIndex estimated number of multiply-adds per index
+     * @param task the task to be executed for each sub-range
+     */
+    static void forRange(final int from, final int to, final long workPerIndex, final RangeTask task) {
+        ConcurrencyUtils.forRange(from, to, Math.max(0, to - from) * workPerIndex, MIN_PARALLEL_WORK, task);
+    }
+
+    /**
+     * Cache-blocked matrix multiplication C = A * B of flat row-major arrays. The rows of C are computed in parallel for
+     * large matrices.
+     *
+     * @param a m-by-n row-major input
+     * @param b n-by-p row-major input
+     * @param c m-by-p row-major output (will be overwritten)
+     * @param m number of rows of A and C
+     * @param n number of columns of A and rows of B
+     * @param p number of columns of B and C
+     */
+    static void multiply(final double[] a, final double[] b, final double[] c, final int m, final int n, final int p) {
+        final int nRowBlocks = (m + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        forRange(0, nRowBlocks, (long) BLOCK_SIZE * n * p, (blockStart, blockStop) -> {
+            final int iStart = blockStart * BLOCK_SIZE;
+            final int iStop = Math.min(m, blockStop * BLOCK_SIZE);
+            Arrays.fill(c, iStart * p, iStop * p, 0.0);
+            // N.B. B tile and C row segments are copied to zero-offset arrays to enable the JIT's auto-vectorisation
+            final double[][] tile = new double[BLOCK_SIZE][BLOCK_SIZE];
+            final double[] rowC = new double[BLOCK_SIZE];
+            for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+                final int k1 = Math.min(n, k0 + BLOCK_SIZE);
+                for (int j0 = 0; j0 < p; j0 += BLOCK_SIZE) {
+                    final int length = Math.min(p, j0 + BLOCK_SIZE) - j0;
+                    for (int k = k0; k < k1; k++) {
+                        System.arraycopy(b, k * p + j0, tile[k - k0], 0, length);
+                    }
+                    for (int i = iStart; i < iStop; i++) {
+                        final int rowA = i * n;
+                        final int offsetC = i * p + j0;
+                        System.arraycopy(c, offsetC, rowC, 0, length);
+                        for (int k = k0; k < k1; k++) {
+                            final double aik = a[rowA + k];
+                            final double[] rowB = tile[k - k0];
+                            for (int j = 0; j < length; j++) {
+                                rowC[j] += aik * rowB[j];
+                            }
+                        }
+                        System.arraycopy(rowC, 0, c, offsetC, length);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Cache-blocked matrix multiplication C = A * B of row arrays. The rows of C are computed in parallel for large
+     * matrices.
+     *
+     * @param a m-by-n input
+     * @param b n-by-p input
+     * @param c m-by-p output (will be overwritten)
+     * @param m number of rows of A and C
+     * @param n number of columns of A and rows of B
+     * @param p number of columns of B and C
+     */
+    static void multiply(final double[][] a, final double[][] b, final double[][] c, final int m, final int n, final int p) {
+        final int nRowBlocks = (m + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        forRange(0, nRowBlocks, (long) BLOCK_SIZE * n * p, (blockStart, blockStop) -> {
+            final int iStart = blockStart * BLOCK_SIZE;
+            final int iStop = Math.min(m, blockStop * BLOCK_SIZE);
+            for (int i = iStart; i < iStop; i++) {
+                final double[] rowC = c[i];
+                for (int j = 0; j < p; j++) {
+                    rowC[j] = 0.0;
+                }
+            }
+            for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+                final int k1 = Math.min(n, k0 + BLOCK_SIZE);
+                for (int j0 = 0; j0 < p; j0 += BLOCK_SIZE) {
+                    final int j1 = Math.min(p, j0 + BLOCK_SIZE);
+                    for (int i = iStart; i < iStop; i++) {
+                        final double[] rowA = a[i];
+                        final double[] rowC = c[i];
+                        for (int k = k0; k < k1; k++) {
+                            final double aik = rowA[k];
+                            final double[] rowB = b[k];
+                            for (int j = j0; j < j1; j++) {
+                                rowC[j] += aik * rowB[j];
+                            }
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Cache-blocked transposition of a flat row-major array.
+     *
+     * @param a m-by-n row-major input
+     * @param t n-by-m row-major output
+     * @param m number of rows of A
+     * @param n number of columns of A
+     */
+    static void transpose(final double[] a, final double[] t, final int m, final int n) {
+        for (int i0 = 0; i0 < m; i0 += BLOCK_SIZE) {
+            final int i1 = Math.min(m, i0 + BLOCK_SIZE);
+            for (int j0 = 0; j0 < n; j0 += BLOCK_SIZE) {
+                final int j1 = Math.min(n, j0 + BLOCK_SIZE);
+                for (int i = i0; i < i1; i++) {
+                    for (int j = j0; j < j1; j++) {
+                        t[j * m + i] = a[i * n + j];
+                    }
+                }
+            }
+        }
+    }
+}
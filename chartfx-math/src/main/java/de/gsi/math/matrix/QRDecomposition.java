@@ -75,17 +75,20 @@ public class QRDecomposition implements java.io.Serializable {
                 }
                 QR[k][k] += 1.0;
 
-                // Apply transformation to remaining columns.
-                for (int j = k + 1; j < n; j++) {
-                    double s = 0.0;
-                    for (int i = k; i < m; i++) {
-                        s += QR[i][k] * QR[i][j];
-                    }
-                    s = -s / QR[k][k];
-                    for (int i = k; i < m; i++) {
-                        QR[i][j] += s * QR[i][k];
+                // Apply transformation to remaining columns (independent, parallel for large matrices).
+                final int col = k;
+                MatrixKernels.forRange(k + 1, n, 2L * (m - k), (from, to) -> {
+                    for (int j = from; j < to; j++) {
+                        double s = 0.0;
+                        for (int i = col; i < m; i++) {
+                            s += QR[i][col] * QR[i][j];
+                        }
+                        s = -s / QR[col][col];
+                        for (int i = col; i < m; i++) {
+                            QR[i][j] += s * QR[i][col];
+                        }
                     }
-                }
+                });
             }
             Rdiag[k] = -nrm;
         }
@@ -201,33 +204,36 @@ public class QRDecomposition implements java.io.Serializable {
         }
 
         // Copy right hand side
-        int nx = B.getColumnDimension();
-        double[][] X = B.getArrayCopy();
-
-        // Compute Y = transpose(Q)*B
-        for (int k = 0; k < n; k++) {
-            for (int j = 0; j < nx; j++) {
-                double s = 0.0;
-                for (int i = k; i < m; i++) {
-                    s += QR[i][k] * X[i][j];
-                }
-                s = -s / QR[k][k];
-                for (int i = k; i < m; i++) {
-                    X[i][j] += s * QR[i][k];
+        final int nx = B.getColumnDimension();
+        final double[][] X = B.getArrayCopy();
+
+        // the columns of the right hand side are independent (parallel for large systems)
+        MatrixKernels.forRange(0, nx, 2L * m * n, (from, to) -> {
+            // Compute Y = transpose(Q)*B
+            for (int k = 0; k < n; k++) {
+                for (int j = from; j < to; j++) {
+                    double s = 0.0;
+                    for (int i = k; i < m; i++) {
+                        s += QR[i][k] * X[i][j];
+                    }
+                    s = -s / QR[k][k];
+                    for (int i = k; i < m; i++) {
+                        X[i][j] += s * QR[i][k];
+                    }
                 }
             }
-        }
-        // Solve R*X = Y;
-        for (int k = n - 1; k >= 0; k--) {
-            for (int j = 0; j < nx; j++) {
-                X[k][j] /= Rdiag[k];
-            }
-            for (int i = 0; i < k; i++) {
-                for (int j = 0; j < nx; j++) {
-                    X[i][j] -= X[k][j] * QR[i][k];
+            // Solve R*X = Y;
+            for (int k = n - 1; k >= 0; k--) {
+                for (int j = from; j < to; j++) {
+                    X[k][j] /= Rdiag[k];
+                }
+                for (int i = 0; i < k; i++) {
+                    for (int j = from; j < to; j++) {
+                        X[i][j] -= X[k][j] * QR[i][k];
+                    }
                 }
             }
-        }
+        });
         return (new MatrixD(X, n, nx).getMatrix(0, n - 1, 0, nx - 1));
     }
 }
@@ -582,16 +582,19 @@ public class SingularValueDecomposition {
 
                     final double h = f * g - s;
                     inputMatrix[i * n + i] = f - g;
-                    for (int j = l; j < n; j++) {
-                        s = 0.0;
-                        for (int k = i; k < m; k++) {
-                            s += inputMatrix[k * n + i] * inputMatrix[k * n + j];
-                        }
-                        f = s / h;
-                        for (int k = i; k < m; k++) {
-                            inputMatrix[k * n + j] += f * inputMatrix[k * n + i];
+                    final int col = i;
+                    MatrixKernels.forRange(l, n, 2L * (m - i), (from, to) -> {
+                        for (int j = from; j < to; j++) {
+                            double sum = 0.0;
+                            for (int k = col; k < m; k++) {
+                                sum += inputMatrix[k * n + col] * inputMatrix[k * n + j];
+                            }
+                            final double scaled = sum / h;
+                            for (int k = col; k < m; k++) {
+                                inputMatrix[k * n + j] += scaled * inputMatrix[k * n + col];
+                            }
                         }
-                    }
+                    });
                     for (int k = i; k < m; k++) {
                         inputMatrix[k * n + i] *= scale;
                     }
@@ -618,15 +621,19 @@ public class SingularValueDecomposition {
                     for (int k = l; k < n; k++) {
                         rv[k] = inputMatrix[i * n + k] / h;
                     }
-                    for (int j = l; j < m; j++) {
-                        s = 0.0;
-                        for (int k = l; k < n; k++) {
-                            s += inputMatrix[j * n + k] * inputMatrix[i * n + k];
-                        }
-                        for (int k = l; k < n; k++) {
-                            inputMatrix[j * n + k] += s * rv[k];
+                    final int row = i;
+                    final int start = l;
+                    MatrixKernels.forRange(l, m, 2L * (n - l), (from, to) -> {
+                        for (int j = from; j < to; j++) {
+                            double sum = 0.0;
+                            for (int k = start; k < n; k++) {
+                                sum += inputMatrix[j * n + k] * inputMatrix[row * n + k];
+                            }
+                            for (int k = start; k < n; k++) {
+                                inputMatrix[j * n + k] += sum * rv[k];
+                            }
                         }
-                    }
+                    });
                     for (int k = l; k < n; k++) {
                         inputMatrix[i * n + k] *= scale;
                     }
@@ -643,15 +650,19 @@ public class SingularValueDecomposition {
                     for (int j = l; j < n; j++) {
                         eigenVectorMatrixV[j * n + i] = inputMatrix[i * n + j] / inputMatrix[i * n + l] / g;
                     }
-                    for (int j = l; j < n; j++) {
-                        double s = 0.0;
-                        for (int k = l; k < n; k++) {
-                            s += inputMatrix[i * n + k] * eigenVectorMatrixV[k * n + j];
-                        }
-                        for (int k = l; k < n; k++) {
-                            eigenVectorMatrixV[k * n + j] += s * eigenVectorMatrixV[k * n + i];
+                    final int row = i;
+                    final int start = l;
+                    MatrixKernels.forRange(l, n, 2L * (n - l), (from, to) -> {
+                        for (int j = from; j < to; j++) {
+                            double s = 0.0;
+                            for (int k = start; k < n; k++) {
+                                s += inputMatrix[row * n + k] * eigenVectorMatrixV[k * n + j];
+                            }
+                            for (int k = start; k < n; k++) {
+                                eigenVectorMatrixV[k * n + j] += s * eigenVectorMatrixV[k * n + row];
+                            }
                         }
-                    }
+                    });
                 }
 
                 for (int j = l; j < n; j++) {
@@ -677,16 +688,21 @@ public class SingularValueDecomposition {
                 }
             } else {
                 g = 1.0 / g;
-                for (int j = l; j < n; j++) {
-                    double s = 0.0;
-                    for (int k = l; k < m; k++) {
-                        s += inputMatrix[k * n + i] * inputMatrix[k * n + j];
-                    }
-                    final double f = s / inputMatrix[i * n + i] * g;
-                    for (int k = i; k < m; k++) {
-                        inputMatrix[k * n + j] += f * inputMatrix[k * n + i];
+                final int col = i;
+                final int start = l;
+                final double invG = g;
+                MatrixKernels.forRange(l, n, 2L * (m - i), (from, to) -> {
+                    for (int j = from; j < to; j++) {
+                        double s = 0.0;
+                        for (int k = start; k < m; k++) {
+                            s += inputMatrix[k * n + col] * inputMatrix[k * n + j];
+                        }
+                        final double f = s / inputMatrix[col * n + col] * invG;
+                        for (int k = col; k < m; k++) {
+                            inputMatrix[k * n + j] += f * inputMatrix[k * n + col];
+                        }
                     }
-                }
+                });
 
                 for (int j = i; j < m; j++) {
                     inputMatrix[j * n + i] *= g;
@@ -1,17 +1,18 @@
 package de.gsi.math.spectra;
 
 import java.util.Map;
-import java.util.WeakHashMap;
 
 import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.dataset.utils.Cache;
 import de.gsi.math.MathBase;
 
 /**
  * implementation of frequenty used apodization (aka. windowing) functions reference:
  * http://en.wikipedia.org/wiki/Apodization_function - feel free to populate this with the other (however also less
  * frequently used) windows
- * The array for the windows are cached. By default a WeakHashMap is used, but the cache can be replaced e.g by
- * {@link de.gsi.dataset.utils.Cache} if different caching behaviour is wanted.
+ * The array for the windows are cached. By default a thread-safe {@link Cache} limited to {@value #DEFAULT_CACHE_LIMIT}
+ * windows is used, but the cache can be replaced if different caching behaviour is wanted. The last window of each
+ * function is additionally kept for look-ups without key allocation, e.g. for repeated spectra of the same size.
  *
  * @author rstein
  * @author akrimm
@@ -28,9 +29,11 @@ public enum Apodization {
     FlatTop("Flat-Top"),
     Exponential("exponential");
 
-    private static Map<ApodizationArrayDescription, double[]> windowCache = new WeakHashMap<>();
+    public static final int DEFAULT_CACHE_LIMIT = 64;
+    private static Map<ApodizationArrayDescription, double[]> windowCache = Cache.<ApodizationArrayDescription, double[]>builder().withLimit(DEFAULT_CACHE_LIMIT).build();
 
     private final String fname;
+    private volatile double[] lastWindow; // NOPMD -- fast path for repeated look-ups of the same window length
 
     Apodization(final String name) {
         fname = name;
@@ -157,13 +160,19 @@ public enum Apodization {
      * @return a cached array containing the requested window
      */
     public double[] getWindow(final int n) {
-        return windowCache.computeIfAbsent(new ApodizationArrayDescription(this, n), desc -> {
-            final double[] window = new double[desc.length];
+        final double[] last = lastWindow;
+        if (last != null && last.length == n) {
+            return last;
+        }
+        final double[] window = windowCache.computeIfAbsent(new ApodizationArrayDescription(this, n), desc -> {
+            final double[] newWindow = new double[desc.length];
             for (int i = 0; i < desc.length; i++) {
-                window[i] = getIndexUncached(i, desc.length);
+                newWindow[i] = getIndexUncached(i, desc.length);
             }
-            return window;
+            return newWindow;
         });
+        lastWindow = window;
+        return window;
     }
 
     /**
@@ -187,9 +196,9 @@ public enum Apodization {
      * Changes the map used to cache the apodization windows.
      * The map should implement some sort of caching behaviour e.g
      * <ul>
+     * <li>{@link de.gsi.dataset.utils.Cache} limits retention time and number of cached entries (The default)
      * <li>{@link java.util.WeakHashMap} {@code<ApodizationArrayDescription, double[]>} invalidates under memory
-     * pressure (The default)
-     * <li>{@link de.gsi.dataset.utils.Cache} limits retention time and number of cached entries
+     * pressure (N.B. not thread-safe)
      * <li>custom implementation
      * </ul>
      * 
@@ -197,6 +206,9 @@ public enum Apodization {
      */
     public static void setWindowCache(Map<ApodizationArrayDescription, double[]> windowCache) {
         Apodization.windowCache = windowCache;
+        for (final Apodization apodization : values()) {
+            apodization.lastWindow = null; // NOPMD -- invalidate fast path
+        }
     }
 
     /**
@@ -0,0 +1,328 @@
+package de.gsi.math.spectra;
+
+import java.util.Arrays;
+
+import org.jtransforms.fft.DoubleFFT_1D;
+
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.dataset.utils.Cache;
+import de.gsi.dataset.utils.DoubleArrayCache;
+import de.gsi.math.spectra.fft.FFTPlanCache;
+import de.gsi.math.utils.ConcurrencyUtils;
+
+/**
+ * FFT-based block convolution of (long) signals with finite impulse response kernels, ie. the causal filter
+ * {@code y[n] = sum_k kernel[k] * x[n - k]} (with {@code x[n < 0] = 0}).
+ * <p>
+ * Contrary to {@link Convolution}, which transforms the whole (padded) signal at once, the signal is split into blocks
+ * that are convolved using FFTs of a fixed block size (overlap-save or overlap-add), ie. the cost is O(n log(blockSize))
+ * rather than O(n log n), the kernel spectra are computed once per (kernel, block size) and cached, and large signals are
+ * processed block-parallel.
+ * <p>
+ * Instances of this class implement the streaming variant for long or live signals: the signal may be processed
+ * chunk-by-chunk while the history of the last {@code kernelLength - 1} input samples is kept between the chunks, ie.
+ * the output is identical to the one of filtering the whole signal at once. Chunks longer than
+ * {@code blockSize - kernelLength + 1} samples are split into blocks, shorter chunks are processed with zero latency
+ * (N.B. at the cost of a full block transform).
+ * <p>
+ * Usage example:
+ *
+ * <pre>
+ * {@code
+ * // offline
+ * final double[] filtered = BlockConvolution.convolve(signal, kernel);
+ * // streaming
+ * final BlockConvolution convolution = new BlockConvolution(kernel);
+ * // for each newly acquired chunk
+ * convolution.process(newSamples, 0, filtered, 0, newSamples.length);
+ * }
+ * </pre>
+ */
+public class BlockConvolution {
+    /**
+     * minimum number of samples (ie. signal length x kernel length) for which blocks are processed in parallel
+     */
+    public static final int MIN_PARALLEL_WORK = 1 << 20;
+    private static final int MIN_BLOCK_SIZE = 64;
+    private static final int DEFAULT_CACHE_LIMIT = 64;
+    private static final Cache<KernelKey, double[]> KERNEL_SPECTRA = Cache.<KernelKey, double[]>builder().withLimit(DEFAULT_CACHE_LIMIT).build();
+    private final int kernelLength;
+    private final int blockSize;
+    private final double[] kernelSpectrum;
+    private final double[] history; // last 'kernelLength - 1' input samples
+    private final double[] workspace;
+
+    /**
+     * @param kernel finite impulse response, N.B. copied
+     */
+    public BlockConvolution(final double[] kernel) {
+        this(kernel, getDefaultBlockSize(kernel == null ? 0 : kernel.length));
+    }
+
+    /**
+     * @param kernel finite impulse response, N.B. copied
+     * @param blockSize FFT block size, must be a power of two and at least twice the kernel length
+     */
+    public BlockConvolution(final double[] kernel, final int blockSize) {
+        checkArguments(kernel, blockSize);
+        kernelLength = kernel.length;
+        this.blockSize = blockSize;
+        kernelSpectrum = getKernelSpectrum(kernel, blockSize);
+        history = new double[kernelLength - 1];
+        workspace = new double[blockSize];
+    }
+
+    /**
+     * @return FFT block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * @return length of the finite impulse response
+     */
+    public int getKernelLength() {
+        return kernelLength;
+    }
+
+    /**
+     * @param input new input samples
+     * @return filtered samples
+     */
+    public double[] process(final double[] input) {
+        AssertUtils.notNull("input", input);
+        final double[] output = new double[input.length];
+        process(input, 0, output, 0, input.length);
+        return output;
+    }
+
+    /**
+     * filters the next chunk of the signal
+     *
+     * @param input input signal
+     * @param inputOffset index of the first new input sample
+     * @param output output signal, may be identical to input for in-place filtering (same offsets)
+     * @param outputOffset index of the first output sample
+     * @param length number of samples to be filtered
+     */
+    public void process(final double[] input, final int inputOffset, final double[] output, final int outputOffset, final int length) {
+        AssertUtils.notNull("input", input);
+        AssertUtils.notNull("output", output);
+        AssertUtils.gtEqThanZero("inputOffset", inputOffset);
+        AssertUtils.gtEqThanZero("outputOffset", outputOffset);
+        AssertUtils.gtEqThanZero("length", length);
+        AssertUtils.gtOrEqual("input", inputOffset + length, input.length);
+        AssertUtils.gtOrEqual("output", outputOffset + length, output.length);
+        final int historyLength = kernelLength - 1;
+        final int step = blockSize - historyLength;
+        final DoubleFFT_1D fft = FFTPlanCache.getDoubleFFT(blockSize);
+        for (int done = 0; done < length; done += step) {
+            final int n = Math.min(step, length - done);
+            // overlap-save: [history | new samples | zero padding]
+            System.arraycopy(history, 0, workspace, 0, historyLength);
+            System.arraycopy(input, inputOffset + done, workspace, historyLength, n);
+            Arrays.fill(workspace, historyLength + n, blockSize, 0.0);
+            System.arraycopy(workspace, n, history, 0, historyLength);
+            convolveBlock(fft, workspace, kernelSpectrum);
+            System.arraycopy(workspace, historyLength, output, outputOffset + done, n);
+        }
+    }
+
+    /**
+     * resets the input history, ie. the next sample is filtered as if it were the first one
+     */
+    public void reset() {
+        Arrays.fill(history, 0.0);
+    }
+
+    /**
+     * clears the cached kernel spectra
+     */
+    public static void clearCache() {
+        KERNEL_SPECTRA.clear();
+    }
+
+    /**
+     * @param signal input signal
+     * @param kernel finite impulse response
+     * @return causally filtered signal (same length as the input) using overlap-save with the default block size
+     */
+    public static double[] convolve(final double[] signal, final double[] kernel) {
+        return convolve(signal, kernel, getDefaultBlockSize(kernel == null ? 0 : kernel.length), Method.OVERLAP_SAVE);
+    }
+
+    /**
+     * @param signal input signal
+     * @param kernel finite impulse response
+     * @param blockSize FFT block size, must be a power of two and at least twice the kernel length
+     * @param method block convolution method
+     * @return causally filtered signal (same length as the input)
+     */
+    public static double[] convolve(final double[] signal, final double[] kernel, final int blockSize, final Method method) {
+        AssertUtils.notNull("signal", signal);
+        AssertUtils.notNull("method", method);
+        checkArguments(kernel, blockSize);
+        final double[] spectrum = getKernelSpectrum(kernel, blockSize);
+        final int historyLength = kernel.length - 1;
+        final int step = blockSize - historyLength;
+        final int nBlocks = (signal.length + step - 1) / step;
+        final long work = (long) signal.length * kernel.length;
+        final double[] output = new double[signal.length];
+        final DoubleFFT_1D fft = FFTPlanCache.getDoubleFFT(blockSize);
+
+        if (method == Method.OVERLAP_SAVE) {
+            // each block reads overlapping input segments and writes a distinct output range
+            processBlocks(0, nBlocks, 1, blockSize, work, (block, workspace) -> {
+                final int start = block * step;
+                final int n = Math.min(step, signal.length - start);
+                final int from = start - historyLength; // first input sample of this segment
+                Arrays.fill(workspace, 0.0);
+                final int skip = Math.max(0, -from);
+                System.arraycopy(signal, from + skip, workspace, skip, historyLength + n - skip);
+                convolveBlock(fft, workspace, spectrum);
+                System.arraycopy(workspace, historyLength, output, start, n);
+            });
+            return output;
+        }
+
+        // overlap-add: each block's response overlaps with the next block only (since step >= kernelLength - 1), ie.
+        // even and odd blocks are accumulated in two parallel passes
+        for (int parity = 0; parity < 2; parity++) {
+            processBlocks(parity, nBlocks, 2, blockSize, work / 2, (block, workspace) -> {
+                final int start = block * step;
+                final int n = Math.min(step, signal.length - start);
+                System.arraycopy(signal, start, workspace, 0, n);
+                Arrays.fill(workspace, n, blockSize, 0.0);
+                convolveBlock(fft, workspace, spectrum);
+                final int nOut = Math.min(n + historyLength, signal.length - start);
+                for (int i = 0; i < nOut; i++) {
+                    output[start + i] += workspace[i];
+                }
+            });
+        }
+        return output;
+    }
+
+    /**
+     * @param kernelLength length of the finite impulse response
+     * @return power-of-two block size of about four times the kernel length (trade-off between the per-block FFT
+     *         overhead and the redundant overlap computation)
+     */
+    public static int getDefaultBlockSize(final int kernelLength) {
+        AssertUtils.gtThanZero("kernelLength", kernelLength);
+        return ConcurrencyUtils.nextPow2(Math.max(4 * kernelLength, MIN_BLOCK_SIZE));
+    }
+
+    /**
+     * @param kernel finite impulse response
+     * @param blockSize FFT block size, must be a power of two and at least twice the kernel length
+     * @return the cached or newly computed (and cached) zero-padded kernel spectrum (JTransforms 'realForward' layout),
+     *         N.B. not to be modified
+     */
+    public static double[] getKernelSpectrum(final double[] kernel, final int blockSize) {
+        checkArguments(kernel, blockSize);
+        final double[] cached = KERNEL_SPECTRA.get(new KernelKey(kernel, blockSize));
+        if (cached != null) {
+            return cached;
+        }
+        // N.B. concurrent first requests may compute redundant but equivalent spectra
+        final double[] spectrum = Arrays.copyOf(kernel, blockSize);
+        FFTPlanCache.getDoubleFFT(blockSize).realForward(spectrum);
+        KERNEL_SPECTRA.put(new KernelKey(kernel.clone(), blockSize), spectrum);
+        return spectrum;
+    }
+
+    private static void checkArguments(final double[] kernel, final int blockSize) {
+        AssertUtils.notNull("kernel", kernel);
+        AssertUtils.nonEmptyArray("kernel", kernel);
+        if (!ConcurrencyUtils.isPowerOf2(blockSize) || blockSize < 2 * kernel.length) {
+            throw new IllegalArgumentException("blockSize = " + blockSize + " must be a power of two and >= 2 * kernel length = " + 2 * kernel.length);
+        }
+    }
+
+    /**
+     * circular convolution of the workspace with the kernel, N.B. in-place
+     *
+     * @param fft FFT plan matching the block size
+     * @param workspace input block, replaced by the convolved block
+     * @param spectrum kernel spectrum
+     */
+    private static void convolveBlock(final DoubleFFT_1D fft, final double[] workspace, final double[] spectrum) {
+        fft.realForward(workspace);
+        // N.B. realForward layout: [Re(0), Re(n/2), Re(1), Im(1), ...]
+        workspace[0] *= spectrum[0];
+        workspace[1] *= spectrum[1];
+        for (int i = 2; i < spectrum.length; i += 2) {
+            final double aRe = workspace[i];
+            final double aIm = workspace[i + 1];
+            final double bRe = spectrum[i];
+            final double bIm = spectrum[i + 1];
+            workspace[i] = aRe * bRe - aIm * bIm;
+            workspace[i + 1] = aRe * bIm + aIm * bRe;
+        }
+        fft.realInverse(workspace, true);
+    }
+
+    private static void processBlocks(final int first, final int end, final int stride, final int blockSize, final long work, final BlockProcessor processor) {
+        final int nBlocks = (end - first + stride - 1) / stride;
+        ConcurrencyUtils.forRange(0, nBlocks, work, MIN_PARALLEL_WORK, (fromBlock, toBlock) -> processChunk(first + stride * fromBlock, Math.min(end, first + stride * toBlock), stride, blockSize, processor));
+    }
+
+    private static void processChunk(final int start, final int end, final int stride, final int blockSize, final BlockProcessor processor) {
+        final double[] workspace = DoubleArrayCache.getInstance().getArrayExact(blockSize);
+        try {
+            for (int block = start; block < end; block += stride) {
+                processor.process(block, workspace);
+            }
+        } finally {
+            // return cached array
+            DoubleArrayCache.getInstance().add(workspace);
+        }
+    }
+
+    public enum Method {
+        /**
+         * input blocks overlap by the kernel length - 1, the circularly aliased output samples are discarded
+         */
+        OVERLAP_SAVE,
+        /**
+         * zero-padded input blocks are convolved separately, the overlapping responses are added
+         */
+        OVERLAP_ADD
+    }
+
+    @FunctionalInterface
+    private interface BlockProcessor {
+        void process(int block, double[] workspace);
+    }
+
+    private static class KernelKey {
+        private final double[] kernel;
+        private final int blockSize;
+        private final int hashCode;
+
+        private KernelKey(final double[] kernel, final int blockSize) {
+            this.kernel = kernel;
+            this.blockSize = blockSize;
+            hashCode = 31 * Arrays.hashCode(kernel) + blockSize;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof KernelKey)) {
+                return false;
+            }
+            final KernelKey other = (KernelKey) obj;
+            return blockSize == other.blockSize && hashCode == other.hashCode && Arrays.equals(kernel, other.kernel);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
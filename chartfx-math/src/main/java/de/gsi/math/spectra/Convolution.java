@@ -6,20 +6,23 @@ import java.util.Arrays;
 import org.jtransforms.fft.DoubleFFT_1D;
 
 import de.gsi.math.MathBase;
+import de.gsi.math.spectra.fft.FFTPlanCache;
 import de.gsi.math.utils.ConcurrencyUtils;
 
 /**
  * implementation of the discrete convolution algorithm via the fourier transform
  *
  * @author rstein
+ * @see BlockConvolution for the block-wise (overlap-save/-add) convolution of long or live signals with finite impulse
+ *      response kernels
  */
 public class Convolution {
+    private static final long MIN_PARALLEL_WORK = 1 << 16; // minimum number of complex products for parallel execution
     public DoubleFFT_1D f1dFFT;
 
     private void init(final int size) {
-        if (f1dFFT == null) {
-            f1dFFT = new DoubleFFT_1D(size);
-        }
+        // N.B. cached plan, ie. also valid if the size changed since the previous transform
+        f1dFFT = FFTPlanCache.getDoubleFFT(size);
     }
 
     public void Test() {
@@ -169,10 +172,21 @@ public class Convolution {
         return Arrays.copyOfRange(fdataFull, 2 * offset, 2 * offset + 2 * data.length);
     }
 
+    /**
+     * element-wise complex multiplication data1 = data1 * data2 of interleaved [re, im] arrays. Long spectra are split
+     * into contiguous chunks that are multiplied in parallel, the result does not depend on the number of threads.
+     * N.B. for long signals and short kernels, the {@link BlockConvolution} is usually faster and needs less memory.
+     *
+     * @param data1 first operand, overwritten with the product
+     * @param data2 second operand (may be the same array as {@code data1})
+     */
     public static void complexMultiply(final double[] data1, final double[] data2) {
-        // TODO: parallelise the multiplication
         final int length = data2.length >> 1;
-        for (int i = 0; i < length; i++) {
+        ConcurrencyUtils.forRange(0, length, length, MIN_PARALLEL_WORK, (from, to) -> complexMultiply(data1, data2, from, to));
+    }
+
+    private static void complexMultiply(final double[] data1, final double[] data2, final int from, final int to) {
+        for (int i = from; i < to; i++) {
             final int i2 = i << 1; // fast '2*i'
             final int i21 = i2 + 1; // fast '2*i + 1'
 
@@ -1,142 +1,95 @@
 package de.gsi.math.spectra;
 
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import de.gsi.dataset.DataSet;
 import de.gsi.dataset.spi.DataSetBuilder;
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.dataset.utils.CachedDaemonThreadFactory;
 import de.gsi.math.Math;
 import de.gsi.math.MathBase;
 import de.gsi.math.Spline;
-import de.gsi.math.TRandom;
 import de.gsi.math.matrix.MatrixD;
 import de.gsi.math.utils.ConcurrencyUtils;
 
 /**
+ * Ensemble empirical mode decomposition (EEMD) and Hilbert-Huang spectrum.
+ * <p>
+ * The noise-added EMD trials of the ensemble are independent and are computed in parallel on the common fork/join
+ * pool, each worker using its own sifting buffers. Every trial draws its noise from a separate random stream seeded
+ * from the user-supplied seed, thus the noise realisations are reproducible independent of the number of threads.
+ * The trials are accumulated in a fixed number of contiguous chunks that are reduced in chunk order, ie. the ensemble
+ * average is bit-identical independent of the number of processors.
+ * Instances hold no per-computation state and may be used for concurrent decompositions of different inputs.
+ * Progress is reported through an optional {@link ProgressListener}, running computations are cancelled via
+ * {@link CompletableFuture#cancel(boolean)} of {@link #eemdAsync}/{@link #getScalogramAsync} or by interrupting the
+ * calling thread of {@link #eemd(double[], double, int, long, ProgressListener)} or
+ * {@link #getScalogram(double[], int, int, ProgressListener)}.
+ *
  * @author rstein
  */
 public class EEMD {
-    private static TRandom rnd = new TRandom(0);
-    private int fstatus = 100;
+    private static final Logger LOGGER = LoggerFactory.getLogger(EEMD.class);
+    public static final long DEFAULT_SEED = 0L;
+    private static final int MAX_SIFTING_ITERATIONS = 30000;
+    private static final double BREAK_CRITERION = 1e-12; // 0.3;
+    private static final int N_CHUNKS = 16; // fixed -> summation order independent of the number of processors
+    private final AtomicInteger nRunning = new AtomicInteger();
+    private volatile int fstatus = 100; // progress of the most recent ensemble in percent
 
+    /**
+     * ensemble empirical mode decomposition using the {@link #DEFAULT_SEED}
+     *
+     * @param data input data
+     * @param rms_noise rms of the added white noise relative to the rms of the input data
+     * @param NE number of ensemble trials
+     * @return matrix [data.length][nModes + 3] with the input data (column 0), the ensemble-averaged intrinsic mode
+     *         functions (columns 1..nModes) and remainder (column nModes + 1), normalised to the rms of the input data
+     */
     public MatrixD eemd(final double[] data, final double rms_noise, final double NE) {
-        final int xsize = data.length;
-        final double[] X1 = new double[xsize];
-        final double[] xorigin = new double[xsize];
-        final double[] xstart = new double[xsize];
-        final double[] xstart_old = new double[xsize];
-        final double[] xend = new double[xsize];
-        // dd=1:1:xsize;
-        final double Ystd = Math.rms(data);
-
-        final int TNM = (int) Math.floor(MathBase.log2(xsize)) - 1;
-        final int TNM2 = TNM + 2;
-
-        final MatrixD allmode = new MatrixD(xsize, TNM2 + 1);
-        final MatrixD mode = new MatrixD(xsize, TNM2 + 1);
-
-        for (int iii = 0; iii < NE; iii++) {
-            for (int i = 0; i < xsize; i++) {
-                final double temp = rnd.Gaus(0, rms_noise);
-                X1[i] = data[i] / Ystd + temp;
-            }
-
-            for (int jj = 0; jj < xsize; jj++) {
-                mode.set(jj, 0, data[jj]);
-            }
-
-            System.arraycopy(X1, 0, xorigin, 0, xsize);
-            System.arraycopy(X1, 0, xend, 0, xsize);
-
-            for (int nmode = 1; nmode < TNM; nmode++) {
-                System.arraycopy(xend, 0, xstart, 0, xsize);
-                System.arraycopy(xend, 0, xstart_old, 0, xsize);
-
-                fstatus = (int) ((double) nmode / (double) TNM) * 100;
-                // the sifting process
-                // need to implement a more proper break condition than
-                // limited number of interactions
-                boolean abort = false;
-                for (int iter = 0; iter < 30000; iter++) {
-                    final double[][] spmax = SpectrumTools.computeMaxima(xstart);
-                    final double[][] spmin = SpectrumTools.computeMinima(xstart);
-                    final int nextrema = spmax[0].length + spmin[0].length;
-                    final int ncrossing = computeZeroCrossings(xstart);
-
-                    if (spmax[0].length < 3 || spmin[0].length < 3) {
-                        abort = true;
-                        System.err.println("break loop: iter = " + iter + " nmode " + nmode);
-                        break;
-                    }
-
-                    // System.err.printf("extrema %d vs. %d zero-crossings = %d vs (%d)\n", spmax[0].length,
-                    // spmin[0].length, ncrossing, nextrema);
-
-                    final Spline upper = new Spline(spmax[0], spmax[1]);
-                    final Spline lower = new Spline(spmin[0], spmin[1]);
-
-                    for (int i = 0; i < xsize; i++) {
-                        final double mean_ul = (upper.getValue(i) + lower.getValue(i)) / 2.0;
-                        xstart[i] -= mean_ul;
-                    }
-                    // final double residual = TMath.Mean(xstart);
-                    // final double rms = TMath.RMS(xstart);
-                    // System.err.printf("mode %d iter %d -> residual = %f\n",
-                    // nmode, iter, residual/rms);
-
-                    // check breaking condition
-                    double sum_sqr = 0, diff_sqr = 0;
-                    for (int i = 0; i < xstart.length; i++) {
-                        diff_sqr += MathBase.sqr(xstart_old[i] - xstart[i]);
-                        sum_sqr += MathBase.sqr(xstart_old[i]);
-                    }
-
-                    final double break_crit = 1e-12; // 0.3;
-
-                    final double estimate = sum_sqr != 0 ? diff_sqr / sum_sqr : 42;
-
-                    if (true) {
-                        if (sum_sqr == 0 || estimate < break_crit) {
-                            System.err.printf("break at mode %d and  iteration %d with criteria %e\n", nmode, iter,
-                                    estimate);
-                            break;
-                        }
-                    }
-
-                    if (true) {
-                        if (sum_sqr == 0 || Math.abs(nextrema - ncrossing) <= 0) {
-                            System.err.printf("break (crossing) at mode %d and  iteration %d with criteria %f\n", nmode,
-                                    iter, diff_sqr / sum_sqr);
-                            break;
-                        }
-                    }
-
-                    System.arraycopy(xstart, 0, xstart_old, 0, xstart.length);
-                }
-                for (int i = 0; i < xsize; i++) {
-                    xend[i] -= xstart[i];
-                }
-
-                // System.out.printf("store mode %d -> %f\n", nmode,
-                // TMath.RMS(xstart));
-                for (int jj = 0; jj < xsize; jj++) {
-                    mode.set(jj, nmode, xstart[jj]);
-                }
-
-                if (abort) {
-                    nmode = TNM + 1;
-                }
-            }
-
-            // store remainder of the sifting process
-            for (int jj = 0; jj < xsize; jj++) {
-                mode.set(jj, TNM + 1, xend[jj]);
-            }
-
-            allmode.plus(mode);
-        }
+        return eemd(data, rms_noise, (int) Math.ceil(NE), DEFAULT_SEED, null);
+    }
 
-        allmode.times(1.0 / NE);
-        allmode.times(Ystd);
+    /**
+     * ensemble empirical mode decomposition. The trials are computed in parallel, the calling thread participates in the
+     * computation and blocks until all trials are completed.
+     *
+     * @param data input data
+     * @param rmsNoise rms of the added white noise relative to the rms of the input data
+     * @param nEnsemble number of ensemble trials
+     * @param seed seed of the per-trial noise generators
+     * @param listener optional progress listener (may be {@code null})
+     * @return matrix [data.length][nModes + 3] with the input data (column 0), the ensemble-averaged intrinsic mode
+     *         functions (columns 1..nModes) and remainder (column nModes + 1), normalised to the rms of the input data
+     * @throws CancellationException if the calling thread has been interrupted
+     */
+    public MatrixD eemd(final double[] data, final double rmsNoise, final int nEnsemble, final long seed, final ProgressListener listener) {
+        final Thread caller = Thread.currentThread();
+        return computeEnsemble(data, rmsNoise, nEnsemble, seed, listener, caller::isInterrupted);
+    }
 
-        return mode;
+    /**
+     * ensemble empirical mode decomposition computed asynchronously
+     *
+     * @param data input data (N.B. not copied, must not be modified until the computation is completed)
+     * @param rmsNoise rms of the added white noise relative to the rms of the input data
+     * @param nEnsemble number of ensemble trials
+     * @param seed seed of the per-trial noise generators
+     * @param listener optional progress listener (may be {@code null})
+     * @return future of the decomposition (see {@link #eemd(double[], double, int, long, ProgressListener)}),
+     *         cancelling the future aborts the pending trials
+     */
+    public CompletableFuture<MatrixD> eemdAsync(final double[] data, final double rmsNoise, final int nEnsemble, final long seed, final ProgressListener listener) {
+        checkArguments(data, nEnsemble);
+        return supplyAsync(cancelled -> computeEnsemble(data, rmsNoise, nEnsemble, seed, listener, cancelled));
     }
 
     /**
@@ -147,9 +100,53 @@ public class EEMD {
      * @param nQuanty quantisation in Y
      * @return the complex HHT spectrum
      */
-    public synchronized DataSet getScalogram(final double[] data, final int nQuantx, final int nQuanty) {
+    public DataSet getScalogram(final double[] data, final int nQuantx, final int nQuanty) {
+        return getScalogram(data, nQuantx, nQuanty, null);
+    }
+
+    /**
+     * EMD spectrum implementation. Blocks until the spectrum is computed.
+     *
+     * @param data input data
+     * @param nQuantx quantisation in X
+     * @param nQuanty quantisation in Y
+     * @param listener optional progress listener (may be {@code null}), notified after the decomposition and after the
+     *        spectrum of each mode
+     * @return the complex HHT spectrum
+     * @throws CancellationException if the calling thread has been interrupted
+     */
+    public DataSet getScalogram(final double[] data, final int nQuantx, final int nQuanty, final ProgressListener listener) {
+        AssertUtils.notNull("data", data);
+        final Thread caller = Thread.currentThread();
+        return computeScalogram(data, listener, caller::isInterrupted);
+    }
+
+    /**
+     * EMD spectrum computed asynchronously
+     *
+     * @param data input data (N.B. not copied, must not be modified until the computation is completed)
+     * @param nQuantx quantisation in X
+     * @param nQuanty quantisation in Y
+     * @param listener optional progress listener (may be {@code null}), notified after the decomposition and after the
+     *        spectrum of each mode
+     * @return future of the complex HHT spectrum, cancelling the future aborts the pending computation
+     */
+    public CompletableFuture<DataSet> getScalogramAsync(final double[] data, final int nQuantx, final int nQuanty, final ProgressListener listener) {
+        AssertUtils.notNull("data", data);
+        return supplyAsync(cancelled -> computeScalogram(data, listener, cancelled));
+    }
+
+    private DataSet computeScalogram(final double[] data, final ProgressListener listener, final BooleanSupplier cancelled) {
+        nRunning.incrementAndGet();
+        try {
+            return buildScalogram(data, computeSpectrumArray(data, listener, cancelled));
+        } finally {
+            nRunning.decrementAndGet();
+        }
+    }
+
+    private static DataSet buildScalogram(final double[] data, final double[][] spectrum) {
         // create and return data set.
-        fstatus = 0;
         final int nsamples = data.length;
         final double[] time = new double[nsamples];
         final double[] frequency = new double[nsamples / 2];
@@ -165,14 +162,17 @@ public class EEMD {
         final DataSet ds = new DataSetBuilder("HilbertSpectrum") //
                                    .setValues(DataSet.DIM_X, time) //
                                    .setValues(DataSet.DIM_Y, frequency) //
-                                   .setValues(DataSet.DIM_Z, getSpectrumArray(data, nQuantx, nQuanty)) //
+                                   .setValues(DataSet.DIM_Z, spectrum) //
                                    .build();
 
-        fstatus = 100;
         return ds;
     }
 
     public double[][] getSpectrumArray(final double[] data, final int nQuantx, final int Quanty) {
+        return computeSpectrumArray(data, null, () -> false);
+    }
+
+    private double[][] computeSpectrumArray(final double[] data, final ProgressListener listener, final BooleanSupplier cancelled) {
         final int nsamples = data.length;
         // required index[yrange][xrange]
         final double[][] ret = new double[nsamples / 2][nsamples];
@@ -183,10 +183,17 @@ public class EEMD {
         }
 
         final HilbertTransform hilbert = new HilbertTransform();
-        final MatrixD emd = eemd(data, 0, 1.0);
+        final MatrixD emd = computeEnsemble(data, 0, 1, DEFAULT_SEED, null, cancelled);
         final double[] mode = new double[nsamples];
         final int nmodes = emd.getColumnDimension() - 1;
+        // N.B. progress steps: the decomposition and the spectrum of each mode
+        if (listener != null) {
+            listener.progress(1, nmodes);
+        }
         for (int nmode = 1; nmode < nmodes; nmode++) {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("EEMD computation has been cancelled");
+            }
             for (int j = 0; j < nsamples; j++) {
                 mode[j] = emd.get(j, nmode);
             }
@@ -215,6 +222,9 @@ public class EEMD {
                     }
                 }
             }
+            if (listener != null) {
+                listener.progress(nmode + 1, nmodes);
+            }
         }
 
         return ret;
@@ -222,16 +232,74 @@ public class EEMD {
 
     /**
      * @return progress of pending calculations in percent
+     * @deprecated ambiguous for concurrent decompositions, use a {@link ProgressListener} instead
      */
+    @Deprecated
     public int getStatus() {
-        return fstatus;
+        return nRunning.get() == 0 ? 100 : Math.min(99, fstatus);
     }
 
     /**
      * @return whether class is busy computing a spectra
+     * @deprecated use the {@link CompletableFuture} returned by {@link #eemdAsync} instead
      */
+    @Deprecated
     public boolean isBusy() {
-        return fstatus < 100;
+        return nRunning.get() > 0;
+    }
+
+    private MatrixD computeEnsemble(final double[] data, final double rmsNoise, final int nEnsemble, final long seed, final ProgressListener listener, final BooleanSupplier cancelled) {
+        checkArguments(data, nEnsemble);
+        final int xsize = data.length;
+        final double Ystd = Math.rms(data);
+        final int TNM = (int) Math.floor(MathBase.log2(xsize)) - 1;
+        final int TNM2 = TNM + 2;
+
+        // per-trial seeds drawn upfront -> noise realisations independent of the trial scheduling
+        final Random seeder = new Random(seed);
+        final long[] seeds = new long[nEnsemble];
+        for (int trial = 0; trial < nEnsemble; trial++) {
+            seeds[trial] = seeder.nextLong();
+        }
+
+        nRunning.incrementAndGet();
+        fstatus = 0;
+        try {
+            final AtomicInteger nCompleted = new AtomicInteger();
+            final int nChunks = Math.min(nEnsemble, N_CHUNKS);
+            final Workspace[] workspaces = new Workspace[nChunks];
+            ConcurrencyUtils.forChunks(0, nEnsemble, nChunks, (chunk, from, to) -> {
+                final Workspace workspace = new Workspace(xsize, TNM2 + 1);
+                workspaces[chunk] = workspace;
+                for (int trial = from; trial < to; trial++) {
+                    workspace.sift(data, Ystd, rmsNoise, new Random(seeds[trial]), TNM, cancelled);
+                    final int completed = nCompleted.incrementAndGet();
+                    fstatus = (int) (100L * completed / nEnsemble);
+                    if (listener != null) {
+                        listener.progress(completed, nEnsemble);
+                    }
+                }
+            });
+
+            // reduce in fixed chunk order
+            final MatrixD allmode = new MatrixD(xsize, TNM2 + 1);
+            final double[][] result = allmode.getArray();
+            for (int jj = 0; jj < xsize; jj++) {
+                result[jj][0] = data[jj];
+            }
+            for (int nmode = 1; nmode <= TNM2; nmode++) {
+                for (int jj = 0; jj < xsize; jj++) {
+                    double sum = 0.0;
+                    for (final Workspace workspace : workspaces) {
+                        sum += workspace.modeSum[nmode][jj];
+                    }
+                    result[jj][nmode] = sum / nEnsemble;
+                }
+            }
+            return allmode;
+        } finally {
+            nRunning.decrementAndGet();
+        }
     }
 
     public static int computeZeroCrossings(final double[] data) {
@@ -306,4 +374,140 @@ public class EEMD {
 
         return kk + ll > 2 ? 1 : -1;
     }
+
+    /**
+     * @param task computation to be executed on the {@link CachedDaemonThreadFactory#getCommonPool()}, polling the
+     *        supplied cancellation flag
+     * @return future of the computation, cancelling the future raises the task's cancellation flag
+     */
+    private static <T> CompletableFuture<T> supplyAsync(final Function<BooleanSupplier, T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        CachedDaemonThreadFactory.getCommonPool().execute(() -> {
+            try {
+                result.complete(task.apply(result::isDone));
+            } catch (final CancellationException e) {
+                result.cancel(false);
+            } catch (final RuntimeException e) { // NOPMD -- forwarded to the future's consumer
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private static void checkArguments(final double[] data, final int nEnsemble) {
+        AssertUtils.notNull("data", data);
+        AssertUtils.gtThanZero("nEnsemble", nEnsemble);
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * N.B. invoked concurrently from the worker threads
+         *
+         * @param completedSteps number of completed ensemble trials (or scalogram steps)
+         * @param nSteps total number of ensemble trials (or scalogram steps)
+         */
+        void progress(final int completedSteps, final int nSteps);
+    }
+
+    /**
+     * per-worker sifting buffers and partial sums of the extracted modes
+     */
+    private static class Workspace {
+        private final double[] xstart;
+        private final double[] xstart_old;
+        private final double[] xend;
+        private final double[][] modeSum; // [mode][sample]
+
+        private Workspace(final int xsize, final int nColumns) {
+            xstart = new double[xsize];
+            xstart_old = new double[xsize];
+            xend = new double[xsize];
+            modeSum = new double[nColumns][xsize];
+        }
+
+        /**
+         * one noise-added EMD trial
+         */
+        private void sift(final double[] data, final double Ystd, final double rmsNoise, final Random random, final int TNM, final BooleanSupplier cancelled) {
+            final int xsize = data.length;
+            for (int i = 0; i < xsize; i++) {
+                final double temp = rmsNoise == 0.0 ? 0.0 : rmsNoise * random.nextGaussian();
+                xend[i] = data[i] / Ystd + temp;
+            }
+
+            for (int nmode = 1; nmode < TNM; nmode++) {
+                System.arraycopy(xend, 0, xstart, 0, xsize);
+                System.arraycopy(xend, 0, xstart_old, 0, xsize);
+
+                // the sifting process
+                // need to implement a more proper break condition than
+                // limited number of interactions
+                boolean abort = false;
+                for (int iter = 0; iter < MAX_SIFTING_ITERATIONS; iter++) {
+                    if (cancelled.getAsBoolean()) {
+                        throw new CancellationException("EEMD computation has been cancelled");
+                    }
+                    final double[][] spmax = SpectrumTools.computeMaxima(xstart);
+                    final double[][] spmin = SpectrumTools.computeMinima(xstart);
+                    final int nextrema = spmax[0].length + spmin[0].length;
+                    final int ncrossing = computeZeroCrossings(xstart);
+
+                    if (spmax[0].length < 3 || spmin[0].length < 3) {
+                        abort = true;
+                        LOGGER.atTrace().addArgument(iter).addArgument(nmode).log("break loop: iter = {} nmode {}");
+                        break;
+                    }
+
+                    final Spline upper = new Spline(spmax[0], spmax[1]);
+                    final Spline lower = new Spline(spmin[0], spmin[1]);
+
+                    for (int i = 0; i < xsize; i++) {
+                        final double mean_ul = (upper.getValue(i) + lower.getValue(i)) / 2.0;
+                        xstart[i] -= mean_ul;
+                    }
+
+                    // check breaking condition
+                    double sum_sqr = 0;
+                    double diff_sqr = 0;
+                    for (int i = 0; i < xsize; i++) {
+                        diff_sqr += MathBase.sqr(xstart_old[i] - xstart[i]);
+                        sum_sqr += MathBase.sqr(xstart_old[i]);
+                    }
+
+                    final double estimate = sum_sqr != 0 ? diff_sqr / sum_sqr : 42;
+
+                    if (sum_sqr == 0 || estimate < BREAK_CRITERION) {
+                        LOGGER.atTrace().addArgument(nmode).addArgument(iter).addArgument(estimate).log("break at mode {} and iteration {} with criteria {}");
+                        break;
+                    }
+
+                    if (nextrema == ncrossing) {
+                        LOGGER.atTrace().addArgument(nmode).addArgument(iter).addArgument(estimate).log("break (crossing) at mode {} and iteration {} with criteria {}");
+                        break;
+                    }
+
+                    System.arraycopy(xstart, 0, xstart_old, 0, xsize);
+                }
+                for (int i = 0; i < xsize; i++) {
+                    xend[i] -= xstart[i];
+                }
+
+                final double[] sum = modeSum[nmode];
+                for (int jj = 0; jj < xsize; jj++) {
+                    sum[jj] += xstart[jj];
+                }
+
+                if (abort) {
+                    break;
+                }
+            }
+
+            // store remainder of the sifting process
+            final double[] remainder = modeSum[TNM + 1];
+            for (int jj = 0; jj < xsize; jj++) {
+                remainder[jj] += xend[jj];
+            }
+        }
+    }
 }
@@ -15,6 +15,8 @@ import de.gsi.dataset.spi.DoubleGridDataSet;
 import de.gsi.dataset.spi.MultiDimDoubleDataSet;
 import de.gsi.dataset.utils.AssertUtils;
 import de.gsi.dataset.utils.DoubleArrayCache;
+import de.gsi.math.spectra.fft.FFTPlanCache;
+import de.gsi.math.utils.ConcurrencyUtils;
 
 /**
  * Static utility class providing magnitude spectrograms from complex and real valued input data.
@@ -26,6 +28,10 @@ import de.gsi.dataset.utils.DoubleArrayCache;
  * @author Alexander Krimm
  */
 public class ShortTimeFourierTransform {
+    /**
+     * minimum number of samples (ie. frames x nFFT) for which the frames are processed in parallel
+     */
+    public static final int MIN_PARALLEL_WORK = 1 << 16;
     /**
      * Applies the apodization function to data in "interleaved" complex array.
      * 
@@ -135,11 +141,9 @@ public class ShortTimeFourierTransform {
         AssertUtils.equalDoubleArrays(real, imag); // check for same length
         final int nT = ceilDiv(real.length, step); // number of time steps
         final double[] amplitudeData = output == null || output.length != nFFT * nT ? new double[nFFT * nT] : output; // output array
-        final double[] currentMagnitudeData = DoubleArrayCache.getInstance().getArray(nFFT);
         // calculate spectrogram
-        final DoubleFFT_1D fastFourierTrafo = new DoubleFFT_1D(nFFT);
-        final double[] raw = DoubleArrayCache.getInstance().getArrayExact(2 * nFFT); // array to perform calculations in
-        for (int i = 0; i < nT; i++) {
+        final DoubleFFT_1D fastFourierTrafo = FFTPlanCache.getDoubleFFT(nFFT);
+        processFrames(nT, nFFT, 2 * nFFT, nFFT, (i, raw, currentMagnitudeData) -> {
             // obtain input data for FFT
             final int offset = i * step;
             final int validLength = real.length - offset;
@@ -178,10 +182,7 @@ public class ShortTimeFourierTransform {
             // copy output into result array (layout of spectrum is 0, ..., fmax, 0, ..., fmin)
             System.arraycopy(currentMagnitudeData, 0, amplitudeData, i * nFFT + nFFT / 2, nFFT / 2);
             System.arraycopy(currentMagnitudeData, nFFT / 2, amplitudeData, i * nFFT, nFFT / 2);
-        }
-        // return cached arrays
-        DoubleArrayCache.getInstance().add(currentMagnitudeData);
-        DoubleArrayCache.getInstance().add(raw);
+        });
         return amplitudeData;
     }
 
@@ -189,11 +190,9 @@ public class ShortTimeFourierTransform {
             final Padding padding, final boolean dbScale, final boolean truncateDCNy) {
         final int nT = ceilDiv(complexInput.length, 2 * step); // number of time steps
         final double[] amplitudeData = output == null || output.length != nFFT * nT ? new double[nFFT * nT] : output; // output array
-        final double[] currentMagnitudeData = DoubleArrayCache.getInstance().getArray(nFFT);
         // calculate spectrogram
-        final DoubleFFT_1D fastFourierTrafo = new DoubleFFT_1D(nFFT);
-        final double[] raw = DoubleArrayCache.getInstance().getArrayExact(2 * nFFT); // array to perform calculations in
-        for (int i = 0; i < nT; i++) {
+        final DoubleFFT_1D fastFourierTrafo = FFTPlanCache.getDoubleFFT(nFFT);
+        processFrames(nT, nFFT, 2 * nFFT, nFFT, (i, raw, currentMagnitudeData) -> {
             // obtain input data for FFT
             final int offset = i * 2 * step;
             final int validLength = complexInput.length - offset;
@@ -233,10 +232,7 @@ public class ShortTimeFourierTransform {
             // copy output into result array (layout of spectrum is 0, ..., fmax, 0, ..., fmin)
             System.arraycopy(currentMagnitudeData, 0, amplitudeData, i * nFFT + nFFT / 2, nFFT / 2);
             System.arraycopy(currentMagnitudeData, nFFT / 2, amplitudeData, i * nFFT, nFFT / 2);
-        }
-        // return cached arrays
-        DoubleArrayCache.getInstance().add(currentMagnitudeData);
-        DoubleArrayCache.getInstance().add(raw);
+        });
         return amplitudeData;
     }
 
@@ -330,11 +326,9 @@ public class ShortTimeFourierTransform {
             final Padding padding, final boolean dbScale, final boolean truncateDCNy) {
         final int nT = ceilDiv(input.length, step); // number of time steps
         final double[] amplitudeData = output == null || output.length != nFFT / 2 * nT ? new double[nFFT / 2 * nT] : output; // output array
-        final double[] currentMagnitudeData = DoubleArrayCache.getInstance().getArray(nFFT / 2);
         // calculate spectrogram
-        final DoubleFFT_1D fastFourierTrafo = new DoubleFFT_1D(nFFT);
-        final double[] raw = DoubleArrayCache.getInstance().getArrayExact(nFFT); // array to perform calculations in
-        for (int i = 0; i < nT; i++) {
+        final DoubleFFT_1D fastFourierTrafo = FFTPlanCache.getDoubleFFT(nFFT);
+        processFrames(nT, nFFT, nFFT, nFFT / 2, (i, raw, currentMagnitudeData) -> {
             // obtain input data for FFT
             final int offset = i * step;
             final int validLength = input.length - offset;
@@ -368,12 +362,43 @@ public class ShortTimeFourierTransform {
                 SpectrumTools.computeMagnitudeSpectrum(raw, 0, nFFT, currentMagnitudeData, 0, truncateDCNy);
             }
             System.arraycopy(currentMagnitudeData, 0, amplitudeData, i * nFFT / 2, nFFT / 2);
+        });
+        return amplitudeData;
+    }
+
+    /**
+     * Processes the frames of a spectrogram. Above {@link #MIN_PARALLEL_WORK} samples, the frames are split into
+     * contiguous chunks which are processed in parallel on the common fork/join pool. Each chunk obtains its own
+     * scratch buffers from the {@link DoubleArrayCache}, ie. no arrays are allocated once the cache is warmed up.
+     * 
+     * @param nFrames number of time steps
+     * @param nFFT number of samples per frame
+     * @param rawLength exact length of the raw scratch buffer
+     * @param magnitudeLength minimum length of the magnitude scratch buffer
+     * @param processor the per-frame computation, must only write to the output region of its frame
+     */
+    private static void processFrames(final int nFrames, final int nFFT, final int rawLength, final int magnitudeLength, final FrameProcessor processor) {
+        final long work = (long) nFrames * nFFT;
+        ConcurrencyUtils.forRange(0, nFrames, work, MIN_PARALLEL_WORK, (start, end) -> processChunk(start, end, rawLength, magnitudeLength, processor));
+    }
+
+    private static void processChunk(final int start, final int end, final int rawLength, final int magnitudeLength, final FrameProcessor processor) {
+        final double[] raw = DoubleArrayCache.getInstance().getArrayExact(rawLength); // array to perform calculations in
+        final double[] magnitude = DoubleArrayCache.getInstance().getArray(magnitudeLength);
+        try {
+            for (int i = start; i < end; i++) {
+                processor.process(i, raw, magnitude);
+            }
+        } finally {
+            // return cached arrays
+            DoubleArrayCache.getInstance().add(magnitude);
+            DoubleArrayCache.getInstance().add(raw);
         }
-        // return cached arrays
-        DoubleArrayCache.getInstance().add(currentMagnitudeData);
-        DoubleArrayCache.getInstance().add(raw);
+    }
 
-        return amplitudeData;
+    @FunctionalInterface
+    private interface FrameProcessor {
+        void process(int frame, double[] raw, double[] magnitude);
     }
 
     public enum Padding {
@@ -0,0 +1,348 @@
+package de.gsi.math.spectra;
+
+import static de.gsi.dataset.DataSet.DIM_X;
+import static de.gsi.dataset.DataSet.DIM_Y;
+import static de.gsi.dataset.DataSet.DIM_Z;
+
+import java.util.Arrays;
+
+import org.jtransforms.fft.DoubleFFT_1D;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.GridDataSet;
+import de.gsi.dataset.event.UpdatedDataEvent;
+import de.gsi.dataset.spi.DoubleGridDataSet;
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.math.spectra.fft.FFTPlanCache;
+
+/**
+ * Stateful streaming variant of the real-valued {@link ShortTimeFourierTransform}.
+ * <p>
+ * Instead of re-transforming the whole input on each update, only the samples appended since the previous call are
+ * consumed (e.g. from a {@link de.gsi.dataset.spi.CircularDoubleErrorDataSet}). The last {@code nFFT} samples are kept
+ * as overlap state between the calls and a new spectral column is emitted every {@code step} samples. The new columns
+ * are appended to a rolling {@link GridDataSet} holding the last {@code nColumns} spectra, dropping the oldest ones.
+ * <p>
+ * The emitted frames are identical to those of {@link ShortTimeFourierTransform#real} for frames that do not require
+ * padding, the time of a column is the x-coordinate of the first sample of its frame.
+ * <p>
+ * For each update, the latency of the new columns (ie. time from the arrival of their last sample until their spectrum
+ * is computed) is available via {@link #getColumnLatencies()}, the latency until the output DataSet has been updated
+ * is stored in its meta info under {@value #LATENCY_META_KEY}.
+ * <p>
+ * If a circular input DataSet has overwritten samples before they could be consumed (ie. the oldest sample of the
+ * input is more than one sampling interval after the last consumed one), the overlap state is discarded rather than
+ * computing frames across the gap. The already emitted columns are retained and the number of such overruns is
+ * available via {@link #getOverrunCount()} and in the output meta info under {@value #OVERRUN_META_KEY}.
+ * <p>
+ * N.B. instances are not thread-safe, ie. updates have to be performed from a single thread at a time, while the output
+ * DataSet may be read concurrently.
+ */
+public class StreamingShortTimeFourierTransform {
+    public static final String LATENCY_META_KEY = "StreamingSTFT-latency[ns]";
+    public static final String OVERRUN_META_KEY = "StreamingSTFT-overruns";
+    private final int nFFT;
+    private final int nFreq;
+    private final int step;
+    private final int nColumns;
+    private final Apodization apodization;
+    private final boolean dbScale;
+    private final boolean truncateDCNy;
+    private final DoubleFFT_1D fastFourierTrafo;
+    private final DoubleGridDataSet output;
+    // overlap state: ring buffers of the last nFFT samples
+    private final double[] xHistory;
+    private final double[] yHistory;
+    private final double[] raw;
+    private final double[] magnitude;
+    private final long[] columnLatencies;
+    private long nSamples; // total number of consumed samples
+    private long nHistory; // number of consumed samples since the overlap state has been (re-)started
+    private long nOverruns;
+    private double lastX = Double.NaN;
+    private double[] pending = new double[0]; // spectra of the new columns of an update
+    private double[] pendingTimes = new double[0];
+    private int nLatencies;
+    private int nPending; // new columns not yet published to the output
+    private boolean outputCleared;
+    private double[] frequencyAxis;
+    private double[] timeAxis = new double[0];
+    private double[] amplitudeData = new double[0];
+    private String timeUnit = "s";
+    private String amplitudeUnit = "a.u.";
+
+    /**
+     * @param nFFT the number of samples per frame
+     * @param step the time step size in samples between two frames
+     * @param nColumns the maximum number of spectral columns retained in the output
+     * @param apodization the apodization window function
+     * @param dbScale {@code true} to convert the spectrum to dB scale
+     * @param truncateDCNy {@code true} to interpolate the DC- and Nyquist-bins to their respective nearest neighbours
+     */
+    public StreamingShortTimeFourierTransform(final int nFFT, final int step, final int nColumns, final Apodization apodization, final boolean dbScale,
+            final boolean truncateDCNy) {
+        AssertUtils.gtThanZero("nFFT", nFFT);
+        AssertUtils.gtThanZero("step", step);
+        AssertUtils.gtThanZero("nColumns", nColumns);
+        AssertUtils.notNull("apodization", apodization);
+        if (nFFT < 2 || nFFT % 2 != 0) {
+            throw new IllegalArgumentException("nFFT = " + nFFT + " must be an even number");
+        }
+        this.nFFT = nFFT;
+        this.nFreq = nFFT / 2;
+        this.step = step;
+        this.nColumns = nColumns;
+        this.apodization = apodization;
+        this.dbScale = dbScale;
+        this.truncateDCNy = truncateDCNy;
+        fastFourierTrafo = FFTPlanCache.getDoubleFFT(nFFT);
+        xHistory = new double[nFFT];
+        yHistory = new double[nFFT];
+        raw = new double[nFFT];
+        magnitude = new double[nFreq];
+        columnLatencies = new long[nColumns];
+        output = new DoubleGridDataSet("StreamingSTFT", false, new double[][] { new double[0], timeAxis }, amplitudeData);
+        output.getMetaInfo().put("RealSTFT-nFFT", Integer.toString(nFFT));
+        output.getMetaInfo().put("RealSTFT-step", Integer.toString(step));
+    }
+
+    /**
+     * Consumes the given samples.
+     *
+     * @param xValues the time coordinates
+     * @param yValues the sample values
+     * @param offset index of the first sample to be consumed
+     * @param length number of samples to be consumed
+     * @return number of new spectral columns
+     */
+    public int add(final double[] xValues, final double[] yValues, final int offset, final int length) {
+        AssertUtils.notNull("xValues", xValues);
+        AssertUtils.notNull("yValues", yValues);
+        AssertUtils.gtEqThanZero("offset", offset);
+        AssertUtils.gtEqThanZero("length", length);
+        AssertUtils.gtOrEqual("xValues", offset + length, xValues.length);
+        AssertUtils.gtOrEqual("yValues", offset + length, yValues.length);
+        final long arrival = System.nanoTime();
+        final int nNew = consume(arrival, length, index -> xValues[offset + index], index -> yValues[offset + index]);
+        publishPending(arrival);
+        return nNew;
+    }
+
+    /**
+     * @return the last up to {@code nColumns} spectra: grid dimensions are frequency (DIM_X) and time (DIM_Y), the
+     *         magnitude is stored in DIM_Z. N.B. the same instance is updated for each new batch of columns.
+     */
+    public GridDataSet getOutput() {
+        return output;
+    }
+
+    /**
+     * @return latencies in nanoseconds of the spectral columns emitted by the last update (oldest first), ie. time
+     *         between the arrival of the samples and the computation of the spectrum
+     */
+    public long[] getColumnLatencies() {
+        return Arrays.copyOf(columnLatencies, nLatencies);
+    }
+
+    /**
+     * @return number of input overruns, ie. unconsumed samples overwritten by the circular input DataSet, since
+     *         construction, the last {@link #reset()} or the last restart of the input x-coordinates (see
+     *         {@link #update(DataSet)})
+     */
+    public long getOverrunCount() {
+        return nOverruns;
+    }
+
+    /**
+     * @return total number of consumed samples since construction, the last {@link #reset()} or the last restart of
+     *         the input x-coordinates (see {@link #update(DataSet)})
+     */
+    public long getSampleCount() {
+        return nSamples;
+    }
+
+    /**
+     * resets the overlap state and clears the output DataSet
+     */
+    public void reset() {
+        clear();
+        publishPending(System.nanoTime());
+    }
+
+    /**
+     * Consumes the samples that have been appended to the input since the last update, ie. the trailing samples with x
+     * coordinates beyond the last consumed one. If the input x-coordinates restart (e.g. after clearing the input), the
+     * state is reset and all samples are consumed. If unconsumed samples have been overwritten, the overlap state is
+     * discarded and counted as overrun.
+     * <p>
+     * N.B. the output DataSet listeners are notified after the read lock of the input has been released.
+     *
+     * @param input equidistantly sampled DataSet sorted in x, e.g. a circular buffer DataSet
+     * @return number of new spectral columns
+     */
+    public int update(final DataSet input) {
+        AssertUtils.notNull("input", input);
+        final long arrival = System.nanoTime();
+        final int nNew = input.lock().readLockGuard(() -> {
+            final int n = input.getDataCount();
+            if (n == 0) {
+                return 0;
+            }
+            if (input.get(DIM_X, n - 1) < lastX) {
+                clear();
+            }
+            int first = n;
+            while (first > 0 && !(input.get(DIM_X, first - 1) <= lastX)) { // N.B. negated to also cover lastX = NaN
+                first--;
+            }
+            if (first == 0 && n > 1 && input.get(DIM_X, 0) - lastX > 1.5 * (input.get(DIM_X, 1) - input.get(DIM_X, 0))) {
+                // the samples following lastX have been overwritten -> do not compute frames across the gap
+                nHistory = 0;
+                nOverruns++;
+            }
+            timeUnit = input.getAxisDescription(DIM_X).getUnit();
+            amplitudeUnit = input.getAxisDescription(DIM_Y).getUnit();
+            final int start = first;
+            return consume(arrival, n - first, index -> input.get(DIM_X, start + index), index -> input.get(DIM_Y, start + index));
+        });
+        publishPending(arrival);
+        return nNew;
+    }
+
+    private void clear() {
+        nSamples = 0;
+        nHistory = 0;
+        nOverruns = 0;
+        lastX = Double.NaN;
+        nLatencies = 0;
+        nPending = 0;
+        timeAxis = new double[0];
+        amplitudeData = new double[0];
+        outputCleared = true;
+    }
+
+    private void computeFrame(final int column) {
+        // linearise the ring buffer, the oldest sample is at the current write position
+        final int pos = (int) (nHistory % nFFT);
+        System.arraycopy(yHistory, pos, raw, 0, nFFT - pos);
+        System.arraycopy(yHistory, 0, raw, nFFT - pos, pos);
+        pendingTimes[column] = xHistory[pos];
+        apodization.apodize(raw);
+        fastFourierTrafo.realForward(raw);
+        if (dbScale) {
+            SpectrumTools.computeMagnitudeSpectrum_dB(raw, 0, nFFT, magnitude, 0, truncateDCNy);
+        } else {
+            SpectrumTools.computeMagnitudeSpectrum(raw, 0, nFFT, magnitude, 0, truncateDCNy);
+        }
+        System.arraycopy(magnitude, 0, pending, column * nFreq, nFreq);
+    }
+
+    private int consume(final long arrival, final int length, final IndexedValue xValues, final IndexedValue yValues) {
+        // frames end at sample index k * step + nFFT - 1 -> number of frames completed by the new samples
+        final long framesBefore = countFrames(nHistory);
+        final int nNew = (int) (countFrames(nHistory + length) - framesBefore);
+        // only compute the frames which are retained in the output
+        final int nSkip = Math.max(0, nNew - nColumns);
+        final int nCompute = nNew - nSkip;
+        if (pending.length < nCompute * nFreq) {
+            pending = new double[nCompute * nFreq];
+            pendingTimes = new double[nCompute];
+        }
+        nLatencies = nCompute;
+
+        int frame = 0;
+        for (int i = 0; i < length; i++) {
+            final int pos = (int) (nHistory % nFFT);
+            xHistory[pos] = xValues.get(i);
+            yHistory[pos] = yValues.get(i);
+            nSamples++;
+            nHistory++;
+            if (nHistory >= nFFT && (nHistory - nFFT) % step == 0) {
+                if (frame >= nSkip) {
+                    computeFrame(frame - nSkip);
+                    columnLatencies[frame - nSkip] = System.nanoTime() - arrival;
+                }
+                frame++;
+            }
+        }
+        if (length > 0) {
+            lastX = xValues.get(length - 1);
+        }
+        nPending = nCompute;
+        return nNew;
+    }
+
+    private long countFrames(final long samples) {
+        return samples < nFFT ? 0 : (samples - nFFT) / step + 1;
+    }
+
+    private double getSamplingInterval() {
+        // oldest and newest samples of the current frame
+        final int pos = (int) (nHistory % nFFT);
+        final double dt = (xHistory[(pos + nFFT - 1) % nFFT] - xHistory[pos]) / (nFFT - 1);
+        return dt > 0 && Double.isFinite(dt) ? dt : 1.0;
+    }
+
+    private void publish(final int nNew) {
+        final int nOld = timeAxis.length;
+        final int nTotal = Math.min(nColumns, nOld + nNew);
+        final int nKeep = nTotal - nNew;
+        if (nTotal == nOld && frequencyAxis != null) {
+            // rolling update in place
+            output.lock().writeLockGuard(() -> {
+                roll(timeAxis, amplitudeData, nOld, nKeep, nNew);
+                updateAxes();
+            });
+            output.fireInvalidated(new UpdatedDataEvent(output, "added " + nNew + " spectra"));
+            return;
+        }
+        // initial filling: the grid has to be re-allocated
+        if (frequencyAxis == null) {
+            frequencyAxis = ShortTimeFourierTransform.getFrequencyAxisReal(getSamplingInterval(), nFFT, null);
+        }
+        final double[] newTimeAxis = Arrays.copyOf(timeAxis, nTotal);
+        final double[] newAmplitudeData = Arrays.copyOf(amplitudeData, nTotal * nFreq);
+        roll(newTimeAxis, newAmplitudeData, nOld, nKeep, nNew);
+        timeAxis = newTimeAxis;
+        amplitudeData = newAmplitudeData;
+        output.set(false, new double[][] { frequencyAxis, timeAxis }, amplitudeData);
+        output.lock().writeLockGuard(this::updateAxes);
+    }
+
+    private void publishPending(final long arrival) {
+        if (nPending > 0) {
+            publish(nPending);
+            output.getMetaInfo().put(LATENCY_META_KEY, Long.toString(System.nanoTime() - arrival));
+        } else if (outputCleared) {
+            output.set(false, new double[][] { frequencyAxis == null ? new double[0] : frequencyAxis, timeAxis }, amplitudeData);
+        }
+        if (nOverruns > 0) {
+            output.getMetaInfo().put(OVERRUN_META_KEY, Long.toString(nOverruns));
+        } else {
+            output.getMetaInfo().remove(OVERRUN_META_KEY);
+        }
+        nPending = 0;
+        outputCleared = false;
+    }
+
+    private void roll(final double[] times, final double[] values, final int nOld, final int nKeep, final int nNew) {
+        // drop the oldest columns and append the new ones
+        System.arraycopy(times, nOld - nKeep, times, 0, nKeep);
+        System.arraycopy(values, (nOld - nKeep) * nFreq, values, 0, nKeep * nFreq);
+        System.arraycopy(pendingTimes, 0, times, nKeep, nNew);
+        System.arraycopy(pending, 0, values, nKeep * nFreq, nNew * nFreq);
+    }
+
+    private void updateAxes() {
+        final String freqUnit = "s".equals(timeUnit) ? "Hz" : "1/" + timeUnit;
+        output.getAxisDescription(DIM_X).set("Frequency", freqUnit, frequencyAxis[0], frequencyAxis[frequencyAxis.length - 1]);
+        output.getAxisDescription(DIM_Y).set("Time", timeUnit, timeAxis[0], timeAxis[timeAxis.length - 1]);
+        output.getAxisDescription(DIM_Z).set("Magnitude", amplitudeUnit);
+        output.recomputeLimits(DIM_Z);
+    }
+
+    @FunctionalInterface
+    private interface IndexedValue {
+        double get(int index);
+    }
+}
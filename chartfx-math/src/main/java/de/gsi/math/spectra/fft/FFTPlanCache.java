@@ -0,0 +1,101 @@
+package de.gsi.math.spectra.fft;
+
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import org.jtransforms.fft.DoubleFFT_1D;
+import org.jtransforms.fft.FloatFFT_1D;
+
+import de.gsi.dataset.utils.Cache;
+
+/**
+ * Thread-safe cache of FFT plans (ie. transform instances with their pre-computed twiddle factors) keyed by transform
+ * type and size, avoiding to re-compute the plan for every transform of the same size, e.g. for each spectrum update.
+ * <p>
+ * N.B. the JTransforms transforms only read their plan during a transform, ie. the cached instances may be used
+ * concurrently from several threads.
+ */
+public final class FFTPlanCache {
+    private static final int DEFAULT_LIMIT = 64;
+    private static final Cache<PlanKey, Object> PLANS = Cache.<PlanKey, Object>builder().withLimit(DEFAULT_LIMIT).build();
+
+    private FFTPlanCache() {
+        // utility class
+    }
+
+    /**
+     * clears all cached plans
+     */
+    public static void clear() {
+        PLANS.clear();
+    }
+
+    /**
+     * @param type transform type
+     * @param size transform size
+     * @param factory constructor of the transform for a given size
+     * @param <T> generic transform type
+     * @return the cached or newly created (and cached) transform
+     */
+    public static <T> T get(final Class<T> type, final long size, final LongFunction<T> factory) {
+        final PlanKey key = new PlanKey(type, size);
+        final Object plan = PLANS.get(key);
+        if (plan != null) {
+            return type.cast(plan);
+        }
+        // N.B. concurrent first requests may create redundant but equivalent plans
+        final T newPlan = factory.apply(size);
+        PLANS.put(key, newPlan);
+        return newPlan;
+    }
+
+    /**
+     * @param size transform size
+     * @return the cached double precision FFT for the given size
+     */
+    public static DoubleFFT_1D getDoubleFFT(final long size) {
+        return get(DoubleFFT_1D.class, size, DoubleFFT_1D::new);
+    }
+
+    /**
+     * @param size transform size
+     * @return the cached single precision FFT for the given size
+     */
+    public static FloatFFT_1D getFloatFFT(final long size) {
+        return get(FloatFFT_1D.class, size, FloatFFT_1D::new);
+    }
+
+    /**
+     * @return the backing cache (N.B. mainly for diagnostics)
+     */
+    public static Map<?, ?> getPlans() {
+        return PLANS;
+    }
+
+    private static class PlanKey {
+        private final Class<?> type;
+        private final long size;
+
+        private PlanKey(final Class<?> type, final long size) {
+            this.type = type;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PlanKey)) {
+                return false;
+            }
+            final PlanKey other = (PlanKey) obj;
+            return type == other.type && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Long.hashCode(size);
+        }
+    }
+}
@@ -35,12 +35,18 @@
  */
 package de.gsi.math.utils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
+import java.util.stream.IntStream;
+
+import de.gsi.dataset.utils.AssertUtils;
 
 /**
  * Concurrency utilities.
@@ -49,6 +55,12 @@ import java.util.concurrent.ThreadFactory;
  * @author rstein - updates and code reformatting/removing obsolete code
  */
 public class ConcurrencyUtils {
+    /**
+     * number of chunks per worker thread into which {@link #forRange(int, int, long, long, RangeTask)} splits its range
+     * for load-balancing
+     */
+    public static final int CHUNKS_PER_THREAD = 4;
+
     private ConcurrencyUtils() {
         throw new IllegalStateException("Utility class");
     }
@@ -68,6 +80,97 @@ public class ConcurrencyUtils {
         return (int) Math.round(Math.pow(2.0, nextPow));
     }
 
+    /**
+     * Executes the task for the index range [from, to), split into (at most) {@code nChunks} contiguous chunks that are
+     * processed in parallel on the common fork/join pool. The chunk boundaries only depend on the range and the number
+     * of chunks, thus per-chunk partial results that are combined in chunk order do not depend on the number of threads.
+     *
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     * @param nChunks number of chunks, a single chunk is processed by the calling thread
+     * @param task the task to be executed for each chunk
+     */
+    public static void forChunks(final int from, final int to, final int nChunks, final ChunkTask task) {
+        AssertUtils.notNull("task", task);
+        final int length = to - from;
+        if (length <= 0) {
+            return;
+        }
+        final int n = Math.max(1, Math.min(length, nChunks));
+        if (n == 1) {
+            task.apply(0, from, to);
+            return;
+        }
+        IntStream.range(0, n).parallel().forEach(chunk -> task.apply(chunk, getChunkStart(from, length, chunk, n), getChunkStart(from, length, chunk + 1, n)));
+    }
+
+    /**
+     * Executes the task for the index range [from, to), split into contiguous chunks. The chunks are processed in
+     * parallel on the common fork/join pool if the estimated work of the whole range exceeds {@code minParallelWork}
+     * and more than one worker thread is available, otherwise the range is processed sequentially by the calling thread.
+     *
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     * @param work estimated work of the whole range (e.g. number of multiply-adds or samples)
+     * @param minParallelWork minimum work above which the range is processed in parallel
+     * @param task the task to be executed for each sub-range
+     */
+    public static void forRange(final int from, final int to, final long work, final long minParallelWork, final RangeTask task) {
+        final int nThreads = ForkJoinPool.getCommonPoolParallelism();
+        forRange(from, to, work < minParallelWork || nThreads <= 1 ? 1 : CHUNKS_PER_THREAD * nThreads, task);
+    }
+
+    /**
+     * Executes the task for the index range [from, to), split into (at most) {@code nChunks} contiguous chunks that are
+     * processed in parallel on the common fork/join pool.
+     *
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     * @param nChunks number of chunks, a single chunk is processed by the calling thread
+     * @param task the task to be executed for each sub-range
+     */
+    public static void forRange(final int from, final int to, final int nChunks, final RangeTask task) {
+        AssertUtils.notNull("task", task);
+        forChunks(from, to, nChunks, (chunk, start, stop) -> task.apply(start, stop));
+    }
+
+    /**
+     * Executes the task for the index range [from, to), split into (at most) {@code nChunks} contiguous chunks that are
+     * processed in parallel on the given executor. Blocks until all chunks are completed, pending chunks are cancelled
+     * if a chunk fails or the calling thread is interrupted.
+     *
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     * @param nChunks number of chunks
+     * @param executor the worker pool on which the chunks are executed
+     * @param task the task to be executed for each sub-range
+     * @throws InterruptedException if the calling thread has been interrupted while waiting
+     * @throws ExecutionException if the task failed for one of the chunks
+     */
+    public static void forRange(final int from, final int to, final int nChunks, final ExecutorService executor, final RangeTask task) throws InterruptedException, ExecutionException {
+        AssertUtils.notNull("executor", executor);
+        AssertUtils.notNull("task", task);
+        final int length = to - from;
+        if (length <= 0) {
+            return;
+        }
+        final int n = Math.max(1, Math.min(length, nChunks));
+        final List<Future<?>> futures = new ArrayList<>(n);
+        try {
+            for (int chunk = 0; chunk < n; chunk++) {
+                final int start = getChunkStart(from, length, chunk, n);
+                final int stop = getChunkStart(from, length, chunk + 1, n);
+                futures.add(executor.submit(() -> task.apply(start, stop)));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException | ExecutionException | RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
     /**
      * Returns the number of available processors
      *
@@ -224,6 +327,29 @@ public class ConcurrencyUtils {
         }
     }
 
+    private static int getChunkStart(final int from, final int length, final int chunk, final int nChunks) {
+        return from + (int) ((long) chunk * length / nChunks);
+    }
+
+    @FunctionalInterface
+    public interface ChunkTask {
+        /**
+         * @param chunk index of the chunk
+         * @param from first index of the sub-range (inclusive)
+         * @param to last index of the sub-range (exclusive)
+         */
+        void apply(int chunk, int from, int to);
+    }
+
+    @FunctionalInterface
+    public interface RangeTask {
+        /**
+         * @param from first index of the sub-range (inclusive)
+         * @param to last index of the sub-range (exclusive)
+         */
+        void apply(int from, int to);
+    }
+
     private static class CustomExceptionHandler implements Thread.UncaughtExceptionHandler {
         @Override
         public void uncaughtException(Thread t, Throwable e) {
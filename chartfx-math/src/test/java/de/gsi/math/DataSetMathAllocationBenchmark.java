@@ -0,0 +1,146 @@
+package de.gsi.math;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.spi.DoubleErrorDataSet;
+import de.gsi.math.DataSetMath.MathOp;
+import de.gsi.math.spectra.Apodization;
+
+/**
+ * Benchmark of the allocating {@link DataSetMath} operations versus their destination-passing variants re-using the
+ * capacity of a caller-supplied DataSet.
+ *
+ * N.B. to be run with the GC profiler (e.g. {@code -prof gc}): the 'gc.alloc.rate.norm' of the destination-passing
+ * variants is independent of the number of samples (ie. only the update notification events), while the allocating
+ * variants allocate at least the result's four data arrays per call.
+ */
+@State(Scope.Benchmark)
+public class DataSetMathAllocationBenchmark {
+    @Param({ "1024", "65536" })
+    private int nSamples;
+    private DataSet input1;
+    private DataSet input2;
+    private DoubleErrorDataSet destination;
+    private DoubleErrorDataSet average;
+    private DoubleErrorDataSet average2;
+    private DataSet refAverage;
+    private DoubleErrorDataSet refAverage2;
+
+    @Setup()
+    public void initialize() {
+        input1 = createDataSet(nSamples, 1.0);
+        input2 = createDataSet(nSamples, 2.0);
+        destination = new DoubleErrorDataSet("destination", nSamples);
+        average = new DoubleErrorDataSet("average", nSamples);
+        average2 = new DoubleErrorDataSet("average2", nSamples);
+        refAverage = null;
+        refAverage2 = new DoubleErrorDataSet("average2", nSamples);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void averageIIR(Blackhole blackhole) {
+        refAverage = DataSetMath.averageDataSetsIIR(refAverage, refAverage2, input1, 10);
+        blackhole.consume(refAverage);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void averageIIRDestination(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.averageDataSetsIIR(average, average, average2, input1, 10));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void derivative(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.derivativeFunction(input1, 1.0));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void derivativeDestination(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.derivativeFunction(destination, input1, 1.0));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void integrate(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.integrateFunction(input1));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void integrateDestination(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.integrateFunction(destination, input1));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void magnitudeSpectrum(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.magnitudeSpectrum(input1, Apodization.Hann, false, false));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void magnitudeSpectrumDestination(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.magnitudeSpectrum(destination, input1, Apodization.Hann, false, false));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void mathFunction(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.mathFunction(input1, input2, MathOp.ADD));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void mathFunctionDestination(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.mathFunction(destination, input1, input2, MathOp.ADD));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void mathFunctionScalar(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.mathFunction(input1, 2.0, MathOp.MULTIPLY));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void mathFunctionScalarDestination(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.mathFunction(destination, input1, 2.0, MathOp.MULTIPLY));
+    }
+
+    private static DataSet createDataSet(final int n, final double offset) {
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        final double[] eyn = new double[n];
+        final double[] eyp = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = offset + MathBase.sin(0.001 * i);
+            eyn[i] = 0.1;
+            eyp[i] = 0.1;
+        }
+        return new DoubleErrorDataSet("test", x, y, eyn, eyp, n, false);
+    }
+}
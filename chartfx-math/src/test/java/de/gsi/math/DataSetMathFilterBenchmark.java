@@ -0,0 +1,108 @@
+package de.gsi.math;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.math.DataSetMath.Filter;
+
+/**
+ * Benchmark of the sliding-window {@link DataSetMath#filterFunction} (O(n log w), see {@link SlidingWindowFilter})
+ * versus the previous implementation scanning all samples for each output sample (O(n^2), kept below as reference,
+ * filtering only the y-values, ie. a third of the work).
+ *
+ * N.B. the window size is {@code 2 * width + 1} samples, the reference implementation is not benchmarked for large
+ * DataSets since it does not finish in reasonable time.
+ */
+@State(Scope.Benchmark)
+public class DataSetMathFilterBenchmark {
+    @Param({ "1000", "10000" })
+    private int nSamples;
+    @Param({ "5", "50" })
+    private double width;
+    @Param({ "MEAN", "MEDIAN", "MAX", "RMS" })
+    private Filter filter;
+    private DataSet dataSet;
+    private DataSet largeDataSet;
+
+    @Setup()
+    public void initialize() {
+        dataSet = createDataSet(nSamples);
+        largeDataSet = createDataSet(1_000_000);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void filterFunction(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.filterFunction(dataSet, width, filter));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void filterFunctionLarge(Blackhole blackhole) {
+        blackhole.consume(DataSetMath.filterFunction(largeDataSet, width, filter));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void filterFunctionReference(Blackhole blackhole) {
+        blackhole.consume(referenceFilterFunction(dataSet, width, filter));
+    }
+
+    private static DataSet createDataSet(final int n) {
+        final Random random = new Random(42);
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = Math.sin(0.001 * i) + 0.1 * random.nextGaussian();
+        }
+        return new DoubleDataSet("test", x, y, n, false);
+    }
+
+    private static double[] referenceFilterFunction(final DataSet function, final double width, final Filter filterType) {
+        final int n = function.getDataCount();
+        final double[] filtered = new double[n];
+        final double[] subArrayY = new double[n];
+        final double[] xValues = function.getValues(DataSet.DIM_X);
+        final double[] yValues = function.getValues(DataSet.DIM_Y);
+        for (int i = 0; i < n; i++) {
+            final double time0 = xValues[i];
+            int count = 0;
+            for (int j = 0; j < n; j++) {
+                if (MathBase.abs(time0 - xValues[j]) <= width) {
+                    subArrayY[count++] = yValues[j];
+                }
+            }
+
+            switch (filterType) {
+            case MEDIAN:
+                filtered[i] = Math.median(subArrayY, count);
+                break;
+            case MAX:
+                filtered[i] = Math.maximum(subArrayY, count);
+                break;
+            case RMS:
+                filtered[i] = Math.rms(subArrayY, count);
+                break;
+            case MEAN:
+            default:
+                filtered[i] = Math.mean(subArrayY, count);
+                break;
+            }
+        }
+        return filtered;
+    }
+}
@@ -1,6 +1,7 @@
 package de.gsi.math;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static de.gsi.dataset.DataSet.DIM_X;
@@ -8,6 +9,7 @@ import static de.gsi.dataset.DataSet.DIM_Y;
 import static de.gsi.dataset.Histogram.Boundary.LOWER;
 import static de.gsi.dataset.Histogram.Boundary.UPPER;
 
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.List;
 
@@ -16,9 +18,11 @@ import org.opentest4j.AssertionFailedError;
 
 import de.gsi.dataset.DataSet;
 import de.gsi.dataset.spi.AbstractHistogram;
+import de.gsi.dataset.spi.DoubleErrorDataSet;
 import de.gsi.dataset.spi.Histogram;
 import de.gsi.dataset.testdata.spi.AbstractTestFunction;
 import de.gsi.dataset.testdata.spi.TriangleFunction;
+import de.gsi.math.spectra.Apodization;
 
 /**
  * Unit-Tests of #de.gsi.math.DataSetMath
@@ -196,6 +200,97 @@ class DataSetMathTests {
         testFunctionInterpolatedBase("mathFunction(DataSet, DataSet, IDENTITY)", refFunction1, returnFunction, (i, x1, x2) -> assertEquals(x1, x2), (i, y1, y2) -> assertEquals(y1 + 2.0, y2));
     }
 
+    @Test
+    void destinationPassingTests() { // NOSONAR NOPMD -- excessive assertions -- is a necessity of unit-tests ;-)
+        final DoubleErrorDataSet input1 = generateErrorDataSet("input1", 256, 1.0);
+        final DoubleErrorDataSet input2 = generateErrorDataSet("input2", 256, 2.0);
+        final DoubleErrorDataSet destination = new DoubleErrorDataSet("destination");
+
+        for (final DataSetMath.MathOp op : DataSetMath.MathOp.values()) {
+            assertSameData(op.name(), DataSetMath.mathFunction(input1, 2.5, op), DataSetMath.mathFunction(destination, input1, 2.5, op));
+            assertSameData(op.name(), DataSetMath.mathFunction(input1, input2, op), DataSetMath.mathFunction(destination, input1, input2, op));
+        }
+        assertSameData("interpolated base", DataSetMath.addFunction(input1, new IdentityFunction("identity", 10, 2.0, 0.5)),
+                DataSetMath.mathFunction(destination, input1, new IdentityFunction("identity", 10, 2.0, 0.5), DataSetMath.MathOp.ADD));
+        assertSameData("derivative", DataSetMath.derivativeFunction(input1, -1.0), DataSetMath.derivativeFunction(destination, input1, -1.0));
+        assertSameData("integral", DataSetMath.integrateFunction(input1), DataSetMath.integrateFunction(destination, input1));
+        assertSameData("spectrum", DataSetMath.magnitudeSpectrum(input1, Apodization.Hann, false, false),
+                DataSetMath.magnitudeSpectrum(destination, input1, Apodization.Hann, false, false));
+        assertSameData("spectrum [dB]", DataSetMath.magnitudeSpectrum(input1, Apodization.Hann, true, true),
+                DataSetMath.magnitudeSpectrum(destination, input1, Apodization.Hann, true, true));
+
+        // in-place operation
+        final DoubleErrorDataSet inPlace = new DoubleErrorDataSet(input1);
+        assertSameData("in-place", DataSetMath.multiplyFunction(input1, input2), DataSetMath.mathFunction(inPlace, inPlace, input2, DataSetMath.MathOp.MULTIPLY));
+        final DoubleErrorDataSet inPlaceInterpolated = new DoubleErrorDataSet(input1);
+        assertSameData("in-place interpolated base", DataSetMath.addFunction(input1, new IdentityFunction("identity", 10, 2.0, 0.5)),
+                DataSetMath.mathFunction(inPlaceInterpolated, inPlaceInterpolated, new IdentityFunction("identity", 10, 2.0, 0.5), DataSetMath.MathOp.ADD));
+
+        // point-wise operation and naming of the allocating variants
+        for (final DataSetMath.MathOp op : DataSetMath.MathOp.values()) {
+            final DoubleErrorDataSet pointWise = new DoubleErrorDataSet("pointWise");
+            for (int i = 0; i < input1.getDataCount(); i++) {
+                DataSetMath.applyMathOperation(pointWise, op, input1.get(DIM_X, i), input1.get(DIM_Y, i), input2.get(DIM_Y, i), input1.getErrorNegative(DIM_Y, i),
+                        input1.getErrorPositive(DIM_Y, i), input2.getErrorNegative(DIM_Y, i), input2.getErrorPositive(DIM_Y, i));
+            }
+            assertSameData("point-wise " + op.name(), DataSetMath.mathFunction(input1, input2, op), pointWise);
+            assertEquals("input1" + op.getTag() + "input2", DataSetMath.mathFunction(input1, input2, op).getName());
+            assertEquals(op.getTag() + "(input1)", DataSetMath.mathFunction(input1, 2.5, op).getName());
+        }
+
+        // IIR averaging: reference and destination-passing variant with in-place average
+        DataSet refAverage = null;
+        final DoubleErrorDataSet refAverage2 = new DoubleErrorDataSet("avg2");
+        final DoubleErrorDataSet average = new DoubleErrorDataSet("avg");
+        final DoubleErrorDataSet average2 = new DoubleErrorDataSet("avg2");
+        for (int update = 0; update < 5; update++) {
+            final DataSet newDataSet = generateErrorDataSet("new", 256, update);
+            refAverage = DataSetMath.averageDataSetsIIR(refAverage, refAverage2, newDataSet, 3);
+            DataSetMath.averageDataSetsIIR(average, average, average2, newDataSet, 3);
+            assertSameData("average #" + update, refAverage, average);
+            assertSameData("average2 #" + update, refAverage2, average2);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> DataSetMath.mathFunction(null, input1, 1.0, DataSetMath.MathOp.ADD));
+        assertThrows(IllegalArgumentException.class, () -> DataSetMath.derivativeFunction(inPlace, inPlace, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> DataSetMath.integrateFunction(inPlace, inPlace));
+        assertThrows(IllegalArgumentException.class, () -> DataSetMath.averageDataSetsIIR(average, average, average, input1, 3));
+    }
+
+    @Test
+    void destinationPassingAllocationTests() {
+        final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            return; // allocation accounting not supported by this JVM
+        }
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        final int nSamples = 1 << 16;
+        final DoubleErrorDataSet input1 = generateErrorDataSet("input1", nSamples, 1.0);
+        final DoubleErrorDataSet input2 = generateErrorDataSet("input2", nSamples, 2.0);
+        final DoubleErrorDataSet destination = new DoubleErrorDataSet("destination");
+        final DoubleErrorDataSet average = new DoubleErrorDataSet("avg");
+        final DoubleErrorDataSet average2 = new DoubleErrorDataSet("avg2");
+        final Runnable operations = () -> {
+            DataSetMath.mathFunction(destination, input1, 2.0, DataSetMath.MathOp.MULTIPLY);
+            DataSetMath.mathFunction(destination, input1, input2, DataSetMath.MathOp.ADD);
+            DataSetMath.derivativeFunction(destination, input1, 1.0);
+            DataSetMath.integrateFunction(destination, input1);
+            DataSetMath.averageDataSetsIIR(average, average, average2, input1, 10);
+        };
+        for (int i = 0; i < 20; i++) {
+            operations.run(); // N.B. first calls establish the destinations' capacities
+        }
+        final long threadId = Thread.currentThread().getId();
+        final int nCalls = 20;
+        final long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < nCalls; i++) {
+            operations.run();
+        }
+        final long bytesPerCall = (allocationBean.getThreadAllocatedBytes(threadId) - before) / nCalls;
+        // N.B. only the update notifications remain, an allocating variant would need at least 4 * 8 * nSamples bytes per operation
+        assertTrue(bytesPerCall < 8 * nSamples / 100, "steady-state allocation per call = " + bytesPerCall + " bytes");
+    }
+
     void testFunctionStrictBase(final String testName, final DataSet refFunction, final DataSet testFunction, final TestFunction xValueCheck, final TestFunction yValueCheck) {
         assertEquals(refFunction.getDataCount(), testFunction.getDataCount());
 
@@ -236,4 +331,28 @@ class DataSetMathTests {
             count++;
         }
     }
+
+    private static DoubleErrorDataSet generateErrorDataSet(final String name, final int nSamples, final double offset) {
+        final double[] x = new double[nSamples];
+        final double[] y = new double[nSamples];
+        final double[] eyn = new double[nSamples];
+        final double[] eyp = new double[nSamples];
+        for (int i = 0; i < nSamples; i++) {
+            x[i] = 0.1 * i;
+            y[i] = offset + 10.0 + Math.sin(0.05 * i) + 0.3 * Math.cos(0.3 * i);
+            eyn[i] = 0.1 + 0.01 * offset;
+            eyp[i] = 0.2 + 0.01 * offset;
+        }
+        return new DoubleErrorDataSet(name, x, y, eyn, eyp, nSamples, false);
+    }
+
+    private static void assertSameData(final String testName, final DataSet expected, final DataSet actual) {
+        assertEquals(expected.getDataCount(), actual.getDataCount(), testName);
+        for (int i = 0; i < expected.getDataCount(); i++) {
+            assertEquals(expected.get(DIM_X, i), actual.get(DIM_X, i), testName + " x @" + i);
+            assertEquals(expected.get(DIM_Y, i), actual.get(DIM_Y, i), 1e-12 * MathBase.abs(expected.get(DIM_Y, i)), testName + " y @" + i);
+            assertEquals(DataSetMath.error(expected, DataSetMath.ErrType.EYN, i), DataSetMath.error(actual, DataSetMath.ErrType.EYN, i), 1e-12, testName + " eyn @" + i);
+            assertEquals(DataSetMath.error(expected, DataSetMath.ErrType.EYP, i), DataSetMath.error(actual, DataSetMath.ErrType.EYP, i), 1e-12, testName + " eyp @" + i);
+        }
+    }
 }
@@ -0,0 +1,155 @@
+package de.gsi.math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.math.MathDataSet.DataSetValueFunction;
+
+/**
+ * Tests for the asynchronous MathDataSet dependency-graph scheduler
+ */
+class MathDataSetGraphTests {
+    private static final int N_SAMPLES = 64;
+
+    @Test
+    void testDiamondGraph() throws InterruptedException {
+        final DoubleDataSet source = generateData(1.0);
+        final AtomicInteger sumCount = new AtomicInteger();
+        final MathDataSet left = new MathDataSet("L", scale(2.0), source);
+        final MathDataSet right = new MathDataSet("R", scale(3.0), source);
+        final MathDataSet sum = new MathDataSet("S", (inputs, output) -> {
+            sumCount.incrementAndGet();
+            final DataSet a = inputs.get(0);
+            final DataSet b = inputs.get(1);
+            final double[] y = new double[a.getDataCount()];
+            for (int i = 0; i < y.length; i++) {
+                y[i] = a.get(DataSet.DIM_Y, i) + b.get(DataSet.DIM_Y, i);
+            }
+            output.set(a.getValues(DataSet.DIM_X), y, new double[y.length], new double[y.length], true);
+        }, left, right);
+
+        try (MathDataSetGraph graph = new MathDataSetGraph()) {
+            graph.add(sum, right, left); // N.B. order does not matter
+            assertEquals(List.of(sum), graph.getNodes().subList(2, 3));
+
+            sumCount.set(0);
+            source.set(generateData(2.0));
+            assertTrue(graph.awaitIdle(10, TimeUnit.SECONDS));
+            assertEquals(1, sumCount.get(), "diamond sink computed once per source update");
+            for (int i = 0; i < N_SAMPLES; i++) {
+                assertEquals(5.0 * 2.0 * i, sum.get(DataSet.DIM_Y, i), 1e-12);
+            }
+            assertEquals(1, graph.getStatistics(sum).getComputations());
+            assertTrue(graph.getStatistics(sum).getLastLatency() >= graph.getStatistics(sum).getLastComputeTime());
+        }
+
+        // removed nodes revert to synchronous updates
+        sumCount.set(0);
+        source.set(generateData(3.0));
+        assertTrue(sumCount.get() > 0, "synchronous update");
+    }
+
+    @Test
+    void testParallelBranchesAndCoalescing() throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final DoubleDataSet source = generateData(1.0);
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger blockCount = new AtomicInteger();
+        final MathDataSet.DataSetFunction blocking = ds -> {
+            if (blockCount.get() > 0) {
+                bothRunning.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return ds;
+        };
+        final MathDataSet branchA = new MathDataSet("A", blocking, source);
+        final MathDataSet branchB = new MathDataSet("B", blocking, source);
+        final MathDataSet sink = new MathDataSet("C", (inputs, output) -> output.set(inputs.get(0)), branchA, branchB);
+        final MathDataSetGraph graph = new MathDataSetGraph(executor);
+        try {
+            graph.add(branchA, branchB, sink);
+            blockCount.set(1);
+            graph.invalidate(source);
+            assertTrue(bothRunning.await(10, TimeUnit.SECONDS), "independent branches computed in parallel");
+
+            // further updates while the branches are running are coalesced into a single re-computation
+            for (int i = 0; i < 5; i++) {
+                source.set(generateData(i));
+            }
+            blockCount.set(0);
+            release.countDown();
+            assertTrue(graph.awaitIdle(10, TimeUnit.SECONDS));
+
+            final MathDataSetGraph.NodeStatistics statsA = graph.getStatistics(branchA);
+            assertEquals(6, statsA.getInvalidations());
+            assertEquals(2, statsA.getComputations(), statsA.toString());
+            assertEquals(4, statsA.getCoalesced(), statsA.toString());
+            final MathDataSetGraph.NodeStatistics statsSink = graph.getStatistics(sink);
+            assertEquals(6, statsSink.getInvalidations(), statsSink.toString());
+            assertEquals(1, statsSink.getComputations(), "sink waits for the up-to-date upstream results");
+            assertEquals(0, statsSink.getFailures());
+            assertEquals(4.0 * 5, sink.get(DataSet.DIM_Y, 5), 1e-12);
+        } finally {
+            graph.close();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailuresAndAssertions() throws InterruptedException {
+        final DoubleDataSet source = generateData(1.0);
+        final AtomicInteger failCount = new AtomicInteger();
+        final MathDataSet failing = new MathDataSet("F", ds -> {
+            if (failCount.get() > 0) {
+                throw new IllegalStateException("test failure");
+            }
+            return ds;
+        }, source);
+        final MathDataSet downstream = new MathDataSet("D", scale(1.0), failing);
+        try (MathDataSetGraph graph = new MathDataSetGraph()) {
+            assertThrows(IllegalArgumentException.class, () -> graph.getStatistics(failing));
+            graph.add(failing, downstream);
+            failCount.set(1);
+            graph.invalidate(source);
+            assertTrue(graph.awaitIdle(10, TimeUnit.SECONDS));
+            assertEquals(1, graph.getStatistics(failing).getFailures());
+            assertEquals(1, graph.getStatistics(downstream).getComputations());
+            assertTrue(graph.isIdle());
+        }
+    }
+
+    private static DoubleDataSet generateData(final double slope) {
+        final double[] x = new double[N_SAMPLES];
+        final double[] y = new double[N_SAMPLES];
+        for (int i = 0; i < N_SAMPLES; i++) {
+            x[i] = i;
+            y[i] = slope * i;
+        }
+        return new DoubleDataSet("source", x, y, N_SAMPLES, true);
+    }
+
+    private static DataSetValueFunction scale(final double factor) {
+        return (input, output, length) -> {
+            for (int i = 0; i < length; i++) {
+                output[i] = factor * input[i];
+            }
+        };
+    }
+}
@@ -0,0 +1,178 @@
+package de.gsi.math;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import de.gsi.math.DataSetMath.Filter;
+import de.gsi.math.utils.ConcurrencyUtils;
+
+/**
+ * Tests of the {@link SlidingWindowFilter} against a brute-force evaluation of each window
+ */
+class SlidingWindowFilterTests {
+    private static final double WIDTH = 2.5;
+
+    @Test
+    void testExceptions() {
+        final double[] x = { 0, 1, 2 };
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowFilter(x, 3, -1.0));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowFilter(x, 3, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowFilter(x, 4, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowFilter(x, 3, 1.0).filter(new double[2], Filter.MEAN));
+        assertEquals(0, new SlidingWindowFilter(x, 0, 1.0).filter(new double[0], Filter.MEDIAN).length);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Filter.class)
+    void testSortedAgainstBruteForce(final Filter filterType) {
+        final Random random = new Random(42);
+        final int n = 500;
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int i = 1; i < n; i++) {
+            x[i] = x[i - 1] + (random.nextInt(4) == 0 ? 0.0 : random.nextDouble()); // N.B. includes duplicate x-values
+            y[i] = random.nextInt(10) == 0 ? 0.0 : 100.0 + random.nextGaussian();
+        }
+        assertFilter(x, y, WIDTH, filterType);
+        assertFilter(x, y, 0.0, filterType);
+        assertFilter(x, y, Double.POSITIVE_INFINITY, filterType);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Filter.class)
+    void testUnsortedAndNonFinite(final Filter filterType) {
+        final Random random = new Random(42);
+        final int n = 300;
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 50.0 * random.nextDouble();
+            y[i] = random.nextGaussian();
+        }
+        x[7] = Double.NaN;
+        x[13] = Double.POSITIVE_INFINITY;
+        y[42] = Double.NaN;
+        y[43] = Double.NEGATIVE_INFINITY;
+        assertFilter(x, y, WIDTH, filterType);
+
+        final SlidingWindowFilter filter = new SlidingWindowFilter(x, n, WIDTH);
+        assertTrue(Double.isNaN(filter.filter(y, filterType)[7]));
+        assertTrue(Double.isNaN(filter.filter(y, filterType)[13]));
+        assertEquals(0, filter.getWindowSizes()[7]);
+        assertEquals(reference(x, x, WIDTH, 0).length, filter.getWindowSizes()[0]);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Filter.class)
+    void testParallelChunks(final Filter filterType) {
+        final boolean forceThreads = ConcurrencyUtils.isForceThreads();
+        final int nThreads = ConcurrencyUtils.getNumberOfThreads();
+        try {
+            ConcurrencyUtils.setForceThreads(true);
+            ConcurrencyUtils.setNumberOfThreads(4);
+            final int n = 4 * SlidingWindowFilter.MIN_CHUNK_SIZE + 17;
+            final Random random = new Random(42);
+            final double[] x = new double[n];
+            final double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = 0.1 * i;
+                y[i] = Math.sin(0.01 * i) + 0.1 * random.nextGaussian();
+            }
+            final double[] filtered = new SlidingWindowFilter(x, n, 1.0).filter(y, filterType);
+            // check the chunk boundaries and a few samples in between
+            for (int i = 0; i < n; i += SlidingWindowFilter.MIN_CHUNK_SIZE / 8) {
+                for (int j = Math.max(0, i - 2); j < Math.min(n, i + 3); j++) {
+                    assertEquals(statistic(reference(x, y, 1.0, j), filterType), filtered[j], 1e-9, "sample " + j);
+                }
+            }
+        } finally {
+            ConcurrencyUtils.setNumberOfThreads(nThreads);
+            ConcurrencyUtils.setForceThreads(forceThreads);
+        }
+    }
+
+    @Test
+    void testMedianAndExtrema() {
+        final double[] x = { 0, 1, 2, 3, 4, 5 };
+        final double[] y = { 3, -1, 4, 1, -5, 9 };
+        final SlidingWindowFilter filter = new SlidingWindowFilter(x, x.length, 1.0);
+        assertArrayEquals(new double[] { 1, 3, 1, 1, 1, 2 }, filter.filter(y, Filter.MEDIAN));
+        assertArrayEquals(new double[] { -1, -1, -1, -5, -5, -5 }, filter.filter(y, Filter.MIN));
+        assertArrayEquals(new double[] { 3, 4, 4, 4, 9, 9 }, filter.filter(y, Filter.MAX));
+        assertArrayEquals(new double[] { 4, 5, 5, 9, 14, 14 }, filter.filter(y, Filter.P2P));
+        assertArrayEquals(new double[] { 2, 3, 3, 3, 3, 2 }, Arrays.stream(filter.getWindowSizes()).asDoubleStream().toArray());
+    }
+
+    private static void assertFilter(final double[] x, final double[] y, final double width, final Filter filterType) {
+        final double[] filtered = new SlidingWindowFilter(x, x.length, width).filter(y, filterType);
+        for (int i = 0; i < x.length; i++) {
+            final double[] window = reference(x, y, width, i);
+            final double expected = statistic(window, filterType);
+            final double tolerance = Double.isFinite(expected) ? 1e-9 * Math.max(1.0, Math.abs(expected)) : 0.0;
+            assertEquals(expected, filtered[i], tolerance, filterType + " - sample " + i + " window = " + window.length);
+        }
+    }
+
+    private static double[] reference(final double[] x, final double[] y, final double width, final int index) {
+        if (!Double.isFinite(x[index])) {
+            return new double[0];
+        }
+        final double[] window = new double[x.length];
+        int count = 0;
+        for (int j = 0; j < x.length; j++) {
+            if (Double.isFinite(x[j]) && Math.abs(x[index] - x[j]) <= width) {
+                window[count++] = y[j];
+            }
+        }
+        return Arrays.copyOf(window, count);
+    }
+
+    private static double statistic(final double[] window, final Filter filterType) {
+        final int n = window.length;
+        if (n == 0) {
+            return Double.NaN;
+        }
+        final double[] sorted = window.clone();
+        Arrays.sort(sorted);
+        final boolean hasNaN = Double.isNaN(sorted[n - 1]);
+        switch (filterType) {
+        case MEDIAN:
+            return n % 2 == 1 ? sorted[n / 2] : 0.5 * (sorted[n / 2 - 1] + sorted[n / 2]);
+        case MIN:
+            return hasNaN ? Double.NaN : sorted[0];
+        case MAX:
+            return hasNaN ? Double.NaN : sorted[n - 1];
+        case P2P:
+            return hasNaN ? Double.NaN : Math.abs(sorted[n - 1] - sorted[0]);
+        case RMS:
+            double sum = 0.0;
+            double sum2 = 0.0;
+            for (final double value : window) {
+                sum += value;
+                sum2 += value * value;
+            }
+            return Math.sqrt(Math.abs(sum2 / n - (sum / n) * (sum / n)));
+        case GEOMMEAN:
+            double logSum = 0.0;
+            for (final double value : window) {
+                if (value == 0.0) {
+                    return 0.0;
+                }
+                logSum += Math.log(Math.abs(value));
+            }
+            return Math.exp(logSum / n);
+        case MEAN:
+        default:
+            return Arrays.stream(window).sum() / n;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package de.gsi.math.filter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import static de.gsi.dataset.DataSet.DIM_X;
+import static de.gsi.dataset.DataSet.DIM_Y;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import de.gsi.dataset.spi.CircularDoubleErrorDataSet;
+import de.gsi.math.filter.fir.FirFilter;
+import de.gsi.math.filter.iir.Butterworth;
+
+/**
+ * Tests of the chunk-wise {@link StreamingFilter} and the {@link StreamingFilterDataSet}
+ */
+class StreamingFilterTests {
+    private static final int N_SAMPLES = 2000;
+
+    @Test
+    void testCascadeChunks() {
+        final double[] signal = getSignal(N_SAMPLES, 42);
+        final Butterworth butterworth = new Butterworth();
+        butterworth.lowPass(4, 1.0, 0.1);
+        final StreamingFilter filter = StreamingFilter.fromCascade(butterworth, 1);
+
+        // reference: sample-by-sample cascade
+        final double[] reference = new double[N_SAMPLES];
+        for (int i = 0; i < N_SAMPLES; i++) {
+            reference[i] = butterworth.filter(signal[i]);
+        }
+
+        assertArrayEquals(reference, filterInChunks(filter, 0, signal));
+        filter.reset();
+        final double[] inPlace = signal.clone();
+        filter.filter(0, inPlace, inPlace, 0, N_SAMPLES);
+        assertArrayEquals(reference, inPlace);
+        filter.reset(0);
+        assertEquals(reference[0], filter.filter(0, signal[0]));
+    }
+
+    @Test
+    void testFirFilterChunks() {
+        final double[] signal = getSignal(N_SAMPLES, 42);
+        final int filterOrder = 4;
+        final double[][] coefficients = FirFilter.calculateRecursionCoefficients(0.25, filterOrder, FilterType.LOW_PASS, 0.0);
+        assertEquals(filterOrder + 1, coefficients[0].length);
+        assertEquals(filterOrder + 1, coefficients[1].length);
+
+        // reference: difference equation with zero initial state
+        final double[] reference = new double[N_SAMPLES];
+        for (int n = 0; n < N_SAMPLES; n++) {
+            for (int j = 0; j <= filterOrder && j <= n; j++) {
+                reference[n] += coefficients[0][j] * signal[n - j] + (j > 0 ? coefficients[1][j] * reference[n - j] : 0.0);
+            }
+        }
+        final StreamingFilter filter = StreamingFilter.fromFirFilter(0.25, filterOrder, FilterType.LOW_PASS, 0.0, 1);
+        assertArrayEquals(reference, filterInChunks(filter, 0, signal), 1e-12);
+
+        // batch filter uses the same coefficients, but does not compute the first 'filterOrder' samples
+        final double[] batch = FirFilter.filterSignal(signal, null, 0.25, filterOrder, FilterType.LOW_PASS, 0.0);
+        final double[] expected = new double[N_SAMPLES];
+        for (int n = filterOrder; n < N_SAMPLES; n++) {
+            for (int j = 0; j <= filterOrder; j++) {
+                expected[n] += coefficients[0][j] * signal[n - j] + (j > 0 ? coefficients[1][j] * expected[n - j] : 0.0);
+            }
+        }
+        assertArrayEquals(expected, batch, 1e-12);
+        // ... ie. both only differ by the decaying start-up transient
+        assertArrayEquals(Arrays.copyOfRange(reference, N_SAMPLES / 2, N_SAMPLES), Arrays.copyOfRange(batch, N_SAMPLES / 2, N_SAMPLES), 1e-9);
+    }
+
+    @Test
+    void testMultiChannelBatch() {
+        final int nChannels = 4;
+        final int length = 2 * StreamingFilter.MIN_PARALLEL_WORK / nChannels;
+        final Butterworth butterworth = new Butterworth();
+        butterworth.highPass(3, 1.0, 0.2);
+        final StreamingFilter filter = StreamingFilter.fromCascade(butterworth, nChannels);
+        final double[][] input = new double[nChannels][];
+        final double[][] output = new double[nChannels][length];
+        for (int channel = 0; channel < nChannels; channel++) {
+            input[channel] = getSignal(length, channel);
+        }
+        // two consecutive (parallel) batches
+        filter.filter(input, output, 0, length / 2);
+        filter.filter(input, output, length / 2, length - length / 2);
+
+        for (int channel = 0; channel < nChannels; channel++) {
+            final StreamingFilter single = StreamingFilter.fromCascade(butterworth, 1);
+            final double[] expected = new double[length];
+            single.filter(0, input[channel], expected, 0, length);
+            assertArrayEquals(expected, output[channel], "channel " + channel);
+        }
+        assertEquals(nChannels, filter.getChannelCount());
+    }
+
+    @Test
+    void testStreamingFilterDataSet() {
+        final double[] signal = getSignal(N_SAMPLES, 7);
+        final double[] time = new double[N_SAMPLES];
+        for (int i = 0; i < N_SAMPLES; i++) {
+            time[i] = 1e-3 * i;
+        }
+        final Butterworth butterworth = new Butterworth();
+        butterworth.lowPass(2, 1.0, 0.05);
+        final StreamingFilter reference = StreamingFilter.fromCascade(butterworth, 1);
+        final double[] expected = new double[N_SAMPLES];
+        reference.filter(0, signal, expected, 0, N_SAMPLES);
+
+        final CircularDoubleErrorDataSet source = new CircularDoubleErrorDataSet("source", 300);
+        final int capacity = 500;
+        final StreamingFilterDataSet filtered = new StreamingFilterDataSet("lowPass", StreamingFilter.fromCascade(butterworth, 2), 1, capacity, source);
+        assertEquals("lowPass(source)", filtered.getName());
+        assertEquals(0, filtered.getDataCount());
+
+        final double[] zeros = new double[N_SAMPLES];
+        final int chunk = 123;
+        for (int offset = 0; offset < N_SAMPLES; offset += chunk) {
+            final int length = Math.min(chunk, N_SAMPLES - offset);
+            source.add(Arrays.copyOfRange(time, offset, offset + length), Arrays.copyOfRange(signal, offset, offset + length), zeros, zeros, length);
+            final int nFiltered = Math.min(capacity, offset + length);
+            assertEquals(nFiltered, filtered.getDataCount());
+            assertEquals(time[offset + length - 1], filtered.get(DIM_X, nFiltered - 1));
+        }
+        for (int i = 0; i < capacity; i++) {
+            assertEquals(expected[N_SAMPLES - capacity + i], filtered.get(DIM_Y, i), 1e-12, "sample " + i);
+        }
+
+        // restarting the source resets the filter
+        source.reset();
+        source.add(Arrays.copyOf(time, 10), Arrays.copyOf(signal, 10), zeros, zeros, 10);
+        assertEquals(10, filtered.getDataCount());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected[i], filtered.get(DIM_Y, i), 1e-12);
+        }
+
+        filtered.deregisterListener();
+        source.add(Arrays.copyOfRange(time, 10, 20), Arrays.copyOfRange(signal, 10, 20), zeros, zeros, 10);
+        assertEquals(10, filtered.getDataCount());
+    }
+
+    @Test
+    void testExceptions() {
+        final StreamingFilter filter = StreamingFilter.fromRecursionCoefficients(new double[] { 0.5, 0.5 }, new double[0], 2);
+        assertThrows(IllegalArgumentException.class, () -> StreamingFilter.fromRecursionCoefficients(new double[0], new double[0], 1));
+        assertThrows(IllegalArgumentException.class, () -> StreamingFilter.fromRecursionCoefficients(new double[] { 1.0 }, new double[0], 0));
+        assertThrows(IllegalArgumentException.class, () -> filter.filter(2, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> filter.filter(-1, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> filter.filter(0, new double[4], new double[3], 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> filter.filter(new double[3][4], new double[3][4], 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingFilterDataSet("test", filter, 2, 10, new CircularDoubleErrorDataSet("source", 10)));
+        assertEquals(0.5, filter.filter(0, 1.0));
+        assertEquals(1.0, filter.filter(0, 1.0));
+        assertEquals(0.5, filter.filter(1, 1.0));
+    }
+
+    private static double[] filterInChunks(final StreamingFilter filter, final int channel, final double[] signal) {
+        final double[] output = new double[signal.length];
+        final Random random = new Random(42);
+        for (int offset = 0; offset < signal.length;) {
+            final int length = Math.min(signal.length - offset, random.nextInt(100));
+            filter.filter(channel, signal, output, offset, length);
+            offset += length;
+        }
+        return output;
+    }
+
+    private static double[] getSignal(final int nSamples, final long seed) {
+        final Random random = new Random(seed);
+        final double[] signal = new double[nSamples];
+        for (int i = 0; i < nSamples; i++) {
+            signal[i] = 1.0 + Math.sin(2.0 * Math.PI * 0.01 * i) + 0.5 * Math.sin(2.0 * Math.PI * 0.4 * i) + 0.1 * random.nextGaussian();
+        }
+        return signal;
+    }
+}
@@ -0,0 +1,77 @@
+package de.gsi.math.fitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.math.functions.AbstractFunction1D;
+import de.gsi.math.functions.GaussianFunction;
+
+/**
+ * Benchmark of the concurrent {@link BatchFitter} fitting Gaussian profiles using analytic versus finite-difference
+ * parameter derivatives.
+ *
+ * N.B. the sequential throughput can be measured by limiting the common pool, e.g. via
+ * {@code -jvmArgs -Djava.util.concurrent.ForkJoinPool.common.parallelism=1}.
+ */
+@State(Scope.Benchmark)
+public class BatchFitterBenchmark {
+    @Param({ "100", "1000" })
+    private int nProfiles;
+    private final List<DataSet> profiles = new ArrayList<>();
+    private BatchFitter analyticFitter;
+    private BatchFitter numericFitter;
+
+    @Setup()
+    public void initialize() {
+        final Random random = new Random(42);
+        profiles.clear();
+        for (int k = 0; k < nProfiles; k++) {
+            final GaussianFunction function = new GaussianFunction("profile", new double[] { random.nextGaussian(), 1.0 + 0.2 * random.nextDouble(), 1.0 });
+            final double[] x = new double[200];
+            final double[] y = new double[200];
+            for (int i = 0; i < x.length; i++) {
+                x[i] = -5.0 + 10.0 * i / (x.length - 1);
+                y[i] = function.getValue(x[i]) + 0.01 * random.nextGaussian();
+            }
+            profiles.add(new DoubleDataSet("profile" + k, x, y, x.length, false));
+        }
+        analyticFitter = new BatchFitter(() -> new GaussianFunction("gauss"));
+        analyticFitter.setInitialParameterEstimator(BatchFitter::estimateGaussianMoments);
+        numericFitter = new BatchFitter(() -> new AbstractFunction1D("numeric", new double[] { 0.0, 1.0, 1.0 }) {
+            private final GaussianFunction delegate = new GaussianFunction("delegate");
+
+            @Override
+            public double getValue(final double x) {
+                delegate.setParameterValues(fparameter);
+                return delegate.getValue(x);
+            }
+        });
+        numericFitter.setInitialParameterEstimator(BatchFitter::estimateGaussianMoments);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void fitAnalyticGradient(Blackhole blackhole) {
+        blackhole.consume(analyticFitter.fit(profiles));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void fitNumericGradient(Blackhole blackhole) {
+        blackhole.consume(numericFitter.fit(profiles));
+    }
+}
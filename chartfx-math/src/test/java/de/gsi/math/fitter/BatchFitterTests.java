@@ -0,0 +1,191 @@
+package de.gsi.math.fitter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.dataset.spi.DoubleErrorDataSet;
+import de.gsi.math.functions.AbstractFunction1D;
+import de.gsi.math.functions.GaussianFunction;
+
+/**
+ * Tests of the concurrent Levenberg-Marquardt {@link BatchFitter}
+ */
+class BatchFitterTests {
+    private static final int N_SAMPLES = 101;
+    private static final double NOISE = 0.002;
+
+    @Test
+    void testAnalyticAndNumericGradients() {
+        final List<DataSet> profiles = createProfiles(20, false);
+        final BatchFitter analytic = new BatchFitter(() -> new GaussianFunction("gauss", new double[] { 0.5, 2.0, 1.0 }));
+        final BatchFitter numeric = new BatchFitter(() -> new NumericGaussian(new double[] { 0.5, 2.0, 1.0 }));
+        final List<BatchFitter.FitResult> analyticResults = analytic.fit(profiles);
+        final List<BatchFitter.FitResult> numericResults = numeric.fit(profiles);
+
+        for (int i = 0; i < profiles.size(); i++) {
+            final BatchFitter.FitResult result = analyticResults.get(i);
+            final BatchFitter.FitResult reference = numericResults.get(i);
+            assertEquals(i, result.getIndex());
+            assertTrue(result.isConverged(), result.toString());
+            assertTrue(reference.isConverged(), reference.toString());
+            assertNull(result.getFailureMessage());
+            assertEquals(N_SAMPLES - 3, result.getNdf());
+            for (int p = 0; p < 3; p++) {
+                assertEquals(reference.getParameterValue(p), result.getParameterValue(p), 1e-6, "parameter " + p);
+                assertEquals(reference.getParameterError(p), result.getParameterError(p), 1e-3 * reference.getParameterError(p) + 1e-12, "error " + p);
+            }
+            assertEquals(trueMean(i), result.getParameterValue(0), 0.01);
+            assertEquals(trueSigma(i), result.getParameterValue(1), 0.01);
+            assertEquals(trueScale(i), result.getParameterValue(2), 0.01);
+            // no y-errors: errors scaled by the reduced chi-square (~ noise level)
+            assertEquals(NOISE * NOISE, result.getReducedChiSquare(), 0.5 * NOISE * NOISE);
+            assertTrue(result.getParameterError(0) > 0.0 && result.getParameterError(0) < 0.01);
+        }
+    }
+
+    @Test
+    void testFixedParametersAndEstimator() {
+        final List<DataSet> profiles = createProfiles(8, true);
+        final BatchFitter fitter = new BatchFitter(() -> {
+            final GaussianFunction function = new GaussianFunction("gauss", new double[] { 0.0, 1.0, 0.0 });
+            function.fixParameter(2, true);
+            return function;
+        });
+        fitter.setInitialParameterEstimator((x, y, length, parameter) -> {
+            BatchFitter.estimateGaussianMoments(x, y, length, parameter);
+            parameter[2] = 2.0; // fixed to the known value
+        });
+        assertNotNull(fitter.getInitialParameterEstimator());
+        fitter.setMaxIterations(50);
+        fitter.setTolerance(1e-10);
+        assertEquals(50, fitter.getMaxIterations());
+        assertEquals(1e-10, fitter.getTolerance());
+
+        final List<BatchFitter.FitResult> results = fitter.fit(profiles);
+        for (final BatchFitter.FitResult result : results) {
+            assertTrue(result.isConverged(), result.toString());
+            assertEquals(N_SAMPLES - 2, result.getNdf());
+            assertEquals(2.0, result.getParameterValue(2));
+            assertEquals(0.0, result.getParameterError(2));
+            assertEquals(trueMean(result.getIndex()), result.getParameterValue(0), 0.01);
+            // weighted fit: chi2/ndf ~ 1
+            assertEquals(1.0, result.getReducedChiSquare(), 0.5);
+        }
+        assertThrows(IllegalArgumentException.class, () -> fitter.setMaxIterations(0));
+        assertThrows(IllegalArgumentException.class, () -> fitter.setTolerance(-1.0));
+    }
+
+    @Test
+    void testParallelExecutionAndStatistics() {
+        final AtomicInteger nInstances = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final BatchFitter fitter = new BatchFitter(() -> {
+                nInstances.incrementAndGet();
+                return new GaussianFunction("gauss");
+            }, executor);
+            fitter.setInitialParameterEstimator(BatchFitter::estimateGaussianMoments);
+            assertEquals(0, fitter.getStatistics().getFitCount());
+
+            final List<DataSet> profiles = createProfiles(200, false);
+            profiles.add(new DoubleDataSet("too short", new double[] { 1, 2 }, new double[] { 1, 2 }, 2, true));
+            for (int run = 0; run < 2; run++) {
+                final List<BatchFitter.FitResult> results = fitter.fit(profiles);
+                assertEquals(profiles.size(), results.size());
+                for (int i = 0; i < 200; i++) {
+                    assertTrue(results.get(i).isConverged(), results.get(i).toString());
+                    assertEquals(trueMean(i), results.get(i).getParameterValue(0), 0.01);
+                }
+                final BatchFitter.FitResult failed = results.get(200);
+                assertFalse(failed.isConverged());
+                assertNotNull(failed.getFailureMessage());
+                assertTrue(Double.isNaN(failed.getChiSquare()));
+
+                final BatchFitter.BatchStatistics statistics = fitter.getStatistics();
+                assertEquals(201, statistics.getFitCount());
+                assertEquals(200, statistics.getConvergedCount());
+                assertEquals(1, statistics.getNotConvergedCount());
+                assertEquals(1, statistics.getFailedCount());
+                assertTrue(statistics.getFitsPerSecond() > 0.0);
+                assertTrue(statistics.getAverageIterations() > 0.0);
+                assertTrue(statistics.getMaxIterations() >= statistics.getAverageIterations());
+                assertTrue(statistics.getElapsedNanos() > 0);
+                assertNotNull(statistics.toString());
+            }
+            // workspaces (and their function instances) are re-used across batches
+            assertTrue(nInstances.get() <= Math.min(201, 4 * Runtime.getRuntime().availableProcessors()), "instances = " + nInstances.get());
+
+            assertTrue(fitter.fit(Collections.emptyList()).isEmpty());
+            assertEquals(0, fitter.getStatistics().getFitCount());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new BatchFitter(null));
+        assertThrows(IllegalArgumentException.class, () -> new BatchFitter(() -> new GaussianFunction("gauss"), null));
+        assertThrows(IllegalArgumentException.class, () -> new BatchFitter(() -> new GaussianFunction("gauss")).fit(null));
+    }
+
+    private static List<DataSet> createProfiles(final int nProfiles, final boolean withErrors) {
+        final Random random = new Random(42);
+        final List<DataSet> profiles = new ArrayList<>();
+        for (int k = 0; k < nProfiles; k++) {
+            final GaussianFunction function = new GaussianFunction("truth", new double[] { trueMean(k), trueSigma(k), withErrors ? 2.0 : trueScale(k) });
+            final double[] x = new double[N_SAMPLES];
+            final double[] y = new double[N_SAMPLES];
+            final double[] error = new double[N_SAMPLES];
+            for (int i = 0; i < N_SAMPLES; i++) {
+                x[i] = -5.0 + 10.0 * i / (N_SAMPLES - 1);
+                error[i] = NOISE;
+                y[i] = function.getValue(x[i]) + NOISE * random.nextGaussian();
+            }
+            profiles.add(withErrors ? new DoubleErrorDataSet("profile" + k, x, y, error, error, N_SAMPLES, true) : new DoubleDataSet("profile" + k, x, y, N_SAMPLES, true));
+        }
+        return profiles;
+    }
+
+    private static double trueMean(final int index) {
+        return -1.0 + 0.01 * index;
+    }
+
+    private static double trueScale(final int index) {
+        return 1.0 + 0.05 * (index % 10);
+    }
+
+    private static double trueSigma(final int index) {
+        return 0.8 + 0.02 * (index % 20);
+    }
+
+    /**
+     * Gaussian without analytic gradient -> finite-difference Jacobian
+     */
+    private static class NumericGaussian extends AbstractFunction1D {
+        private final GaussianFunction delegate = new GaussianFunction("delegate");
+
+        protected NumericGaussian(final double[] parameter) {
+            super("numeric", parameter.clone());
+        }
+
+        @Override
+        public double getValue(final double x) {
+            delegate.setParameterValues(fparameter);
+            return delegate.getValue(x);
+        }
+    }
+}
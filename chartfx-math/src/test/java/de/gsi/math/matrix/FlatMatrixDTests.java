@@ -0,0 +1,174 @@
+package de.gsi.math.matrix;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the flat row-major {@link FlatMatrixD}, the blocked {@link FlatLUDecomposition} and the parallel kernels of
+ * the {@link MatrixD} decompositions
+ */
+class FlatMatrixDTests {
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void testBasicOperations() {
+        final FlatMatrixD a = new FlatMatrixD(new double[] { 1, 2, 3, 4, 5, 6 }, 2);
+        assertEquals(2, a.getRowDimension());
+        assertEquals(3, a.getColumnDimension());
+        assertEquals(6.0, a.get(1, 2));
+        assertArrayEquals(new double[] { 1, 4, 2, 5, 3, 6 }, a.transpose().getArray());
+        assertArrayEquals(new double[] { 2, 4, 6, 8, 10, 12 }, a.plus(a).getArray());
+        assertArrayEquals(new double[6], a.minus(a).getArray());
+        assertArrayEquals(new double[] { -1, -2, -3, -4, -5, -6 }, a.times(-1.0).getArray());
+        assertArrayEquals(new double[] { 14, 32, 32, 77 }, a.times(a.transpose()).getArray());
+
+        final FlatMatrixD copy = a.copy();
+        copy.set(0, 0, 42.0);
+        assertEquals(1.0, a.get(0, 0), "deep copy");
+        assertArrayEquals(a.getArray(), new FlatMatrixD(a.toMatrixD()).getArray());
+        assertArrayEquals(new double[] { 7, 7, 7, 7 }, new FlatMatrixD(2, 2, 7.0).getArray());
+
+        assertThrows(IllegalArgumentException.class, () -> new FlatMatrixD(new double[5], 2));
+        assertThrows(IllegalArgumentException.class, () -> a.times(a));
+        assertThrows(IllegalArgumentException.class, () -> a.plus(a.transpose()));
+        assertThrows(IllegalArgumentException.class, () -> a.inverse());
+    }
+
+    @Test
+    void testBlockedMultiplication() {
+        // dimensions that are not multiples of the tile size, large enough for the parallel code path
+        final MatrixD a = randomMatrix(130, 70, 1);
+        final MatrixD b = randomMatrix(70, 150, 2);
+        final double[][] reference = naiveMultiply(a.getArray(), b.getArray());
+
+        final MatrixD product = a.times(b);
+        final FlatMatrixD flatProduct = new FlatMatrixD(a).times(new FlatMatrixD(b));
+        for (int i = 0; i < reference.length; i++) {
+            // same summation order -> bit-identical results
+            assertArrayEquals(reference[i], product.getArray()[i], 0.0);
+            for (int j = 0; j < reference[i].length; j++) {
+                assertEquals(reference[i][j], flatProduct.get(i, j), 0.0);
+            }
+        }
+
+        // matrix-vector product
+        final MatrixD vector = randomMatrix(70, 1, 3);
+        assertArrayEquals(a.times(vector).getColumnPackedCopy(), new FlatMatrixD(a).times(new FlatMatrixD(vector)).getArray(), TOLERANCE);
+    }
+
+    @Test
+    void testLUDecomposition() {
+        for (final int n : new int[] { 1, 5, 64, 150, 300 }) {
+            final MatrixD reference = randomMatrix(n, n, n);
+            final FlatMatrixD a = new FlatMatrixD(reference);
+            final LUDecomposition refLU = reference.lu();
+            final FlatLUDecomposition lu = a.lu();
+
+            assertTrue(lu.isNonsingular());
+            if (n <= 150) {
+                // N.B. determinant of larger random matrices exceeds the double range
+                assertEquals(1.0, lu.det() / refLU.det(), 1e-8, "n = " + n);
+                assertEquals(1.0, a.det() / reference.det(), 1e-8, "n = " + n);
+            }
+
+            // A(piv,:) = L*U
+            final FlatMatrixD product = lu.getL().times(lu.getU());
+            final int[] piv = lu.getPivot();
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    assertEquals(a.get(piv[i], j), product.get(i, j), TOLERANCE, "n = " + n);
+                }
+            }
+
+            // A * inverse(A) = 1
+            assertIdentity(a.times(a.inverse()).toMatrixD(), 1e-8);
+            final FlatMatrixD b = new FlatMatrixD(randomMatrix(n, 3, 2 * n));
+            final FlatMatrixD x = a.solve(b);
+            assertArrayEquals(b.getArray(), a.times(x).getArray(), 1e-8);
+            assertArrayEquals(reference.solve(b.toMatrixD()).getRowPackedCopy(), x.getArray(), 1e-8);
+        }
+
+        // rectangular and singular matrices
+        final FlatMatrixD tall = new FlatMatrixD(randomMatrix(200, 80, 7));
+        final FlatLUDecomposition tallLU = tall.lu();
+        final FlatMatrixD tallProduct = tallLU.getL().times(tallLU.getU());
+        final int[] piv = tallLU.getPivot();
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < 80; j++) {
+                assertEquals(tall.get(piv[i], j), tallProduct.get(i, j), TOLERANCE);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, tallLU::det);
+
+        final FlatMatrixD singular = new FlatMatrixD(new double[] { 1, 2, 2, 4 }, 2);
+        assertFalse(singular.lu().isNonsingular());
+        assertEquals(0.0, singular.det(), 0.0);
+        assertThrows(IllegalStateException.class, singular::inverse);
+        assertThrows(IllegalArgumentException.class, () -> singular.lu().solve(new FlatMatrixD(3, 1)));
+    }
+
+    @Test
+    void testParallelDecompositionKernels() {
+        final int n = 200;
+        final MatrixD a = randomMatrix(n, n, 11);
+
+        assertIdentity(a.times(a.inverse()), 1e-8);
+        assertIdentity(a.times(a.qr().solve(MatrixFactory.identity(n, n))), 1e-8);
+
+        final SingularValueDecomposition svd = a.svd();
+        assertTrue(svd.decompose());
+        assertIdentity(svd.getV().transpose().times(svd.getV()), 1e-8);
+        assertIdentity(a.times(svd.getInverse()), 1e-6);
+
+        // over-determined least-squares problem: residual is orthogonal to the column space
+        final MatrixD tall = randomMatrix(300, 150, 12);
+        final MatrixD rhs = randomMatrix(300, 2, 13);
+        final MatrixD residual = tall.times(tall.solve(rhs)).minus(rhs);
+        final MatrixD projection = tall.transpose().times(residual);
+        for (int i = 0; i < projection.getRowDimension(); i++) {
+            for (int j = 0; j < projection.getColumnDimension(); j++) {
+                assertEquals(0.0, projection.get(i, j), 1e-8);
+            }
+        }
+    }
+
+    private static void assertIdentity(final MatrixD matrix, final double tolerance) {
+        for (int i = 0; i < matrix.getRowDimension(); i++) {
+            for (int j = 0; j < matrix.getColumnDimension(); j++) {
+                assertEquals(i == j ? 1.0 : 0.0, matrix.get(i, j), tolerance);
+            }
+        }
+    }
+
+    private static double[][] naiveMultiply(final double[][] a, final double[][] b) {
+        final double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b[0].length; j++) {
+                double s = 0.0;
+                for (int k = 0; k < b.length; k++) {
+                    s += a[i][k] * b[k][j];
+                }
+                c[i][j] = s;
+            }
+        }
+        return c;
+    }
+
+    private static MatrixD randomMatrix(final int m, final int n, final long seed) {
+        final Random random = new Random(seed);
+        final MatrixD matrix = new MatrixD(m, n);
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                matrix.set(i, j, random.nextGaussian());
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,116 @@
+package de.gsi.math.matrix;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the dense linear algebra operations of the row-array {@link MatrixD} versus the flat row-major
+ * {@link FlatMatrixD} implementation.
+ *
+ * N.B. the parallel kernels can be disabled for comparison with the sequential implementation by limiting the common
+ * pool, e.g. via {@code -jvmArgs -Djava.util.concurrent.ForkJoinPool.common.parallelism=1}.
+ */
+@State(Scope.Benchmark)
+public class MatrixBenchmark {
+    @Param({ "100", "1000" })
+    private int n;
+    private MatrixD matrix;
+    private MatrixD matrix2;
+    private FlatMatrixD flatMatrix;
+    private FlatMatrixD flatMatrix2;
+
+    @Setup()
+    public void initialize() {
+        final Random random = new Random(42);
+        matrix = new MatrixD(n, n);
+        matrix2 = new MatrixD(n, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                matrix.set(i, j, random.nextGaussian());
+                matrix2.set(i, j, random.nextGaussian());
+            }
+        }
+        flatMatrix = new FlatMatrixD(matrix);
+        flatMatrix2 = new FlatMatrixD(matrix2);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void inverse(Blackhole blackhole) {
+        blackhole.consume(matrix.inverse());
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void inverseFlat(Blackhole blackhole) {
+        blackhole.consume(flatMatrix.inverse());
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void luDecomposition(Blackhole blackhole) {
+        blackhole.consume(matrix.lu());
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void luDecompositionFlat(Blackhole blackhole) {
+        blackhole.consume(flatMatrix.lu());
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void multiply(Blackhole blackhole) {
+        blackhole.consume(matrix.times(matrix2));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void multiplyFlat(Blackhole blackhole) {
+        blackhole.consume(flatMatrix.times(flatMatrix2));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void qrDecomposition(Blackhole blackhole) {
+        blackhole.consume(matrix.qr());
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void svdDecomposition(Blackhole blackhole) {
+        final SingularValueDecomposition svd = new SingularValueDecomposition(matrix);
+        svd.decompose();
+        blackhole.consume(svd);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void transpose(Blackhole blackhole) {
+        blackhole.consume(matrix.transpose());
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void transposeFlat(Blackhole blackhole) {
+        blackhole.consume(flatMatrix.transpose());
+    }
+}
@@ -130,5 +130,10 @@ class ApodizationTests {
         Apodization.setWindowCache(newCache);
         assertEquals(newCache, Apodization.getWindowCache());
         assertNotEquals(oldCache, Apodization.getWindowCache());
+        // new cache is used also for previously requested windows
+        Apodization.Hann.getWindow(16);
+        Apodization.Hann.getWindow(16);
+        assertEquals(1, newCache.size());
+        Apodization.setWindowCache(oldCache);
     }
 }
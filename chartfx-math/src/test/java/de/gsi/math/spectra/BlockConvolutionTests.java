@@ -0,0 +1,130 @@
+package de.gsi.math.spectra;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import de.gsi.math.spectra.BlockConvolution.Method;
+
+/**
+ * Tests of the overlap-save/-add {@link BlockConvolution}
+ */
+class BlockConvolutionTests {
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void testOfflineConvolution() {
+        final double[] signal = generateSignal(1000, 42);
+        final double[] kernel = generateSignal(31, 43);
+        final double[] reference = directConvolution(signal, kernel);
+
+        assertArrayEquals(reference, BlockConvolution.convolve(signal, kernel), TOLERANCE);
+        for (final int blockSize : new int[] { 64, 128, 1024, 4096 }) {
+            for (final Method method : Method.values()) {
+                assertArrayEquals(reference, BlockConvolution.convolve(signal, kernel, blockSize, method), TOLERANCE, method + " blockSize = " + blockSize);
+            }
+        }
+
+        // single-tap kernel
+        assertArrayEquals(signal, BlockConvolution.convolve(signal, new double[] { 1.0 }), TOLERANCE);
+        assertEquals(0, BlockConvolution.convolve(new double[0], kernel).length);
+    }
+
+    @Test
+    void testParallelBlocks() {
+        final double[] signal = generateSignal(1 << 15, 44);
+        final double[] kernel = generateSignal(64, 45);
+        final double[] reference = directConvolution(signal, kernel);
+        for (final Method method : Method.values()) {
+            assertArrayEquals(reference, BlockConvolution.convolve(signal, kernel, 256, method), TOLERANCE, method.toString());
+        }
+    }
+
+    @Test
+    void testStreaming() {
+        final double[] signal = generateSignal(2000, 46);
+        final double[] kernel = generateSignal(17, 47);
+        final double[] reference = directConvolution(signal, kernel);
+
+        final BlockConvolution convolution = new BlockConvolution(kernel, 64);
+        assertEquals(64, convolution.getBlockSize());
+        assertEquals(17, convolution.getKernelLength());
+        final double[] output = new double[signal.length];
+        final Random random = new Random(48);
+        int done = 0;
+        while (done < signal.length) {
+            // chunks shorter and longer than the block size
+            final int n = Math.min(signal.length - done, 1 + random.nextInt(150));
+            convolution.process(signal, done, output, done, n);
+            done += n;
+        }
+        assertArrayEquals(reference, output, TOLERANCE);
+
+        // in-place processing after reset
+        convolution.reset();
+        final double[] inPlace = signal.clone();
+        convolution.process(inPlace, 0, inPlace, 0, 500);
+        convolution.process(inPlace, 500, inPlace, 500, inPlace.length - 500);
+        assertArrayEquals(reference, inPlace, TOLERANCE);
+
+        convolution.reset();
+        assertArrayEquals(reference, convolution.process(signal), TOLERANCE);
+    }
+
+    @Test
+    void testKernelSpectrumCache() {
+        BlockConvolution.clearCache();
+        final double[] kernel = { 1.0, 0.5, 0.25 };
+        final double[] spectrum = BlockConvolution.getKernelSpectrum(kernel, 64);
+        assertSame(spectrum, BlockConvolution.getKernelSpectrum(kernel.clone(), 64), "cached by kernel content");
+        assertEquals(128, BlockConvolution.getKernelSpectrum(kernel, 128).length);
+
+        // cache is not affected by later modifications of the kernel
+        kernel[0] = 2.0;
+        final double[] modified = BlockConvolution.getKernelSpectrum(kernel, 64);
+        assertEquals(2.75, modified[0], TOLERANCE);
+        assertEquals(1.75, spectrum[0], TOLERANCE);
+
+        assertEquals(64, BlockConvolution.getDefaultBlockSize(1));
+        assertEquals(512, BlockConvolution.getDefaultBlockSize(100));
+    }
+
+    @Test
+    void testAssertions() {
+        final double[] kernel = new double[10];
+        assertThrows(IllegalArgumentException.class, () -> new BlockConvolution(null));
+        assertThrows(IllegalArgumentException.class, () -> new BlockConvolution(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> new BlockConvolution(kernel, 16));
+        assertThrows(IllegalArgumentException.class, () -> new BlockConvolution(kernel, 100));
+        assertThrows(IllegalArgumentException.class, () -> BlockConvolution.convolve(null, kernel));
+        assertThrows(IllegalArgumentException.class, () -> BlockConvolution.convolve(new double[10], kernel, 64, null));
+        final BlockConvolution convolution = new BlockConvolution(kernel);
+        assertThrows(IllegalArgumentException.class, () -> convolution.process(new double[10], 5, new double[10], 0, 10));
+    }
+
+    private static double[] directConvolution(final double[] signal, final double[] kernel) {
+        final double[] output = new double[signal.length];
+        for (int n = 0; n < signal.length; n++) {
+            double sum = 0.0;
+            for (int k = 0; k < kernel.length && k <= n; k++) {
+                sum += kernel[k] * signal[n - k];
+            }
+            output[n] = sum;
+        }
+        return output;
+    }
+
+    private static double[] generateSignal(final int length, final long seed) {
+        final Random random = new Random(seed);
+        final double[] signal = new double[length];
+        for (int i = 0; i < length; i++) {
+            signal[i] = Math.sin(0.01 * i) + random.nextGaussian();
+        }
+        return signal;
+    }
+}
@@ -2,9 +2,23 @@ package de.gsi.math.spectra;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
 
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.GridDataSet;
+import de.gsi.math.matrix.MatrixD;
+
 public class EEMDTests {
     @Test
     public void extremeTest() {
@@ -23,4 +37,149 @@ public class EEMDTests {
         assertArrayEquals(new double[] { 0, 4, 0, 0, 0, 0, 0, 0, 0, 0 }, spmin[0]);
         assertArrayEquals(new double[] { 1, 1, 0, 0, 0, 0, 0, 0, 0, 0 }, spmin[1]);
     }
+
+    @Test
+    public void ensembleTest() {
+        final EEMD eemd = new EEMD();
+        final double[] data = testSignal(64, 0.0);
+        final double rms = de.gsi.math.Math.rms(data);
+
+        // single noise-free trial: modes and remainder reconstruct the (normalised) input
+        final MatrixD emd = eemd.eemd(data, 0, 1.0);
+        final int nColumns = emd.getColumnDimension();
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(data[i], emd.get(i, 0));
+            double sum = 0.0;
+            for (int nmode = 1; nmode < nColumns; nmode++) {
+                sum += emd.get(i, nmode);
+            }
+            assertEquals(data[i] / rms, sum, 1e-9);
+        }
+
+        // noise-added ensemble: reproducible for a given seed and progress reported for all trials
+        final AtomicInteger nProgress = new AtomicInteger();
+        final MatrixD ensemble1 = eemd.eemd(data, 0.1, 4, 42L, (completed, total) -> {
+            assertEquals(4, total);
+            nProgress.incrementAndGet();
+        });
+        assertEquals(4, nProgress.get());
+        assertFalse(eemd.isBusy());
+        assertEquals(100, eemd.getStatus());
+
+        final CompletableFuture<MatrixD> concurrent1 = eemd.eemdAsync(data, 0.1, 4, 42L, null);
+        final CompletableFuture<MatrixD> concurrent2 = eemd.eemdAsync(testSignal(64, 1.0), 0.1, 4, 42L, null);
+        final MatrixD ensemble2 = concurrent1.join();
+        final MatrixD other = concurrent2.join();
+        final MatrixD ensemble3 = eemd.eemd(data, 0.1, 4, 43L, null);
+        double maxDiffOtherSeed = 0.0;
+        double maxDiffOtherInput = 0.0;
+        for (int i = 0; i < data.length; i++) {
+            double sum = 0.0;
+            for (int nmode = 1; nmode < nColumns; nmode++) {
+                assertEquals(ensemble1.get(i, nmode), ensemble2.get(i, nmode), 1e-12);
+                maxDiffOtherSeed = Math.max(maxDiffOtherSeed, Math.abs(ensemble1.get(i, nmode) - ensemble3.get(i, nmode)));
+                maxDiffOtherInput = Math.max(maxDiffOtherInput, Math.abs(ensemble1.get(i, nmode) - other.get(i, nmode)));
+                sum += ensemble1.get(i, nmode);
+            }
+            // ensemble-average of the reconstructed signal plus noise
+            assertEquals(data[i] / rms, sum, 0.2);
+        }
+        assertTrue(maxDiffOtherSeed > 0.0);
+        assertTrue(maxDiffOtherInput > 0.0);
+
+        assertThrows(IllegalArgumentException.class, () -> eemd.eemd(null, 0.1, 4, 42L, null));
+        assertThrows(IllegalArgumentException.class, () -> eemd.eemdAsync(data, 0.1, 0, 42L, null));
+    }
+
+    @Test
+    public void parallelismTest() throws InterruptedException, ExecutionException {
+        final EEMD eemd = new EEMD();
+        final double[] data = testSignal(128, 0.0);
+        final MatrixD reference = eemd.eemd(data, 0.1, 40, 42L, null);
+        for (final int parallelism : new int[] { 1, 3, 8 }) {
+            // N.B. parallel streams started from within a fork/join pool are executed on that pool
+            final ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                final MatrixD result = pool.submit(() -> eemd.eemd(data, 0.1, 40, 42L, null)).get();
+                for (int i = 0; i < data.length; i++) {
+                    // bit-identical ensemble average independent of the number of threads
+                    assertArrayEquals(reference.getArray()[i], result.getArray()[i], "parallelism = " + parallelism);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void scalogramTest() {
+        final EEMD eemd = new EEMD();
+        final double[] data = testSignal(128, 0.0);
+        final AtomicInteger lastProgress = new AtomicInteger();
+        final AtomicInteger nSteps = new AtomicInteger();
+        final DataSet scalogram = eemd.getScalogram(data, 128, 128, (completed, total) -> {
+            assertTrue(completed > lastProgress.get(), "monotonic progress");
+            lastProgress.set(completed);
+            nSteps.set(total);
+        });
+        assertTrue(nSteps.get() > 1);
+        assertEquals(nSteps.get(), lastProgress.get());
+        assertTrue(scalogram instanceof GridDataSet);
+        final GridDataSet grid = (GridDataSet) scalogram;
+        assertEquals(data.length, grid.getShape(DataSet.DIM_X));
+        assertEquals(data.length / 2, grid.getShape(DataSet.DIM_Y));
+
+        final DataSet async = eemd.getScalogramAsync(data, 128, 128, null).join();
+        assertArrayEquals(scalogram.getValues(DataSet.DIM_Z), async.getValues(DataSet.DIM_Z));
+        assertFalse(eemd.isBusy());
+
+        // cancelled via the future after the decomposition
+        final AtomicReference<CompletableFuture<DataSet>> future = new AtomicReference<>();
+        synchronized (future) {
+            future.set(eemd.getScalogramAsync(data, 128, 128, (completed, total) -> {
+                synchronized (future) {
+                    future.get().cancel(true);
+                }
+            }));
+        }
+        assertThrows(CancellationException.class, () -> future.get().join());
+        assertThrows(IllegalArgumentException.class, () -> eemd.getScalogramAsync(null, 128, 128, null));
+    }
+
+    @Test
+    public void cancellationTest() {
+        final EEMD eemd = new EEMD();
+        final double[] data = testSignal(64, 0.0);
+
+        // asynchronous computation cancelled via its future after the first trial
+        final AtomicReference<CompletableFuture<MatrixD>> future = new AtomicReference<>();
+        final AtomicInteger nProgress = new AtomicInteger();
+        synchronized (future) {
+            future.set(eemd.eemdAsync(data, 0.1, 1000, 42L, (completed, total) -> {
+                nProgress.incrementAndGet();
+                synchronized (future) {
+                    future.get().cancel(true);
+                }
+            }));
+        }
+        assertThrows(CancellationException.class, () -> future.get().join());
+        assertTrue(future.get().isCancelled());
+        assertTrue(nProgress.get() < 1000);
+
+        // synchronous computation cancelled by interrupting the calling thread
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> eemd.eemd(data, 0.1, 4, 42L, null));
+        } finally {
+            Thread.interrupted(); // clear flag
+        }
+    }
+
+    private static double[] testSignal(final int length, final double phase) {
+        final double[] data = new double[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = Math.sin(0.2 * i + phase) + 0.3 * Math.sin(1.3 * i);
+        }
+        return data;
+    }
 }
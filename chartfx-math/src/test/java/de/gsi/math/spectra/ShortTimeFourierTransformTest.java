@@ -303,6 +303,34 @@ class ShortTimeFourierTransformTest {
                 ShortTimeFourierTransform.complex(real, imag, null, nFft, step, apodization, Padding.ZOH, true, truncateDCNy));
     }
 
+    @Test
+    public void testParallelFrames() {
+        final int nFft = 64;
+        final int step = 16;
+        final int nSamples = 4 * ShortTimeFourierTransform.MIN_PARALLEL_WORK / nFft * step + 7;
+        final double[] real = new double[nSamples];
+        final double[] imag = new double[nSamples];
+        for (int i = 0; i < nSamples; i++) {
+            real[i] = Math.sin(0.05 * i) + 0.1 * Math.cos(0.7 * i);
+            imag[i] = Math.cos(0.02 * i);
+        }
+        final double[] spectrogram = ShortTimeFourierTransform.real(real, null, nFft, step, Apodization.Hann, Padding.ZERO, false, true);
+        final int nT = spectrogram.length / (nFft / 2);
+        assertEquals((nSamples + step - 1) / step, nT);
+        // compare frames across the whole spectrogram (ie. several parallel chunks) against a direct computation
+        final DoubleFFT_1D fastFourierTrafo = new DoubleFFT_1D(nFft);
+        for (int i = 0; i < nT - nFft / step; i += 97) {
+            final double[] frame = Arrays.copyOfRange(real, i * step, i * step + nFft);
+            Apodization.Hann.apodize(frame);
+            fastFourierTrafo.realForward(frame);
+            assertArrayEquals(SpectrumTools.computeMagnitudeSpectrum(frame, true), Arrays.copyOfRange(spectrogram, i * nFft / 2, (i + 1) * nFft / 2), 1e-12);
+        }
+
+        // split and interleaved complex inputs must yield identical spectrograms
+        assertArrayEquals(ShortTimeFourierTransform.complex(real, imag, null, nFft, step, Apodization.Hann, Padding.MIRROR, true, false),
+                ShortTimeFourierTransform.complex(getStridedComplex(real, imag, 0, nSamples), null, nFft, step, Apodization.Hann, Padding.MIRROR, true, false));
+    }
+
     /**
      * Realigns a spectrum by switching upper and lower half [0,..., fs/2, -fs/2, ..., -1] -&gt; [-fs/2, ..., fs/2]<
      */
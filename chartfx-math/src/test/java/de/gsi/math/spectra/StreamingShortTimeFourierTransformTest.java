@@ -0,0 +1,187 @@
+package de.gsi.math.spectra;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static de.gsi.dataset.DataSet.DIM_X;
+import static de.gsi.dataset.DataSet.DIM_Y;
+import static de.gsi.dataset.DataSet.DIM_Z;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import de.gsi.dataset.DataSetMetaData;
+import de.gsi.dataset.GridDataSet;
+import de.gsi.dataset.locks.DefaultDataSetLock;
+import de.gsi.dataset.spi.CircularDoubleErrorDataSet;
+import de.gsi.math.spectra.ShortTimeFourierTransform.Padding;
+
+/**
+ * Tests of the {@link StreamingShortTimeFourierTransform} against the batch {@link ShortTimeFourierTransform}
+ */
+class StreamingShortTimeFourierTransformTest {
+    private static final int N_FFT = 64;
+    private static final int STEP = 24;
+    private static final double DT = 1e-3;
+
+    @Test
+    void testArrayInputAgainstBatch() {
+        final int nSamples = 3000;
+        final double[] x = getTime(nSamples);
+        final double[] y = getSignal(nSamples);
+        final int nColumns = 40;
+        final StreamingShortTimeFourierTransform stft = new StreamingShortTimeFourierTransform(N_FFT, STEP, nColumns, Apodization.Hann, false, true);
+
+        // feed random sized chunks (smaller and larger than the frame size)
+        final Random random = new Random(42);
+        int nEmitted = 0;
+        for (int offset = 0; offset < nSamples;) {
+            final int length = Math.min(nSamples - offset, random.nextInt(3 * N_FFT));
+            final int nNew = stft.add(x, y, offset, length);
+            assertEquals(Math.min(nNew, nColumns), stft.getColumnLatencies().length);
+            nEmitted += nNew;
+            offset += length;
+        }
+        assertEquals(nSamples, stft.getSampleCount());
+        final int nFrames = (nSamples - N_FFT) / STEP + 1;
+        assertEquals(nFrames, nEmitted);
+        assertLastFrames(stft.getOutput(), y, nFrames, nColumns);
+        assertEquals(x[(nFrames - 1) * STEP], stft.getOutput().getGrid(DIM_Y, nColumns - 1));
+        assertEquals(0.5 / DT, stft.getOutput().getGrid(DIM_X, N_FFT / 2 - 1), 1.0 / DT / N_FFT);
+        assertTrue(((DataSetMetaData) stft.getOutput()).getMetaInfo().containsKey(StreamingShortTimeFourierTransform.LATENCY_META_KEY));
+
+        // a batch larger than the number of retained columns
+        stft.reset();
+        assertEquals(0, stft.getOutput().getDataCount());
+        assertEquals(nFrames, stft.add(x, y, 0, nSamples));
+        assertEquals(nColumns, stft.getColumnLatencies().length);
+        assertLastFrames(stft.getOutput(), y, nFrames, nColumns);
+    }
+
+    @Test
+    void testCircularDataSetInput() {
+        final int nSamples = 2000;
+        final double[] x = getTime(nSamples);
+        final double[] y = getSignal(nSamples);
+        final CircularDoubleErrorDataSet input = new CircularDoubleErrorDataSet("input", 500);
+        input.getAxisDescription(DIM_X).set("Time", "s");
+        input.getAxisDescription(DIM_Y).set("Voltage", "V");
+        final StreamingShortTimeFourierTransform stft = new StreamingShortTimeFourierTransform(N_FFT, STEP, 1000, Apodization.Hann, true, false);
+
+        final double[] zeros = new double[nSamples];
+        final int chunk = 37;
+        for (int offset = 0; offset < nSamples; offset += chunk) {
+            final int length = Math.min(chunk, nSamples - offset);
+            input.add(Arrays.copyOfRange(x, offset, offset + length), Arrays.copyOfRange(y, offset, offset + length), zeros, zeros, length);
+            stft.update(input);
+            assertEquals(offset + length, stft.getSampleCount());
+            // repeated update without new data does not emit new columns
+            assertEquals(0, stft.update(input));
+        }
+        final GridDataSet output = stft.getOutput();
+        final int nFrames = (nSamples - N_FFT) / STEP + 1;
+        assertEquals(nFrames, output.getShape(DIM_Y));
+        final double[] batch = ShortTimeFourierTransform.real(y, null, N_FFT, STEP, Apodization.Hann, Padding.ZERO, true, false);
+        assertArrayEquals(Arrays.copyOf(batch, nFrames * N_FFT / 2), output.getValues(DIM_Z), 1e-9);
+        assertEquals("Hz", output.getAxisDescription(DIM_X).getUnit());
+        assertEquals("V", output.getAxisDescription(DIM_Z).getUnit());
+
+        // restarting x-coordinates reset the state
+        input.reset();
+        input.add(Arrays.copyOf(x, 2 * N_FFT), Arrays.copyOf(y, 2 * N_FFT), zeros, zeros, 2 * N_FFT);
+        assertEquals((N_FFT) / STEP + 1, stft.update(input));
+        assertEquals(2 * N_FFT, stft.getSampleCount());
+        assertArrayEquals(Arrays.copyOf(batch, ((N_FFT) / STEP + 1) * N_FFT / 2), output.getValues(DIM_Z), 1e-9);
+    }
+
+    @Test
+    void testCircularDataSetOverrun() {
+        final int capacity = 200;
+        final double[] x = getTime(2 * capacity);
+        final double[] y = getSignal(2 * capacity);
+        final double[] zeros = new double[2 * capacity];
+        final CircularDoubleErrorDataSet input = new CircularDoubleErrorDataSet("input", capacity);
+        final StreamingShortTimeFourierTransform stft = new StreamingShortTimeFourierTransform(N_FFT, STEP, 100, Apodization.Hann, false, false);
+        // output listeners are notified after the input read lock has been released
+        final AtomicInteger nNotifications = new AtomicInteger();
+        stft.getOutput().addListener(event -> {
+            assertEquals(0, ((DefaultDataSetLock<?>) input.lock()).getReaderCount(), "notified while holding the input lock");
+            nNotifications.incrementAndGet();
+        });
+
+        input.add(Arrays.copyOf(x, 100), Arrays.copyOf(y, 100), zeros, zeros, 100);
+        final int nFirst = (100 - N_FFT) / STEP + 1;
+        assertEquals(nFirst, stft.update(input));
+        assertEquals(0, stft.getOverrunCount());
+        assertTrue(nNotifications.get() > 0);
+
+        // 300 new samples without an update -> samples 100..199 are overwritten before being consumed
+        input.add(Arrays.copyOfRange(x, 100, 2 * capacity), Arrays.copyOfRange(y, 100, 2 * capacity), zeros, zeros, 2 * capacity - 100);
+        final int nSecond = (capacity - N_FFT) / STEP + 1;
+        assertEquals(nSecond, stft.update(input), "frames restart after the gap");
+        assertEquals(1, stft.getOverrunCount());
+        assertEquals("1", ((DataSetMetaData) stft.getOutput()).getMetaInfo().get(StreamingShortTimeFourierTransform.OVERRUN_META_KEY));
+        assertEquals(100 + capacity, stft.getSampleCount());
+
+        // earlier columns are retained, new columns are computed from the retained samples only
+        final GridDataSet output = stft.getOutput();
+        assertEquals(nFirst + nSecond, output.getShape(DIM_Y));
+        final double[] before = ShortTimeFourierTransform.real(Arrays.copyOf(y, 100), null, N_FFT, STEP, Apodization.Hann, Padding.ZERO, false, false);
+        final double[] after = ShortTimeFourierTransform.real(Arrays.copyOfRange(y, capacity, 2 * capacity), null, N_FFT, STEP, Apodization.Hann, Padding.ZERO, false, false);
+        final double[] values = output.getValues(DIM_Z);
+        assertArrayEquals(Arrays.copyOf(before, nFirst * N_FFT / 2), Arrays.copyOf(values, nFirst * N_FFT / 2), 1e-9);
+        assertArrayEquals(Arrays.copyOf(after, nSecond * N_FFT / 2), Arrays.copyOfRange(values, nFirst * N_FFT / 2, (nFirst + nSecond) * N_FFT / 2), 1e-9);
+        assertEquals(x[capacity], output.getGrid(DIM_Y, nFirst));
+
+        // contiguous updates are no overruns
+        input.add(new double[] { x[2 * capacity - 1] + DT }, new double[] { 0.0 }, zeros, zeros, 1);
+        stft.update(input);
+        assertEquals(1, stft.getOverrunCount());
+
+        stft.reset();
+        assertEquals(0, stft.getOverrunCount());
+        assertFalse(((DataSetMetaData) stft.getOutput()).getMetaInfo().containsKey(StreamingShortTimeFourierTransform.OVERRUN_META_KEY));
+    }
+
+    @Test
+    void testExceptions() {
+        assertThrows(IllegalArgumentException.class, () -> new StreamingShortTimeFourierTransform(0, STEP, 10, Apodization.Hann, false, false));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingShortTimeFourierTransform(63, STEP, 10, Apodization.Hann, false, false));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingShortTimeFourierTransform(N_FFT, 0, 10, Apodization.Hann, false, false));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingShortTimeFourierTransform(N_FFT, STEP, 0, Apodization.Hann, false, false));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingShortTimeFourierTransform(N_FFT, STEP, 10, null, false, false));
+        final StreamingShortTimeFourierTransform stft = new StreamingShortTimeFourierTransform(N_FFT, STEP, 10, Apodization.Hann, false, false);
+        assertThrows(IllegalArgumentException.class, () -> stft.add(new double[10], new double[10], 5, 6));
+        assertThrows(IllegalArgumentException.class, () -> stft.update(null));
+        assertEquals(0, stft.add(new double[10], new double[10], 0, 10));
+    }
+
+    private static void assertLastFrames(final GridDataSet output, final double[] y, final int nFrames, final int nColumns) {
+        assertEquals(N_FFT / 2, output.getShape(DIM_X));
+        assertEquals(nColumns, output.getShape(DIM_Y));
+        final double[] batch = ShortTimeFourierTransform.real(y, null, N_FFT, STEP, Apodization.Hann, Padding.ZERO, false, true);
+        assertArrayEquals(Arrays.copyOfRange(batch, (nFrames - nColumns) * N_FFT / 2, nFrames * N_FFT / 2), output.getValues(DIM_Z), 1e-9);
+    }
+
+    private static double[] getTime(final int nSamples) {
+        final double[] x = new double[nSamples];
+        for (int i = 0; i < nSamples; i++) {
+            x[i] = i * DT;
+        }
+        return x;
+    }
+
+    private static double[] getSignal(final int nSamples) {
+        final double[] y = new double[nSamples];
+        for (int i = 0; i < nSamples; i++) {
+            y[i] = Math.sin(2 * Math.PI * 100 * i * DT * (1 + 0.0005 * i)) + 0.1 * Math.cos(0.3 * i);
+        }
+        return y;
+    }
+}
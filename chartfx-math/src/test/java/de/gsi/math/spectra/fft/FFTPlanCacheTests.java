@@ -0,0 +1,39 @@
+package de.gsi.math.spectra.fft;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.jtransforms.fft.DoubleFFT_1D;
+import org.jtransforms.fft.FloatFFT_1D;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the {@link FFTPlanCache}
+ */
+class FFTPlanCacheTests {
+    @Test
+    void testCaching() {
+        FFTPlanCache.clear();
+        assertEquals(0, FFTPlanCache.getPlans().size());
+
+        final DoubleFFT_1D fft = FFTPlanCache.getDoubleFFT(128);
+        assertSame(fft, FFTPlanCache.getDoubleFFT(128));
+        assertNotSame(fft, FFTPlanCache.getDoubleFFT(256));
+        final FloatFFT_1D floatFft = FFTPlanCache.getFloatFFT(128);
+        assertSame(floatFft, FFTPlanCache.getFloatFFT(128));
+        assertEquals(3, FFTPlanCache.getPlans().size());
+
+        // cached plans yield the same result as new instances
+        final double[] data = { 1, 2, 3, 4, 5, 6, 7, 8 };
+        final double[] reference = data.clone();
+        FFTPlanCache.getDoubleFFT(data.length).realForward(data);
+        new DoubleFFT_1D(reference.length).realForward(reference);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(reference[i], data[i]);
+        }
+
+        FFTPlanCache.clear();
+        assertNotSame(fft, FFTPlanCache.getDoubleFFT(128));
+    }
+}
@@ -0,0 +1,86 @@
+package de.gsi.math.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the chunked parallel range helpers of {@link ConcurrencyUtils}
+ */
+class ConcurrencyUtilsTests {
+    private static final int LENGTH = 1000;
+
+    @Test
+    void testForChunks() {
+        for (final int nChunks : new int[] { 1, 3, 7, LENGTH, 2 * LENGTH }) {
+            final AtomicIntegerArray visits = new AtomicIntegerArray(LENGTH);
+            final int[] chunkStart = new int[LENGTH + 1];
+            Arrays.fill(chunkStart, -1);
+            ConcurrencyUtils.forChunks(5, 5 + LENGTH, nChunks, (chunk, from, to) -> {
+                assertTrue(from < to, "empty chunk " + chunk);
+                chunkStart[chunk] = from;
+                for (int i = from; i < to; i++) {
+                    visits.incrementAndGet(i - 5);
+                }
+            });
+            for (int i = 0; i < LENGTH; i++) {
+                assertEquals(1, visits.get(i), "nChunks = " + nChunks + " index = " + i);
+            }
+            // contiguous chunks in ascending chunk order
+            final int nUsed = Math.min(nChunks, LENGTH);
+            assertEquals(5, chunkStart[0]);
+            for (int chunk = 1; chunk < nUsed; chunk++) {
+                assertTrue(chunkStart[chunk] > chunkStart[chunk - 1]);
+            }
+        }
+
+        // empty range
+        ConcurrencyUtils.forChunks(3, 3, 4, (chunk, from, to) -> { throw new IllegalStateException("must not be called"); });
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyUtils.forChunks(0, 1, 1, null));
+    }
+
+    @Test
+    void testForRange() {
+        final double[] reference = new double[LENGTH];
+        Arrays.setAll(reference, i -> 2.0 * i);
+
+        final double[] sequential = new double[LENGTH];
+        ConcurrencyUtils.forRange(0, LENGTH, LENGTH, Long.MAX_VALUE, (from, to) -> fill(sequential, from, to));
+        assertArrayEquals(reference, sequential);
+
+        final double[] parallel = new double[LENGTH];
+        ConcurrencyUtils.forRange(0, LENGTH, LENGTH, 0, (from, to) -> fill(parallel, from, to));
+        assertArrayEquals(reference, parallel);
+    }
+
+    @Test
+    void testForRangeOnExecutor() throws InterruptedException, ExecutionException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final double[] reference = new double[LENGTH];
+            Arrays.setAll(reference, i -> 2.0 * i);
+            final double[] result = new double[LENGTH];
+            ConcurrencyUtils.forRange(0, LENGTH, 8, executor, (from, to) -> fill(result, from, to));
+            assertArrayEquals(reference, result);
+
+            assertThrows(ExecutionException.class, () -> ConcurrencyUtils.forRange(0, LENGTH, 8, executor, (from, to) -> { throw new IllegalStateException("failed chunk"); }));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void fill(final double[] data, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            data[i] = 2.0 * i;
+        }
+    }
+}
@@ -24,6 +24,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.gsi.acc.remote.clipboard.Clipboard;
+import de.gsi.acc.remote.data.ChartImageEndpoint;
+import de.gsi.acc.remote.data.DataSetEndpoint;
 import de.gsi.chart.XYChart;
 import de.gsi.chart.axes.spi.DefaultNumericAxis;
 import de.gsi.chart.axes.spi.OscilloscopeAxis;
@@ -157,6 +159,12 @@ public class ClipboardSample extends Application {
         // for a full parameter description @see de.gsi.acc.remote.RestServer
         remoteView = new Clipboard("/", "status", root, UPDATE_PERIOD, TimeUnit.MILLISECONDS, true);
         //remoteView = new Clipboard("/", "status", root, 5000, TimeUnit.MILLISECONDS, true)
+        // raw data for thin web-clients, e.g. 'http://localhost:8080/dataset/beam%20intensity%20%5Bppp%5D?width=800'
+        final DataSetEndpoint dataSetEndpoint = new DataSetEndpoint();
+        dataSetEndpoint.addDataSet(currentDataSet);
+        dataSetEndpoint.addDataSet(intensityDataSet);
+        // on-demand chart images, e.g. 'http://localhost:8080/chart/beam%20intensity%20%5Bppp%5D?width=1024&height=768'
+        new ChartImageEndpoint(dataSetEndpoint);
         if (!isRunningHeadless) {
             chart.addListener(obs -> remoteView.handle(new UpdateEvent(remoteView, "regular clipboard update")));
         } else {
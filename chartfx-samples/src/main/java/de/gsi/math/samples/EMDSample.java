@@ -13,6 +13,7 @@ import org.slf4j.LoggerFactory;
 
 import de.gsi.chart.renderer.spi.ContourDataSetRenderer;
 import de.gsi.chart.renderer.spi.utils.ColorGradient;
+import de.gsi.chart.utils.FXUtils;
 import de.gsi.dataset.DataSet;
 import de.gsi.dataset.spi.DefaultErrorDataSet;
 import de.gsi.math.Math;
@@ -30,40 +31,32 @@ public class EMDSample extends AbstractDemoApplication {
     private static final Logger LOGGER = LoggerFactory.getLogger(EMDSample.class);
     private static final int MAX_POINTS = 1024;
     private static final boolean LOAD_EXAMPLE_DATA = true;
-    private DataSet dataset;
     private DataSet[] fmodeDataSets = new DataSet[10];
     private double[][] fmodeData = new double[10][];
     private double[] yValues;
 
-    private DataSet createDataSet() {
+    private void createDataSet(final ContourDataSetRenderer renderer) {
         final int nQuantx = 1024;
         final int nQuanty = 1024;
 
         // the empirical-mode-decomposition (EEMD) computation
         final EEMD trafoHHT = new EEMD();
+        final EEMD.ProgressListener progress = (completedSteps, nSteps) -> LOGGER.atInfo().addArgument(100 * completedSteps / nSteps).log("{}% of computation done");
 
-        new Thread(() -> dataset = trafoHHT.getScalogram(yValues, nQuantx, nQuanty)).start();
-
-        try {
-            do {
-                sleep(100);
-                int status = trafoHHT.getStatus();
-                if (status > 10) {
-                    LOGGER.atInfo().addArgument(status).log("{}% of computation done");
-                }
-            } while (trafoHHT.isBusy());
-        } catch (Exception e) {
-            if (LOGGER.isErrorEnabled()) {
-                LOGGER.atError().setCause(e).log("error during computation");
+        final long start = System.nanoTime();
+        trafoHHT.getScalogramAsync(yValues, nQuantx, nQuanty, progress).whenComplete((result, exception) -> {
+            if (exception != null) {
+                LOGGER.atError().setCause(exception).log("error during computation");
+                return;
             }
-        }
-
-        return dataset;
+            LOGGER.atInfo().addArgument((System.nanoTime() - start) * 1e-6).log("computation done after {} ms");
+            FXUtils.runFX(() -> renderer.getDatasets().add(result));
+        });
     }
 
     private void createModeDataSet() {
         final EEMD trafoHHT = new EEMD();
-        MatrixD emd = trafoHHT.eemd(yValues, 0, 1.0);
+        final MatrixD emd = trafoHHT.eemd(yValues, 0, 1.0);
 
         double[] time = new double[yValues.length];
         for (int i = 0; i < time.length; i++) {
@@ -101,7 +94,7 @@ public class EMDSample extends AbstractDemoApplication {
         // contourChartRenderer.setColorGradient(ColorGradient.JET);
         // contourChartRenderer.setColorGradient(ColorGradient.TOPO_EXT);
 
-        contourChartRenderer.getDatasets().add(createDataSet());
+        createDataSet(contourChartRenderer);
 
         final DemoChart chart2 = new DemoChart();
         chart2.getXAxis().setName("time");
@@ -193,17 +186,6 @@ public class EMDSample extends AbstractDemoApplication {
         return new double[1000];
     }
 
-    private void sleep(int millis) {
-        try {
-            Thread.sleep(millis);
-        } catch (InterruptedException e) {
-            if (LOGGER.isErrorEnabled()) {
-                LOGGER.atError().setCause(e).log("sleep error");
-            }
-            Thread.currentThread().interrupt();
-        }
-    }
-
     public static void main(final String[] args) {
         Application.launch(args);
     }
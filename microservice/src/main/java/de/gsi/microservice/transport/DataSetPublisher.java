@@ -0,0 +1,196 @@
+package de.gsi.microservice.transport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.serializer.IoBuffer;
+import de.gsi.serializer.IoClassSerialiser;
+import de.gsi.serializer.spi.BinarySerialiser;
+import de.gsi.serializer.spi.FastByteBuffer;
+import de.gsi.serializer.spi.iobuffer.DataSetSerialiser;
+
+/**
+ * Publishes DataSets and generic (IoClassSerialiser-compatible) objects as two-frame '[topic][payload]' ZeroMQ
+ * messages via a PUB socket bound to one or more 'inproc://', 'ipc://' or 'tcp://' endpoints.
+ * <p>
+ * The payload is serialised into a single re-used {@link FastByteBuffer} and handed to the socket directly from its
+ * backing array, ie. without intermediate byte[] copies. Matching subscribers: see {@link DataSetSubscriber}.
+ * <p>
+ * N.B. ZeroMQ sockets are not thread-safe: the publish functions are synchronised and may be called from any thread.
+ */
+public class DataSetPublisher implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataSetPublisher.class);
+    public static final int DEFAULT_HIGH_WATER_MARK = 1000;
+    private static final int INITIAL_BUFFER_SIZE = 64_000;
+    private final ZContext context;
+    private final boolean ownsContext;
+    private final ZMQ.Socket socket;
+    private final List<String> endpoints = new ArrayList<>();
+    private final IoBuffer buffer = new FastByteBuffer(INITIAL_BUFFER_SIZE);
+    private final DataSetSerialiser dataSetSerialiser = DataSetSerialiser.withIoSerialiser(new BinarySerialiser(buffer));
+    private final IoClassSerialiser classSerialiser = new IoClassSerialiser(buffer, BinarySerialiser.class);
+    private final TransportMetrics metrics = new TransportMetrics();
+    private boolean asFloat;
+    private boolean closed;
+
+    /**
+     * @param endpoints the endpoints to bind to (e.g. "tcp://*:5555", "tcp://localhost:*", "ipc://..." or "inproc://...")
+     */
+    public DataSetPublisher(final String... endpoints) {
+        this(new ZContext(), true, endpoints);
+    }
+
+    /**
+     * @param context shared ZeroMQ context (N.B. required for 'inproc://' transports, not closed by this publisher)
+     * @param endpoints the endpoints to bind to (e.g. "tcp://*:5555", "tcp://localhost:*", "ipc://..." or "inproc://...")
+     */
+    public DataSetPublisher(final ZContext context, final String... endpoints) {
+        this(context, false, endpoints);
+    }
+
+    private DataSetPublisher(final ZContext context, final boolean ownsContext, final String... endpoints) {
+        AssertUtils.notNull("context", context);
+        AssertUtils.notNull("endpoints", endpoints);
+        AssertUtils.gtThanZero("endpoints.length", endpoints.length);
+        this.context = context;
+        this.ownsContext = ownsContext;
+        socket = context.createSocket(SocketType.PUB);
+        socket.setSndHWM(DEFAULT_HIGH_WATER_MARK);
+        socket.setLinger(0);
+        for (final String endpoint : endpoints) {
+            if (!socket.bind(endpoint)) {
+                close();
+                throw new IllegalStateException("could not bind to endpoint " + endpoint);
+            }
+            // N.B. resolves wildcard ports/addresses
+            this.endpoints.add(socket.getLastEndpoint());
+        }
+        LOGGER.atDebug().addArgument(this.endpoints).log("publisher bound to {}");
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        context.destroySocket(socket);
+        if (ownsContext) {
+            context.close();
+        }
+    }
+
+    /**
+     * @return resolved endpoint addresses (e.g. with the actual tcp port if bound to a wildcard port)
+     */
+    public List<String> getEndpoints() {
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * @return message and byte counters of published messages
+     */
+    public TransportMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return {@code true}: DataSets are transmitted as 32-bit floats (see {@link DataSetSerialiser#write(DataSet, boolean)})
+     */
+    public synchronized boolean isAsFloat() {
+        return asFloat;
+    }
+
+    /**
+     * @return the DataSetSerialiser used for {@link #publish(String, DataSet)}, e.g. to select data labels, meta data or lossy value encodings
+     */
+    public DataSetSerialiser getDataSetSerialiser() {
+        return dataSetSerialiser;
+    }
+
+    /**
+     * Serialises and publishes a data set using the {@link DataSetSerialiser}
+     *
+     * @param topic the topic the subscribers may filter on
+     * @param dataSet the data set to be published
+     */
+    public synchronized void publish(final String topic, final DataSet dataSet) {
+        AssertUtils.notNull("dataSet", dataSet);
+        buffer.reset();
+        dataSet.lock().readLockGuard(() -> dataSetSerialiser.write(dataSet, asFloat));
+        publish(topic, buffer.elements(), 0, buffer.position());
+    }
+
+    /**
+     * Publishes the data contained in the given buffer
+     *
+     * @param topic the topic the subscribers may filter on
+     * @param payload buffer containing the pre-serialised data in the range [0, position[
+     */
+    public synchronized void publish(final String topic, final IoBuffer payload) {
+        AssertUtils.notNull("payload", payload);
+        publish(topic, payload.elements(), 0, payload.position());
+    }
+
+    /**
+     * Publishes the given raw payload
+     *
+     * @param topic the topic the subscribers may filter on
+     * @param payload the raw data
+     * @param offset the offset of the first byte to be published
+     * @param length the number of bytes to be published
+     */
+    public synchronized void publish(final String topic, final byte[] payload, final int offset, final int length) {
+        AssertUtils.notNull("topic", topic);
+        AssertUtils.notNull("payload", payload);
+        if (closed) {
+            throw new IllegalStateException("publisher has already been closed");
+        }
+        final byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        // N.B. PUB sockets never block: messages to subscribers above the high-water mark are discarded by ZeroMQ
+        socket.send(topicBytes, ZMQ.SNDMORE);
+        socket.send(payload, offset, length, 0);
+        metrics.addMessage((long) topicBytes.length + length);
+    }
+
+    /**
+     * Serialises and publishes a generic object using the {@link IoClassSerialiser}
+     *
+     * @param topic the topic the subscribers may filter on
+     * @param object the object to be published
+     */
+    public synchronized void publishObject(final String topic, final Object object) {
+        buffer.reset();
+        classSerialiser.serialiseObject(object);
+        publish(topic, buffer.elements(), 0, buffer.position());
+    }
+
+    /**
+     * @param state {@code true}: DataSets are transmitted as 32-bit floats (see {@link DataSetSerialiser#write(DataSet, boolean)})
+     * @return itself (fluent design)
+     */
+    public synchronized DataSetPublisher setAsFloat(final boolean state) {
+        asFloat = state;
+        return this;
+    }
+
+    /**
+     * @param highWaterMark maximum number of outstanding messages per subscriber before new messages are discarded (0: unlimited)
+     * @return itself (fluent design)
+     */
+    public synchronized DataSetPublisher setHighWaterMark(final int highWaterMark) {
+        AssertUtils.gtEqThanZero("highWaterMark", highWaterMark);
+        socket.setSndHWM(highWaterMark);
+        return this;
+    }
+}
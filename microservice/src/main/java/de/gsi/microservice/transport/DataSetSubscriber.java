@@ -0,0 +1,254 @@
+package de.gsi.microservice.transport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMQException;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.serializer.IoClassSerialiser;
+import de.gsi.serializer.spi.BinarySerialiser;
+import de.gsi.serializer.spi.FastByteBuffer;
+import de.gsi.serializer.spi.iobuffer.DataSetSerialiser;
+
+/**
+ * Receives '[topic][payload]' ZeroMQ messages published by the {@link DataSetPublisher} via a SUB socket.
+ * <p>
+ * The socket is drained by a dedicated receiver thread. In conflating mode only the latest not-yet-consumed update is
+ * retained per topic (latest-value semantic), ie. slow consumers skip intermediate updates rather than accumulating
+ * an ever increasing backlog. In non-conflating mode all updates are queued in the order of their reception.
+ * <p>
+ * N.B. ZeroMQ topic subscriptions are prefix-based: subscribing to "" receives all topics.
+ */
+public class DataSetSubscriber implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataSetSubscriber.class);
+    private static final int RECEIVE_TIMEOUT = 100; // [ms]
+    private static final int JOIN_TIMEOUT = 2000; // [ms]
+    private final ZContext context;
+    private final boolean ownsContext;
+    private final boolean conflate;
+    private final ZMQ.Socket socket;
+    private final Thread receiverThread;
+    private final Queue<Runnable> socketCommands = new ConcurrentLinkedQueue<>();
+    private final Map<String, byte[]> latestPayload = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> pendingTopics = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Update> pendingUpdates = new LinkedBlockingQueue<>();
+    private final TransportMetrics metrics = new TransportMetrics();
+    private volatile boolean running = true; // NOPMD - needed for thread shut-down
+
+    /**
+     * @param conflate {@code true}: keep only the latest update per topic
+     * @param endpoints the publisher endpoints to connect to
+     */
+    public DataSetSubscriber(final boolean conflate, final String... endpoints) {
+        this(new ZContext(), true, conflate, endpoints);
+    }
+
+    /**
+     * @param context shared ZeroMQ context (N.B. required for 'inproc://' transports, not closed by this subscriber)
+     * @param conflate {@code true}: keep only the latest update per topic
+     * @param endpoints the publisher endpoints to connect to
+     */
+    public DataSetSubscriber(final ZContext context, final boolean conflate, final String... endpoints) {
+        this(context, false, conflate, endpoints);
+    }
+
+    private DataSetSubscriber(final ZContext context, final boolean ownsContext, final boolean conflate, final String... endpoints) {
+        AssertUtils.notNull("context", context);
+        AssertUtils.notNull("endpoints", endpoints);
+        AssertUtils.gtThanZero("endpoints.length", endpoints.length);
+        this.context = context;
+        this.ownsContext = ownsContext;
+        this.conflate = conflate;
+        socket = context.createSocket(SocketType.SUB);
+        socket.setRcvHWM(DataSetPublisher.DEFAULT_HIGH_WATER_MARK);
+        socket.setLinger(0);
+        socket.setReceiveTimeOut(RECEIVE_TIMEOUT);
+        for (final String endpoint : endpoints) {
+            if (!socket.connect(endpoint)) {
+                context.destroySocket(socket);
+                throw new IllegalStateException("could not connect to endpoint " + endpoint);
+            }
+        }
+        receiverThread = new Thread(this::receiveLoop, DataSetSubscriber.class.getSimpleName() + "-" + endpoints[0]);
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            receiverThread.join(JOIN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ownsContext) {
+            context.close();
+        }
+    }
+
+    /**
+     * @return message and byte counters of received messages (N.B. dropped: updates replaced by a newer update in conflating mode)
+     */
+    public TransportMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return {@code true}: only the latest update per topic is retained
+     */
+    public boolean isConflating() {
+        return conflate;
+    }
+
+    /**
+     * Waits for and returns the next update.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return the next received update or {@code null} if none has been received within the given timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Update receive(final long timeout, final TimeUnit unit) throws InterruptedException {
+        if (!conflate) {
+            return pendingUpdates.poll(timeout, unit);
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long remaining = unit.toNanos(timeout);
+        do {
+            final String topic = pendingTopics.poll(remaining, TimeUnit.NANOSECONDS);
+            if (topic == null) {
+                return null;
+            }
+            final byte[] payload = latestPayload.remove(topic);
+            if (payload != null) {
+                return new Update(topic, payload);
+            }
+            remaining = deadline - System.nanoTime();
+        } while (remaining > 0);
+        return null;
+    }
+
+    /**
+     * @param topic topic (prefix) to subscribe to ("": all topics)
+     */
+    public void subscribe(final String topic) {
+        AssertUtils.notNull("topic", topic);
+        // N.B. socket is owned by the receiver thread
+        socketCommands.add(() -> socket.subscribe(topic.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @param topic topic (prefix) to unsubscribe from
+     */
+    public void unsubscribe(final String topic) {
+        AssertUtils.notNull("topic", topic);
+        socketCommands.add(() -> socket.unsubscribe(topic.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void receiveLoop() {
+        try {
+            while (running && !Thread.currentThread().isInterrupted()) {
+                Runnable command;
+                while ((command = socketCommands.poll()) != null) {
+                    command.run();
+                }
+
+                final byte[] topicBytes = socket.recv(0);
+                if (topicBytes == null) {
+                    continue; // receive time-out
+                }
+                if (!socket.hasReceiveMore()) {
+                    LOGGER.atWarn().addArgument(topicBytes.length).log("received single-frame message ({} bytes) - ignore");
+                    continue;
+                }
+                final byte[] payload = socket.recv(0);
+                while (socket.hasReceiveMore()) {
+                    socket.recv(0); // discard unknown trailing frames
+                }
+                if (payload == null) {
+                    continue;
+                }
+                metrics.addMessage((long) topicBytes.length + payload.length);
+                final String topic = new String(topicBytes, StandardCharsets.UTF_8);
+                if (!conflate) {
+                    pendingUpdates.add(new Update(topic, payload));
+                } else if (latestPayload.put(topic, payload) == null) {
+                    pendingTopics.add(topic);
+                } else {
+                    metrics.addDropped();
+                }
+            }
+        } catch (ZMQException e) {
+            if (running) {
+                LOGGER.atError().setCause(e).log("receiver thread aborted");
+            }
+        } finally {
+            context.destroySocket(socket);
+        }
+    }
+
+    /**
+     * A received topic and raw payload with helper functions to de-serialise the payload
+     */
+    public static class Update {
+        private final String topic;
+        private final byte[] payload;
+
+        public Update(final String topic, final byte[] payload) {
+            this.topic = topic;
+            this.payload = payload;
+        }
+
+        /**
+         * @return de-serialised data set (N.B. new instance for each call)
+         */
+        public DataSet getDataSet() {
+            return DataSetSerialiser.withIoSerialiser(new BinarySerialiser(wrapPayload())).read();
+        }
+
+        /**
+         * @param clazz the object type to de-serialise to (N.B. requires a default constructor)
+         * @param <T> the object type
+         * @return de-serialised object (N.B. new instance for each call)
+         */
+        public <T> T getObject(final Class<T> clazz) {
+            return new IoClassSerialiser(wrapPayload(), BinarySerialiser.class).deserialiseObject(clazz);
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        @Override
+        public String toString() {
+            return "Update{topic='" + topic + "', payload=" + payload.length + " bytes}";
+        }
+
+        private FastByteBuffer wrapPayload() {
+            // N.B. the serialisers require head-room beyond the end-of-data marker
+            return new FastByteBuffer(Arrays.copyOf(payload, payload.length + 1), payload.length);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.gsi.microservice.transport;
+
+import java.util.Arrays;
+
+import de.gsi.dataset.utils.AssertUtils;
+
+/**
+ * Keeps the last N latency samples and computes percentiles (nearest-rank) thereof on request.
+ * <p>
+ * Recording is cheap (single array store) while the percentile computation copies and sorts the retained samples,
+ * ie. the latter is intended for occasional monitoring rather than per-message use.
+ */
+public class LatencyStatistics {
+    public static final int DEFAULT_CAPACITY = 10_000;
+    private final long[] samples;
+    private long nSamples;
+
+    public LatencyStatistics() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of most recent samples retained for the percentile computation
+     */
+    public LatencyStatistics(final int capacity) {
+        AssertUtils.gtThanZero("capacity", capacity);
+        samples = new long[capacity];
+    }
+
+    /**
+     * @return total number of recorded samples since the last reset
+     */
+    public synchronized long getCount() {
+        return nSamples;
+    }
+
+    /**
+     * @return largest of the retained samples [ns] ({@code 0} if none)
+     */
+    public long getMax() {
+        return getPercentile(100.0);
+    }
+
+    /**
+     * @return median of the retained samples [ns] ({@code 0} if none)
+     */
+    public long getMedian() {
+        return getPercentile(50.0);
+    }
+
+    /**
+     * @param percentile the percentile in [0, 100]
+     * @return the given percentile of the retained samples [ns] ({@code 0} if none)
+     */
+    public long getPercentile(final double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) { // NOPMD - also catches NaN
+            throw new IllegalArgumentException("percentile " + percentile + " not in [0, 100]");
+        }
+        final long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, (int) Math.min(nSamples, samples.length));
+        }
+        if (sorted.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted);
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * @param latency sample to be recorded [ns]
+     */
+    public synchronized void record(final long latency) {
+        samples[(int) (nSamples % samples.length)] = latency;
+        nSamples++;
+    }
+
+    public synchronized void reset() {
+        nSamples = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[n=%d, median=%.1f us, 99%%=%.1f us, max=%.1f us]", getClass().getSimpleName(), getCount(), getMedian() * 1e-3, getPercentile(99.0) * 1e-3, getMax() * 1e-3);
+    }
+}
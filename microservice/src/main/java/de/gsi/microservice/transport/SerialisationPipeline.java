@@ -0,0 +1,338 @@
+package de.gsi.microservice.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventTranslatorThreeArg;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.util.Util;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.serializer.IoBuffer;
+import de.gsi.serializer.IoClassSerialiser;
+import de.gsi.serializer.spi.BinarySerialiser;
+import de.gsi.serializer.spi.FastByteBuffer;
+import de.gsi.serializer.spi.iobuffer.DataSetSerialiser;
+
+/**
+ * Serialisation stage based on the LMAX disruptor that moves the serialisation cost off the acquisition threads.
+ * <p>
+ * The ring buffer entries each own a pre-allocated {@link FastByteBuffer} with matching {@link DataSetSerialiser} and
+ * {@link IoClassSerialiser}. Producers merely claim a slot and hand over the DataSet or POJO reference, {@code nWorkers}
+ * threads serialise the entries in parallel (entry 'sequence % nWorkers' being processed by worker 'n'), and a single
+ * consumer thread forwards the serialised payloads in publication order to the {@link BatchHandler}. Consecutive
+ * messages available to the consumer are grouped into batches of up to {@link #getMaxBatchSize()} messages or
+ * {@link #getMaxBatchBytes()} bytes.
+ * <p>
+ * Usage example forwarding to a ZeroMQ {@link DataSetPublisher}:
+ *
+ * <pre>
+ * {@code
+ * final SerialisationPipeline pipeline = new SerialisationPipeline(1024, 4, 64_000, //
+ *         batch -> batch.forEach(msg -> publisher.publish(msg.getTopic(), msg.getBuffer())));
+ * pipeline.start();
+ * pipeline.publish("topic", dataSet); // on the acquisition thread
+ * }
+ * </pre>
+ * N.B. the handed-over DataSet is serialised asynchronously (read-lock guarded), ie. it should not be modified outside
+ * its write lock by the producer while in flight.
+ */
+public class SerialisationPipeline implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SerialisationPipeline.class);
+    private static final long SHUTDOWN_TIMEOUT = 5; // [s]
+    private static final EventTranslatorThreeArg<Message, String, Object, Boolean> TRANSLATOR = (msg, sequence, topic, payload, isDataSet) -> msg.set(topic, payload, isDataSet);
+    private final Disruptor<Message> disruptor;
+    private final RingBuffer<Message> ringBuffer;
+    private final BatchHandler batchHandler;
+    private final TransportMetrics metrics = new TransportMetrics();
+    private final LatencyStatistics latency = new LatencyStatistics();
+    private final LongAdder nErrors = new LongAdder();
+    private final LongAdder nBatches = new LongAdder();
+    private final int nWorkers;
+    private int maxBatchSize = 64;
+    private int maxBatchBytes = 256_000;
+    private boolean asFloat;
+    private boolean started;
+
+    /**
+     * @param ringSize number of pre-allocated entries (rounded up to the next power of two)
+     * @param nWorkers number of parallel serialisation worker threads
+     * @param initialBufferSize initial capacity of the pre-allocated per-entry buffers (N.B. grow on demand)
+     * @param batchHandler receives the serialised messages in publication order
+     */
+    public SerialisationPipeline(final int ringSize, final int nWorkers, final int initialBufferSize, final BatchHandler batchHandler) {
+        AssertUtils.gtThanZero("ringSize", ringSize);
+        AssertUtils.gtThanZero("nWorkers", nWorkers);
+        AssertUtils.gtThanZero("initialBufferSize", initialBufferSize);
+        AssertUtils.notNull("batchHandler", batchHandler);
+        this.nWorkers = nWorkers;
+        this.batchHandler = batchHandler;
+        final AtomicInteger threadCount = new AtomicInteger();
+        disruptor = new Disruptor<>(() -> new Message(initialBufferSize), Util.ceilingNextPowerOfTwo(ringSize), runnable -> {
+            final Thread thread = new Thread(runnable, SerialisationPipeline.class.getSimpleName() + "#" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, ProducerType.MULTI, new BlockingWaitStrategy());
+        ringBuffer = disruptor.getRingBuffer();
+
+        @SuppressWarnings("unchecked")
+        final EventHandler<Message>[] workers = new EventHandler[nWorkers];
+        for (int i = 0; i < nWorkers; i++) {
+            final int workerID = i;
+            workers[i] = (msg, sequence, endOfBatch) -> {
+                if (sequence % nWorkers == workerID) {
+                    serialise(msg);
+                }
+            };
+        }
+        disruptor.handleEventsWith(workers).then(new BatchingConsumer());
+    }
+
+    @Override
+    public void close() {
+        try {
+            // N.B. drains all already published messages
+            disruptor.shutdown(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.atWarn().setCause(e).log("pipeline did not drain in time - halting");
+            disruptor.halt();
+        }
+    }
+
+    /**
+     * @return number of batches forwarded to the batch handler
+     */
+    public long getBatchCount() {
+        return nBatches.sum();
+    }
+
+    /**
+     * @return number of messages that failed to serialise (N.B. these are not forwarded to the batch handler) or whose
+     *         batch handler call threw an exception
+     */
+    public long getErrorCount() {
+        return nErrors.sum();
+    }
+
+    /**
+     * @return latency statistics from {@code publish(..)} until the batch handler returned [ns]
+     */
+    public LatencyStatistics getLatency() {
+        return latency;
+    }
+
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return message and byte counters of the serialised messages
+     */
+    public TransportMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getNumberOfWorkers() {
+        return nWorkers;
+    }
+
+    public boolean isAsFloat() {
+        return asFloat;
+    }
+
+    /**
+     * Hands the data set over to the pipeline for serialisation using the {@link DataSetSerialiser}
+     *
+     * @param topic topic the serialised message is associated with
+     * @param dataSet data set to be serialised
+     */
+    public void publish(final String topic, final DataSet dataSet) {
+        AssertUtils.notNull("dataSet", dataSet);
+        ringBuffer.publishEvent(TRANSLATOR, topic, dataSet, Boolean.TRUE);
+    }
+
+    /**
+     * Hands the object over to the pipeline for serialisation using the {@link IoClassSerialiser}
+     *
+     * @param topic topic the serialised message is associated with
+     * @param object object to be serialised
+     */
+    public void publishObject(final String topic, final Object object) {
+        ringBuffer.publishEvent(TRANSLATOR, topic, object, Boolean.FALSE);
+    }
+
+    /**
+     * @param state {@code true}: DataSets are serialised as 32-bit floats (see {@link DataSetSerialiser#write(DataSet, boolean)})
+     * @return itself (fluent design)
+     */
+    public SerialisationPipeline setAsFloat(final boolean state) {
+        asFloat = state;
+        return this;
+    }
+
+    /**
+     * @param maxBatchBytes maximum accumulated payload size before a batch is forwarded
+     * @return itself (fluent design)
+     */
+    public SerialisationPipeline setMaxBatchBytes(final int maxBatchBytes) {
+        AssertUtils.gtThanZero("maxBatchBytes", maxBatchBytes);
+        this.maxBatchBytes = maxBatchBytes;
+        return this;
+    }
+
+    /**
+     * @param maxBatchSize maximum number of messages per batch (1: no batching)
+     * @return itself (fluent design)
+     */
+    public SerialisationPipeline setMaxBatchSize(final int maxBatchSize) {
+        AssertUtils.gtThanZero("maxBatchSize", maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * starts the worker and consumer threads (N.B. settings should be applied before)
+     *
+     * @return itself (fluent design)
+     */
+    public synchronized SerialisationPipeline start() {
+        if (!started) {
+            started = true;
+            disruptor.start();
+        }
+        return this;
+    }
+
+    private void serialise(final Message msg) {
+        final IoBuffer buffer = msg.buffer;
+        buffer.reset();
+        try {
+            if (msg.isDataSet) {
+                final DataSet dataSet = (DataSet) msg.payload;
+                dataSet.lock().readLockGuard(() -> msg.dataSetSerialiser.write(dataSet, asFloat));
+            } else {
+                msg.classSerialiser.serialiseObject(msg.payload);
+            }
+        } catch (Exception e) { // NOPMD - serialisation failures must not stall the pipeline
+            msg.exception = e;
+        } finally {
+            msg.payload = null; // release reference as early as possible
+        }
+    }
+
+    /**
+     * Receives the serialised messages in publication order
+     */
+    @FunctionalInterface
+    public interface BatchHandler {
+        /**
+         * @param batch one or more serialised messages (N.B. the messages and their buffers are only valid during this call)
+         * @throws Exception forwarded to the pipeline's error handling
+         */
+        void onBatch(List<Message> batch) throws Exception; // NOPMD NOSONAR - generic user-code callback
+    }
+
+    /**
+     * Pre-allocated ring buffer entry
+     */
+    public static class Message {
+        private final IoBuffer buffer;
+        private final DataSetSerialiser dataSetSerialiser;
+        private final IoClassSerialiser classSerialiser;
+        private String topic;
+        private Object payload;
+        private boolean isDataSet;
+        private long publishTimeStamp;
+        private Exception exception;
+
+        protected Message(final int initialBufferSize) {
+            buffer = new FastByteBuffer(initialBufferSize);
+            dataSetSerialiser = DataSetSerialiser.withIoSerialiser(new BinarySerialiser(buffer));
+            classSerialiser = new IoClassSerialiser(buffer, BinarySerialiser.class);
+        }
+
+        /**
+         * @return the buffer containing the serialised data in the range [0, position[
+         */
+        public IoBuffer getBuffer() {
+            return buffer;
+        }
+
+        /**
+         * @return time stamp when the message has been handed over to the pipeline [ns, System.nanoTime()]
+         */
+        public long getPublishTimeStamp() {
+            return publishTimeStamp;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        private void set(final String topic, final Object payload, final boolean isDataSet) {
+            this.topic = topic;
+            this.payload = payload;
+            this.isDataSet = isDataSet;
+            this.exception = null;
+            this.publishTimeStamp = System.nanoTime();
+        }
+    }
+
+    private class BatchingConsumer implements EventHandler<Message> {
+        private final List<Message> batch = new ArrayList<>();
+        private final List<Message> batchView = Collections.unmodifiableList(batch);
+        private int batchBytes;
+
+        @Override
+        public void onEvent(final Message msg, final long sequence, final boolean endOfBatch) {
+            if (msg.exception == null) {
+                batch.add(msg);
+                batchBytes += msg.buffer.position();
+            } else {
+                nErrors.increment();
+                LOGGER.atWarn().setCause(msg.exception).addArgument(msg.topic).log("could not serialise message for topic '{}'");
+            }
+            // N.B. ring buffer entries are released only after 'endOfBatch' so that they may be referenced until then
+            if (endOfBatch || batch.size() >= maxBatchSize || batchBytes >= maxBatchBytes) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                batchHandler.onBatch(batchView);
+            } catch (Exception e) { // NOPMD - user-code failures must not stall the pipeline
+                nErrors.add(batch.size());
+                LOGGER.atError().setCause(e).addArgument(batch.size()).log("batch handler failed to process {} messages");
+            }
+            final long now = System.nanoTime();
+            for (final Message msg : batch) {
+                latency.record(now - msg.publishTimeStamp);
+                metrics.addMessage(msg.buffer.position());
+            }
+            nBatches.increment();
+            batch.clear();
+            batchBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package de.gsi.microservice.transport;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simple, lock-free message and byte counters for the {@link DataSetPublisher} and {@link DataSetSubscriber}.
+ * <p>
+ * Rates are averaged over the time since creation or the last {@link #reset()}, ie. call {@link #reset()} periodically
+ * to obtain windowed rates.
+ */
+public class TransportMetrics {
+    private final LongAdder nMessages = new LongAdder();
+    private final LongAdder nBytes = new LongAdder();
+    private final LongAdder nDropped = new LongAdder();
+    private volatile long startTimeNanos = System.nanoTime(); // NOPMD - volatile needed for reset from other threads
+
+    /**
+     * @return number of bytes (topic and payload frames) since the last reset
+     */
+    public long getByteCount() {
+        return nBytes.sum();
+    }
+
+    /**
+     * @return average number of bytes per second since the last reset
+     */
+    public double getByteRate() {
+        return getRate(nBytes.sum());
+    }
+
+    /**
+     * @return number of messages that have been discarded (ie. replaced by a newer message on the same topic) since the last reset
+     */
+    public long getDroppedCount() {
+        return nDropped.sum();
+    }
+
+    /**
+     * @return number of messages since the last reset
+     */
+    public long getMessageCount() {
+        return nMessages.sum();
+    }
+
+    /**
+     * @return average number of messages per second since the last reset
+     */
+    public double getMessageRate() {
+        return getRate(nMessages.sum());
+    }
+
+    /**
+     * resets all counters and the rate integration start time
+     */
+    public void reset() {
+        nMessages.reset();
+        nBytes.reset();
+        nDropped.reset();
+        startTimeNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[messages=%d (%.1f msg/s), bytes=%d (%.1f bytes/s), dropped=%d]", getClass().getSimpleName(), getMessageCount(), getMessageRate(), getByteCount(), getByteRate(), getDroppedCount());
+    }
+
+    protected void addDropped() {
+        nDropped.increment();
+    }
+
+    protected void addMessage(final long messageBytes) {
+        nMessages.increment();
+        nBytes.add(messageBytes);
+    }
+
+    private double getRate(final long count) {
+        final long diff = System.nanoTime() - startTimeNanos;
+        return diff > 0 ? count * 1e9 / diff : 0.0;
+    }
+}
@@ -94,6 +94,14 @@ import de.gsi.serializer.utils.ClassUtils;
  * * start marker:  [ field header for '0x00' ] // dataSize == # bytes until the corresponding end-marker start
  * * end marker:    [ field header for '0xFE' ]
  * 
+ * * field index:  optional trailing table appended after the final end marker via {@link #putFieldIndex()}
+ *                  [ 4 bytes (int) - number of index entries N_e ] +
+ *                  N_e x { [ 4 bytes - field name hash code ][ 1 byte - uniqueType ]
+ *                          [ 4 bytes - field header start ][ 4 bytes - dataStart offset ][ 4 bytes - dataSize ] } +
+ *                  [ 4 bytes (int) - position of index table start ] +
+ *                  [ 4 bytes (int) = 0x59615349 ] // 'YaSI' field index magic number, located at buffer limit - 4
+ *                  N.B. readers not aware of the index stop at the root end marker and thus ignore the table
+ * 
  * * nesting or sub-structures (ie. POJOs with sub-classes) can be achieved via:
  * [  start marker - field name == nesting context1 ] 
  *   [  start marker - field name == nesting context2 ]
@@ -116,12 +124,15 @@ public class BinarySerialiser implements IoSerialiser {
     public static final byte VERSION_MAJOR = 1;
     public static final byte VERSION_MINOR = 0;
     public static final byte VERSION_MICRO = 0;
+    public static final int FIELD_INDEX_MAGIC_NUMBER = 0x59615349; // 'YaSI' -- Yet another Serialiser Index
     public static final String PROTOCOL_ERROR_SERIALISER_LOOKUP_MUST_NOT_BE_NULL = "protocol error: serialiser lookup must not be null for DataType == OTHER";
     public static final String PROTOCOL_MISMATCH_N_ELEMENTS_HEADER = "protocol mismatch nElements header = ";
     public static final String NO_SERIALISER_IMP_FOUND = "no serialiser implementation found for classType = ";
     public static final String VS_ARRAY = " vs. array = ";
     private static final Logger LOGGER = LoggerFactory.getLogger(BinarySerialiser.class);
     private static final int ADDITIONAL_HEADER_INFO_SIZE = 1000;
+    private static final int FIELD_INDEX_ENTRY_SIZE = 17; // 4 bytes hash code + 1 byte type + 3 x 4 bytes (fieldStart, dataStartOffset, dataSize)
+    private static final int FIELD_INDEX_FOOTER_SIZE = 8; // 4 bytes index start + 4 bytes magic number
     private static final DataType[] byteToDataType = new DataType[256];
     private static final Byte[] dataTypeToByte = new Byte[256];
     public static final String VS_SHOULD_BE = "' vs. should be '";
@@ -174,6 +185,7 @@ public class BinarySerialiser implements IoSerialiser {
     private boolean putFieldMetaData = true;
     private WireDataFieldDescription parent;
     private WireDataFieldDescription lastFieldHeader;
+    private WireDataFieldDescription rootFieldHeader;
     private BiFunction<Type, Type[], FieldSerialiser<Object>> fieldSerialiserLookupFunction;
 
     /**
@@ -208,14 +220,96 @@ public class BinarySerialiser implements IoSerialiser {
         return header;
     }
 
+    /**
+     * Positions the buffer at the data start of the given field.
+     *
+     * @param fieldName name of the field
+     * @param dataStartPosition data start position of the field in the buffer or a negative value if unknown, in which
+     *        case the field is looked-up via the trailing field index (see {@link #findIndexedField(String)})
+     */
     @Override
     public void setQueryFieldName(final String fieldName, final int dataStartPosition) {
         if (fieldName == null || fieldName.isBlank()) {
             throw new IllegalArgumentException("fieldName must not be null or blank: " + fieldName);
         }
+        if (dataStartPosition < 0) {
+            // no known position: look-up via the trailing field index (N.B. first match if names are not unique)
+            if (findIndexedField(fieldName) == null) {
+                throw new IllegalArgumentException("field not found in field index: " + fieldName);
+            }
+            return;
+        }
         buffer.position(dataStartPosition);
     }
 
+    /**
+     * Looks up a field via the optional trailing field index (see {@link #putFieldIndex()}) without parsing the
+     * preceding field headers or data.
+     *
+     * @param fieldName the field name to be looked-up (N.B. first match in depth-first order if names are not unique)
+     * @return the field header with the buffer positioned at the field's data start or {@code null} if the field (or index) is absent
+     */
+    public WireDataFieldDescription findIndexedField(final String fieldName) {
+        if (!hasFieldIndex()) {
+            return null;
+        }
+        final int fieldNameHashCode = fieldName.hashCode();
+        final int limit = buffer.limit();
+        int position = buffer.getInt(limit - FIELD_INDEX_FOOTER_SIZE);
+        final int nEntries = buffer.getInt(position);
+        position += FastByteBuffer.SIZE_OF_INT;
+        for (int i = 0; i < nEntries; i++, position += FIELD_INDEX_ENTRY_SIZE) {
+            if (buffer.getInt(position) != fieldNameHashCode) {
+                continue;
+            }
+            final WireDataFieldDescription field = getIndexedFieldHeader(buffer.getInt(position + 5));
+            if (fieldName.equals(field.getFieldName())) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return field headers of all fields listed in the optional trailing field index (empty if there is no index),
+     *         N.B. only the field headers are parsed, data blocks are being skipped
+     */
+    public List<WireDataFieldDescription> getFieldIndex() {
+        if (!hasFieldIndex()) {
+            return Collections.emptyList();
+        }
+        final int oldPosition = buffer.position();
+        final int limit = buffer.limit();
+        int position = buffer.getInt(limit - FIELD_INDEX_FOOTER_SIZE);
+        final int nEntries = buffer.getInt(position);
+        position += FastByteBuffer.SIZE_OF_INT;
+        final List<WireDataFieldDescription> fields = new ArrayList<>(nEntries);
+        for (int i = 0; i < nEntries; i++, position += FIELD_INDEX_ENTRY_SIZE) {
+            fields.add(getIndexedFieldHeader(buffer.getInt(position + 5)));
+        }
+        buffer.position(oldPosition);
+        return fields;
+    }
+
+    /**
+     * @return {@code true} if the buffer (between 0 and limit) terminates with a field index table (see {@link #putFieldIndex()})
+     */
+    public boolean hasFieldIndex() {
+        final int limit = buffer.limit();
+        if (limit < FIELD_INDEX_FOOTER_SIZE + FastByteBuffer.SIZE_OF_INT) {
+            return false;
+        }
+        if (buffer.getInt(limit - FastByteBuffer.SIZE_OF_INT) != FIELD_INDEX_MAGIC_NUMBER) {
+            return false;
+        }
+        final int indexStart = buffer.getInt(limit - FIELD_INDEX_FOOTER_SIZE);
+        if (indexStart < 0 || indexStart > limit - FIELD_INDEX_FOOTER_SIZE - FastByteBuffer.SIZE_OF_INT) {
+            return false;
+        }
+        final int nEntries = buffer.getInt(indexStart);
+        return nEntries >= 0 && indexStart + FastByteBuffer.SIZE_OF_INT + (long) nEntries * FIELD_INDEX_ENTRY_SIZE == limit - FIELD_INDEX_FOOTER_SIZE;
+    }
+
     @Override
     public int[] getArraySizeDescriptor() {
         final int nDims = buffer.getInt(); // number of dimensions
@@ -1523,6 +1617,34 @@ public class BinarySerialiser implements IoSerialiser {
         return lastFieldHeader;
     }
 
+    /**
+     * Appends the optional trailing field index table (field name hash code -> header start, data offset, data size and
+     * type) for all fields written since the last {@link #putHeaderInfo(FieldDescription...)}. This allows clients to
+     * jump directly to individual fields (see {@link #findIndexedField(String)}) without parsing the whole stream.
+     * N.B. to be called after the final (root) end marker has been written.
+     */
+    public void putFieldIndex() {
+        if (rootFieldHeader == null) {
+            throw new IllegalStateException("no header info written - call 'putHeaderInfo(...)' first");
+        }
+        final List<WireDataFieldDescription> fields = new ArrayList<>();
+        collectIndexFields(rootFieldHeader, fields);
+
+        buffer.ensureAdditionalCapacity(FastByteBuffer.SIZE_OF_INT + fields.size() * FIELD_INDEX_ENTRY_SIZE + FIELD_INDEX_FOOTER_SIZE);
+        final int indexStart = buffer.position();
+        buffer.putInt(fields.size());
+        for (final WireDataFieldDescription field : fields) {
+            final int fieldStart = field.getFieldStart();
+            buffer.putInt(field.getFieldNameHashCode());
+            buffer.putByte(buffer.getByte(fieldStart)); // actual type written on the wire (N.B. markers are re-typed after writing the header)
+            buffer.putInt(fieldStart);
+            buffer.putInt(field.getDataStartOffset());
+            buffer.putInt(field.getDataSize());
+        }
+        buffer.putInt(indexStart);
+        buffer.putInt(FIELD_INDEX_MAGIC_NUMBER);
+    }
+
     public void putGenericArrayAsPrimitive(final DataType dataType, final Object[] data, final int nToCopy) {
         putArraySizeDescriptor(nToCopy);
         switch (dataType) {
@@ -1562,7 +1684,7 @@ public class BinarySerialiser implements IoSerialiser {
 
     @Override
     public void putHeaderInfo(final FieldDescription... field) {
-        parent = lastFieldHeader = getRootElement();
+        parent = lastFieldHeader = rootFieldHeader = getRootElement();
 
         buffer.ensureAdditionalCapacity(ADDITIONAL_HEADER_INFO_SIZE);
         buffer.putInt(VERSION_MAGIC_NUMBER);
@@ -1651,11 +1773,32 @@ public class BinarySerialiser implements IoSerialiser {
         return (E[]) retVal;
     }
 
+    private WireDataFieldDescription getIndexedFieldHeader(final int fieldStart) {
+        // detach from the current parent hierarchy since the field is parsed out of stream order
+        final WireDataFieldDescription oldParent = parent;
+        parent = null;
+        buffer.position(fieldStart);
+        final WireDataFieldDescription field = getFieldHeader();
+        parent = oldParent;
+        return field;
+    }
+
     private WireDataFieldDescription getRootElement() {
         final int headerOffset = 1 + PROTOCOL_NAME.length() + 3; // unique byte + protocol length + 3 x byte for version
         return new WireDataFieldDescription(this, null, "ROOT".hashCode(), "ROOT", DataType.OTHER, buffer.position() + headerOffset, -1, -1);
     }
 
+    private void collectIndexFields(final FieldDescription fieldRoot, final List<WireDataFieldDescription> fields) {
+        final byte endMarker = getDataType(DataType.END_MARKER);
+        for (final FieldDescription child : fieldRoot.getChildren()) {
+            if (!(child instanceof WireDataFieldDescription) || child.getFieldStart() < 0 || buffer.getByte(child.getFieldStart()) == endMarker) {
+                continue;
+            }
+            fields.add((WireDataFieldDescription) child);
+            collectIndexFields(child, fields);
+        }
+    }
+
     public static byte getDataType(final DataType dataType) {
         final int id = dataType.getID();
         if (dataTypeToByte[id] != null) {
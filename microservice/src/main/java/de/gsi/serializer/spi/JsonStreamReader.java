@@ -0,0 +1,432 @@
+package de.gsi.serializer.spi;
+
+import java.nio.charset.StandardCharsets;
+
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.serializer.IoBuffer;
+import de.gsi.serializer.utils.JsonNumbers;
+
+/**
+ * Streaming pull-parser for JSON text stored in an {@link IoBuffer} in the range [position, limit[ (counterpart of
+ * {@link JsonStreamWriter}).
+ * <p>
+ * Numbers and numeric arrays are parsed directly from the backing byte array without intermediate {@code String},
+ * {@code Any}-tree or boxed representations (see {@link JsonNumbers}). The array getters re-use the provided
+ * destination array if its length matches the number of elements. JSON 'null' is read as NaN by the floating point
+ * getters (see {@link JsonStreamWriter#setNonFiniteTokens(boolean)}).
+ * <p>
+ * Usage example:
+ *
+ * <pre>
+ * {@code
+ * final JsonStreamReader reader = new JsonStreamReader(buffer).beginObject();
+ * while (reader.hasNext()) {
+ *     switch (reader.nextName()) {
+ *     case "values":
+ *         values = reader.readDoubleArray(values);
+ *         break;
+ *     default:
+ *         reader.skipValue();
+ *     }
+ * }
+ * reader.endObject();
+ * }
+ * </pre>
+ */
+public class JsonStreamReader {
+    private static final String UNEXPECTED_END = "unexpected end of JSON text";
+    private final IoBuffer buffer;
+
+    /**
+     * @param buffer the backing IoBuffer the JSON text is read from (starting at its current position)
+     */
+    public JsonStreamReader(final IoBuffer buffer) {
+        AssertUtils.notNull("buffer", buffer);
+        this.buffer = buffer;
+    }
+
+    public JsonStreamReader beginArray() {
+        return expect('[');
+    }
+
+    public JsonStreamReader beginObject() {
+        return expect('{');
+    }
+
+    public JsonStreamReader endArray() {
+        return expect(']');
+    }
+
+    public JsonStreamReader endObject() {
+        return expect('}');
+    }
+
+    public IoBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return {@code true} if the current object or array has a further member, consumes the ',' separator if present
+     */
+    public boolean hasNext() {
+        final int pos = skipWhiteSpace(buffer.position());
+        final byte b = buffer.elements()[pos];
+        if (b == ',') {
+            buffer.position(pos + 1);
+            return true;
+        }
+        buffer.position(pos);
+        return b != '}' && b != ']';
+    }
+
+    /**
+     * @return {@code true} if the next value is JSON 'null' (N.B. the value is not consumed)
+     */
+    public boolean isNull() {
+        final int pos = skipWhiteSpace(buffer.position());
+        return buffer.elements()[pos] == 'n';
+    }
+
+    /**
+     * @return the name of the next object member (including consumption of the ':' separator)
+     */
+    public String nextName() {
+        final String name = readString();
+        expect(':');
+        return name;
+    }
+
+    public boolean readBoolean() {
+        final int start = skipWhiteSpace(buffer.position());
+        final int end = scanLiteral(start);
+        if (end - start == 4 && buffer.elements()[start] == 't') {
+            buffer.position(end);
+            return true;
+        }
+        if (end - start == 5 && buffer.elements()[start] == 'f') {
+            buffer.position(end);
+            return false;
+        }
+        throw new IllegalStateException("expected boolean but found '" + new String(buffer.elements(), start, end - start, StandardCharsets.UTF_8) + "' at position " + start);
+    }
+
+    public double readDouble() {
+        final int start = skipWhiteSpace(buffer.position());
+        final int end = scanLiteral(start);
+        buffer.position(end);
+        return parseDouble(buffer.elements(), start, end);
+    }
+
+    /**
+     * @param dst optional destination array
+     * @return {@code dst} if its length matches the number of array elements, a new array otherwise
+     */
+    public double[] readDoubleArray(final double[] dst) {
+        final int n = countArrayElements();
+        final double[] values = dst != null && dst.length == n ? dst : new double[n];
+        final byte[] src = buffer.elements();
+        int pos = buffer.position() + 1; // N.B. '[' checked by countArrayElements()
+        for (int i = 0; i < n; i++) {
+            final int start = skipWhiteSpace(pos);
+            final int end = scanLiteral(start);
+            values[i] = parseDouble(src, start, end);
+            pos = skipWhiteSpace(end) + 1; // ',' or ']'
+        }
+        buffer.position(n == 0 ? skipWhiteSpace(pos) + 1 : pos);
+        return values;
+    }
+
+    public float readFloat() {
+        return (float) readDouble();
+    }
+
+    /**
+     * @param dst optional destination array
+     * @return {@code dst} if its length matches the number of array elements, a new array otherwise
+     */
+    public float[] readFloatArray(final float[] dst) {
+        final int n = countArrayElements();
+        final float[] values = dst != null && dst.length == n ? dst : new float[n];
+        final byte[] src = buffer.elements();
+        int pos = buffer.position() + 1;
+        for (int i = 0; i < n; i++) {
+            final int start = skipWhiteSpace(pos);
+            final int end = scanLiteral(start);
+            values[i] = (float) parseDouble(src, start, end);
+            pos = skipWhiteSpace(end) + 1;
+        }
+        buffer.position(n == 0 ? skipWhiteSpace(pos) + 1 : pos);
+        return values;
+    }
+
+    public int readInt() {
+        return Math.toIntExact(readLong());
+    }
+
+    /**
+     * @param dst optional destination array
+     * @return {@code dst} if its length matches the number of array elements, a new array otherwise
+     */
+    public int[] readIntArray(final int[] dst) {
+        final int n = countArrayElements();
+        final int[] values = dst != null && dst.length == n ? dst : new int[n];
+        final byte[] src = buffer.elements();
+        int pos = buffer.position() + 1;
+        for (int i = 0; i < n; i++) {
+            final int start = skipWhiteSpace(pos);
+            final int end = scanLiteral(start);
+            values[i] = Math.toIntExact(parseLong(src, start, end));
+            pos = skipWhiteSpace(end) + 1;
+        }
+        buffer.position(n == 0 ? skipWhiteSpace(pos) + 1 : pos);
+        return values;
+    }
+
+    public long readLong() {
+        final int start = skipWhiteSpace(buffer.position());
+        final int end = scanLiteral(start);
+        buffer.position(end);
+        return parseLong(buffer.elements(), start, end);
+    }
+
+    /**
+     * @param dst optional destination array
+     * @return {@code dst} if its length matches the number of array elements, a new array otherwise
+     */
+    public long[] readLongArray(final long[] dst) {
+        final int n = countArrayElements();
+        final long[] values = dst != null && dst.length == n ? dst : new long[n];
+        final byte[] src = buffer.elements();
+        int pos = buffer.position() + 1;
+        for (int i = 0; i < n; i++) {
+            final int start = skipWhiteSpace(pos);
+            final int end = scanLiteral(start);
+            values[i] = parseLong(src, start, end);
+            pos = skipWhiteSpace(end) + 1;
+        }
+        buffer.position(n == 0 ? skipWhiteSpace(pos) + 1 : pos);
+        return values;
+    }
+
+    /**
+     * @return the string value ({@code null} for JSON 'null')
+     */
+    public String readString() {
+        final byte[] src = buffer.elements();
+        final int start = skipWhiteSpace(buffer.position());
+        if (src[start] == 'n') {
+            buffer.position(scanLiteral(start));
+            return null;
+        }
+        if (src[start] != '"') {
+            throw new IllegalStateException("expected '\"' but found '" + (char) src[start] + "' at position " + start);
+        }
+        final int limit = buffer.limit();
+        int pos = start + 1;
+        while (pos < limit && src[pos] != '"' && src[pos] != '\\') {
+            pos++;
+        }
+        if (pos >= limit) {
+            throw new IllegalStateException(UNEXPECTED_END);
+        }
+        if (src[pos] == '"') {
+            // fast-path: no escape sequences
+            buffer.position(pos + 1);
+            return new String(src, start + 1, pos - start - 1, StandardCharsets.UTF_8);
+        }
+        return readEscapedString(start + 1);
+    }
+
+    /**
+     * skips the next value including nested objects and arrays
+     *
+     * @return itself (fluent design)
+     */
+    public JsonStreamReader skipValue() {
+        final byte[] src = buffer.elements();
+        final int limit = buffer.limit();
+        int pos = skipWhiteSpace(buffer.position());
+        if (src[pos] == '"') {
+            readString();
+            return this;
+        }
+        if (src[pos] != '{' && src[pos] != '[') {
+            buffer.position(scanLiteral(pos));
+            return this;
+        }
+        int depth = 0;
+        boolean inString = false;
+        for (; pos < limit; pos++) {
+            final byte b = src[pos];
+            if (inString) {
+                if (b == '\\') {
+                    pos++;
+                } else if (b == '"') {
+                    inString = false;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                buffer.position(pos + 1);
+                return this;
+            }
+        }
+        throw new IllegalStateException(UNEXPECTED_END);
+    }
+
+    /**
+     * @return number of elements of the following numeric array (N.B. the read position is set to the opening '[')
+     */
+    private int countArrayElements() {
+        final byte[] src = buffer.elements();
+        final int start = skipWhiteSpace(buffer.position());
+        if (src[start] != '[') {
+            throw new IllegalStateException("expected '[' but found '" + (char) src[start] + "' at position " + start);
+        }
+        buffer.position(start);
+        final int limit = buffer.limit();
+        if (src[skipWhiteSpace(start + 1)] == ']') {
+            return 0;
+        }
+        int count = 1;
+        for (int pos = start + 1; pos < limit; pos++) {
+            final byte b = src[pos];
+            if (b == ',') {
+                count++;
+            } else if (b == ']') {
+                return count;
+            }
+        }
+        throw new IllegalStateException(UNEXPECTED_END);
+    }
+
+    private JsonStreamReader expect(final char c) {
+        final int pos = skipWhiteSpace(buffer.position());
+        if (buffer.elements()[pos] != c) {
+            throw new IllegalStateException("expected '" + c + "' but found '" + (char) buffer.elements()[pos] + "' at position " + pos);
+        }
+        buffer.position(pos + 1);
+        return this;
+    }
+
+    private String readEscapedString(final int start) {
+        final byte[] src = buffer.elements();
+        final int limit = buffer.limit();
+        final StringBuilder builder = new StringBuilder();
+        int segmentStart = start;
+        int pos = start;
+        while (pos < limit && src[pos] != '"') {
+            if (src[pos] != '\\') {
+                pos++;
+                continue;
+            }
+            builder.append(new String(src, segmentStart, pos - segmentStart, StandardCharsets.UTF_8));
+            if (pos + 1 >= limit) {
+                throw new IllegalStateException(UNEXPECTED_END);
+            }
+            final byte escaped = src[pos + 1];
+            pos += 2;
+            switch (escaped) {
+            case 'b':
+                builder.append('\b');
+                break;
+            case 'f':
+                builder.append('\f');
+                break;
+            case 'n':
+                builder.append('\n');
+                break;
+            case 'r':
+                builder.append('\r');
+                break;
+            case 't':
+                builder.append('\t');
+                break;
+            case 'u':
+                if (pos + 4 > limit) {
+                    throw new IllegalStateException(UNEXPECTED_END);
+                }
+                builder.append((char) Integer.parseInt(new String(src, pos, 4, StandardCharsets.ISO_8859_1), 16));
+                pos += 4;
+                break;
+            default: // '"', '\\', '/'
+                builder.append((char) escaped);
+                break;
+            }
+            segmentStart = pos;
+        }
+        if (pos >= limit) {
+            throw new IllegalStateException(UNEXPECTED_END);
+        }
+        builder.append(new String(src, segmentStart, pos - segmentStart, StandardCharsets.UTF_8));
+        buffer.position(pos + 1);
+        return builder.toString();
+    }
+
+    /**
+     * @return index after the last byte of the number or literal starting at {@code start}
+     */
+    private static double parseDouble(final byte[] src, final int start, final int end) {
+        if (end - start == 4 && src[start] == 'n' && src[start + 1] == 'u' && src[start + 2] == 'l' && src[start + 3] == 'l') {
+            return Double.NaN; // non-finite value written as JSON 'null'
+        }
+        return JsonNumbers.parseDouble(src, start, end);
+    }
+
+    private int scanLiteral(final int start) {
+        final byte[] src = buffer.elements();
+        final int limit = buffer.limit();
+        int pos = start;
+        while (pos < limit) {
+            final byte b = src[pos];
+            if (b == ',' || b == ']' || b == '}' || b == ':' || isWhiteSpace(b)) {
+                break;
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw new IllegalStateException(pos >= limit ? UNEXPECTED_END : "expected value but found '" + (char) src[pos] + "' at position " + pos);
+        }
+        return pos;
+    }
+
+    private int skipWhiteSpace(final int position) {
+        final byte[] src = buffer.elements();
+        final int limit = buffer.limit();
+        int pos = position;
+        while (pos < limit && isWhiteSpace(src[pos])) {
+            pos++;
+        }
+        if (pos >= limit) {
+            throw new IllegalStateException(UNEXPECTED_END);
+        }
+        return pos;
+    }
+
+    private static boolean isWhiteSpace(final byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static long parseLong(final byte[] src, final int from, final int to) {
+        int pos = from;
+        final boolean negative = src[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        if (pos == to) {
+            throw new NumberFormatException("invalid integer: '" + new String(src, from, to - from, StandardCharsets.ISO_8859_1) + "'");
+        }
+        long value = 0;
+        for (; pos < to; pos++) {
+            final int digit = src[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("invalid integer: '" + new String(src, from, to - from, StandardCharsets.ISO_8859_1) + "'");
+            }
+            // N.B. accumulate negatively to cover Long.MIN_VALUE
+            value = Math.subtractExact(Math.multiplyExact(value, 10), digit);
+        }
+        return negative ? value : Math.negateExact(value);
+    }
+}
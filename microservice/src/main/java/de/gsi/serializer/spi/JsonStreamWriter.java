@@ -0,0 +1,454 @@
+package de.gsi.serializer.spi;
+
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.serializer.IoBuffer;
+import de.gsi.serializer.utils.JsonNumbers;
+
+/**
+ * Streaming JSON writer that renders directly into the backing {@link IoBuffer} byte array, ie. without intermediate
+ * {@code StringBuilder}, {@code String} or boxed representations.
+ * <p>
+ * Floating point numbers are rendered using their shortest round-trip representation (see {@link JsonNumbers}),
+ * numeric arrays are written in one bulk operation with a single capacity check. The writer merely keeps track of the
+ * need for ',' separators -- it is up to the user to issue well-formed begin/end sequences.
+ * <p>
+ * Usage example:
+ *
+ * <pre>
+ * {@code
+ * new JsonStreamWriter(buffer).beginObject().put("name", "test").put("values", values, n).endObject();
+ * }
+ * </pre>
+ * N.B. non-finite values (NaN, +-Infinity) have no JSON representation and are written as 'null' by default (read back
+ * as NaN by {@link JsonStreamReader}). The non-standard 'NaN', 'Infinity' and '-Infinity' tokens -- which are rejected
+ * by e.g. the browsers' {@code JSON.parse} -- may be enabled via {@link #setNonFiniteTokens(boolean)}.
+ */
+public class JsonStreamWriter {
+    private static final int STRING_OVERHEAD = 2; // quotes
+    private static final int MAX_ESCAPED_CHAR_LENGTH = 6; // escaped control character or UTF-8 encoding of a char (max 3 bytes)
+    private static final byte[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+    private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+    private final IoBuffer buffer;
+    private boolean needsSeparator;
+    private boolean nonFiniteTokens;
+
+    /**
+     * @param buffer the backing IoBuffer the JSON text is written to (starting at its current position)
+     */
+    public JsonStreamWriter(final IoBuffer buffer) {
+        AssertUtils.notNull("buffer", buffer);
+        this.buffer = buffer;
+    }
+
+    public JsonStreamWriter beginArray() {
+        return writeStructural('[');
+    }
+
+    public JsonStreamWriter beginObject() {
+        return writeStructural('{');
+    }
+
+    public JsonStreamWriter endArray() {
+        return writeEnd(']');
+    }
+
+    public JsonStreamWriter endObject() {
+        return writeEnd('}');
+    }
+
+    public IoBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return {@code true}: non-finite values are written as 'NaN', 'Infinity' and '-Infinity' tokens, {@code false}:
+     *         as JSON 'null' (default)
+     */
+    public boolean isNonFiniteTokens() {
+        return nonFiniteTokens;
+    }
+
+    /**
+     * @param name the name of the next object member
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter name(final String name) {
+        AssertUtils.notNull("name", name);
+        int pos = reserve(1 + STRING_OVERHEAD + MAX_ESCAPED_CHAR_LENGTH * name.length() + 1);
+        final byte[] dst = buffer.elements();
+        if (needsSeparator) {
+            dst[pos++] = ',';
+        }
+        pos = writeString(dst, pos, name);
+        dst[pos++] = ':';
+        buffer.position(pos);
+        needsSeparator = false;
+        return this;
+    }
+
+    /**
+     * writes JSON 'null' as value
+     *
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter nullValue() {
+        int pos = reserve(1 + NULL.length);
+        final byte[] dst = buffer.elements();
+        if (needsSeparator) {
+            dst[pos++] = ',';
+        }
+        System.arraycopy(NULL, 0, dst, pos, NULL.length);
+        return commit(pos + NULL.length);
+    }
+
+    public JsonStreamWriter put(final String name, final boolean value) {
+        return name(name).value(value);
+    }
+
+    public JsonStreamWriter put(final String name, final double value) {
+        return name(name).value(value);
+    }
+
+    public JsonStreamWriter put(final String name, final double[] values, final int n) {
+        return name(name).value(values, n);
+    }
+
+    public JsonStreamWriter put(final String name, final float value) {
+        return name(name).value(value);
+    }
+
+    public JsonStreamWriter put(final String name, final float[] values, final int n) {
+        return name(name).value(values, n);
+    }
+
+    public JsonStreamWriter put(final String name, final int[] values, final int n) {
+        return name(name).value(values, n);
+    }
+
+    public JsonStreamWriter put(final String name, final long value) {
+        return name(name).value(value);
+    }
+
+    public JsonStreamWriter put(final String name, final long[] values, final int n) {
+        return name(name).value(values, n);
+    }
+
+    public JsonStreamWriter put(final String name, final String value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * resets the separator state, e.g. after the underlying buffer has been reset for a new message
+     *
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter reset() {
+        needsSeparator = false;
+        return this;
+    }
+
+    /**
+     * N.B. the non-standard tokens are accepted by {@link JsonStreamReader} and e.g. JavaScript's {@code eval} or
+     * Python's {@code json} module but not by standard-conforming parsers like the browsers' {@code JSON.parse}
+     *
+     * @param state {@code true}: non-finite values are written as 'NaN', 'Infinity' and '-Infinity' tokens,
+     *        {@code false}: as JSON 'null' (default)
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter setNonFiniteTokens(final boolean state) {
+        nonFiniteTokens = state;
+        return this;
+    }
+
+    public JsonStreamWriter value(final boolean value) {
+        int pos = reserve(6);
+        final byte[] dst = buffer.elements();
+        if (needsSeparator) {
+            dst[pos++] = ',';
+        }
+        if (value) {
+            dst[pos++] = 't';
+            dst[pos++] = 'r';
+            dst[pos++] = 'u';
+            dst[pos++] = 'e';
+        } else {
+            dst[pos++] = 'f';
+            dst[pos++] = 'a';
+            dst[pos++] = 'l';
+            dst[pos++] = 's';
+            dst[pos++] = 'e';
+        }
+        return commit(pos);
+    }
+
+    public JsonStreamWriter value(final double value) {
+        int pos = reserve(1 + JsonNumbers.MAX_DOUBLE_LENGTH);
+        final byte[] dst = buffer.elements();
+        if (needsSeparator) {
+            dst[pos++] = ',';
+        }
+        return commit(writeDouble(dst, pos, value));
+    }
+
+    /**
+     * @param values source array
+     * @param n number of values to be written (N.B. may be smaller than the array length)
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter value(final double[] values, final int n) {
+        AssertUtils.notNull("values", values);
+        checkLength(values.length, n);
+        int pos = reserve(3 + n * (JsonNumbers.MAX_DOUBLE_LENGTH + 1));
+        final byte[] dst = buffer.elements();
+        pos = writeArrayStart(dst, pos);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                dst[pos++] = ',';
+            }
+            pos = writeDouble(dst, pos, values[i]);
+        }
+        dst[pos++] = ']';
+        return commit(pos);
+    }
+
+    public JsonStreamWriter value(final float value) {
+        int pos = reserve(1 + JsonNumbers.MAX_FLOAT_LENGTH);
+        final byte[] dst = buffer.elements();
+        if (needsSeparator) {
+            dst[pos++] = ',';
+        }
+        return commit(writeFloat(dst, pos, value));
+    }
+
+    /**
+     * @param values source array
+     * @param n number of values to be written (N.B. may be smaller than the array length)
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter value(final float[] values, final int n) {
+        AssertUtils.notNull("values", values);
+        checkLength(values.length, n);
+        int pos = reserve(3 + n * (JsonNumbers.MAX_FLOAT_LENGTH + 1));
+        final byte[] dst = buffer.elements();
+        pos = writeArrayStart(dst, pos);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                dst[pos++] = ',';
+            }
+            pos = writeFloat(dst, pos, values[i]);
+        }
+        dst[pos++] = ']';
+        return commit(pos);
+    }
+
+    /**
+     * @param values source array
+     * @param n number of values to be written (N.B. may be smaller than the array length)
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter value(final int[] values, final int n) {
+        AssertUtils.notNull("values", values);
+        checkLength(values.length, n);
+        int pos = reserve(3 + n * (JsonNumbers.MAX_LONG_LENGTH + 1));
+        final byte[] dst = buffer.elements();
+        pos = writeArrayStart(dst, pos);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                dst[pos++] = ',';
+            }
+            pos = JsonNumbers.writeLong(dst, pos, values[i]);
+        }
+        dst[pos++] = ']';
+        return commit(pos);
+    }
+
+    public JsonStreamWriter value(final long value) {
+        int pos = reserve(1 + JsonNumbers.MAX_LONG_LENGTH);
+        final byte[] dst = buffer.elements();
+        if (needsSeparator) {
+            dst[pos++] = ',';
+        }
+        return commit(JsonNumbers.writeLong(dst, pos, value));
+    }
+
+    /**
+     * @param values source array
+     * @param n number of values to be written (N.B. may be smaller than the array length)
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter value(final long[] values, final int n) {
+        AssertUtils.notNull("values", values);
+        checkLength(values.length, n);
+        int pos = reserve(3 + n * (JsonNumbers.MAX_LONG_LENGTH + 1));
+        final byte[] dst = buffer.elements();
+        pos = writeArrayStart(dst, pos);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                dst[pos++] = ',';
+            }
+            pos = JsonNumbers.writeLong(dst, pos, values[i]);
+        }
+        dst[pos++] = ']';
+        return commit(pos);
+    }
+
+    /**
+     * @param value string value (N.B. {@code null} is written as JSON 'null')
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter value(final String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        int pos = reserve(1 + STRING_OVERHEAD + MAX_ESCAPED_CHAR_LENGTH * value.length());
+        final byte[] dst = buffer.elements();
+        if (needsSeparator) {
+            dst[pos++] = ',';
+        }
+        return commit(writeString(dst, pos, value));
+    }
+
+    /**
+     * writes the double values narrowed to float precision (shorter text, no intermediate float array)
+     *
+     * @param values source array
+     * @param n number of values to be written (N.B. may be smaller than the array length)
+     * @return itself (fluent design)
+     */
+    public JsonStreamWriter valueAsFloat(final double[] values, final int n) {
+        AssertUtils.notNull("values", values);
+        checkLength(values.length, n);
+        int pos = reserve(3 + n * (JsonNumbers.MAX_FLOAT_LENGTH + 1));
+        final byte[] dst = buffer.elements();
+        pos = writeArrayStart(dst, pos);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                dst[pos++] = ',';
+            }
+            pos = writeFloat(dst, pos, (float) values[i]);
+        }
+        dst[pos++] = ']';
+        return commit(pos);
+    }
+
+    private JsonStreamWriter commit(final int pos) {
+        buffer.position(pos);
+        needsSeparator = true;
+        return this;
+    }
+
+    /**
+     * @param nBytes maximum number of bytes to be written
+     * @return the current buffer position
+     */
+    private int reserve(final int nBytes) {
+        buffer.ensureAdditionalCapacity(nBytes);
+        final int pos = buffer.position();
+        if (buffer.elements().length - pos < nBytes) {
+            throw new IllegalStateException("insufficient buffer capacity " + buffer.elements().length + " for writing " + nBytes + " bytes at position " + pos);
+        }
+        return pos;
+    }
+
+    private int writeDouble(final byte[] dst, final int pos, final double value) {
+        if (nonFiniteTokens || Double.isFinite(value)) {
+            return JsonNumbers.writeDouble(dst, pos, value);
+        }
+        System.arraycopy(NULL, 0, dst, pos, NULL.length);
+        return pos + NULL.length;
+    }
+
+    private int writeFloat(final byte[] dst, final int pos, final float value) {
+        if (nonFiniteTokens || Float.isFinite(value)) {
+            return JsonNumbers.writeFloat(dst, pos, value);
+        }
+        System.arraycopy(NULL, 0, dst, pos, NULL.length);
+        return pos + NULL.length;
+    }
+
+    private int writeArrayStart(final byte[] dst, final int position) {
+        int pos = position;
+        if (needsSeparator) {
+            dst[pos++] = ',';
+        }
+        dst[pos++] = '[';
+        return pos;
+    }
+
+    private JsonStreamWriter writeEnd(final char bracket) {
+        final int pos = reserve(1);
+        buffer.elements()[pos] = (byte) bracket;
+        return commit(pos + 1);
+    }
+
+    private JsonStreamWriter writeStructural(final char bracket) {
+        int pos = reserve(2);
+        final byte[] dst = buffer.elements();
+        if (needsSeparator) {
+            dst[pos++] = ',';
+        }
+        dst[pos++] = (byte) bracket;
+        buffer.position(pos);
+        needsSeparator = false;
+        return this;
+    }
+
+    private static void checkLength(final int length, final int n) {
+        if (n < 0 || n > length) {
+            throw new IllegalArgumentException("n = " + n + " not in [0, " + length + "]");
+        }
+    }
+
+    /**
+     * writes the quoted, escaped and UTF-8 encoded string
+     */
+    private static int writeString(final byte[] dst, final int position, final String value) {
+        int pos = position;
+        dst[pos++] = '"';
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    dst[pos++] = '\\';
+                }
+                dst[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                dst[pos++] = '\\';
+                switch (c) {
+                case '\n':
+                    dst[pos++] = 'n';
+                    break;
+                case '\r':
+                    dst[pos++] = 'r';
+                    break;
+                case '\t':
+                    dst[pos++] = 't';
+                    break;
+                default:
+                    dst[pos++] = 'u';
+                    dst[pos++] = '0';
+                    dst[pos++] = '0';
+                    dst[pos++] = HEX_DIGITS[c >> 4];
+                    dst[pos++] = HEX_DIGITS[c & 0xF];
+                    break;
+                }
+            } else if (c < 0x800) {
+                dst[pos++] = (byte) (0xC0 | c >> 6);
+                dst[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                dst[pos++] = (byte) (0xF0 | codePoint >> 18);
+                dst[pos++] = (byte) (0x80 | (codePoint >> 12 & 0x3F));
+                dst[pos++] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+                dst[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                dst[pos++] = (byte) (0xE0 | c >> 12);
+                dst[pos++] = (byte) (0x80 | (c >> 6 & 0x3F));
+                dst[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        dst[pos++] = '"';
+        return pos;
+    }
+}
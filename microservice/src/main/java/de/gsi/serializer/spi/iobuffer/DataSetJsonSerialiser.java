@@ -0,0 +1,323 @@
+package de.gsi.serializer.spi.iobuffer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.gsi.dataset.AxisDescription;
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.DataSetError;
+import de.gsi.dataset.DataSetMetaData;
+import de.gsi.dataset.GridDataSet;
+import de.gsi.dataset.spi.DataSetBuilder;
+import de.gsi.dataset.utils.AssertUtils;
+import de.gsi.serializer.IoBuffer;
+import de.gsi.serializer.spi.JsonStreamReader;
+import de.gsi.serializer.spi.JsonStreamWriter;
+
+/**
+ * Streaming JSON (de-)serialiser for DataSet objects -- JSON counterpart of the binary {@link DataSetSerialiser} using
+ * the same field names, ie.:
+ *
+ * <pre>
+ * {@code
+ * {"dataSetName":"name","nDims":2,"axis0.name":"x","axis0.unit":"s","axis0.Min":0.0,"axis0.Max":1.0,...,
+ *  "infoList":[],"warningList":[],"errorList":[],"metaInfo":{},"array0":[...],"array1":[...],"ep1":[...],"en1":[...]}
+ * }
+ * </pre>
+ * <p>
+ * The numeric arrays are written to and parsed from the {@link IoBuffer} byte array directly (see
+ * {@link JsonStreamWriter} and {@link JsonStreamReader}), ie. without the jsoniter {@code Any} tree, intermediate
+ * strings or boxing as done by the generic {@link de.gsi.serializer.spi.JsonSerialiser}.
+ * <p>
+ * N.B. non-finite values (e.g. NaN gaps) are written as JSON 'null' and read back as NaN, unless the non-standard
+ * 'NaN'/'Infinity' tokens are enabled via {@link #setNonFiniteTokens(boolean)}.
+ */
+public class DataSetJsonSerialiser {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataSetJsonSerialiser.class);
+    private static final String DATA_SET_NAME = "dataSetName";
+    private static final String DIMENSIONS = "nDims";
+    private static final String ARRAY_PREFIX = "array";
+    private static final String EN_PREFIX = "en";
+    private static final String EP_PREFIX = "ep";
+    private static final String AXIS = "axis";
+    private static final String NAME = "name";
+    private static final String UNIT = "unit";
+    private static final String MIN = "Min";
+    private static final String MAX = "Max";
+    private static final String META_INFO = "metaInfo";
+    private static final String ERROR_LIST = "errorList";
+    private static final String WARNING_LIST = "warningList";
+    private static final String INFO_LIST = "infoList";
+    private final JsonStreamWriter writer;
+    private final JsonStreamReader reader;
+    private boolean metaDataSerialised = true;
+
+    /**
+     * @param buffer the backing IoBuffer (see e.g. {@link de.gsi.serializer.spi.FastByteBuffer})
+     */
+    public DataSetJsonSerialiser(final IoBuffer buffer) {
+        AssertUtils.notNull("buffer", buffer);
+        writer = new JsonStreamWriter(buffer);
+        reader = new JsonStreamReader(buffer);
+    }
+
+    public IoBuffer getBuffer() {
+        return writer.getBuffer();
+    }
+
+    public boolean isMetaDataSerialised() {
+        return metaDataSerialised;
+    }
+
+    /**
+     * @return {@code true}: non-finite values are written as 'NaN', 'Infinity' and '-Infinity' tokens, {@code false}:
+     *         as JSON 'null' (default)
+     */
+    public boolean isNonFiniteTokens() {
+        return writer.isNonFiniteTokens();
+    }
+
+    /**
+     * @return DataSet parsed from the buffer's current position
+     */
+    public DataSet read() {
+        return read(null);
+    }
+
+    /**
+     * @param dataSet inplace DataSet that is being overwritten if non-null and {@link DataSet#set(DataSet, boolean)} is
+     *            implemented (N.B. its arrays are re-used if their length matches)
+     * @return DataSet parsed from the buffer's current position
+     */
+    public DataSet read(final DataSet dataSet) {
+        final DataSetBuilder builder = new DataSetBuilder();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String fieldName = reader.nextName();
+            if (DATA_SET_NAME.equals(fieldName)) {
+                builder.setName(reader.readString());
+            } else if (DIMENSIONS.equals(fieldName)) {
+                builder.setDimension(reader.readInt());
+            } else if (fieldName.startsWith(AXIS)) {
+                parseAxis(builder, fieldName);
+            } else if (fieldName.startsWith(ARRAY_PREFIX)) {
+                final int dimIndex = getDimIndex(fieldName, ARRAY_PREFIX);
+                if (dimIndex >= 0) {
+                    builder.setValuesNoCopy(dimIndex, reader.readDoubleArray(dataSet == null ? null : dataSet.getValues(dimIndex)));
+                } else {
+                    reader.skipValue();
+                }
+            } else if (fieldName.startsWith(EN_PREFIX)) {
+                final int dimIndex = getDimIndex(fieldName, EN_PREFIX);
+                if (dimIndex >= 0) {
+                    builder.setNegErrorNoCopy(dimIndex, reader.readDoubleArray(dataSet instanceof DataSetError ? ((DataSetError) dataSet).getErrorsNegative(dimIndex) : null));
+                } else {
+                    reader.skipValue();
+                }
+            } else if (fieldName.startsWith(EP_PREFIX)) {
+                final int dimIndex = getDimIndex(fieldName, EP_PREFIX);
+                if (dimIndex >= 0) {
+                    builder.setPosErrorNoCopy(dimIndex, reader.readDoubleArray(dataSet instanceof DataSetError ? ((DataSetError) dataSet).getErrorsPositive(dimIndex) : null));
+                } else {
+                    reader.skipValue();
+                }
+            } else if (metaDataSerialised && INFO_LIST.equals(fieldName)) {
+                builder.setMetaInfoList(readStringArray());
+            } else if (metaDataSerialised && WARNING_LIST.equals(fieldName)) {
+                builder.setMetaWarningList(readStringArray());
+            } else if (metaDataSerialised && ERROR_LIST.equals(fieldName)) {
+                builder.setMetaErrorList(readStringArray());
+            } else if (metaDataSerialised && META_INFO.equals(fieldName)) {
+                builder.setMetaInfoMap(readStringMap());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (dataSet == null) {
+            return builder.build();
+        }
+        // in-place update preserving existing listener, N.B: 'false' is important <-> inplace copy
+        return dataSet.set(builder.build(), false);
+    }
+
+    /**
+     * @param state {@code true}: meta data (info, warning and error lists as well as meta info map) are processed
+     * @return itself (fluent design)
+     */
+    public DataSetJsonSerialiser setMetaDataSerialised(final boolean state) {
+        metaDataSerialised = state;
+        return this;
+    }
+
+    /**
+     * @param state {@code true}: non-finite values are written as the non-standard 'NaN', 'Infinity' and '-Infinity'
+     *        tokens (rejected by e.g. the browsers' {@code JSON.parse}), {@code false}: as JSON 'null' (default)
+     * @return itself (fluent design)
+     */
+    public DataSetJsonSerialiser setNonFiniteTokens(final boolean state) {
+        writer.setNonFiniteTokens(state);
+        return this;
+    }
+
+    /**
+     * Writes the data set as a JSON object starting at the buffer's current position.
+     *
+     * @param dataSet The DataSet to export
+     * @param asFloat {@code true}: values are rendered with float precision (shorter text), or {@code false} as double
+     *            (better precision)
+     */
+    public void write(final DataSet dataSet, final boolean asFloat) {
+        AssertUtils.notNull("dataSet", dataSet);
+        writer.reset().beginObject();
+        writeHeader(dataSet);
+        if (metaDataSerialised) {
+            writeMetaData(dataSet);
+        }
+        writeNumericData(dataSet, asFloat);
+        writer.endObject();
+    }
+
+    private void parseAxis(final DataSetBuilder builder, final String fieldName) {
+        final int separator = fieldName.indexOf('.');
+        final int dimIndex = separator < 0 ? -1 : getDimIndex(fieldName.substring(0, separator), AXIS);
+        if (dimIndex < 0) {
+            reader.skipValue();
+            return;
+        }
+        switch (fieldName.substring(separator + 1)) {
+        case NAME:
+            builder.setAxisName(dimIndex, reader.readString());
+            break;
+        case UNIT:
+            builder.setAxisUnit(dimIndex, reader.readString());
+            break;
+        case MIN:
+            builder.setAxisMin(dimIndex, reader.readDouble());
+            break;
+        case MAX:
+            builder.setAxisMax(dimIndex, reader.readDouble());
+            break;
+        default:
+            reader.skipValue();
+            break;
+        }
+    }
+
+    private String[] readStringArray() {
+        final List<String> list = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            list.add(reader.readString());
+        }
+        reader.endArray();
+        return list.toArray(new String[0]);
+    }
+
+    private Map<String, String> readStringMap() {
+        final Map<String, String> map = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String key = reader.nextName();
+            map.put(key, reader.readString());
+        }
+        reader.endObject();
+        return map;
+    }
+
+    private void writeArray(final String fieldName, final double[] values, final int n, final boolean asFloat) {
+        writer.name(fieldName);
+        if (asFloat) {
+            writer.valueAsFloat(values, n);
+        } else {
+            writer.value(values, n);
+        }
+    }
+
+    private void writeHeader(final DataSet dataSet) {
+        writer.put(DATA_SET_NAME, dataSet.getName());
+        writer.put(DIMENSIONS, dataSet.getDimension());
+        final List<AxisDescription> axisDescriptions = dataSet.getAxisDescriptions();
+        for (int i = 0; i < axisDescriptions.size(); i++) {
+            final AxisDescription axisDescription = axisDescriptions.get(i);
+            final String prefix = AXIS + i + '.';
+            writer.put(prefix + NAME, axisDescription.getName());
+            writer.put(prefix + UNIT, axisDescription.getUnit());
+            writer.put(prefix + MIN, axisDescription.getMin());
+            writer.put(prefix + MAX, axisDescription.getMax());
+        }
+    }
+
+    private void writeMetaData(final DataSet dataSet) {
+        if (!(dataSet instanceof DataSetMetaData)) {
+            return;
+        }
+        final DataSetMetaData metaDataSet = (DataSetMetaData) dataSet;
+        writeStringList(INFO_LIST, metaDataSet.getInfoList());
+        writeStringList(WARNING_LIST, metaDataSet.getWarningList());
+        writeStringList(ERROR_LIST, metaDataSet.getErrorList());
+        writer.name(META_INFO).beginObject();
+        for (final Map.Entry<String, String> entry : metaDataSet.getMetaInfo().entrySet()) {
+            writer.put(entry.getKey(), entry.getValue());
+        }
+        writer.endObject();
+    }
+
+    private void writeNumericData(final DataSet dataSet, final boolean asFloat) {
+        final int nDim = dataSet.getDimension();
+        if (dataSet instanceof GridDataSet) {
+            final GridDataSet gridDataSet = (GridDataSet) dataSet;
+            for (int dimIndex = 0; dimIndex < nDim; dimIndex++) {
+                final boolean gridDimension = dimIndex < gridDataSet.getNGrid();
+                final int nsamples = gridDimension ? gridDataSet.getShape(dimIndex) : dataSet.getDataCount();
+                writeArray(ARRAY_PREFIX + dimIndex, gridDimension ? gridDataSet.getGridValues(dimIndex) : dataSet.getValues(dimIndex), nsamples, asFloat);
+            }
+            return; // GridDataSet does not provide errors
+        }
+        final int nsamples = dataSet.getDataCount();
+        for (int dimIndex = 0; dimIndex < nDim; dimIndex++) {
+            writeArray(ARRAY_PREFIX + dimIndex, dataSet.getValues(dimIndex), nsamples, asFloat);
+        }
+        if (!(dataSet instanceof DataSetError)) {
+            return; // data set does not have any error definition
+        }
+        final DataSetError ds = (DataSetError) dataSet;
+        for (int dimIndex = 0; dimIndex < nDim; dimIndex++) {
+            switch (ds.getErrorType(dimIndex)) {
+            case SYMMETRIC:
+                writeArray(EP_PREFIX + dimIndex, ds.getErrorsPositive(dimIndex), nsamples, asFloat);
+                break;
+            case ASYMMETRIC:
+                writeArray(EN_PREFIX + dimIndex, ds.getErrorsNegative(dimIndex), nsamples, asFloat);
+                writeArray(EP_PREFIX + dimIndex, ds.getErrorsPositive(dimIndex), nsamples, asFloat);
+                break;
+            case NO_ERROR:
+            default:
+                break;
+            }
+        }
+    }
+
+    private void writeStringList(final String fieldName, final List<String> list) {
+        writer.name(fieldName).beginArray();
+        for (final String value : list) {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+
+    private static int getDimIndex(final String fieldName, final String prefix) {
+        try {
+            return Integer.parseInt(fieldName.substring(prefix.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            LOGGER.atWarn().addArgument(fieldName).log("Invalid field name: {}");
+            return -1;
+        }
+    }
+}
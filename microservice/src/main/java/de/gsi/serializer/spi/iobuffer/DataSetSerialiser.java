@@ -28,6 +28,8 @@ import de.gsi.serializer.spi.WireDataFieldDescription;
  * <li>using floats (ie. memory-IO vs network-IO bound serialisation), or</li>
  * <li>via {@link #setDataLablesSerialised(boolean)} (default: true) to control whether data labels and styles shall be processed</li>
  * <li>via {@link #setMetaDataSerialised(boolean)} (default: true) to control whether meta data shall be processed</li>
+ * <li>via {@link #setEncoding(int, Encoding, double)} to select a per-dimension (lossy) compact value encoding, e.g.
+ * delta + zig-zag varint for monotonic axes or scale/offset-quantised int16/int32 for ADC-type values</li>
  * </ul>
  *
  * @author rstein
@@ -50,7 +52,15 @@ public class DataSetSerialiser { // NOPMD
     private static final String INFO_LIST = "infoList";
     private static final String DATA_STYLES = "dataStyles";
     private static final String DATA_LABELS = "dataLabels";
+    private static final String ENCODING_PREFIX = "encoding.";
+    private static final String SCALE_PREFIX = "scale.";
+    private static final String OFFSET_PREFIX = "offset.";
+    private static final double INT16_RANGE = 2.0 * Short.MAX_VALUE;
+    private static final double INT32_RANGE = 2.0 * Integer.MAX_VALUE;
+    private static final double MAX_SAFE_LONG_RANGE = 1L << 52; // N.B. largest integer range exactly representable as double
     private final IoSerialiser ioSerialiser;
+    private final Map<Integer, Encoding> encodings = new HashMap<>();
+    private final Map<Integer, Double> resolutions = new HashMap<>();
     private boolean transmitDataLabels = true;
     private boolean transmitMetaData = true;
 
@@ -58,6 +68,22 @@ public class DataSetSerialiser { // NOPMD
         this.ioSerialiser = ioSerialiser;
     }
 
+    /**
+     * @param dimIndex the dimension index
+     * @return the value encoding used for the given dimension (default: {@link Encoding#DEFAULT})
+     */
+    public Encoding getEncoding(final int dimIndex) {
+        return encodings.getOrDefault(dimIndex, Encoding.DEFAULT);
+    }
+
+    /**
+     * @param dimIndex the dimension index
+     * @return the requested quantisation resolution for the given dimension ({@code <= 0}: automatically derived from the value range)
+     */
+    public double getEncodingResolution(final int dimIndex) {
+        return resolutions.getOrDefault(dimIndex, 0.0);
+    }
+
     public boolean isDataLablesSerialised() {
         return transmitDataLabels;
     }
@@ -131,6 +157,29 @@ public class DataSetSerialiser { // NOPMD
         return this;
     }
 
+    /**
+     * @param dimIndex the dimension index
+     * @param encoding the value encoding to be used for the given dimension (N.B. error values are written as defined by {@link #write(DataSet, boolean)})
+     * @return itself (fluent design)
+     */
+    public DataSetSerialiser setEncoding(final int dimIndex, final Encoding encoding) {
+        return setEncoding(dimIndex, encoding, 0.0);
+    }
+
+    /**
+     * @param dimIndex the dimension index
+     * @param encoding the value encoding to be used for the given dimension (N.B. error values are written as defined by {@link #write(DataSet, boolean)})
+     * @param resolution the quantisation step size for lossy encodings ({@code <= 0}: derive from the value range), N.B. coarsened if the value range cannot be represented otherwise
+     * @return itself (fluent design)
+     */
+    public DataSetSerialiser setEncoding(final int dimIndex, final Encoding encoding, final double resolution) {
+        AssertUtils.gtEqThanZero("dimIndex", dimIndex);
+        AssertUtils.notNull("encoding", encoding);
+        encodings.put(dimIndex, encoding);
+        resolutions.put(dimIndex, resolution);
+        return this;
+    }
+
     /**
      * Write data set into byte buffer.
      *
@@ -276,7 +325,15 @@ public class DataSetSerialiser { // NOPMD
         // check for numeric data
         for (FieldDescription fieldDescription : rootField.getChildren()) {
             final String fieldName = fieldDescription.getFieldName();
-            if (fieldName == null || (fieldDescription.getDataType() != DataType.DOUBLE_ARRAY && fieldDescription.getDataType() != DataType.FLOAT_ARRAY)) {
+            if (fieldName == null) {
+                continue;
+            }
+            final DataType dataType = fieldDescription.getDataType();
+            if ((dataType == DataType.BYTE_ARRAY || dataType == DataType.SHORT_ARRAY || dataType == DataType.INT_ARRAY) && fieldName.startsWith(ARRAY_PREFIX)) {
+                readEncodedValues(ioSerialiser, builder, rootField, fieldDescription, fieldName);
+                continue;
+            }
+            if (dataType != DataType.DOUBLE_ARRAY && dataType != DataType.FLOAT_ARRAY) {
                 continue;
             }
             if (fieldName.startsWith(ARRAY_PREFIX)) {
@@ -374,13 +431,17 @@ public class DataSetSerialiser { // NOPMD
                 final boolean gridDimension = dimIndex < gridDataSet.getNGrid();
                 final int nsamples = gridDimension ? gridDataSet.getShape(dimIndex) : dataSet.getDataCount();
                 final double[] values = gridDimension ? gridDataSet.getGridValues(dimIndex) : dataSet.getValues(dimIndex);
-                ioSerialiser.put(ARRAY_PREFIX + dimIndex, values, nsamples);
+                if (!writeEncodedValues(dimIndex, values, nsamples)) {
+                    ioSerialiser.put(ARRAY_PREFIX + dimIndex, values, nsamples);
+                }
             }
             return; // GridDataSet does not provide errors
         }
         for (int dimIndex = 0; dimIndex < nDim; dimIndex++) {
             final int nsamples = dataSet.getDataCount();
-            ioSerialiser.put(ARRAY_PREFIX + dimIndex, dataSet.getValues(dimIndex), nsamples);
+            if (!writeEncodedValues(dimIndex, dataSet.getValues(dimIndex), nsamples)) {
+                ioSerialiser.put(ARRAY_PREFIX + dimIndex, dataSet.getValues(dimIndex), nsamples);
+            }
         }
         if (!(dataSet instanceof DataSetError)) {
             return; // data set does not have any error definition
@@ -413,14 +474,18 @@ public class DataSetSerialiser { // NOPMD
             for (int dimIndex = 0; dimIndex < nDim; dimIndex++) {
                 final boolean gridDimension = dimIndex < gridDataSet.getNGrid();
                 final int nsamples = gridDimension ? gridDataSet.getShape(dimIndex) : dataSet.getDataCount();
-                final float[] values = MathUtils.toFloats(gridDimension ? gridDataSet.getGridValues(dimIndex) : dataSet.getValues(dimIndex));
-                ioSerialiser.put(ARRAY_PREFIX + dimIndex, values, nsamples);
+                final double[] values = gridDimension ? gridDataSet.getGridValues(dimIndex) : dataSet.getValues(dimIndex);
+                if (!writeEncodedValues(dimIndex, values, nsamples)) {
+                    ioSerialiser.put(ARRAY_PREFIX + dimIndex, MathUtils.toFloats(values), nsamples);
+                }
             }
             return; // GridDataSet does not provide errors
         }
         for (int dimIndex = 0; dimIndex < nDim; dimIndex++) {
             final int nsamples = dataSet.getDataCount();
-            ioSerialiser.put(ARRAY_PREFIX + dimIndex, MathUtils.toFloats(dataSet.getValues(dimIndex)), nsamples);
+            if (!writeEncodedValues(dimIndex, dataSet.getValues(dimIndex), nsamples)) {
+                ioSerialiser.put(ARRAY_PREFIX + dimIndex, MathUtils.toFloats(dataSet.getValues(dimIndex)), nsamples);
+            }
         }
 
         if (!(dataSet instanceof DataSetError)) {
@@ -478,6 +543,41 @@ public class DataSetSerialiser { // NOPMD
         }
     }
 
+    private void readEncodedValues(final IoSerialiser ioSerialiser, final DataSetBuilder builder, final FieldDescription rootField, final FieldDescription fieldDescription, final String fieldName) {
+        final int dimIndex = getDimIndex(fieldName, ARRAY_PREFIX);
+        if (dimIndex < 0) {
+            return;
+        }
+        final String encodingName = ENCODING_PREFIX + fieldName;
+        if (checkFieldCompatibility(rootField, encodingName.hashCode(), encodingName, DataType.STRING) == null) {
+            LOGGER.atWarn().addArgument(fieldName).log("no encoding description found for integer-type values {} - ignore");
+            return;
+        }
+        final Encoding encoding = Encoding.valueOf(ioSerialiser.getBuffer().getString());
+        final String scaleName = SCALE_PREFIX + fieldName;
+        final String offsetName = OFFSET_PREFIX + fieldName;
+        final double scale = checkFieldCompatibility(rootField, scaleName.hashCode(), scaleName, DataType.DOUBLE) == null ? 1.0 : ioSerialiser.getBuffer().getDouble();
+        final double offset = checkFieldCompatibility(rootField, offsetName.hashCode(), offsetName, DataType.DOUBLE) == null ? 0.0 : ioSerialiser.getBuffer().getDouble();
+
+        ioSerialiser.getBuffer().position(fieldDescription.getDataStartPosition());
+        final double[] values;
+        switch (encoding) {
+        case DELTA_VARINT:
+            values = decodeDeltaVarInt(ioSerialiser.getByteArray(), scale, offset);
+            break;
+        case QUANTISED_INT16:
+            values = decodeQuantised(ioSerialiser.getShortArray(), scale, offset);
+            break;
+        case QUANTISED_INT32:
+            values = decodeQuantised(ioSerialiser.getIntArray(), scale, offset);
+            break;
+        case DEFAULT:
+        default:
+            throw new IllegalArgumentException("unsupported integer-type encoding '" + encoding + "' for field " + fieldName);
+        }
+        builder.setValuesNoCopy(dimIndex, values);
+    }
+
     private void readNegError(final IoSerialiser ioSerialiser, final DataSetBuilder builder, final DataSet origDataSet, FieldDescription fieldDescription, final String fieldName) {
         int dimIndex = getDimIndex(fieldName, EN_PREFIX);
         if (dimIndex >= 0) {
@@ -506,7 +606,171 @@ public class DataSetSerialiser { // NOPMD
         }
     }
 
+    /**
+     * Writes the values of the given dimension using the user-selected {@link Encoding} (if any).
+     *
+     * @param dimIndex the dimension index
+     * @param values the source values
+     * @param nsamples number of samples to be written
+     * @return {@code false} if the values have not been written (ie. {@link Encoding#DEFAULT} or non-finite values present) and need to be written as float or double
+     */
+    private boolean writeEncodedValues(final int dimIndex, final double[] values, final int nsamples) {
+        final Encoding encoding = getEncoding(dimIndex);
+        if (encoding == Encoding.DEFAULT) {
+            return false;
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < nsamples; i++) {
+            final double value = values[i];
+            if (!Double.isFinite(value)) {
+                LOGGER.atWarn().addArgument(dimIndex).addArgument(encoding).log("dimension {} contains non-finite values - cannot use encoding {}, falling back to default");
+                return false;
+            }
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        if (nsamples == 0) {
+            min = max = 0.0;
+        }
+        final double resolution = getEncodingResolution(dimIndex);
+        final double range = max - min;
+        final String fieldName = ARRAY_PREFIX + dimIndex;
+        final double scale;
+        final double offset;
+        switch (encoding) {
+        case DELTA_VARINT:
+            scale = getScale(resolution, range, resolution > 0 ? MAX_SAFE_LONG_RANGE : INT32_RANGE);
+            offset = min;
+            ioSerialiser.put(fieldName, encodeDeltaVarInt(values, nsamples, scale, offset), -1);
+            break;
+        case QUANTISED_INT16:
+            scale = getScale(resolution, range, INT16_RANGE);
+            offset = 0.5 * (min + max);
+            ioSerialiser.put(fieldName, encodeQuantisedInt16(values, nsamples, scale, offset), nsamples);
+            break;
+        case QUANTISED_INT32:
+            scale = getScale(resolution, range, INT32_RANGE);
+            offset = 0.5 * (min + max);
+            ioSerialiser.put(fieldName, encodeQuantisedInt32(values, nsamples, scale, offset), nsamples);
+            break;
+        case DEFAULT:
+        default:
+            return false;
+        }
+        ioSerialiser.put(ENCODING_PREFIX + fieldName, encoding.name());
+        ioSerialiser.put(SCALE_PREFIX + fieldName, scale);
+        ioSerialiser.put(OFFSET_PREFIX + fieldName, offset);
+        return true;
+    }
+
+    protected static double[] decodeDeltaVarInt(final byte[] encoded, final double scale, final double offset) {
+        // first pass: count number of encoded values (ie. bytes w/o continuation bit)
+        int nValues = 0;
+        for (final byte b : encoded) {
+            if ((b & 0x80) == 0) {
+                nValues++;
+            }
+        }
+        final double[] values = new double[nValues];
+        long quantised = 0;
+        int index = 0;
+        int position = 0;
+        while (index < nValues) {
+            long raw = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[position++];
+                raw |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            quantised += (raw >>> 1) ^ -(raw & 1); // zig-zag decoding
+            values[index++] = offset + quantised * scale;
+        }
+        return values;
+    }
+
+    protected static double[] decodeQuantised(final int[] encoded, final double scale, final double offset) {
+        final double[] values = new double[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            values[i] = offset + encoded[i] * scale;
+        }
+        return values;
+    }
+
+    protected static double[] decodeQuantised(final short[] encoded, final double scale, final double offset) { // NOPMD
+        final double[] values = new double[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            values[i] = offset + encoded[i] * scale;
+        }
+        return values;
+    }
+
+    protected static byte[] encodeDeltaVarInt(final double[] values, final int nsamples, final double scale, final double offset) {
+        final byte[] encoded = new byte[10 * nsamples]; // N.B. worst case: 10 bytes per 64-bit varint
+        int position = 0;
+        long lastQuantised = 0;
+        for (int i = 0; i < nsamples; i++) {
+            final long quantised = Math.round((values[i] - offset) / scale);
+            final long delta = quantised - lastQuantised;
+            lastQuantised = quantised;
+            long zigZag = (delta << 1) ^ (delta >> 63); // zig-zag encoding
+            while ((zigZag & ~0x7FL) != 0) {
+                encoded[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+                zigZag >>>= 7;
+            }
+            encoded[position++] = (byte) zigZag;
+        }
+        return Arrays.copyOf(encoded, position);
+    }
+
+    protected static int[] encodeQuantisedInt32(final double[] values, final int nsamples, final double scale, final double offset) {
+        final int[] encoded = new int[nsamples];
+        for (int i = 0; i < nsamples; i++) {
+            encoded[i] = (int) Math.round((values[i] - offset) / scale);
+        }
+        return encoded;
+    }
+
+    protected static short[] encodeQuantisedInt16(final double[] values, final int nsamples, final double scale, final double offset) { // NOPMD
+        final short[] encoded = new short[nsamples]; // NOPMD
+        for (int i = 0; i < nsamples; i++) {
+            encoded[i] = (short) Math.round((values[i] - offset) / scale);
+        }
+        return encoded;
+    }
+
+    private static double getScale(final double resolution, final double range, final double codeRange) {
+        // coarsen user-defined resolution if the full value range cannot be represented
+        final double minScale = range / codeRange;
+        final double scale = Math.max(resolution, minScale);
+        return scale > 0.0 ? scale : 1.0;
+    }
+
     public static DataSetSerialiser withIoSerialiser(final IoSerialiser ioSerialiser) {
         return new DataSetSerialiser(ioSerialiser);
     }
+
+    /**
+     * per-dimension value encodings
+     */
+    public enum Encoding {
+        /**
+         * 64-bit double or 32-bit float values depending on the 'asFloat' argument of {@link #write(DataSet, boolean)}
+         */
+        DEFAULT,
+        /**
+         * (lossy) values quantised to 'resolution', delta- and zig-zag-encoded as variable-length integers -- suited for monotonic axes with near-constant steps
+         */
+        DELTA_VARINT,
+        /**
+         * (lossy) scale/offset-quantised 16-bit integers -- suited for e.g. 12-16 bit ADC values
+         */
+        QUANTISED_INT16,
+        /**
+         * (lossy) scale/offset-quantised 32-bit integers
+         */
+        QUANTISED_INT32
+    }
 }
@@ -0,0 +1,579 @@
+package de.gsi.serializer.utils;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Allocation-free conversion between IEEE 754 floating point numbers and their (JSON-compatible) decimal text
+ * representation operating directly on byte arrays.
+ * <p>
+ * Formatting: produces the shortest decimal that uniquely rounds back to the original value (Schubfach algorithm, R.
+ * Giulietti, "The Schubfach way to render doubles", 2020) in the same layout as {@link Double#toString(double)}, ie.
+ * plain notation for magnitudes in [1e-3, 1e7[ and computerised scientific notation (e.g. "1.0E-5") otherwise.
+ * <p>
+ * Parsing: correctly rounded decimal-to-double conversion based on the Clinger fast-path and the Eisel-Lemire algorithm
+ * (D. Lemire, "Number Parsing at a Gigabyte per Second", 2021) with a fall-back to {@link Double#parseDouble(String)}
+ * for the rare ambiguous cases (more than 19 significant digits, sub-normals, or unresolved rounding) -- the only path
+ * that allocates.
+ * <p>
+ * N.B. non-finite values have no JSON representation and are rendered and parsed as 'NaN', 'Infinity' and
+ * '-Infinity' consistent with {@link Double#toString(double)}. These tokens are not valid JSON -- the
+ * {@link de.gsi.serializer.spi.JsonStreamWriter} thus writes non-finite values as 'null' unless explicitly enabled.
+ */
+public final class JsonNumbers { // NOPMD - nomen est omen
+    /**
+     * maximum number of bytes needed to render a double (e.g. "-2.2250738585072014E-308")
+     */
+    public static final int MAX_DOUBLE_LENGTH = 24;
+    /**
+     * maximum number of bytes needed to render a float (e.g. "-1.17549435E-38")
+     */
+    public static final int MAX_FLOAT_LENGTH = 15;
+    /**
+     * maximum number of bytes needed to render a long
+     */
+    public static final int MAX_LONG_LENGTH = 20;
+    private static final byte[] NAN = "NaN".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] POS_INFINITY = "Infinity".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] NEG_INFINITY = "-Infinity".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.ISO_8859_1);
+    private static final long MASK_63 = 0x7FFF_FFFF_FFFF_FFFFL;
+    private static final long MASK_32 = 0xFFFF_FFFFL;
+    private static final long[] POW10 = new long[19];
+    private static final double[] POW10_DOUBLE = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    // Schubfach parameters and 126-bit approximations g = floor(10^(-k) 2^(-r)) + 1 with r = flog2pow10(-k) - 125
+    private static final int D_P = 53;
+    private static final int D_Q_MIN = -1074;
+    private static final long D_C_MIN = 1L << (D_P - 1);
+    private static final long D_C_TINY = 3;
+    private static final int F_P = 24;
+    private static final int F_Q_MIN = -149;
+    private static final int F_C_MIN = 1 << (F_P - 1);
+    private static final int F_C_TINY = 8;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long[] G = new long[2 * (K_MAX - K_MIN + 1)];
+
+    // Eisel-Lemire: 128-bit (truncated) approximations of 5^q normalised to [2^127, 2^128[
+    private static final int Q_SMALLEST = -325;
+    private static final int Q_LARGEST = 308;
+    private static final long[] POW5_128 = new long[2 * (Q_LARGEST - Q_SMALLEST + 1)];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = 10 * POW10[i - 1];
+        }
+        final BigInteger mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            final int r = flog2pow10(-k) - 125;
+            BigInteger numerator = BigInteger.ONE;
+            BigInteger denominator = BigInteger.ONE;
+            if (k <= 0) {
+                numerator = BigInteger.TEN.pow(-k);
+            } else {
+                denominator = BigInteger.TEN.pow(k);
+            }
+            if (r <= 0) {
+                numerator = numerator.shiftLeft(-r);
+            } else {
+                denominator = denominator.shiftLeft(r);
+            }
+            final BigInteger g = numerator.divide(denominator).add(BigInteger.ONE);
+            G[2 * (k - K_MIN)] = g.shiftRight(63).longValueExact();
+            G[2 * (k - K_MIN) + 1] = g.and(mask63).longValueExact();
+        }
+
+        final BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        final BigInteger two127 = BigInteger.ONE.shiftLeft(127);
+        for (int q = Q_SMALLEST; q <= Q_LARGEST; q++) {
+            BigInteger c;
+            if (q < 0) {
+                final BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                final int z = power5.subtract(BigInteger.ONE).bitLength(); // smallest z with 2^z >= 5^-q
+                final int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0) {
+                    c = c.shiftRight(1);
+                }
+            } else {
+                c = BigInteger.valueOf(5).pow(q);
+                while (c.compareTo(two127) < 0) {
+                    c = c.shiftLeft(1);
+                }
+                while (c.compareTo(two128) >= 0) {
+                    c = c.shiftRight(1);
+                }
+            }
+            POW5_128[2 * (q - Q_SMALLEST)] = c.shiftRight(64).longValue();
+            POW5_128[2 * (q - Q_SMALLEST) + 1] = c.longValue();
+        }
+    }
+
+    private JsonNumbers() {
+        // utility class
+    }
+
+    /**
+     * @param src source bytes
+     * @param from index of the first byte of the number
+     * @param to index after the last byte of the number
+     * @return the correctly rounded double value
+     * @throws NumberFormatException if the range does not contain a valid number
+     */
+    public static double parseDouble(final byte[] src, final int from, final int to) {
+        if (from >= to) {
+            throw new NumberFormatException("empty number string");
+        }
+        int index = from;
+        final boolean negative = src[index] == '-';
+        if (negative || src[index] == '+') {
+            index++;
+        }
+        if (index < to && (src[index] == 'N' || src[index] == 'I')) {
+            return parseNonFinite(src, from, to, negative);
+        }
+
+        long significand = 0;
+        int nDigits = 0; // significant digits (ie. excluding leading zeros)
+        int exponent = 0;
+        boolean hasDigits = false;
+        while (index < to && isDigit(src[index])) {
+            hasDigits = true;
+            if (significand != 0 || src[index] != '0') {
+                if (nDigits < 19) {
+                    significand = 10 * significand + (src[index] - '0');
+                } else {
+                    exponent++;
+                }
+                nDigits++;
+            }
+            index++;
+        }
+        if (index < to && src[index] == '.') {
+            index++;
+            while (index < to && isDigit(src[index])) {
+                hasDigits = true;
+                if (significand != 0 || src[index] != '0') {
+                    if (nDigits < 19) {
+                        significand = 10 * significand + (src[index] - '0');
+                        exponent--;
+                    }
+                    nDigits++;
+                } else {
+                    exponent--;
+                }
+                index++;
+            }
+        }
+        if (!hasDigits) {
+            throw new NumberFormatException("invalid number: '" + new String(src, from, to - from, StandardCharsets.ISO_8859_1) + "'");
+        }
+        if (index < to && (src[index] == 'e' || src[index] == 'E')) {
+            index++;
+            final boolean negativeExponent = index < to && src[index] == '-';
+            if (index < to && (src[index] == '-' || src[index] == '+')) {
+                index++;
+            }
+            if (index >= to) {
+                throw new NumberFormatException("invalid number: '" + new String(src, from, to - from, StandardCharsets.ISO_8859_1) + "'");
+            }
+            int exp = 0;
+            while (index < to && isDigit(src[index])) {
+                if (exp < 100_000) {
+                    exp = 10 * exp + (src[index] - '0');
+                }
+                index++;
+            }
+            exponent += negativeExponent ? -exp : exp;
+        }
+        if (index != to) {
+            throw new NumberFormatException("invalid number: '" + new String(src, from, to - from, StandardCharsets.ISO_8859_1) + "'");
+        }
+        if (nDigits <= 19) {
+            final double value = computeDouble(exponent, significand, negative);
+            if (!Double.isNaN(value)) {
+                return value;
+            }
+        }
+        // N.B. rare fall-back for ambiguous cases
+        return Double.parseDouble(new String(src, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Renders the shortest decimal representation that uniquely identifies the given value.
+     *
+     * @param dst destination byte array (N.B. needs at least {@link #MAX_DOUBLE_LENGTH} free bytes from {@code pos})
+     * @param pos index at which the first byte is written
+     * @param value the value to be rendered
+     * @return index after the last written byte
+     */
+    public static int writeDouble(final byte[] dst, final int pos, final double value) {
+        final long bits = Double.doubleToRawLongBits(value);
+        final long t = bits & (D_C_MIN - 1);
+        final int bq = (int) (bits >>> (D_P - 1)) & 0x7FF;
+        if (bq == 0x7FF) {
+            return writeNonFinite(dst, pos, t != 0, bits < 0);
+        }
+        int index = pos;
+        if (bits < 0) {
+            dst[index++] = '-';
+        }
+        if (bq != 0) {
+            // normal value: value = c 2^q
+            final int mq = -D_Q_MIN + 1 - bq;
+            final long c = D_C_MIN | t;
+            if (0 < mq && mq < D_P) {
+                // fast path for integers
+                final long f = c >> mq;
+                if (f << mq == c) {
+                    return writeDecimal(dst, index, f, 0);
+                }
+            }
+            return toDecimalDouble(dst, index, -mq, c, 0);
+        }
+        if (t != 0) {
+            // sub-normal value
+            return t < D_C_TINY ? toDecimalDouble(dst, index, D_Q_MIN, 10 * t, -1) : toDecimalDouble(dst, index, D_Q_MIN, t, 0);
+        }
+        return writeZero(dst, index);
+    }
+
+    /**
+     * Renders the shortest decimal representation that uniquely identifies the given float value.
+     *
+     * @param dst destination byte array (N.B. needs at least {@link #MAX_FLOAT_LENGTH} free bytes from {@code pos})
+     * @param pos index at which the first byte is written
+     * @param value the value to be rendered
+     * @return index after the last written byte
+     */
+    public static int writeFloat(final byte[] dst, final int pos, final float value) {
+        final int bits = Float.floatToRawIntBits(value);
+        final int t = bits & (F_C_MIN - 1);
+        final int bq = (bits >>> (F_P - 1)) & 0xFF;
+        if (bq == 0xFF) {
+            return writeNonFinite(dst, pos, t != 0, bits < 0);
+        }
+        int index = pos;
+        if (bits < 0) {
+            dst[index++] = '-';
+        }
+        if (bq != 0) {
+            final int mq = -F_Q_MIN + 1 - bq;
+            final int c = F_C_MIN | t;
+            if (0 < mq && mq < F_P) {
+                final int f = c >> mq;
+                if (f << mq == c) {
+                    return writeDecimal(dst, index, f, 0);
+                }
+            }
+            return toDecimalFloat(dst, index, -mq, c, 0);
+        }
+        if (t != 0) {
+            return t < F_C_TINY ? toDecimalFloat(dst, index, F_Q_MIN, 10 * t, -1) : toDecimalFloat(dst, index, F_Q_MIN, t, 0);
+        }
+        return writeZero(dst, index);
+    }
+
+    /**
+     * @param dst destination byte array (N.B. needs at least {@link #MAX_LONG_LENGTH} free bytes from {@code pos})
+     * @param pos index at which the first byte is written
+     * @param value the value to be rendered
+     * @return index after the last written byte
+     */
+    public static int writeLong(final byte[] dst, final int pos, final long value) {
+        if (value == Long.MIN_VALUE) {
+            System.arraycopy(MIN_LONG, 0, dst, pos, MIN_LONG.length);
+            return pos + MIN_LONG.length;
+        }
+        int index = pos;
+        long val = value;
+        if (val < 0) {
+            dst[index++] = '-';
+            val = -val;
+        }
+        final int len = numberOfDigits(val);
+        for (int i = index + len - 1; i >= index; i--) {
+            dst[i] = (byte) ('0' + val % 10);
+            val /= 10;
+        }
+        return index + len;
+    }
+
+    private static double computeDouble(final int power, final long significand, final boolean negative) {
+        // Clinger fast-path: exact significand and power of ten -> single correctly rounded operation
+        if (-22 <= power && power <= 22 && significand >= 0 && significand <= (1L << D_P) - 1) {
+            double value = significand;
+            value = power < 0 ? value / POW10_DOUBLE[-power] : value * POW10_DOUBLE[power];
+            return negative ? -value : value;
+        }
+        if (significand == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (power < Q_SMALLEST || power > Q_LARGEST) {
+            return Double.NaN; // beyond table range (N.B. multi-digit significands may still be sub-normal or finite) -> fall-back
+        }
+        // Eisel-Lemire
+        final long exponent = (((152_170L + 65_536L) * power) >> 16) + 1024 + 63;
+        int lz = Long.numberOfLeadingZeros(significand);
+        final long w = significand << lz;
+        final int tableIndex = 2 * (power - Q_SMALLEST);
+        long lower = w * POW5_128[tableIndex];
+        long upper = unsignedMultiplyHigh(w, POW5_128[tableIndex]);
+        if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + w, lower) < 0) {
+            final long productLow = w * POW5_128[tableIndex + 1];
+            final long productMiddle2 = unsignedMultiplyHigh(w, POW5_128[tableIndex + 1]);
+            final long productMiddle = lower + productMiddle2;
+            long productHigh = upper;
+            if (Long.compareUnsigned(productMiddle, lower) < 0) {
+                productHigh++;
+            }
+            if (productMiddle + 1 == 0 && (productHigh & 0x1FF) == 0x1FF && Long.compareUnsigned(productLow + w, productLow) < 0) {
+                return Double.NaN; // ambiguous -> fall-back
+            }
+            upper = productHigh;
+            lower = productMiddle;
+        }
+        final long upperBit = upper >>> 63;
+        long mantissa = upper >>> (upperBit + 9);
+        lz += (int) (1 ^ upperBit);
+        if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) {
+            return Double.NaN; // exactly half-way -> fall-back
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (1L << D_P)) {
+            mantissa = 1L << (D_P - 1);
+            lz--;
+        }
+        mantissa &= ~(1L << (D_P - 1));
+        final long realExponent = exponent - lz;
+        if (realExponent < 1 || realExponent > 2046) {
+            return Double.NaN; // sub-normal or overflow -> fall-back
+        }
+        final long bits = mantissa | realExponent << (D_P - 1) | (negative ? Long.MIN_VALUE : 0L);
+        return Double.longBitsToDouble(bits);
+    }
+
+    private static int flog10pow2(final int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int flog10threeQuartersPow2(final int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int flog2pow10(final int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static int numberOfDigits(final long value) {
+        final int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(value));
+        return len < POW10.length && value >= POW10[len] ? len + 1 : Math.max(len, 1);
+    }
+
+    private static double parseNonFinite(final byte[] src, final int from, final int to, final boolean negative) {
+        final int start = negative || src[from] == '+' ? from + 1 : from;
+        if (regionMatches(src, start, to, NAN)) {
+            return Double.NaN;
+        }
+        if (regionMatches(src, start, to, POS_INFINITY)) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        throw new NumberFormatException("invalid number: '" + new String(src, from, to - from, StandardCharsets.ISO_8859_1) + "'");
+    }
+
+    private static boolean regionMatches(final byte[] src, final int from, final int to, final byte[] token) {
+        if (to - from != token.length) {
+            return false;
+        }
+        for (int i = 0; i < token.length; i++) {
+            if (src[from + i] != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long rop(final long g1, final long g0, final long cp) {
+        final long x1 = Math.multiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = Math.multiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    private static int rop(final long g, final long cp) {
+        final long x1 = Math.multiplyHigh(g, cp);
+        final long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+
+    private static int toDecimalDouble(final byte[] dst, final int pos, final int q, final long c, final int dk) {
+        final int out = (int) c & 0x1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if (c != D_C_MIN || q == D_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // N.B. asymmetric rounding interval at powers of two
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 2;
+        final long g1 = G[2 * (k - K_MIN)];
+        final long g0 = G[2 * (k - K_MIN) + 1];
+        final long vb = rop(g1, g0, cb << h);
+        final long vbl = rop(g1, g0, cbl << h);
+        final long vbr = rop(g1, g0, cbr << h);
+        final long s = vb >> 2;
+        if (s >= 100) {
+            // try the shorter candidates first
+            final long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            final long tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return writeDecimal(dst, pos, upin ? sp10 : tp10, k + dk);
+            }
+        }
+        final long t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return writeDecimal(dst, pos, uin ? s : t, k + dk);
+        }
+        // both candidates are in the rounding interval -> pick the closest (or even) one
+        final long cmp = vb - (s + t << 1);
+        return writeDecimal(dst, pos, cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    private static int toDecimalFloat(final byte[] dst, final int pos, final int q, final int c, final int dk) {
+        final int out = c & 0x1;
+        final long cb = (long) c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if (c != F_C_MIN || q == F_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 33;
+        final long g = G[2 * (k - K_MIN)] + 1;
+        final int vb = rop(g, cb << h);
+        final int vbl = rop(g, cbl << h);
+        final int vbr = rop(g, cbr << h);
+        final int s = vb >> 2;
+        if (s >= 100) {
+            final int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            final int tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return writeDecimal(dst, pos, upin ? sp10 : tp10, k + dk);
+            }
+        }
+        final int t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return writeDecimal(dst, pos, uin ? s : t, k + dk);
+        }
+        final int cmp = vb - (s + t << 1);
+        return writeDecimal(dst, pos, cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    private static long unsignedMultiplyHigh(final long a, final long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    /**
+     * renders f 10^e in the {@link Double#toString(double)} layout
+     */
+    private static int writeDecimal(final byte[] dst, final int pos, final long significand, final int exponent) {
+        long f = significand;
+        int e = exponent;
+        // remove trailing zeros
+        while (f >= 10 && f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        final int len = numberOfDigits(f);
+        final int decimalExponent = e + len; // value = 0.d1d2...dn 10^decimalExponent
+
+        if (decimalExponent > -3 && decimalExponent <= 7) {
+            // plain notation
+            if (decimalExponent <= 0) {
+                dst[pos] = '0';
+                dst[pos + 1] = '.';
+                final int nZeros = -decimalExponent;
+                for (int i = 0; i < nZeros; i++) {
+                    dst[pos + 2 + i] = '0';
+                }
+                return writeDigits(dst, pos + 2 + nZeros, f, len);
+            }
+            if (decimalExponent >= len) {
+                int index = writeDigits(dst, pos, f, len);
+                for (int i = len; i < decimalExponent; i++) {
+                    dst[index++] = '0';
+                }
+                dst[index++] = '.';
+                dst[index++] = '0';
+                return index;
+            }
+            // N.B. decimal point within digits
+            final long pow = POW10[len - decimalExponent];
+            writeDigits(dst, pos, f / pow, decimalExponent);
+            dst[pos + decimalExponent] = '.';
+            return writeDigits(dst, pos + decimalExponent + 1, f % pow, len - decimalExponent);
+        }
+
+        // computerised scientific notation: d.ddddE[-]xx
+        final long pow = POW10[len - 1];
+        dst[pos] = (byte) ('0' + f / pow);
+        dst[pos + 1] = '.';
+        int index = len == 1 ? pos + 2 : writeDigits(dst, pos + 2, f % pow, len - 1);
+        if (len == 1) {
+            dst[index++] = '0';
+        }
+        dst[index++] = 'E';
+        return writeLong(dst, index, decimalExponent - 1L);
+    }
+
+    /**
+     * writes exactly nDigits digits (incl. leading zeros)
+     */
+    private static int writeDigits(final byte[] dst, final int pos, final long value, final int nDigits) {
+        long val = value;
+        for (int i = pos + nDigits - 1; i >= pos; i--) {
+            dst[i] = (byte) ('0' + val % 10);
+            val /= 10;
+        }
+        return pos + nDigits;
+    }
+
+    private static int writeNonFinite(final byte[] dst, final int pos, final boolean isNaN, final boolean isNegative) {
+        final byte[] token = isNaN ? NAN : (isNegative ? NEG_INFINITY : POS_INFINITY);
+        System.arraycopy(token, 0, dst, pos, token.length);
+        return pos + token.length;
+    }
+
+    private static int writeZero(final byte[] dst, final int pos) {
+        dst[pos] = '0';
+        dst[pos + 1] = '.';
+        dst[pos + 2] = '0';
+        return pos + 3;
+    }
+}
@@ -0,0 +1,132 @@
+package de.gsi.microservice.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.zeromq.ZContext;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.dataset.testdata.spi.TriangleFunction;
+
+/**
+ * Loopback tests for the {@link DataSetPublisher} and {@link DataSetSubscriber}
+ */
+class DataSetPubSubTests {
+    private static final long TIMEOUT = 5; // [s]
+    private static final int N_BURST = 100;
+
+    @ParameterizedTest(name = "endpoint - {0}")
+    @ValueSource(strings = { "inproc://dataSetPubSubTest", "tcp://localhost:*" })
+    void testDataSetRoundTrip(final String endpoint) throws InterruptedException {
+        try (ZContext context = new ZContext(); //
+                DataSetPublisher publisher = new DataSetPublisher(context, endpoint); //
+                DataSetSubscriber subscriber = new DataSetSubscriber(context, false, publisher.getEndpoints().get(0))) {
+            assertFalse(subscriber.isConflating());
+            subscriber.subscribe("test");
+            final DoubleDataSet original = new DoubleDataSet(new TriangleFunction("triangle", 1009));
+
+            final DataSetSubscriber.Update update = awaitFirstUpdate(publisher, subscriber, "test/triangle", original);
+            assertNotNull(update, "received update");
+            assertEquals("test/triangle", update.getTopic());
+            final DataSet restored = update.getDataSet();
+            assertEquals(original.getName(), restored.getName());
+            assertEquals(original.getDataCount(), restored.getDataCount());
+            assertArrayEquals(original.getValues(DataSet.DIM_Y), Arrays.copyOf(restored.getValues(DataSet.DIM_Y), restored.getDataCount()));
+
+            // topics not subscribed to are filtered
+            publisher.publish("other", original);
+            assertNull(subscriber.receive(200, TimeUnit.MILLISECONDS));
+
+            // generic object payload via IoClassSerialiser
+            final TestData data = new TestData();
+            data.name = "data";
+            data.values = new double[] { 1.0, 2.0, 3.0 };
+            publisher.publishObject("test/object", data);
+            final DataSetSubscriber.Update objectUpdate = awaitUpdate(subscriber, "test/object");
+            assertNotNull(objectUpdate, "received object update");
+            final TestData restoredData = objectUpdate.getObject(TestData.class);
+            assertEquals(data.name, restoredData.name);
+            assertArrayEquals(data.values, restoredData.values);
+
+            assertTrue(publisher.getMetrics().getMessageCount() >= 3);
+            assertTrue(publisher.getMetrics().getByteCount() > 1009 * Double.BYTES);
+            assertTrue(publisher.getMetrics().getMessageRate() > 0);
+            assertTrue(subscriber.getMetrics().getByteRate() > 0);
+            assertEquals(0, subscriber.getMetrics().getDroppedCount());
+        }
+    }
+
+    @Test
+    void testConflation() throws InterruptedException {
+        try (ZContext context = new ZContext(); //
+                DataSetPublisher publisher = new DataSetPublisher(context, "inproc://dataSetConflationTest"); //
+                DataSetSubscriber subscriber = new DataSetSubscriber(context, true, "inproc://dataSetConflationTest")) {
+            assertTrue(subscriber.isConflating());
+            subscriber.subscribe("");
+            assertNotNull(awaitFirstUpdate(publisher, subscriber, "topicA", new DoubleDataSet("init")));
+            subscriber.getMetrics().reset();
+
+            for (int i = 0; i < N_BURST; i++) {
+                publisher.publish("topicA", new DoubleDataSet("A#" + i));
+                publisher.publish("topicB", new DoubleDataSet("B#" + i));
+            }
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+            while (subscriber.getMetrics().getMessageCount() < 2 * N_BURST && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2 * N_BURST, subscriber.getMetrics().getMessageCount());
+            assertEquals(2 * (N_BURST - 1), subscriber.getMetrics().getDroppedCount());
+
+            // only the latest value per topic is retained
+            final DataSetSubscriber.Update first = subscriber.receive(TIMEOUT, TimeUnit.SECONDS);
+            final DataSetSubscriber.Update second = subscriber.receive(TIMEOUT, TimeUnit.SECONDS);
+            assertNotNull(first);
+            assertNotNull(second);
+            assertEquals("topicA", first.getTopic());
+            assertEquals("A#" + (N_BURST - 1), first.getDataSet().getName());
+            assertEquals("topicB", second.getTopic());
+            assertEquals("B#" + (N_BURST - 1), second.getDataSet().getName());
+            assertNull(subscriber.receive(100, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void testConstructorArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new DataSetPublisher((String[]) null));
+        assertThrows(IllegalArgumentException.class, () -> new DataSetPublisher(new String[0]));
+        assertThrows(IllegalArgumentException.class, () -> new DataSetSubscriber(false, new String[0]));
+    }
+
+    private static DataSetSubscriber.Update awaitFirstUpdate(final DataSetPublisher publisher, final DataSetSubscriber subscriber, final String topic, final DataSet dataSet) throws InterruptedException {
+        // N.B. subscriptions are propagated asynchronously ('slow joiner') - publish until the first update arrives
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+        while (System.nanoTime() < deadline) {
+            publisher.publish(topic, dataSet);
+            final DataSetSubscriber.Update update = subscriber.receive(50, TimeUnit.MILLISECONDS);
+            if (update != null) {
+                // drain duplicates
+                while (subscriber.receive(100, TimeUnit.MILLISECONDS) != null) {
+                    // NOPMD - do nothing
+                }
+                return update;
+            }
+        }
+        return null;
+    }
+
+    private static DataSetSubscriber.Update awaitUpdate(final DataSetSubscriber subscriber, final String topic) throws InterruptedException {
+        final DataSetSubscriber.Update update = subscriber.receive(TIMEOUT, TimeUnit.SECONDS);
+        return update != null && topic.equals(update.getTopic()) ? update : null;
+    }
+
+    static class TestData {
+        public String name;
+        public double[] values;
+    }
+}
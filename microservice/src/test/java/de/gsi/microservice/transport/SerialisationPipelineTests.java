@@ -0,0 +1,132 @@
+package de.gsi.microservice.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.dataset.testdata.spi.TriangleFunction;
+
+/**
+ * Tests for the {@link SerialisationPipeline} and {@link LatencyStatistics}
+ */
+class SerialisationPipelineTests {
+    private static final int N_MESSAGES = 200;
+    private static final long TIMEOUT = 5; // [s]
+
+    @ParameterizedTest(name = "nWorkers - {0}")
+    @ValueSource(ints = { 1, 2, 4 })
+    void testInOrderDelivery(final int nWorkers) throws InterruptedException {
+        final List<DataSetSubscriber.Update> received = Collections.synchronizedList(new ArrayList<>());
+        try (SerialisationPipeline pipeline = new SerialisationPipeline(64, nWorkers, 1000, batch -> {
+            assertFalse(batch.isEmpty());
+            for (final SerialisationPipeline.Message msg : batch) {
+                // N.B. buffers are only valid during the call
+                received.add(new DataSetSubscriber.Update(msg.getTopic(), Arrays.copyOf(msg.getBuffer().elements(), msg.getBuffer().position())));
+            }
+        })) {
+            assertEquals(nWorkers, pipeline.getNumberOfWorkers());
+            pipeline.setMaxBatchSize(8).start();
+            for (int i = 0; i < N_MESSAGES; i++) {
+                if (i % 2 == 0) {
+                    pipeline.publish("dataSet", new DoubleDataSet(new TriangleFunction("triangle#" + i, 10 + i)));
+                } else {
+                    final TestData data = new TestData();
+                    data.index = i;
+                    pipeline.publishObject("object", data);
+                }
+            }
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+            while (received.size() < N_MESSAGES && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(N_MESSAGES, received.size());
+            for (int i = 0; i < N_MESSAGES; i++) {
+                final DataSetSubscriber.Update update = received.get(i);
+                if (i % 2 == 0) {
+                    assertEquals("dataSet", update.getTopic());
+                    assertEquals("triangle#" + i, update.getDataSet().getName());
+                    assertEquals(10 + i, update.getDataSet().getDataCount());
+                } else {
+                    assertEquals("object", update.getTopic());
+                    assertEquals(i, update.getObject(TestData.class).index);
+                }
+            }
+            assertEquals(N_MESSAGES, pipeline.getMetrics().getMessageCount());
+            assertTrue(pipeline.getMetrics().getByteCount() > 0);
+            assertTrue(pipeline.getBatchCount() >= N_MESSAGES / 8);
+            assertEquals(0, pipeline.getErrorCount());
+            assertEquals(N_MESSAGES, pipeline.getLatency().getCount());
+            assertTrue(pipeline.getLatency().getMedian() > 0);
+            assertTrue(pipeline.getLatency().getPercentile(99) <= pipeline.getLatency().getMax());
+        }
+    }
+
+    @Test
+    void testHandlerFailure() throws InterruptedException {
+        final List<String> received = Collections.synchronizedList(new ArrayList<>());
+        try (SerialisationPipeline pipeline = new SerialisationPipeline(16, 2, 1000, batch -> {
+            for (final SerialisationPipeline.Message msg : batch) {
+                if ("failing".equals(msg.getTopic())) {
+                    throw new IllegalStateException("test failure");
+                }
+                received.add(msg.getTopic());
+            }
+        })) {
+            pipeline.setMaxBatchSize(1).start();
+            pipeline.publish("failing", new DoubleDataSet("test"));
+            for (int i = 0; i < 10; i++) {
+                pipeline.publish("topic#" + i, new DoubleDataSet("test#" + i));
+            }
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+            while (received.size() < 10 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // failure is counted and the pipeline continues to process the subsequent messages in order
+            assertEquals(1, pipeline.getErrorCount());
+            assertEquals(10, received.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals("topic#" + i, received.get(i));
+            }
+            assertEquals(11, pipeline.getBatchCount());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new SerialisationPipeline(0, 1, 1000, batch -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new SerialisationPipeline(16, 0, 1000, batch -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new SerialisationPipeline(16, 1, 1000, null));
+    }
+
+    @Test
+    void testLatencyStatistics() {
+        final LatencyStatistics stats = new LatencyStatistics(100);
+        assertEquals(0, stats.getMedian());
+        for (int i = 1; i <= 200; i++) {
+            stats.record(i);
+        }
+        assertEquals(200, stats.getCount());
+        // only the last 100 samples are retained
+        assertEquals(101, stats.getPercentile(0));
+        assertEquals(150, stats.getMedian());
+        assertEquals(199, stats.getPercentile(99));
+        assertEquals(200, stats.getMax());
+        assertNotNull(stats.toString());
+        assertThrows(IllegalArgumentException.class, () -> stats.getPercentile(101));
+        assertThrows(IllegalArgumentException.class, () -> stats.getPercentile(Double.NaN));
+        stats.reset();
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getMax());
+    }
+
+    static class TestData {
+        public int index;
+    }
+}
@@ -14,9 +14,11 @@ import de.gsi.serializer.IoClassSerialiser;
 import de.gsi.serializer.spi.BinarySerialiser;
 import de.gsi.serializer.spi.ByteBuffer;
 import de.gsi.serializer.spi.FastByteBuffer;
+import de.gsi.serializer.spi.iobuffer.DataSetJsonSerialiser;
 
 /**
  * Simple benchmark to verify that the in-place DataSet (de-)serialiser is not significantly slower than creating a new DataSet
+ * (jsonStreamingRoundTrip*: streaming JSON text representation for reference)
  *
  * Benchmark                                                                Mode  Cnt     Score     Error  Units
  * DataSetSerialiserBenchmark.serialiserRoundTripByteBufferInplace         thrpt   10  5971.023 ± 100.145  ops/s
@@ -32,9 +34,30 @@ public class DataSetSerialiserBenchmark {
     private static final IoClassSerialiser serialiserByteBuffer = new IoClassSerialiser(new ByteBuffer(200_000), BinarySerialiser.class);
     private static final DataSet srcDataSet = new DoubleDataSet(new GaussFunction("Gauss-function", 10_000));
     private static final DataSet copyDataSet = new DoubleDataSet(srcDataSet);
+    private static final DataSetJsonSerialiser jsonSerialiser = new DataSetJsonSerialiser(new FastByteBuffer(400_000));
     private static final TestClass source = new TestClass();
     private static final TestClass copy = new TestClass();
 
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void jsonStreamingRoundTripInplace(Blackhole blackhole) {
+        jsonSerialiser.getBuffer().reset(); // '0' writing at start of buffer
+        jsonSerialiser.write(srcDataSet, false);
+        jsonSerialiser.getBuffer().flip(); // reset to read position (==0)
+        blackhole.consume(jsonSerialiser.read(copyDataSet));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void jsonStreamingRoundTripNewDataSet(Blackhole blackhole) {
+        jsonSerialiser.getBuffer().reset(); // '0' writing at start of buffer
+        jsonSerialiser.write(srcDataSet, false);
+        jsonSerialiser.getBuffer().flip(); // reset to read position (==0)
+        blackhole.consume(jsonSerialiser.read());
+    }
+
     @Benchmark
     @Warmup(iterations = 1)
     @Fork(value = 2, warmups = 2)
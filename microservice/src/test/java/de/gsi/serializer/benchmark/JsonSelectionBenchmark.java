@@ -1,6 +1,7 @@
 package de.gsi.serializer.benchmark;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
@@ -21,7 +22,11 @@ import com.jsoniter.output.EncodingMode;
 import com.jsoniter.output.JsonStream;
 import com.jsoniter.spi.DecodingMode;
 
+import de.gsi.serializer.IoBuffer;
 import de.gsi.serializer.helper.TestDataClass;
+import de.gsi.serializer.spi.FastByteBuffer;
+import de.gsi.serializer.spi.JsonStreamReader;
+import de.gsi.serializer.spi.JsonStreamWriter;
 
 /**
  * simple benchmark to evaluate various JSON libraries.
@@ -30,6 +35,9 @@ import de.gsi.serializer.helper.TestDataClass;
  * testClassId 1: being a string-heavy test data class
  * testClassId 2: being a numeric-data-heavy test data class
  *
+ * doubleArrayJsonIter/doubleArrayStreaming compare the jsoniter-based double[] path (as used by JsonSerialiser) with the
+ * allocation-free JsonStreamWriter/JsonStreamReader writing to/parsing from the IoBuffer directly.
+ *
  * Benchmark                                   (testClassId)   Mode  Cnt      Score     Error  Units
  * JsonSelectionBenchmark.pojoFastJson          string-heavy  thrpt   10  12857.850 ± 109.050  ops/s
  * JsonSelectionBenchmark.pojoFastJson         numeric-heavy  thrpt   10     91.458 ±   0.437  ops/s
@@ -53,6 +61,10 @@ public class JsonSelectionBenchmark {
     private static final GsonBuilder builder = new GsonBuilder();
     private static final Gson gson = builder.create();
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final IoBuffer streamBuffer = new FastByteBuffer(300_000);
+    private static final JsonStreamWriter streamWriter = new JsonStreamWriter(streamBuffer);
+    private static final JsonStreamReader streamReader = new JsonStreamReader(streamBuffer);
+    private static double[] streamOutput = new double[0];
     private static boolean testIdentity = true;
     @Param({ INPUT_OBJECT_NAME_1, INPUT_OBJECT_NAME_2 })
     private String testClassId;
@@ -122,6 +134,34 @@ public class JsonSelectionBenchmark {
         blackhole.consume(outputPojo);
     }
 
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void doubleArrayJsonIter(Blackhole blackhole) {
+        JsonStream.setMode(EncodingMode.DYNAMIC_MODE);
+        JsonIterator.setMode(DecodingMode.DYNAMIC_MODE_AND_MATCH_FIELD_WITH_HASH);
+        final double[] input = getTestClass(testClassId).doubleArray;
+        final String serialisedData = JsonStream.serialize(input); // from double[] to JSON String
+        final double[] output = JsonIterator.deserialize(serialisedData, double[].class); // from JSON String to double[]
+        assert !testIdentity || Arrays.equals(input, output);
+        blackhole.consume(serialisedData);
+        blackhole.consume(output);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Fork(value = 2, warmups = 2)
+    public void doubleArrayStreaming(Blackhole blackhole) {
+        final double[] input = getTestClass(testClassId).doubleArray;
+        streamBuffer.reset();
+        streamWriter.reset().value(input, input.length); // from double[] to JSON bytes
+        streamBuffer.flip();
+        streamOutput = streamReader.readDoubleArray(streamOutput); // from JSON bytes to (re-used) double[]
+        assert !testIdentity || Arrays.equals(input, streamOutput);
+        blackhole.consume(streamBuffer);
+        blackhole.consume(streamOutput);
+    }
+
     private static TestDataClass getTestClass(final String arg) {
         return INPUT_OBJECT_NAME_1.equals(arg) ? inputObject1 : inputObject2;
     }
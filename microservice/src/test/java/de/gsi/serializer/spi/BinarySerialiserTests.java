@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.lang.reflect.InvocationTargetException;
@@ -26,6 +27,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import de.gsi.dataset.utils.AssertUtils;
 import de.gsi.serializer.DataType;
+import de.gsi.serializer.FieldDescription;
 import de.gsi.serializer.IoBuffer;
 import de.gsi.serializer.spi.helper.MyGenericClass;
 
@@ -683,6 +685,98 @@ class BinarySerialiserTests {
         // objectRoot.printFieldStructure();
     }
 
+    @DisplayName("same-named fields in different nested objects with field index")
+    @ParameterizedTest(name = "IoBuffer class - {0}")
+    @ValueSource(classes = { ByteBuffer.class, FastByteBuffer.class })
+    void testFieldIndexWithDuplicateFieldNames(final Class<? extends IoBuffer> bufferClass) throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+        final IoBuffer buffer = bufferClass.getConstructor(int.class).newInstance(2 * BUFFER_SIZE);
+        final BinarySerialiser ioSerialiser = new BinarySerialiser(buffer);
+
+        ioSerialiser.putHeaderInfo();
+        for (int i = 1; i <= 2; i++) {
+            final String nestedName = "nested" + i;
+            final WireDataFieldDescription nestedMarker = new WireDataFieldDescription(ioSerialiser, null, nestedName.hashCode(), nestedName, DataType.START_MARKER, -1, -1, -1);
+            ioSerialiser.putStartMarker(nestedMarker);
+            ioSerialiser.put("value", 10 * i);
+            ioSerialiser.putEndMarker(nestedMarker);
+        }
+        final String dataEndMarkerName = "Life is good!";
+        final WireDataFieldDescription dataEndMarker = new WireDataFieldDescription(ioSerialiser, null, dataEndMarkerName.hashCode(), dataEndMarkerName, DataType.START_MARKER, -1, -1, -1);
+        ioSerialiser.putEndMarker(dataEndMarker);
+        ioSerialiser.putFieldIndex();
+        buffer.flip();
+        assertTrue(ioSerialiser.hasFieldIndex());
+
+        final WireDataFieldDescription objectRoot = ioSerialiser.parseIoStream(true);
+        final FieldDescription root = objectRoot.getChildren().get(0);
+        for (int i = 1; i <= 2; i++) {
+            final FieldDescription nested = root.findChildField("nested" + i);
+            assertNotNull(nested, "nested" + i);
+            final WireDataFieldDescription value = (WireDataFieldDescription) nested.findChildField("value");
+            assertNotNull(value);
+            // explicit data start position takes precedence over the (first-match) index look-up
+            assertEquals(10 * i, value.data());
+        }
+    }
+
+    @DisplayName("trailing field index tests")
+    @ParameterizedTest(name = "IoBuffer class - {0}")
+    @ValueSource(classes = { ByteBuffer.class, FastByteBuffer.class })
+    void testFieldIndex(final Class<? extends IoBuffer> bufferClass) throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+        assertNotNull(bufferClass, "bufferClass being not null");
+        final IoBuffer buffer = bufferClass.getConstructor(int.class).newInstance(2 * BUFFER_SIZE);
+        final BinarySerialiser ioSerialiser = new BinarySerialiser(buffer);
+
+        ioSerialiser.putHeaderInfo();
+        ioSerialiser.put("int", 42);
+        ioSerialiser.put("string", "string");
+        ioSerialiser.put("double[]", new double[] { 1.0, 2.0, 3.0 }, 3);
+        final String nestedContextName = "nested context";
+        final WireDataFieldDescription nestedContextMarker = new WireDataFieldDescription(ioSerialiser, null, nestedContextName.hashCode(), nestedContextName, DataType.START_MARKER, -1, -1, -1);
+        ioSerialiser.putStartMarker(nestedContextMarker);
+        ioSerialiser.put("nestedValues", new float[] { 4.0f, 5.0f }, 2);
+        ioSerialiser.putEndMarker(nestedContextMarker);
+        final String dataEndMarkerName = "Life is good!";
+        final WireDataFieldDescription dataEndMarker = new WireDataFieldDescription(ioSerialiser, null, dataEndMarkerName.hashCode(), dataEndMarkerName, DataType.START_MARKER, -1, -1, -1);
+        ioSerialiser.putEndMarker(dataEndMarker);
+        final int endOfData = buffer.position();
+        ioSerialiser.putFieldIndex();
+
+        buffer.flip();
+        assertTrue(ioSerialiser.hasFieldIndex());
+
+        // random-access look-up of individual fields
+        final WireDataFieldDescription nestedField = ioSerialiser.findIndexedField("nestedValues");
+        assertNotNull(nestedField);
+        assertEquals(DataType.FLOAT_ARRAY, nestedField.getDataType());
+        assertEquals(nestedField.getDataStartPosition(), buffer.position());
+        assertArrayEquals(new float[] { 4.0f, 5.0f }, ioSerialiser.getFloatArray());
+
+        assertNotNull(ioSerialiser.findIndexedField("double[]"));
+        assertArrayEquals(new double[] { 1.0, 2.0, 3.0 }, ioSerialiser.getDoubleArray());
+
+        ioSerialiser.setQueryFieldName("int", -1);
+        assertEquals(42, ioSerialiser.getInt());
+        assertThrows(IllegalArgumentException.class, () -> ioSerialiser.setQueryFieldName("unknown field", -1));
+        assertEquals(null, ioSerialiser.findIndexedField("unknown field"));
+
+        final List<WireDataFieldDescription> index = ioSerialiser.getFieldIndex();
+        assertEquals(6, index.size(), "root start marker, 3 fields, nested start marker, 1 nested field");
+        assertEquals(DataType.START_MARKER, index.get(0).getDataType());
+        assertEquals(nestedContextName, index.get(4).getFieldName());
+
+        // readers ignoring the index must still be able to parse the stream
+        buffer.position(0);
+        assertNotNull(ioSerialiser.parseIoStream(true));
+        assertTrue(buffer.position() <= endOfData);
+
+        // no index present
+        buffer.limit(endOfData);
+        assertFalse(ioSerialiser.hasFieldIndex());
+        assertTrue(ioSerialiser.getFieldIndex().isEmpty());
+        assertEquals(null, ioSerialiser.findIndexedField("int"));
+    }
+
     @DisplayName("test getGenericArrayAsBoxedPrimitive(...) helper method")
     @ParameterizedTest(name = "IoBuffer class - {0}")
     @ValueSource(classes = { ByteBuffer.class, FastByteBuffer.class })
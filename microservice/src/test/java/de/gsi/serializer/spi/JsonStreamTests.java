@@ -0,0 +1,152 @@
+package de.gsi.serializer.spi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.gsi.serializer.IoBuffer;
+
+/**
+ * Tests for the {@link JsonStreamWriter} and {@link JsonStreamReader}
+ */
+class JsonStreamTests {
+    private static final int N_SAMPLES = 1000;
+
+    @Test
+    void testArrayRoundTrip() {
+        final Random random = new Random(42);
+        final double[] doubles = new double[N_SAMPLES];
+        final float[] floats = new float[N_SAMPLES];
+        final int[] ints = new int[N_SAMPLES];
+        final long[] longs = new long[N_SAMPLES];
+        for (int i = 0; i < N_SAMPLES; i++) {
+            doubles[i] = random.nextGaussian() * Math.pow(10, random.nextInt(20) - 10);
+            floats[i] = (float) random.nextGaussian();
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+        }
+        final IoBuffer buffer = new FastByteBuffer(100); // N.B. needs to grow
+        new JsonStreamWriter(buffer).beginObject() //
+                .put("doubles", doubles, N_SAMPLES) //
+                .put("floats", floats, N_SAMPLES) //
+                .put("ints", ints, N_SAMPLES) //
+                .put("longs", longs, N_SAMPLES) //
+                .put("partial", doubles, 3) //
+                .put("empty", new double[0], 0) //
+                .endObject();
+        buffer.flip();
+
+        final double[] reused = new double[N_SAMPLES];
+        final JsonStreamReader reader = new JsonStreamReader(buffer).beginObject();
+        assertEquals("doubles", reader.nextName());
+        assertSame(reused, reader.readDoubleArray(reused));
+        assertArrayEquals(doubles, reused);
+        assertTrue(reader.hasNext());
+        assertEquals("floats", reader.nextName());
+        assertArrayEquals(floats, reader.readFloatArray(null));
+        assertTrue(reader.hasNext());
+        assertEquals("ints", reader.nextName());
+        assertArrayEquals(ints, reader.readIntArray(null));
+        assertTrue(reader.hasNext());
+        assertEquals("longs", reader.nextName());
+        assertArrayEquals(longs, reader.readLongArray(new long[1]));
+        assertTrue(reader.hasNext());
+        assertEquals("partial", reader.nextName());
+        assertArrayEquals(new double[] { doubles[0], doubles[1], doubles[2] }, reader.readDoubleArray(reused));
+        assertTrue(reader.hasNext());
+        assertEquals("empty", reader.nextName());
+        assertEquals(0, reader.readDoubleArray(null).length);
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    @Test
+    void testScalarRoundTrip() {
+        final IoBuffer buffer = new FastByteBuffer(1000);
+        final JsonStreamWriter writer = new JsonStreamWriter(buffer);
+        writer.beginObject() //
+                .put("string", "a \"quoted\" \\ string\nwith\tcontrol \u0001 and unicode ä€😀") //
+                .put("null", (String) null) //
+                .put("double", 0.1) //
+                .put("float", 0.1f) //
+                .put("long", Long.MIN_VALUE) //
+                .put("true", true) //
+                .put("false", false) //
+                .put("nan", Double.NaN) //
+                .name("nested").beginObject().put("a", 1).name("b").beginArray().value("x").value(2).endArray().endObject() //
+                .put("last", -1)
+                .endObject();
+        buffer.flip();
+        final String text = new String(buffer.elements(), 0, buffer.limit(), StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("{\"string\":\"a \\\"quoted\\\" \\\\ string\\nwith\\tcontrol \\u0001"), text);
+        assertTrue(text.contains("\"double\":0.1,\"float\":0.1,"), text);
+        assertTrue(text.contains("\"nan\":null,"), text);
+
+        final JsonStreamReader reader = new JsonStreamReader(buffer).beginObject();
+        assertEquals("string", reader.nextName());
+        assertEquals("a \"quoted\" \\ string\nwith\tcontrol \u0001 and unicode ä€😀", reader.readString());
+        assertTrue(reader.hasNext());
+        assertEquals("null", reader.nextName());
+        assertTrue(reader.isNull());
+        assertNull(reader.readString());
+        assertTrue(reader.hasNext());
+        assertEquals("double", reader.nextName());
+        assertEquals(0.1, reader.readDouble());
+        assertTrue(reader.hasNext());
+        assertEquals("float", reader.nextName());
+        assertEquals(0.1f, reader.readFloat());
+        assertTrue(reader.hasNext());
+        assertEquals("long", reader.nextName());
+        assertEquals(Long.MIN_VALUE, reader.readLong());
+        assertTrue(reader.hasNext());
+        assertEquals("true", reader.nextName());
+        assertTrue(reader.readBoolean());
+        assertTrue(reader.hasNext());
+        assertEquals("false", reader.nextName());
+        assertFalse(reader.readBoolean());
+        assertTrue(reader.hasNext());
+        assertEquals("nan", reader.nextName());
+        assertTrue(Double.isNaN(reader.readDouble()));
+        assertTrue(reader.hasNext());
+        assertEquals("nested", reader.nextName());
+        reader.skipValue();
+        assertTrue(reader.hasNext());
+        assertEquals("last", reader.nextName());
+        assertEquals(-1, reader.readInt());
+        assertFalse(reader.hasNext());
+        reader.endObject();
+    }
+
+    @ParameterizedTest(name = "text - {0}")
+    @ValueSource(strings = { " { \"a\" : [ 1 , 2.5 ,-3e2 ] , \"b\" : { \"c\" : [ \"}\" , { } ] } } ", "{\"a\":[1,2.5,-3E+2],\"b\":{\"c\":[\"\\\"}\",{}]}}" })
+    void testWhiteSpaceAndSkipping(final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        final IoBuffer buffer = new FastByteBuffer(Arrays.copyOf(bytes, bytes.length + 1), bytes.length); // N.B. position must stay below capacity
+        final JsonStreamReader reader = new JsonStreamReader(buffer).beginObject();
+        assertEquals("a", reader.nextName());
+        assertArrayEquals(new double[] { 1, 2.5, -300 }, reader.readDoubleArray(null));
+        assertTrue(reader.hasNext());
+        assertEquals("b", reader.nextName());
+        reader.skipValue();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+    }
+
+    @Test
+    void testInvalidInput() {
+        final byte[] bytes = "{\"a\":[1,2".getBytes(StandardCharsets.UTF_8);
+        final JsonStreamReader reader = new JsonStreamReader(new FastByteBuffer(bytes, bytes.length)).beginObject();
+        assertEquals("a", reader.nextName());
+        assertThrows(IllegalStateException.class, () -> reader.readDoubleArray(null));
+        assertThrows(IllegalStateException.class, reader::beginObject);
+        assertThrows(IllegalArgumentException.class, () -> new JsonStreamWriter(new FastByteBuffer(10)).value(new double[2], 3));
+        assertThrows(IllegalArgumentException.class, () -> new JsonStreamReader(null));
+    }
+}
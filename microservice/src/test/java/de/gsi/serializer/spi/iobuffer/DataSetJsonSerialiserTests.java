@@ -0,0 +1,121 @@
+package de.gsi.serializer.spi.iobuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.gsi.dataset.DataSet;
+import de.gsi.dataset.DataSetError;
+import de.gsi.dataset.DataSetMetaData;
+import de.gsi.dataset.spi.DoubleDataSet;
+import de.gsi.dataset.spi.DoubleErrorDataSet;
+import de.gsi.dataset.testdata.spi.GaussFunction;
+import de.gsi.serializer.IoBuffer;
+import de.gsi.serializer.spi.FastByteBuffer;
+
+/**
+ * Tests for the streaming JSON {@link DataSetJsonSerialiser}
+ */
+class DataSetJsonSerialiserTests {
+    private static final int N_SAMPLES = 1001;
+
+    @ParameterizedTest(name = "asFloat - {0}")
+    @ValueSource(booleans = { false, true })
+    void testErrorDataSetRoundTrip(final boolean asFloat) {
+        final DoubleErrorDataSet original = new DoubleErrorDataSet(new GaussFunction("gauss", N_SAMPLES));
+        original.getAxisDescription(DataSet.DIM_X).set("time", "s");
+        original.getInfoList().add("info");
+        original.getWarningList().add("warning \"quoted\"");
+        original.getMetaInfo().put("key", "value");
+        for (int i = 0; i < N_SAMPLES; i++) {
+            original.set(i, original.getX(i), original.getY(i), 0.1 * i, 0.2 * i);
+        }
+
+        final IoBuffer buffer = new FastByteBuffer(1000);
+        final DataSetJsonSerialiser serialiser = new DataSetJsonSerialiser(buffer);
+        serialiser.write(original, asFloat);
+        buffer.flip();
+        final DataSet restored = serialiser.read();
+
+        assertEquals(original.getName(), restored.getName());
+        assertEquals(original.getDimension(), restored.getDimension());
+        assertEquals(N_SAMPLES, restored.getDataCount());
+        assertEquals("time", restored.getAxisDescription(DataSet.DIM_X).getName());
+        assertEquals("s", restored.getAxisDescription(DataSet.DIM_X).getUnit());
+        assertEquals(original.getAxisDescription(DataSet.DIM_Y).getMax(), restored.getAxisDescription(DataSet.DIM_Y).getMax());
+        for (int dim = 0; dim < original.getDimension(); dim++) {
+            final double[] expected = Arrays.copyOf(original.getValues(dim), N_SAMPLES);
+            final double[] actual = Arrays.copyOf(restored.getValues(dim), N_SAMPLES);
+            if (asFloat) {
+                for (int i = 0; i < N_SAMPLES; i++) {
+                    assertEquals((float) expected[i], (float) actual[i]);
+                }
+            } else {
+                assertArrayEquals(expected, actual);
+            }
+        }
+        assertTrue(restored instanceof DataSetError);
+        assertEquals(0.2 * 10, ((DataSetError) restored).getErrorPositive(DataSet.DIM_Y, 10), asFloat ? 1e-6 : 0.0);
+        assertEquals(0.1 * 10, ((DataSetError) restored).getErrorNegative(DataSet.DIM_Y, 10), asFloat ? 1e-6 : 0.0);
+        assertTrue(restored instanceof DataSetMetaData);
+        assertEquals(original.getInfoList(), ((DataSetMetaData) restored).getInfoList());
+        assertEquals(original.getWarningList(), ((DataSetMetaData) restored).getWarningList());
+        assertEquals("value", ((DataSetMetaData) restored).getMetaInfo().get("key"));
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    @ParameterizedTest(name = "nonFiniteTokens - {0}")
+    @ValueSource(booleans = { false, true })
+    void testNonFiniteValues(final boolean nonFiniteTokens) {
+        final DoubleDataSet original = new DoubleDataSet("gaps", new double[] { 0, 1, 2, 3 }, new double[] { 1.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY }, 4, true);
+        final IoBuffer buffer = new FastByteBuffer(1000);
+        final DataSetJsonSerialiser serialiser = new DataSetJsonSerialiser(buffer).setMetaDataSerialised(false);
+        assertFalse(serialiser.isNonFiniteTokens());
+        serialiser.setNonFiniteTokens(nonFiniteTokens);
+        assertEquals(nonFiniteTokens, serialiser.isNonFiniteTokens());
+        serialiser.write(original, false);
+        buffer.flip();
+
+        final String text = new String(buffer.elements(), 0, buffer.limit(), StandardCharsets.UTF_8);
+        if (nonFiniteTokens) {
+            assertTrue(text.contains("[1.0,NaN,Infinity,-Infinity]"), text);
+        } else {
+            // valid JSON: non-finite values are written as null
+            assertTrue(text.contains("[1.0,null,null,null]"), text);
+            assertFalse(text.contains("NaN") || text.contains("Infinity"), text);
+        }
+
+        final DataSet restored = serialiser.read();
+        assertEquals(1.0, restored.get(DataSet.DIM_Y, 0));
+        assertTrue(Double.isNaN(restored.get(DataSet.DIM_Y, 1)));
+        if (nonFiniteTokens) {
+            assertEquals(Double.POSITIVE_INFINITY, restored.get(DataSet.DIM_Y, 2));
+            assertEquals(Double.NEGATIVE_INFINITY, restored.get(DataSet.DIM_Y, 3));
+        } else {
+            assertTrue(Double.isNaN(restored.get(DataSet.DIM_Y, 2)));
+            assertTrue(Double.isNaN(restored.get(DataSet.DIM_Y, 3)));
+        }
+    }
+
+    @Test
+    void testInPlaceUpdate() {
+        final DoubleDataSet original = new DoubleDataSet(new GaussFunction("gauss", N_SAMPLES));
+        final IoBuffer buffer = new FastByteBuffer(1000);
+        final DataSetJsonSerialiser serialiser = new DataSetJsonSerialiser(buffer).setMetaDataSerialised(false);
+        assertFalse(serialiser.isMetaDataSerialised());
+        serialiser.write(original, false);
+        buffer.flip();
+
+        final DoubleDataSet target = new DoubleDataSet("target");
+        final DataSet restored = serialiser.read(target);
+        assertSame(target, restored);
+        assertEquals("gauss", target.getName());
+        assertArrayEquals(Arrays.copyOf(original.getYValues(), N_SAMPLES), Arrays.copyOf(target.getYValues(), N_SAMPLES));
+        assertThrows(IllegalArgumentException.class, () -> serialiser.write(null, false));
+    }
+}
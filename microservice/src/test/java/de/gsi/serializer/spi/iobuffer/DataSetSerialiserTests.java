@@ -230,6 +230,53 @@ class DataSetSerialiserTests {
         assertEquals(original, restored);
     }
 
+    @ParameterizedTest(name = "IoBuffer class - {0}")
+    @ValueSource(classes = { ByteBuffer.class, FastByteBuffer.class })
+    void testLossyEncodings(final Class<? extends IoBuffer> bufferClass) throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+        assertNotNull(bufferClass, "bufferClass being not null");
+        final IoBuffer buffer = bufferClass.getConstructor(int.class).newInstance(10 * BUFFER_SIZE);
+        final DoubleErrorDataSet original = new DoubleErrorDataSet(new TriangleFunction("test", 1009));
+
+        final DataSetSerialiser ioSerialiser = DataSetSerialiser.withIoSerialiser(new BinarySerialiser(buffer));
+        ioSerialiser.write(original, false);
+        final int defaultSize = buffer.position();
+
+        buffer.reset();
+        assertEquals(DataSetSerialiser.Encoding.DEFAULT, ioSerialiser.getEncoding(0));
+        ioSerialiser.setEncoding(0, DataSetSerialiser.Encoding.DELTA_VARINT, 1e-6).setEncoding(1, DataSetSerialiser.Encoding.QUANTISED_INT16);
+        assertEquals(DataSetSerialiser.Encoding.DELTA_VARINT, ioSerialiser.getEncoding(0));
+        assertEquals(1e-6, ioSerialiser.getEncodingResolution(0));
+        ioSerialiser.write(original, false);
+        final int encodedSize = buffer.position();
+        assertTrue(encodedSize < defaultSize, "encoded size " + encodedSize + " vs. default " + defaultSize);
+
+        buffer.reset(); // reset to read position (==0)
+        final DataSet restored = ioSerialiser.read();
+        assertEquals(original.getDataCount(), restored.getDataCount());
+        final double yRange = original.getAxisDescription(1).getMax() - original.getAxisDescription(1).getMin();
+        for (int i = 0; i < original.getDataCount(); i++) {
+            assertEquals(original.get(0, i), restored.get(0, i), 1e-6, "x-value at index " + i);
+            assertEquals(original.get(1, i), restored.get(1, i), yRange / (2.0 * Short.MAX_VALUE), "y-value at index " + i);
+            assertEquals(original.getErrorNegative(1, i), ((DataSetError) restored).getErrorNegative(1, i), "y-error at index " + i);
+        }
+
+        // 32-bit quantisation and non-finite fallback
+        buffer.reset();
+        original.set(10, 10.0, Double.NaN);
+        ioSerialiser.setEncoding(0, DataSetSerialiser.Encoding.QUANTISED_INT32).setEncoding(1, DataSetSerialiser.Encoding.QUANTISED_INT32);
+        ioSerialiser.write(original, false);
+        buffer.reset();
+        final DataSet restored2 = ioSerialiser.read();
+        final double xRange = original.getAxisDescription(0).getMax() - original.getAxisDescription(0).getMin();
+        for (int i = 0; i < original.getDataCount(); i++) {
+            assertEquals(original.get(0, i), restored2.get(0, i), xRange / (2.0 * Integer.MAX_VALUE), "x-value at index " + i);
+        }
+        assertTrue(Double.isNaN(restored2.get(1, 10)));
+
+        assertThrows(IllegalArgumentException.class, () -> ioSerialiser.setEncoding(-1, DataSetSerialiser.Encoding.DEFAULT));
+        assertThrows(IllegalArgumentException.class, () -> ioSerialiser.setEncoding(0, null));
+    }
+
     @ParameterizedTest(name = "IoBuffer class - {0}")
     @ValueSource(classes = { ByteBuffer.class, FastByteBuffer.class })
     void testGenericSerialiserIdentity(final Class<? extends IoBuffer> bufferClass) throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
@@ -0,0 +1,131 @@
+package de.gsi.serializer.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests for the shortest round-trip number formatting and parsing of {@link JsonNumbers}
+ */
+class JsonNumbersTests {
+    private static final int N_SAMPLES = 200_000;
+
+    @ParameterizedTest(name = "value - {0}")
+    @ValueSource(doubles = { 0.0, -0.0, 1.0, -1.0, 0.1, 0.3, 100.0, 1e7, 1e-3, 9.999e-4, 1234567.0, 12345678.0, 123456.789, 1e22, Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY })
+    void testDoubleEdgeCases(final double value) {
+        final String text = toString(value);
+        // N.B. these values are rendered identical to the JDK reference implementation
+        assertEquals(Double.toString(value), text);
+        final byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(Double.doubleToLongBits(value), Double.doubleToLongBits(JsonNumbers.parseDouble(bytes, 0, bytes.length)));
+    }
+
+    @Test
+    void testDoubleRoundTrip() {
+        final Random random = new Random(42);
+        for (int i = 0; i < N_SAMPLES; i++) {
+            final double value = i % 2 == 0 ? Double.longBitsToDouble(random.nextLong()) : random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            final String text = toString(value);
+            assertEquals(value, Double.parseDouble(text), text);
+            final byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+            assertEquals(value, JsonNumbers.parseDouble(bytes, 0, bytes.length), text);
+            if (i % 100 == 0) {
+                assertTrue(significantDigits(text) <= Math.max(2, shortestDigits(value)), "not shortest: " + text);
+            }
+        }
+    }
+
+    @Test
+    void testDoubleShortest() {
+        // N.B. JDK 11 renders the first as '9.999999999999999E22'
+        assertEquals("1.0E23", toString(1e23));
+        assertEquals("0.002", toString(0.002));
+        assertEquals("1.0E-5", toString(1e-5));
+    }
+
+    @Test
+    void testFloatRoundTrip() {
+        final Random random = new Random(42);
+        final byte[] buffer = new byte[JsonNumbers.MAX_FLOAT_LENGTH];
+        for (int i = 0; i < N_SAMPLES; i++) {
+            final float value = Float.intBitsToFloat(random.nextInt());
+            if (Float.isNaN(value)) {
+                continue;
+            }
+            final int length = JsonNumbers.writeFloat(buffer, 0, value);
+            final String text = new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+            assertEquals(value, Float.parseFloat(text), text);
+            assertEquals(value, (float) JsonNumbers.parseDouble(buffer, 0, length), text);
+        }
+        final int length = JsonNumbers.writeFloat(buffer, 0, 0.1f);
+        assertEquals("0.1", new String(buffer, 0, length, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void testLong() {
+        final byte[] buffer = new byte[JsonNumbers.MAX_LONG_LENGTH];
+        for (final long value : new long[] { 0, 1, -1, 9, 10, 1234567890L, Long.MAX_VALUE, Long.MIN_VALUE }) {
+            final int length = JsonNumbers.writeLong(buffer, 0, value);
+            assertEquals(Long.toString(value), new String(buffer, 0, length, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    @ParameterizedTest(name = "text - {0}")
+    @ValueSource(strings = { "0", "-0", "1", "+1", "0.5", ".5", "1.", "1e5", "1E+5", "2.5e-3", "12345678901234567890123", "0.000000000000000000000000000001", "1e-400", "-1e400", "4.9e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "1.7976931348623157e308",
+                             "9007199254740993", "7.2057594037927933e16", "NaN", "Infinity", "-Infinity" })
+    void testParsing(final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(Double.doubleToLongBits(Double.parseDouble(text)), Double.doubleToLongBits(JsonNumbers.parseDouble(bytes, 0, bytes.length)));
+    }
+
+    @Test
+    void testParsingRandomDecimals() {
+        final Random random = new Random(42);
+        for (int i = 0; i < N_SAMPLES; i++) {
+            final String text = (random.nextBoolean() ? "-" : "") + ((random.nextLong() & Long.MAX_VALUE) >>> random.nextInt(64)) //
+                              + (random.nextBoolean() ? "." + ((random.nextLong() & Long.MAX_VALUE) >>> random.nextInt(64)) : "") //
+                              + (random.nextBoolean() ? "e" + (random.nextInt(700) - 350) : "");
+            final byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(text)), Double.doubleToLongBits(JsonNumbers.parseDouble(bytes, 0, bytes.length)), text);
+        }
+    }
+
+    @ParameterizedTest(name = "text - {0}")
+    @ValueSource(strings = { "", "-", "e5", "1e", "1x", "1.2.3", "Nan", "--1" })
+    void testParsingInvalid(final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        assertThrows(NumberFormatException.class, () -> JsonNumbers.parseDouble(bytes, 0, bytes.length));
+    }
+
+    private static int shortestDigits(final double value) {
+        final BigDecimal exact = new BigDecimal(value);
+        for (int precision = 1; precision < 17; precision++) {
+            if (Double.parseDouble(exact.round(new MathContext(precision, RoundingMode.HALF_EVEN)).toString()) == value) {
+                return precision;
+            }
+        }
+        return 17;
+    }
+
+    private static int significantDigits(final String text) {
+        final String mantissa = text.replace("-", "").split("E")[0].replace(".", "").replaceFirst("^0+", "").replaceFirst("0+$", "");
+        return Math.max(1, mantissa.length());
+    }
+
+    private static String toString(final double value) {
+        final byte[] buffer = new byte[JsonNumbers.MAX_DOUBLE_LENGTH];
+        final int length = JsonNumbers.writeDouble(buffer, 0, value);
+        return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}